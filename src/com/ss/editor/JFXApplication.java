@@ -12,6 +12,7 @@ import com.ss.editor.annotation.FromAnyThread;
 import com.ss.editor.config.CommandLineConfig;
 import com.ss.editor.config.Config;
 import com.ss.editor.config.EditorConfig;
+import com.ss.editor.executor.TaskPriority;
 import com.ss.editor.executor.impl.EditorThreadExecutor;
 import com.ss.editor.manager.ExecutorManager;
 import com.ss.editor.manager.JMEFilePreviewManager;
@@ -216,7 +217,7 @@ public class JFXApplication extends Application {
                 GAEvent.Action.LAUNCHED, GAEvent.Label.THE_EDITOR_APP_WAS_LAUNCHED);
 
         final ExecutorManager executorManager = ExecutorManager.getInstance();
-        executorManager.addBackgroundTask(new CheckNewVersionTask());
+        executorManager.addBackgroundTask(new CheckNewVersionTask(), TaskPriority.BULK);
 
         final EditorConfig editorConfig = EditorConfig.getInstance();
         if (editorConfig.isAnalyticsQuestion()) return;
@@ -26,6 +26,9 @@ public class Messages {
     public static final String EDITOR_BAR_SETTINGS;
     public static final String EDITOR_TOOL_ASSET;
 
+    public static final String ASSET_COMPONENT_BAR_SEARCH;
+    public static final String ASSET_COMPONENT_BAR_CANCEL_PREVIEWS;
+    public static final String ASSET_COMPONENT_BAR_PREVIEWS_SKIPPED;
     public static final String ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_NEW_FILE;
     public static final String ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_OPEN_FILE;
     public static final String ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_OPEN_WITH_FILE;
@@ -35,6 +38,7 @@ public class Messages {
     public static final String ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_DELETE_FILE;
     public static final String ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_DELETE_FILE_QUESTION;
     public static final String ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_CONVERT_FILE;
+    public static final String ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_GENERATE_PREVIEWS;
     public static final String ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_OPEN_FILE_BY_EXTERNAL_EDITOR;
     public static final String ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_RENAME_FILE;
 
@@ -604,6 +608,9 @@ public class Messages {
         EDITOR_BAR_SETTINGS = bundle.getString("EditorBarComponent.settings");
         EDITOR_TOOL_ASSET = bundle.getString("EditorToolAsset");
 
+        ASSET_COMPONENT_BAR_SEARCH = bundle.getString("AssetComponentBarSearch");
+        ASSET_COMPONENT_BAR_CANCEL_PREVIEWS = bundle.getString("AssetComponentBarCancelPreviews");
+        ASSET_COMPONENT_BAR_PREVIEWS_SKIPPED = bundle.getString("AssetComponentBarPreviewsSkipped");
         ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_NEW_FILE = bundle.getString("AssetComponentResourceTreeContextMenuNewFile");
         ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_OPEN_FILE = bundle.getString("AssetComponentResourceTreeContextMenuOpenFile");
         ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_OPEN_WITH_FILE = bundle.getString("AssetComponentResourceTreeContextMenuOpenWithFile");
@@ -613,6 +620,7 @@ public class Messages {
         ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_DELETE_FILE = bundle.getString("AssetComponentResourceTreeContextMenuDeleteFile");
         ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_DELETE_FILE_QUESTION = bundle.getString("AssetComponentResourceTreeContextMenuDeleteFileQuestion");
         ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_CONVERT_FILE = bundle.getString("AssetComponentResourceTreeContextMenuConvertFile");
+        ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_GENERATE_PREVIEWS = bundle.getString("AssetComponentResourceTreeContextMenuGeneratePreviews");
         ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_OPEN_FILE_BY_EXTERNAL_EDITOR = bundle.getString("AssetComponentResourceTreeContextMenuOpenFileByExternalEditor");
         ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_RENAME_FILE = bundle.getString("AssetComponentResourceTreeContextMenuRenameFile");
 
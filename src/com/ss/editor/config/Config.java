@@ -58,6 +58,36 @@ public abstract class Config {
      */
     public static final boolean ENABLE_PBR;
 
+    /**
+     * The time budget of executing editor thread tasks per frame in milliseconds, 0 to disable it.
+     */
+    public static final float EDITOR_THREAD_FRAME_BUDGET;
+
+    /**
+     * Flag is for posting tasks to the FX UI Thread without waiting for their completion.
+     */
+    public static final boolean ASYNC_FX_DISPATCH;
+
+    /**
+     * Flag is for indexing assets which are referenced from materials to search them.
+     */
+    public static final boolean INDEX_MATERIAL_CONTENTS;
+
+    /**
+     * The max size of previews of images in memory in megabytes.
+     */
+    public static final int PREVIEW_MEMORY_CACHE_SIZE;
+
+    /**
+     * The max size of the preview cache folder in megabytes.
+     */
+    public static final int PREVIEW_DISK_CACHE_SIZE;
+
+    /**
+     * The count of frames between batch renders of previews.
+     */
+    public static final int PREVIEW_BATCH_FRAME_INTERVAL;
+
     static {
 
         final GraphicsEnvironment graphicsEnvironment = GraphicsEnvironment.getLocalGraphicsEnvironment();
@@ -68,6 +98,12 @@ public abstract class Config {
         DEV_DEBUG = vars.getBoolean("Dev.debug", false);
         DEV_DEBUG_JFX = vars.getBoolean("Dev.debugJFX", false);
         ENABLE_PBR = vars.getBoolean("Graphics.enablePBR", true);
+        EDITOR_THREAD_FRAME_BUDGET = vars.getFloat("Editor.frameBudget", 4F);
+        ASYNC_FX_DISPATCH = vars.getBoolean("Editor.asyncFXDispatch", true);
+        INDEX_MATERIAL_CONTENTS = vars.getBoolean("Editor.indexMaterialContents", true);
+        PREVIEW_MEMORY_CACHE_SIZE = vars.getInteger("Editor.previewMemoryCacheSize", 64);
+        PREVIEW_DISK_CACHE_SIZE = vars.getInteger("Editor.previewDiskCacheSize", 512);
+        PREVIEW_BATCH_FRAME_INTERVAL = vars.getInteger("Editor.previewBatchFrameInterval", 10);
 
         GRAPHICS_DEVICE = device;
         OPERATING_SYSTEM = new OperatingSystem();
@@ -1,9 +1,11 @@
 package com.ss.editor.control.editing;
 
+import com.jme3.math.Ray;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.control.Control;
 import com.ss.editor.annotation.EditorThread;
+import com.ss.editor.util.EditingUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -23,6 +25,19 @@ public interface EditingControl extends Control {
         return null;
     }
 
+    /**
+     * Find a contact point of the ray with the edited model.
+     *
+     * @param ray   the ray.
+     * @param store the vector to store the contact point.
+     * @return true if the contact point was found.
+     */
+    @EditorThread
+    default boolean findContactPoint(@NotNull final Ray ray, @NotNull final Vector3f store) {
+        final Spatial editedModel = getEditedModel();
+        return editedModel != null && EditingUtils.findContactPoint(editedModel, ray, store);
+    }
+
     /**
      * Start editing.
      *
@@ -0,0 +1,21 @@
+package com.ss.editor.executor;
+
+/**
+ * The enum with lanes of tasks for the editor thread, from the most important to the least important.
+ *
+ * @author JavaSaBr
+ */
+public enum EditorTaskLane {
+    /**
+     * Tasks which react to user input.
+     */
+    INPUT,
+    /**
+     * Tasks which change a scene.
+     */
+    SCENE,
+    /**
+     * Tasks which can wait some frames, like previews.
+     */
+    DEFERRED,
+}
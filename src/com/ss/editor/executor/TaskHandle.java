@@ -0,0 +1,83 @@
+package com.ss.editor.executor;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The handle of a submitted background task to check its state or to cancel it.
+ *
+ * @author JavaSaBr
+ */
+public class TaskHandle implements Runnable {
+
+    private static final int STATE_WAITING = 0;
+    private static final int STATE_RUNNING = 1;
+    private static final int STATE_DONE = 2;
+    private static final int STATE_CANCELLED = 3;
+
+    /**
+     * The task.
+     */
+    @NotNull
+    private final Runnable task;
+
+    /**
+     * The priority of the task.
+     */
+    @NotNull
+    private final TaskPriority priority;
+
+    /**
+     * The state of the task.
+     */
+    @NotNull
+    private final AtomicInteger state;
+
+    public TaskHandle(@NotNull final Runnable task, @NotNull final TaskPriority priority) {
+        this.task = task;
+        this.priority = priority;
+        this.state = new AtomicInteger(STATE_WAITING);
+    }
+
+    @Override
+    public void run() {
+        if (!state.compareAndSet(STATE_WAITING, STATE_RUNNING)) return;
+        try {
+            task.run();
+        } finally {
+            state.set(STATE_DONE);
+        }
+    }
+
+    /**
+     * Cancel the task if it isn't started yet.
+     *
+     * @return true if the task was cancelled.
+     */
+    public boolean cancel() {
+        return state.compareAndSet(STATE_WAITING, STATE_CANCELLED);
+    }
+
+    /**
+     * @return true if the task was cancelled.
+     */
+    public boolean isCancelled() {
+        return state.get() == STATE_CANCELLED;
+    }
+
+    /**
+     * @return true if the task was finished or cancelled.
+     */
+    public boolean isDone() {
+        return state.get() >= STATE_DONE;
+    }
+
+    /**
+     * @return the priority of the task.
+     */
+    @NotNull
+    public TaskPriority getPriority() {
+        return priority;
+    }
+}
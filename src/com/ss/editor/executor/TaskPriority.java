@@ -0,0 +1,21 @@
+package com.ss.editor.executor;
+
+/**
+ * The enum with priorities of background tasks.
+ *
+ * @author JavaSaBr
+ */
+public enum TaskPriority {
+    /**
+     * Tasks which a user is waiting for, like previews or opening files.
+     */
+    INTERACTIVE,
+    /**
+     * Regular tasks.
+     */
+    NORMAL,
+    /**
+     * Long tasks which can wait, like converting or indexing.
+     */
+    BULK,
+}
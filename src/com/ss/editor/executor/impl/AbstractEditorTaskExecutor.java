@@ -5,12 +5,6 @@ import com.ss.editor.executor.EditorTaskExecutor;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Lock;
-
-import rlib.concurrent.lock.LockFactory;
-import rlib.concurrent.lock.Lockable;
-import rlib.concurrent.util.ConcurrentUtils;
 import rlib.logging.Logger;
 import rlib.logging.LoggerManager;
 import rlib.util.array.Array;
@@ -21,7 +15,7 @@ import rlib.util.array.ArrayFactory;
  *
  * @author JavaSaBr
  */
-public abstract class AbstractEditorTaskExecutor extends EditorThread implements EditorTaskExecutor, Lockable {
+public abstract class AbstractEditorTaskExecutor extends EditorThread implements EditorTaskExecutor {
 
     @NotNull
     protected static final Logger LOGGER = LoggerManager.getLogger(EditorTaskExecutor.class);
@@ -33,114 +27,43 @@ public abstract class AbstractEditorTaskExecutor extends EditorThread implements
     protected final Array<Runnable> execute;
 
     /**
-     * The array of executed task of the iteration.
-     */
-    @NotNull
-    final Array<Runnable> executed;
-
-    /**
-     * The array of task to execute.
-     */
-    @NotNull
-    final Array<Runnable> waitTasks;
-
-    /**
-     * Is this executor waiting new tasks.
+     * The queue of task to execute.
      */
     @NotNull
-    final AtomicBoolean wait;
-
-    /**
-     * The synchronizer.
-     */
-    @NotNull
-    private final Lock lock;
+    protected final MPSCTaskQueue waitTasks;
 
     public AbstractEditorTaskExecutor() {
-        this.execute = createExecuteArray();
-        this.executed = createExecuteArray();
-        this.waitTasks = createExecuteArray();
-        this.lock = LockFactory.newAtomicLock();
-        this.wait = new AtomicBoolean(false);
-    }
-
-    @NotNull
-    private Array<Runnable> createExecuteArray() {
-        return ArrayFactory.newArray(Runnable.class);
+        this.execute = ArrayFactory.newArray(Runnable.class);
+        this.waitTasks = new MPSCTaskQueue();
     }
 
     @Override
     public void execute(@NotNull final Runnable task) {
-        lock();
-        try {
-
-            waitTasks.add(task);
-            if (!wait.get()) return;
-
-            synchronized (wait) {
-                if (wait.compareAndSet(true, false)) {
-                    ConcurrentUtils.notifyAllInSynchronize(wait);
-                }
-            }
-
-        } finally {
-            unlock();
-        }
+        waitTasks.offer(task);
     }
 
+    /**
+     * @return the max count of tasks to take from the queue for one iteration.
+     */
+    protected abstract int getBatchSize();
+
     /**
      * Execute the array of tasks.
      */
-    protected abstract void doExecute(@NotNull final Array<Runnable> execute, @NotNull final Array<Runnable> executed);
+    protected abstract void doExecute(@NotNull final Array<Runnable> execute);
 
     @Override
     public void run() {
         while (true) {
 
-            executed.clear();
             execute.clear();
 
-            lock();
-            try {
-
-                if (waitTasks.isEmpty()) {
-                    wait.getAndSet(true);
-                } else {
-                    execute.addAll(waitTasks);
-                }
-
-            } finally {
-                unlock();
-            }
-
-            if (wait.get()) {
-                synchronized (wait) {
-                    if (wait.get()) {
-                        ConcurrentUtils.waitInSynchronize(wait);
-                    }
-                }
+            if (waitTasks.drainTo(execute, getBatchSize()) < 1) {
+                waitTasks.await();
+                continue;
             }
 
-            if (execute.isEmpty()) continue;
-            doExecute(execute, executed);
-            if (executed.isEmpty()) continue;
-
-            lock();
-            try {
-                waitTasks.removeAll(executed);
-            } finally {
-                unlock();
-            }
+            doExecute(execute);
         }
     }
-
-    @Override
-    public void lock() {
-        lock.lock();
-    }
-
-    @Override
-    public void unlock() {
-        lock.unlock();
-    }
 }
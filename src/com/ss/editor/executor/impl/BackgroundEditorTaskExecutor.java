@@ -1,50 +1,172 @@
 package com.ss.editor.executor.impl;
 
+import com.ss.editor.EditorThread;
+import com.ss.editor.executor.EditorTaskExecutor;
+import com.ss.editor.executor.TaskHandle;
+import com.ss.editor.executor.TaskPriority;
+import com.ss.editor.util.EditorUtil;
+
 import org.jetbrains.annotations.NotNull;
-import rlib.util.array.Array;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
-import static java.lang.Math.min;
+import rlib.logging.Logger;
+import rlib.logging.LoggerManager;
 
 /**
- * The implementation of the {@link EditorThreadExecutor} for executing task in the background.
+ * The worker of the {@link BackgroundTaskScheduler} for executing task in the background. Each worker has own queues
+ * of tasks per priority and steals tasks from other workers when its own queues are empty.
  *
  * @author JavaSaBr
  */
-public class BackgroundEditorTaskExecutor extends AbstractEditorTaskExecutor {
+public class BackgroundEditorTaskExecutor extends EditorThread implements EditorTaskExecutor {
+
+    @NotNull
+    private static final Logger LOGGER = LoggerManager.getLogger(EditorTaskExecutor.class);
+
+    /**
+     * The scheduler of this worker.
+     */
+    @NotNull
+    private final BackgroundTaskScheduler scheduler;
 
     /**
-     * The runtime of this process.
+     * The queues of tasks per priority.
      */
-    private static final Runtime RUNTIME = Runtime.getRuntime();
+    @NotNull
+    private final ConcurrentLinkedDeque<TaskHandle>[] queues;
 
     /**
-     * The max count of task to execute using the same time.
+     * The count of tasks in the queues.
      */
-    private static final int PROP_MAXIMUM_UPDATE = 500 / RUNTIME.availableProcessors();
+    @NotNull
+    private final AtomicInteger queueDepth;
 
     /**
-     * The max count of task to execute in the one iteration.
+     * The count of tasks which were stolen by this worker.
      */
-    private static final int PROP_EXECUTE_LIMIT = 5;
+    @NotNull
+    private final AtomicLong stealCount;
+
+    /**
+     * Is this worker waiting new tasks.
+     */
+    private volatile boolean idle;
+
+    @SuppressWarnings("unchecked")
+    public BackgroundEditorTaskExecutor(@NotNull final BackgroundTaskScheduler scheduler, final int order) {
+        this.scheduler = scheduler;
+        this.queues = new ConcurrentLinkedDeque[TaskPriority.values().length];
+        this.queueDepth = new AtomicInteger();
+        this.stealCount = new AtomicLong();
+
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ConcurrentLinkedDeque<>();
+        }
 
-    public BackgroundEditorTaskExecutor(final int order) {
         setName(BackgroundEditorTaskExecutor.class.getSimpleName() + "_" + order);
         setPriority(NORM_PRIORITY - 2);
-        start();
     }
 
     @Override
-    protected void doExecute(@NotNull final Array<Runnable> execute, @NotNull final Array<Runnable> executed) {
+    public void execute(@NotNull final Runnable task) {
+        scheduler.submit(this, new TaskHandle(task, TaskPriority.NORMAL));
+    }
+
+    /**
+     * Put the task to the queue of this worker.
+     *
+     * @param task the task.
+     */
+    void push(@NotNull final TaskHandle task) {
+        queues[task.getPriority().ordinal()].offerLast(task);
+        queueDepth.incrementAndGet();
+    }
 
-        final Runnable[] array = execute.array();
+    /**
+     * Take the oldest task with the priority from the queue of this worker.
+     *
+     * @param priority the priority.
+     * @return the task or null.
+     */
+    @Nullable
+    TaskHandle poll(final int priority) {
+        final TaskHandle task = queues[priority].pollFirst();
+        if (task != null) queueDepth.decrementAndGet();
+        return task;
+    }
 
-        for (int i = 0, length = min(execute.size(), PROP_MAXIMUM_UPDATE); i < length; ) {
-            for (int count = 0, limit = PROP_EXECUTE_LIMIT; count < limit && i < length; count++, i++) {
+    /**
+     * Take the newest task with the priority from the queue of this worker by another worker.
+     *
+     * @param priority the priority.
+     * @return the task or null.
+     */
+    @Nullable
+    TaskHandle steal(final int priority) {
+        final TaskHandle task = queues[priority].pollLast();
+        if (task != null) queueDepth.decrementAndGet();
+        return task;
+    }
 
-                final Runnable task = array[i];
-                task.run();
+    /**
+     * Wake up this worker if it is waiting new tasks.
+     *
+     * @return true if this worker was waiting.
+     */
+    boolean wakeUp() {
+        if (!idle) return false;
+        LockSupport.unpark(this);
+        return true;
+    }
+
+    /**
+     * Increase the count of stolen tasks.
+     */
+    void incrementStealCount() {
+        stealCount.incrementAndGet();
+    }
+
+    /**
+     * @return the count of tasks in the queues of this worker.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return the count of tasks which were stolen by this worker.
+     */
+    public long getStealCount() {
+        return stealCount.get();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+
+            final TaskHandle task = scheduler.take(this);
 
-                executed.add(task);
+            if (task == null) {
+
+                idle = true;
+
+                if (!scheduler.hasWaitingTasks()) {
+                    LockSupport.park(this);
+                }
+
+                idle = false;
+                continue;
+            }
+
+            try {
+                task.run();
+            } catch (final Exception e) {
+                EditorUtil.handleException(LOGGER, this, e);
             }
         }
     }
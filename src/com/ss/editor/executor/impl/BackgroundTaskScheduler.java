@@ -0,0 +1,191 @@
+package com.ss.editor.executor.impl;
+
+import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.executor.TaskHandle;
+import com.ss.editor.executor.TaskPriority;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The work-stealing scheduler of background tasks. Tasks are taken by priority: a worker takes a task from its own
+ * queue of the priority first, then steals a task of the same priority from other workers and only after that looks
+ * at the next priority.
+ *
+ * @author JavaSaBr
+ */
+public class BackgroundTaskScheduler {
+
+    private static final int PRIORITY_COUNT = TaskPriority.values().length;
+
+    /**
+     * The list of workers.
+     */
+    @NotNull
+    private final BackgroundEditorTaskExecutor[] workers;
+
+    /**
+     * The count of waiting tasks in all workers.
+     */
+    @NotNull
+    private final AtomicInteger waitingTasks;
+
+    /**
+     * The index of a next worker to put an external task.
+     */
+    @NotNull
+    private final AtomicInteger nextWorker;
+
+    public BackgroundTaskScheduler(final int workerCount) {
+        this.workers = new BackgroundEditorTaskExecutor[workerCount];
+        this.waitingTasks = new AtomicInteger();
+        this.nextWorker = new AtomicInteger();
+
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new BackgroundEditorTaskExecutor(this, i + 1);
+        }
+
+        for (final BackgroundEditorTaskExecutor worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Submit a new background task.
+     *
+     * @param task     the task.
+     * @param priority the priority of the task.
+     * @return the handle of the task.
+     */
+    @NotNull
+    @FromAnyThread
+    public TaskHandle submit(@NotNull final Runnable task, @NotNull final TaskPriority priority) {
+
+        final TaskHandle handle = new TaskHandle(task, priority);
+        final Thread currentThread = Thread.currentThread();
+
+        BackgroundEditorTaskExecutor target = null;
+
+        if (currentThread instanceof BackgroundEditorTaskExecutor) {
+            target = (BackgroundEditorTaskExecutor) currentThread;
+        }
+
+        if (target == null || !isOwnWorker(target)) {
+            final int index = nextWorker.getAndIncrement() & Integer.MAX_VALUE;
+            target = workers[index % workers.length];
+        }
+
+        submit(target, handle);
+        return handle;
+    }
+
+    /**
+     * Put the task to the worker and wake up a waiting worker.
+     */
+    void submit(@NotNull final BackgroundEditorTaskExecutor target, @NotNull final TaskHandle handle) {
+
+        target.push(handle);
+        waitingTasks.incrementAndGet();
+
+        if (target.wakeUp()) return;
+
+        for (final BackgroundEditorTaskExecutor worker : workers) {
+            if (worker.wakeUp()) return;
+        }
+    }
+
+    /**
+     * Take a next task for the worker.
+     *
+     * @param worker the worker.
+     * @return the task or null.
+     */
+    @Nullable
+    TaskHandle take(@NotNull final BackgroundEditorTaskExecutor worker) {
+
+        final BackgroundEditorTaskExecutor[] workers = getWorkers();
+
+        for (int priority = 0; priority < PRIORITY_COUNT; priority++) {
+
+            TaskHandle task = worker.poll(priority);
+
+            if (task == null) {
+                for (final BackgroundEditorTaskExecutor victim : workers) {
+                    if (victim == worker) continue;
+                    task = victim.steal(priority);
+                    if (task != null) {
+                        worker.incrementStealCount();
+                        break;
+                    }
+                }
+            }
+
+            if (task == null) continue;
+
+            waitingTasks.decrementAndGet();
+
+            if (task.isCancelled()) {
+                priority = -1;
+                continue;
+            }
+
+            return task;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return true if some worker has waiting tasks.
+     */
+    boolean hasWaitingTasks() {
+        return waitingTasks.get() > 0;
+    }
+
+    private boolean isOwnWorker(@NotNull final BackgroundEditorTaskExecutor worker) {
+        for (final BackgroundEditorTaskExecutor own : workers) {
+            if (own == worker) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the list of workers.
+     */
+    @NotNull
+    private BackgroundEditorTaskExecutor[] getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return the count of workers.
+     */
+    @FromAnyThread
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Get the count of waiting tasks in the queues of the worker.
+     *
+     * @param index the index of the worker.
+     * @return the count of waiting tasks.
+     */
+    @FromAnyThread
+    public int getQueueDepth(final int index) {
+        return workers[index].getQueueDepth();
+    }
+
+    /**
+     * Get the count of tasks which were stolen by the worker.
+     *
+     * @param index the index of the worker.
+     * @return the count of stolen tasks.
+     */
+    @FromAnyThread
+    public long getStealCount(final int index) {
+        return workers[index].getStealCount();
+    }
+}
@@ -2,10 +2,15 @@ package com.ss.editor.executor.impl;
 
 import com.ss.editor.annotation.EditorThread;
 import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.config.Config;
+import com.ss.editor.executor.EditorTaskLane;
 import com.ss.editor.util.EditorUtil;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
 import rlib.logging.Logger;
 import rlib.logging.LoggerManager;
 import rlib.util.ArrayUtils;
@@ -14,7 +19,8 @@ import rlib.util.array.ArrayFactory;
 import rlib.util.array.ConcurrentArray;
 
 /**
- * The executor to execute tasks in the editor thread.
+ * The executor to execute tasks in the editor thread. If the frame budget is enabled, the executor executes tasks
+ * from the lanes by priority until the budget is over and carries over other tasks to the next frame.
  *
  * @author JavaSaBr
  */
@@ -26,35 +32,94 @@ public class EditorThreadExecutor {
     @NotNull
     private static final EditorThreadExecutor INSTANCE = new EditorThreadExecutor();
 
+    private static final int LANE_COUNT = EditorTaskLane.values().length;
+
     public static EditorThreadExecutor getInstance() {
         return INSTANCE;
     }
 
     /**
-     * The list of waited tasks.
+     * The lists of waited tasks per lane.
      */
     @NotNull
-    private final ConcurrentArray<Runnable> waitTasks;
+    private final ConcurrentArray<Runnable>[] waitTasks;
 
     /**
-     * The list with tasks to execute.
+     * The queues of tasks to execute per lane.
      */
     @NotNull
-    private final Array<Runnable> execute;
+    private final ArrayDeque<Runnable>[] execute;
+
+    /**
+     * The buffer to move waited tasks.
+     */
+    @NotNull
+    private final Array<Runnable> buffer;
+
+    /**
+     * The metrics of the frame budget.
+     */
+    @NotNull
+    private final FrameBudgetMetrics metrics;
+
+    /**
+     * The frame budget in nanoseconds or 0 if the budget is disabled.
+     */
+    private volatile long frameBudget;
 
+    @SuppressWarnings("unchecked")
     private EditorThreadExecutor() {
-        this.waitTasks = ArrayFactory.newConcurrentAtomicARSWLockArray(Runnable.class);
-        this.execute = ArrayFactory.newArray(Runnable.class);
+        this.waitTasks = new ConcurrentArray[LANE_COUNT];
+        this.execute = new ArrayDeque[LANE_COUNT];
+        this.buffer = ArrayFactory.newArray(Runnable.class);
+        this.metrics = new FrameBudgetMetrics();
+
+        for (int i = 0; i < LANE_COUNT; i++) {
+            waitTasks[i] = ArrayFactory.newConcurrentAtomicARSWLockArray(Runnable.class);
+            execute[i] = new ArrayDeque<>();
+        }
+
+        setFrameBudget(Config.EDITOR_THREAD_FRAME_BUDGET);
     }
 
     /**
-     * Add a task to execute.
+     * Add a task to execute in the scene lane.
      *
      * @param task the task.
      */
     @FromAnyThread
     public void addToExecute(@NotNull final Runnable task) {
-        ArrayUtils.runInWriteLock(waitTasks, task, (tasks, toAdd) -> tasks.add(task));
+        addToExecute(task, EditorTaskLane.SCENE);
+    }
+
+    /**
+     * Add a task to execute.
+     *
+     * @param task the task.
+     * @param lane the lane of the task.
+     */
+    @FromAnyThread
+    public void addToExecute(@NotNull final Runnable task, @NotNull final EditorTaskLane lane) {
+        ArrayUtils.runInWriteLock(waitTasks[lane.ordinal()], task, Array::add);
+    }
+
+    /**
+     * Set the frame budget.
+     *
+     * @param frameBudget the frame budget in milliseconds or 0 to disable the budget.
+     */
+    @FromAnyThread
+    public void setFrameBudget(final float frameBudget) {
+        this.frameBudget = (long) (Math.max(frameBudget, 0F) * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * @return the metrics of the frame budget.
+     */
+    @NotNull
+    @FromAnyThread
+    public FrameBudgetMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -62,14 +127,48 @@ public class EditorThreadExecutor {
      */
     @EditorThread
     public void execute() {
-        if (waitTasks.isEmpty()) return;
 
-        ArrayUtils.runInWriteLock(waitTasks, execute, ArrayUtils::move);
+        for (int i = 0; i < LANE_COUNT; i++) {
 
-        try {
-            execute.forEach(EditorThreadExecutor::execute);
-        } finally {
-            execute.clear();
+            final ConcurrentArray<Runnable> tasks = waitTasks[i];
+            if (tasks.isEmpty()) continue;
+
+            ArrayUtils.runInWriteLock(tasks, buffer, ArrayUtils::move);
+
+            final ArrayDeque<Runnable> queue = execute[i];
+
+            try {
+                buffer.forEach(queue, (task, toQueue) -> toQueue.addLast(task));
+            } finally {
+                buffer.clear();
+            }
+        }
+
+        final long budget = frameBudget;
+        final long start = System.nanoTime();
+
+        int executed = 0;
+        int carriedOver = 0;
+
+        for (int i = 0; i < LANE_COUNT; i++) {
+
+            final ArrayDeque<Runnable> queue = execute[i];
+
+            while (!queue.isEmpty()) {
+
+                if (budget > 0 && executed > 0 && System.nanoTime() - start >= budget) {
+                    break;
+                }
+
+                execute(queue.pollFirst());
+                executed++;
+            }
+
+            carriedOver += queue.size();
+        }
+
+        if (executed > 0) {
+            metrics.record(budget, System.nanoTime() - start, executed, carriedOver);
         }
     }
 
@@ -2,101 +2,172 @@ package com.ss.editor.executor.impl;
 
 import com.ss.editor.annotation.FXThread;
 import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.config.Config;
 import com.ss.editor.util.EditorUtil;
 import com.sun.javafx.application.PlatformImpl;
 
 import org.jetbrains.annotations.NotNull;
 
-import rlib.concurrent.util.ConcurrentUtils;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javafx.application.Platform;
 import rlib.concurrent.util.ThreadUtils;
 import rlib.util.array.Array;
+import rlib.util.array.ArrayFactory;
 
 /**
- * The executor to execute tasks in the FX UI Thread.
+ * The executor to execute tasks in the FX UI Thread. In the async mode the executor posts batches of tasks without
+ * waiting for their completion and waits only when the FX UI Thread has too many not executed batches.
  *
  * @author JavaSaBr
  */
 public class FXEditorTaskExecutor extends AbstractEditorTaskExecutor {
 
-    private static final int EXECUTE_LIMIT = 300;
+    /**
+     * The max count of task to execute in the one iteration.
+     */
+    private static final int EXECUTE_LIMIT = 500;
+
+    /**
+     * The max count of posted and not executed batches in the async mode.
+     */
+    private static final int MAX_BATCHES_IN_FLIGHT = 4;
 
     /**
      * The task for executing editor tasks in the FX UI Thread.
      */
     @NotNull
-    private final Runnable fxTask = () -> doExecute(execute, executed);
+    private final Runnable fxTask = () -> doExecute(execute);
 
+    /**
+     * The batches of tasks for the async mode.
+     */
+    @NotNull
+    private final Array<Runnable>[] batches;
+
+    /**
+     * The tasks to execute the batches in the FX UI Thread.
+     */
+    @NotNull
+    private final Runnable[] batchTasks;
+
+    /**
+     * The count of posted and not executed batches.
+     */
+    @NotNull
+    private final AtomicInteger batchesInFlight;
+
+    /**
+     * True if tasks are posted to the FX UI Thread without waiting.
+     */
+    private final boolean async;
+
+    /**
+     * The index of a next batch.
+     */
+    private int nextBatch;
+
+    @SuppressWarnings("unchecked")
     public FXEditorTaskExecutor() {
+        this.async = Config.ASYNC_FX_DISPATCH;
+        this.batchesInFlight = new AtomicInteger();
+        this.batches = new Array[MAX_BATCHES_IN_FLIGHT];
+        this.batchTasks = new Runnable[MAX_BATCHES_IN_FLIGHT];
+
+        for (int i = 0; i < MAX_BATCHES_IN_FLIGHT; i++) {
+            final Array<Runnable> batch = ArrayFactory.newArray(Runnable.class);
+            batches[i] = batch;
+            batchTasks[i] = () -> executeBatch(batch);
+        }
+
         setName(FXEditorTaskExecutor.class.getSimpleName());
         setPriority(NORM_PRIORITY);
         PlatformImpl.startup(this::start);
     }
 
+    @Override
+    protected int getBatchSize() {
+        return EXECUTE_LIMIT;
+    }
+
     @Override
     @FXThread
-    protected void doExecute(@NotNull final Array<Runnable> execute, @NotNull final Array<Runnable> executed) {
+    protected void doExecute(@NotNull final Array<Runnable> execute) {
 
         final Runnable[] array = execute.array();
 
-        for (int i = 0, length = execute.size(); i < length; ) {
+        for (int i = 0, length = execute.size(); i < length; i++) {
             try {
-
-                for (int count = 0; count < EXECUTE_LIMIT && i < length; count++, i++) {
-
-                    final Runnable task = array[i];
-                    try {
-                        task.run();
-                    } catch (final Exception e) {
-                        EditorUtil.handleException(LOGGER, this, e);
-                    }
-
-                    executed.add(task);
-                }
-
+                array[i].run();
             } catch (final Exception e) {
-                LOGGER.warning(e);
+                EditorUtil.handleException(LOGGER, this, e);
             }
         }
     }
 
+    /**
+     * Execute the posted batch and notify this executor about it.
+     *
+     * @param batch the batch.
+     */
+    @FXThread
+    private void executeBatch(@NotNull final Array<Runnable> batch) {
+        try {
+            doExecute(batch);
+        } finally {
+            batch.clear();
+            batchesInFlight.decrementAndGet();
+            LockSupport.unpark(this);
+        }
+    }
 
     @Override
     public void run() {
         while (true) {
+            if (async) {
+                postNextBatch();
+                continue;
+            }
 
-            executed.clear();
             execute.clear();
 
-            lock();
-            try {
+            if (waitTasks.drainTo(execute, EXECUTE_LIMIT) < 1) {
+                waitTasks.await();
+                continue;
+            }
 
-                if (waitTasks.isEmpty()) {
-                    wait.getAndSet(true);
-                } else {
-                    execute.addAll(waitTasks);
-                }
+            executeInFXUIThread();
+        }
+    }
 
-            } finally {
-                unlock();
-            }
+    /**
+     * Take a next batch of tasks and post it to the FX UI Thread.
+     */
+    private void postNextBatch() {
 
-            if (wait.get()) {
-                synchronized (wait) {
-                    if (wait.get()) {
-                        ConcurrentUtils.waitInSynchronize(wait);
-                    }
-                }
-            }
+        while (batchesInFlight.get() >= MAX_BATCHES_IN_FLIGHT) {
+            LockSupport.park(this);
+        }
 
-            if (execute.isEmpty()) continue;
-            executeInFXUIThread();
-            if (executed.isEmpty()) continue;
+        final int index = nextBatch;
+        final Array<Runnable> batch = batches[index];
+
+        if (waitTasks.drainTo(batch, EXECUTE_LIMIT) < 1) {
+            waitTasks.await();
+            return;
+        }
+
+        nextBatch = (index + 1) % MAX_BATCHES_IN_FLIGHT;
+        batchesInFlight.incrementAndGet();
 
-            lock();
+        while (true) {
             try {
-                waitTasks.removeAll(executed);
-            } finally {
-                unlock();
+                Platform.runLater(batchTasks[index]);
+                break;
+            } catch (final IllegalStateException e) {
+                LOGGER.warning(this, e);
+                ThreadUtils.sleep(1000);
             }
         }
     }
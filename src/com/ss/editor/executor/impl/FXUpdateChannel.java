@@ -0,0 +1,169 @@
+package com.ss.editor.executor.impl;
+
+import com.ss.editor.annotation.FXThread;
+import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.executor.EditorTaskExecutor;
+import com.ss.editor.util.EditorUtil;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rlib.logging.Logger;
+import rlib.logging.LoggerManager;
+
+/**
+ * The channel to push UI updates to the FX UI Thread where only the latest update of each slot of an owner is
+ * applied. Pending updates are flushed not often than once per a pulse, so count of tasks for the FX UI Thread doesn't
+ * depend on how often updates are pushed.
+ *
+ * @author JavaSaBr
+ */
+public class FXUpdateChannel {
+
+    @NotNull
+    private static final Logger LOGGER = LoggerManager.getLogger(FXUpdateChannel.class);
+
+    /**
+     * The min interval between flushes in nanoseconds.
+     */
+    private static final long PULSE_INTERVAL = TimeUnit.MILLISECONDS.toNanos(16);
+
+    /**
+     * The key of an update slot.
+     */
+    private static final class SlotKey {
+
+        /**
+         * The owner of the slot.
+         */
+        @NotNull
+        private final Object owner;
+
+        /**
+         * The slot.
+         */
+        @NotNull
+        private final Object slot;
+
+        private SlotKey(@NotNull final Object owner, @NotNull final Object slot) {
+            this.owner = owner;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (this == object) return true;
+            if (!(object instanceof SlotKey)) return false;
+            final SlotKey other = (SlotKey) object;
+            return owner == other.owner && slot.equals(other.slot);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(owner) + slot.hashCode();
+        }
+    }
+
+    /**
+     * The table of pending updates.
+     */
+    @NotNull
+    private final ConcurrentHashMap<SlotKey, Runnable> pending;
+
+    /**
+     * The executor of FX tasks.
+     */
+    @NotNull
+    private final EditorTaskExecutor fxExecutor;
+
+    /**
+     * The service to delay flushes.
+     */
+    @NotNull
+    private final ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * The task to flush pending updates.
+     */
+    @NotNull
+    private final Runnable flushTask;
+
+    /**
+     * The task to post the flush task to the FX UI Thread.
+     */
+    @NotNull
+    private final Runnable postFlushTask;
+
+    /**
+     * True if the flush task is already scheduled.
+     */
+    @NotNull
+    private final AtomicBoolean scheduled;
+
+    /**
+     * The time of the last flush.
+     */
+    private volatile long lastFlushTime;
+
+    public FXUpdateChannel(@NotNull final EditorTaskExecutor fxExecutor,
+                           @NotNull final ScheduledExecutorService scheduledExecutorService) {
+        this.fxExecutor = fxExecutor;
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.pending = new ConcurrentHashMap<>();
+        this.scheduled = new AtomicBoolean(false);
+        this.flushTask = this::flush;
+        this.postFlushTask = () -> fxExecutor.execute(flushTask);
+    }
+
+    /**
+     * Push an update of the slot of the owner, a previous not applied update of this slot will be dropped.
+     *
+     * @param owner  the owner of the slot.
+     * @param slot   the slot.
+     * @param update the update.
+     */
+    @FromAnyThread
+    public void push(@NotNull final Object owner, @NotNull final Object slot, @NotNull final Runnable update) {
+
+        pending.put(new SlotKey(owner, slot), update);
+
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        final long delay = lastFlushTime + PULSE_INTERVAL - System.nanoTime();
+
+        if (delay > 0) {
+            scheduledExecutorService.schedule(postFlushTask, delay, TimeUnit.NANOSECONDS);
+        } else {
+            fxExecutor.execute(flushTask);
+        }
+    }
+
+    /**
+     * Apply all pending updates.
+     */
+    @FXThread
+    private void flush() {
+
+        lastFlushTime = System.nanoTime();
+        scheduled.set(false);
+
+        for (final Map.Entry<SlotKey, Runnable> entry : pending.entrySet()) {
+
+            final Runnable update = entry.getValue();
+            if (!pending.remove(entry.getKey(), update)) continue;
+
+            try {
+                update.run();
+            } catch (final Exception e) {
+                EditorUtil.handleException(LOGGER, this, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ss.editor.executor.impl;
+
+import com.ss.editor.annotation.EditorThread;
+import com.ss.editor.annotation.FromAnyThread;
+
+/**
+ * The metrics of executing editor thread tasks within a frame budget.
+ *
+ * @author JavaSaBr
+ */
+public class FrameBudgetMetrics {
+
+    /**
+     * The count of frames where executing tasks took more time than the budget.
+     */
+    private volatile long overrunCount;
+
+    /**
+     * The max overrun of the budget in nanoseconds.
+     */
+    private volatile long maxOverrun;
+
+    /**
+     * The time of executing tasks in the last frame in nanoseconds.
+     */
+    private volatile long lastElapsed;
+
+    /**
+     * The count of executed tasks in the last frame.
+     */
+    private volatile int lastExecuted;
+
+    /**
+     * The count of tasks which were carried over to the next frame in the last frame.
+     */
+    private volatile int lastCarriedOver;
+
+    /**
+     * Record results of a frame.
+     *
+     * @param budget      the budget in nanoseconds.
+     * @param elapsed     the time of executing tasks in nanoseconds.
+     * @param executed    the count of executed tasks.
+     * @param carriedOver the count of tasks which were carried over to the next frame.
+     */
+    @EditorThread
+    void record(final long budget, final long elapsed, final int executed, final int carriedOver) {
+
+        this.lastElapsed = elapsed;
+        this.lastExecuted = executed;
+        this.lastCarriedOver = carriedOver;
+
+        if (budget < 1 || elapsed <= budget) {
+            return;
+        }
+
+        final long overrun = elapsed - budget;
+
+        overrunCount++;
+
+        if (overrun > maxOverrun) {
+            maxOverrun = overrun;
+        }
+    }
+
+    /**
+     * @return the count of frames where executing tasks took more time than the budget.
+     */
+    @FromAnyThread
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * @return the max overrun of the budget in nanoseconds.
+     */
+    @FromAnyThread
+    public long getMaxOverrun() {
+        return maxOverrun;
+    }
+
+    /**
+     * @return the time of executing tasks in the last frame in nanoseconds.
+     */
+    @FromAnyThread
+    public long getLastElapsed() {
+        return lastElapsed;
+    }
+
+    /**
+     * @return the count of executed tasks in the last frame.
+     */
+    @FromAnyThread
+    public int getLastExecuted() {
+        return lastExecuted;
+    }
+
+    /**
+     * @return the count of tasks which were carried over to the next frame in the last frame.
+     */
+    @FromAnyThread
+    public int getLastCarriedOver() {
+        return lastCarriedOver;
+    }
+}
@@ -0,0 +1,213 @@
+package com.ss.editor.executor.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import rlib.util.array.Array;
+
+/**
+ * The lock-free queue of tasks with many producers and one consumer.
+ * Producers claim a slot of a ring by moving the tail, the consumer takes published tasks in batches
+ * and releases the slots without any additional lock. When the ring is full, tasks are added to an unbounded
+ * overflow queue, so a producer never waits for the consumer.
+ *
+ * @author JavaSaBr
+ */
+public class MPSCTaskQueue {
+
+    /**
+     * The default capacity of a queue.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * The slots of this queue.
+     */
+    @NotNull
+    private final AtomicReferenceArray<Runnable> buffer;
+
+    /**
+     * The index of a next slot to take by the consumer.
+     */
+    @NotNull
+    private final AtomicLong head;
+
+    /**
+     * The index of a next slot to claim by a producer.
+     */
+    @NotNull
+    private final AtomicLong tail;
+
+    /**
+     * The tasks which were added when the ring was full.
+     */
+    @NotNull
+    private final ConcurrentLinkedQueue<Runnable> overflow;
+
+    /**
+     * The count of tasks in the overflow queue.
+     */
+    @NotNull
+    private final AtomicInteger overflowSize;
+
+    /**
+     * The mask to convert an index to a slot.
+     */
+    private final int mask;
+
+    /**
+     * The thread which waits new tasks.
+     */
+    private volatile Thread waiter;
+
+    public MPSCTaskQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MPSCTaskQueue(final int capacity) {
+
+        if (capacity < 2) {
+            throw new IllegalArgumentException("the capacity should be more than 1.");
+        }
+
+        final int size = Integer.highestOneBit(capacity - 1) << 1;
+
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.head = new AtomicLong(0);
+        this.tail = new AtomicLong(0);
+        this.overflow = new ConcurrentLinkedQueue<>();
+        this.overflowSize = new AtomicInteger(0);
+    }
+
+    /**
+     * Add a new task to this queue. If the ring is full or the overflow queue isn't empty yet, the task is added
+     * to the overflow queue, so the producer never waits for the consumer. The consumer can itself wait for
+     * a producer, for example for the FX thread.
+     *
+     * @param task the new task.
+     */
+    public void offer(@NotNull final Runnable task) {
+
+        final int capacity = mask + 1;
+
+        long index;
+
+        while (true) {
+
+            index = tail.get();
+
+            // the overflowed tasks should be taken before new tasks of the same producer
+            if (index - head.get() >= capacity || overflowSize.get() > 0) {
+                overflowSize.incrementAndGet();
+                overflow.add(task);
+                wakeUp();
+                return;
+            }
+
+            if (tail.compareAndSet(index, index + 1)) {
+                break;
+            }
+        }
+
+        buffer.set((int) index & mask, task);
+        wakeUp();
+    }
+
+    /**
+     * Move published tasks from this queue to the container, tasks of the ring are moved before overflowed tasks.
+     *
+     * @param container the container.
+     * @param limit     the max count of tasks to move.
+     * @return the count of moved tasks.
+     */
+    public int drainTo(@NotNull final Array<Runnable> container, final int limit) {
+
+        long index = head.get();
+        int count = 0;
+
+        while (count < limit) {
+
+            final int slot = (int) index & mask;
+            final Runnable task = buffer.get(slot);
+            if (task == null) break;
+
+            buffer.lazySet(slot, null);
+            container.add(task);
+
+            index++;
+            count++;
+        }
+
+        if (count > 0) {
+            head.lazySet(index);
+        }
+
+        // the overflowed tasks are taken only after all claimed slots, they were added after them
+        if (index != tail.get()) {
+            return count;
+        }
+
+        while (count < limit && overflowSize.get() > 0) {
+
+            final Runnable task = overflow.poll();
+            if (task == null) break;
+
+            overflowSize.decrementAndGet();
+            container.add(task);
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Park the consumer thread until a new task is added.
+     */
+    public void await() {
+
+        final Thread thread = Thread.currentThread();
+
+        waiter = thread;
+
+        if (isEmpty()) {
+            LockSupport.park(this);
+        }
+
+        waiter = null;
+    }
+
+    /**
+     * Wake up the consumer thread if it waits new tasks.
+     */
+    private void wakeUp() {
+        final Thread thread = waiter;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    /**
+     * @return true if this queue doesn't have any claimed slot or overflowed task.
+     */
+    public boolean isEmpty() {
+        return tail.get() == head.get() && overflowSize.get() == 0;
+    }
+
+    /**
+     * @return the count of claimed slots and overflowed tasks.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get()) + overflowSize.get();
+    }
+
+    /**
+     * @return the capacity of the ring of this queue.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,978 @@
+package com.ss.editor.file.cache;
+
+import com.ss.editor.annotation.BackgroundThread;
+import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.executor.TaskPriority;
+import com.ss.editor.manager.ExecutorManager;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+import javafx.scene.image.WritablePixelFormat;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import rlib.logging.Logger;
+import rlib.logging.LoggerManager;
+import rlib.util.FileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The packed storage of thumbnails. Pixels of thumbnails are appended to one data file as deflated BGRA bytes,
+ * pixels which can't be compressed are stored raw. Full chunks of the data file are memory-mapped once, raw
+ * pixels are written into a {@link WritableImage} directly from a mapped chunk. The index
+ * file is an append-only log of added and removed thumbnails, it's rewritten at startup and after compaction.
+ * Compaction copies live thumbnails to a new data file, least recently used thumbnails are dropped if the
+ * data is bigger than the limit.
+ *
+ * @author JavaSaBr
+ */
+public class ThumbnailAtlas {
+
+    @NotNull
+    private static final Logger LOGGER = LoggerManager.getLogger(ThumbnailAtlas.class);
+
+    @NotNull
+    private static final ExecutorManager EXECUTOR_MANAGER = ExecutorManager.getInstance();
+
+    /**
+     * The name of the index file.
+     */
+    @NotNull
+    private static final String INDEX_FILE = "atlas.idx";
+
+    /**
+     * The prefix of data files, a data file has the generation of its compaction in the name.
+     */
+    @NotNull
+    private static final String DATA_FILE_PREFIX = "atlas-";
+
+    /**
+     * The extension of data files.
+     */
+    @NotNull
+    private static final String DATA_FILE_EXTENSION = ".dat";
+
+    /**
+     * The first int of the index file.
+     */
+    private static final int INDEX_MAGIC = 0x54484D42;
+
+    /**
+     * The version of the index format.
+     */
+    private static final int INDEX_VERSION = 2;
+
+    /**
+     * The operation to add a thumbnail.
+     */
+    private static final byte OPERATION_PUT = 1;
+
+    /**
+     * The operation to remove a thumbnail.
+     */
+    private static final byte OPERATION_REMOVE = 2;
+
+    /**
+     * The min size of unused data to start compaction.
+     */
+    private static final long MIN_GARBAGE_TO_COMPACT = 8 * 1024 * 1024;
+
+    /**
+     * The size of mapped chunks of the data file.
+     */
+    private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The part of the limit to keep after eviction.
+     */
+    static final float EVICTION_FACTOR = 0.75F;
+
+    /**
+     * The pixel format of stored thumbnails.
+     */
+    @NotNull
+    private static final WritablePixelFormat<ByteBuffer> PIXEL_FORMAT = PixelFormat.getByteBgraInstance();
+
+    /**
+     * The location of a thumbnail in the data file.
+     */
+    private static final class AtlasEntry {
+
+        /**
+         * The last modified time of the source file.
+         */
+        private final long lastModified;
+
+        /**
+         * The offset of pixels in the data file.
+         */
+        private final long offset;
+
+        /**
+         * The size of stored pixels in bytes.
+         */
+        private final int length;
+
+        /**
+         * The width of the thumbnail.
+         */
+        private final int width;
+
+        /**
+         * The height of the thumbnail.
+         */
+        private final int height;
+
+        /**
+         * The last access time.
+         */
+        private volatile long lastAccess;
+
+        private AtlasEntry(final long lastModified, final long offset, final int length, final int width,
+                           final int height, final long lastAccess) {
+            this.lastModified = lastModified;
+            this.offset = offset;
+            this.length = length;
+            this.width = width;
+            this.height = height;
+            this.lastAccess = lastAccess;
+        }
+
+        /**
+         * @return the size of stored pixels in bytes.
+         */
+        private int getLength() {
+            return length;
+        }
+
+        /**
+         * @return true if the pixels are deflated.
+         */
+        private boolean isCompressed() {
+            return length < width * height * 4;
+        }
+    }
+
+    /**
+     * The table of stored thumbnails.
+     */
+    @NotNull
+    private final Map<ThumbnailKey, AtlasEntry> entries;
+
+    /**
+     * The lock to read thumbnails in parallel and to change the files exclusively.
+     */
+    @NotNull
+    private final ReadWriteLock lock;
+
+    /**
+     * True if compaction is scheduled or in progress.
+     */
+    @NotNull
+    private final AtomicBoolean compacting;
+
+    /**
+     * The folder of the atlas.
+     */
+    @NotNull
+    private final Path folder;
+
+    /**
+     * The max size of the data file in bytes.
+     */
+    private final long limit;
+
+    /**
+     * The channel of the current data file.
+     */
+    @Nullable
+    private FileChannel dataChannel;
+
+    /**
+     * The output to append records to the index file.
+     */
+    @Nullable
+    private DataOutputStream indexOut;
+
+    /**
+     * The mapped full chunks of the data file, the last not full chunk is read by the channel.
+     */
+    @NotNull
+    private volatile MappedByteBuffer[] chunks;
+
+    /**
+     * The size of the data file.
+     */
+    private long dataSize;
+
+    /**
+     * The size of pixels of stored thumbnails.
+     */
+    private long liveSize;
+
+    /**
+     * The generation of the current data file.
+     */
+    private int generation;
+
+    public ThumbnailAtlas(@NotNull final Path folder, final long limit) {
+        this.folder = folder;
+        this.limit = Math.min(limit, Integer.MAX_VALUE);
+        this.entries = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+        this.compacting = new AtomicBoolean(true);
+        this.chunks = new MappedByteBuffer[0];
+
+        try {
+            open();
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+            close();
+        }
+
+        EXECUTOR_MANAGER.addBackgroundTask(this::cleanup, TaskPriority.BULK);
+    }
+
+    /**
+     * Read an actual thumbnail.
+     *
+     * @param key          the key of the thumbnail.
+     * @param lastModified the last modified time of the source file.
+     * @return the thumbnail or null.
+     */
+    @Nullable
+    @FromAnyThread
+    public Image read(@NotNull final ThumbnailKey key, final long lastModified) {
+
+        final AtlasEntry entry;
+        final byte[] compressed;
+
+        lock.readLock().lock();
+        try {
+
+            entry = entries.get(key);
+            if (entry == null || entry.lastModified != lastModified) return null;
+
+            final int length = entry.getLength();
+            final ByteBuffer region = getRegion(entry.offset, length);
+            if (region == null) return null;
+
+            entry.lastAccess = System.currentTimeMillis();
+
+            if (!entry.isCompressed()) {
+                return toImage(entry, region);
+            }
+
+            compressed = new byte[length];
+            region.get(compressed);
+
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        final byte[] pixels = decompress(compressed, entry.width * entry.height * 4);
+        return pixels == null ? null : toImage(entry, ByteBuffer.wrap(pixels));
+    }
+
+    /**
+     * Create an image of the entry from its raw pixels.
+     */
+    @NotNull
+    private static Image toImage(@NotNull final AtlasEntry entry, @NotNull final ByteBuffer pixels) {
+        final WritableImage image = new WritableImage(entry.width, entry.height);
+        image.getPixelWriter().setPixels(0, 0, entry.width, entry.height, PIXEL_FORMAT, pixels, entry.width * 4);
+        return image;
+    }
+
+    /**
+     * Get a size of the stored thumbnail.
+     *
+     * @param key the key of the thumbnail.
+     * @return the size of stored pixels in bytes or 0 if the thumbnail isn't stored.
+     */
+    @FromAnyThread
+    public long getStoredSize(@NotNull final ThumbnailKey key) {
+        lock.readLock().lock();
+        try {
+            final AtlasEntry entry = entries.get(key);
+            return entry == null ? 0 : entry.getLength();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Deflate raw pixels.
+     *
+     * @return the deflated pixels or the raw pixels if they can't be compressed.
+     */
+    @NotNull
+    private static byte[] compress(@NotNull final byte[] pixels) {
+
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        final byte[] buffer = new byte[pixels.length];
+
+        int length = 0;
+
+        try {
+
+            deflater.setInput(pixels);
+            deflater.finish();
+
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+
+            if (!deflater.finished() || length >= pixels.length) return pixels;
+
+        } finally {
+            deflater.end();
+        }
+
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Inflate deflated pixels.
+     *
+     * @return the raw pixels or null if the data is broken.
+     */
+    @Nullable
+    private static byte[] decompress(@NotNull final byte[] compressed, final int length) {
+
+        final Inflater inflater = new Inflater();
+        final byte[] pixels = new byte[length];
+
+        int position = 0;
+
+        try {
+
+            inflater.setInput(compressed);
+
+            while (position < length && !inflater.finished()) {
+                final int read = inflater.inflate(pixels, position, length - position);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                position += read;
+            }
+
+        } catch (final DataFormatException e) {
+            LOGGER.warning(e);
+            return null;
+        } finally {
+            inflater.end();
+        }
+
+        return position == length ? pixels : null;
+    }
+
+    /**
+     * Append a new thumbnail.
+     *
+     * @param key          the key of the thumbnail.
+     * @param image        the thumbnail.
+     * @param lastModified the last modified time of the source file.
+     */
+    @FromAnyThread
+    public void write(@NotNull final ThumbnailKey key, @NotNull final Image image, final long lastModified) {
+
+        final PixelReader pixelReader = image.getPixelReader();
+        if (pixelReader == null) return;
+
+        final int width = (int) image.getWidth();
+        final int height = (int) image.getHeight();
+        if (width < 1 || height < 1) return;
+
+        final byte[] raw = new byte[width * height * 4];
+        pixelReader.getPixels(0, 0, width, height, PIXEL_FORMAT, raw, 0, width * 4);
+
+        final ByteBuffer pixels = ByteBuffer.wrap(compress(raw));
+
+        lock.writeLock().lock();
+        try {
+
+            final FileChannel dataChannel = this.dataChannel;
+            if (dataChannel == null || dataSize + pixels.capacity() > Integer.MAX_VALUE) return;
+
+            final long offset = dataSize;
+
+            pixels.clear();
+
+            while (pixels.hasRemaining()) {
+                dataChannel.write(pixels, offset + pixels.position());
+            }
+
+            dataSize += pixels.capacity();
+
+            final AtlasEntry entry = new AtlasEntry(lastModified, offset, pixels.capacity(), width, height,
+                    System.currentTimeMillis());
+            final AtlasEntry prev = entries.put(key, entry);
+
+            liveSize += entry.getLength();
+            if (prev != null) liveSize -= prev.getLength();
+
+            writePut(requireIndexOut(), key, entry);
+
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        checkCompaction();
+    }
+
+    /**
+     * Remove all thumbnails of the file or of files in the folder.
+     *
+     * @param file the deleted file or folder.
+     */
+    @FromAnyThread
+    public void remove(@NotNull final Path file) {
+        lock.writeLock().lock();
+        try {
+
+            final Iterator<Map.Entry<ThumbnailKey, AtlasEntry>> iterator = entries.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+
+                final Map.Entry<ThumbnailKey, AtlasEntry> entry = iterator.next();
+                final ThumbnailKey key = entry.getKey();
+                if (!key.getFile().startsWith(file)) continue;
+
+                liveSize -= entry.getValue().getLength();
+                iterator.remove();
+
+                if (indexOut != null) writeRemove(indexOut, key);
+            }
+
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        checkCompaction();
+    }
+
+    /**
+     * Start compaction if the data file has too much garbage or is bigger than the limit.
+     */
+    @FromAnyThread
+    private void checkCompaction() {
+
+        final boolean needCompaction;
+
+        lock.readLock().lock();
+        try {
+            final long garbage = dataSize - liveSize;
+            needCompaction = dataSize > limit || (garbage > MIN_GARBAGE_TO_COMPACT && garbage > liveSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (needCompaction && compacting.compareAndSet(false, true)) {
+            EXECUTOR_MANAGER.addBackgroundTask(this::compact, TaskPriority.BULK);
+        }
+    }
+
+    /**
+     * Copy live thumbnails to a new data file, least recently used thumbnails are dropped
+     * if the live thumbnails are bigger than the limit. Thumbnails are copied from a snapshot
+     * of the entries without the lock, the write lock is taken only to copy thumbnails which
+     * were written during the copy and to switch to the new data file.
+     */
+    @BackgroundThread
+    private void compact() {
+        try {
+
+            final FileChannel dataChannel;
+            final Map<ThumbnailKey, AtlasEntry> snapshot;
+            final long snapshotLiveSize;
+            final int newGeneration;
+
+            lock.readLock().lock();
+            try {
+                dataChannel = this.dataChannel;
+                snapshot = new HashMap<>(entries);
+                snapshotLiveSize = liveSize;
+                newGeneration = generation + 1;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            if (dataChannel == null) return;
+
+            final List<Map.Entry<ThumbnailKey, AtlasEntry>> live = new ArrayList<>(snapshot.entrySet());
+            live.sort((first, second) -> Long.compare(second.getValue().lastAccess, first.getValue().lastAccess));
+
+            final long targetSize = snapshotLiveSize > limit ? (long) (limit * EVICTION_FACTOR) : snapshotLiveSize;
+            final Path newDataFile = getDataFile(newGeneration);
+            final Map<ThumbnailKey, AtlasEntry> copied = new HashMap<>();
+
+            boolean switched = false;
+
+            try (final FileChannel newChannel = FileChannel.open(newDataFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+                long newSize = 0;
+
+                // the data file is only appended, so the copied regions aren't changed during the copy
+                for (final Map.Entry<ThumbnailKey, AtlasEntry> element : live) {
+
+                    final AtlasEntry entry = element.getValue();
+                    final int length = entry.getLength();
+                    if (newSize + length > targetSize) continue;
+
+                    copy(dataChannel, newChannel, entry.offset, newSize, length);
+                    copied.put(element.getKey(), new AtlasEntry(entry.lastModified, newSize, length, entry.width,
+                            entry.height, entry.lastAccess));
+
+                    newSize += length;
+                }
+
+                lock.writeLock().lock();
+                try {
+
+                    if (this.dataChannel != dataChannel) return;
+
+                    final Map<ThumbnailKey, AtlasEntry> newEntries = new HashMap<>();
+
+                    for (final Map.Entry<ThumbnailKey, AtlasEntry> element : entries.entrySet()) {
+
+                        final ThumbnailKey key = element.getKey();
+                        final AtlasEntry entry = element.getValue();
+
+                        if (snapshot.get(key) == entry) {
+
+                            final AtlasEntry newEntry = copied.get(key);
+
+                            // the thumbnail was evicted
+                            if (newEntry == null) continue;
+
+                            newEntry.lastAccess = entry.lastAccess;
+                            newEntries.put(key, newEntry);
+                            continue;
+                        }
+
+                        // the thumbnail was written during the copy
+                        final int length = entry.getLength();
+                        copy(dataChannel, newChannel, entry.offset, newSize, length);
+                        newEntries.put(key, new AtlasEntry(entry.lastModified, newSize, length, entry.width,
+                                entry.height, entry.lastAccess));
+
+                        newSize += length;
+                    }
+
+                    writeIndex(newGeneration, newEntries);
+                    close();
+
+                    entries.clear();
+                    entries.putAll(newEntries);
+                    generation = newGeneration;
+                    liveSize = newSize;
+                    switched = true;
+
+                    try {
+                        openFiles();
+                    } catch (final IOException e) {
+                        LOGGER.warning(e);
+                        close();
+                    }
+
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+            } catch (final IOException e) {
+                LOGGER.warning(e);
+            } finally {
+                if (!switched) deleteQuietly(newDataFile);
+            }
+
+            if (switched) deleteStaleDataFiles(newGeneration);
+
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Copy a region of the source data file to the target data file.
+     */
+    private static void copy(@NotNull final FileChannel source, @NotNull final FileChannel target,
+                             final long sourceOffset, final long targetOffset, final int length) throws IOException {
+
+        long transferred = 0;
+
+        while (transferred < length) {
+            transferred += source.transferTo(sourceOffset + transferred, length - transferred,
+                    target.position(targetOffset + transferred));
+        }
+    }
+
+    /**
+     * Load the index and open the current data file.
+     */
+    private void open() throws IOException {
+        Files.createDirectories(folder);
+
+        final Path indexFile = folder.resolve(INDEX_FILE);
+
+        if (Files.exists(indexFile)) {
+            try {
+                readIndex(indexFile);
+            } catch (final IOException e) {
+                LOGGER.warning(e);
+                entries.clear();
+            }
+        }
+
+        final Path dataFile = getDataFile(generation);
+        final long size = Files.exists(dataFile) ? Files.size(dataFile) : 0;
+
+        entries.values().removeIf(entry -> entry.offset + entry.getLength() > size);
+
+        liveSize = 0;
+
+        for (final AtlasEntry entry : entries.values()) {
+            liveSize += entry.getLength();
+        }
+
+        writeIndex(generation, entries);
+        openFiles();
+    }
+
+    /**
+     * Open the current data file and the index file to append.
+     */
+    private void openFiles() throws IOException {
+
+        final Path dataFile = getDataFile(generation);
+        final Path indexFile = folder.resolve(INDEX_FILE);
+
+        dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        dataSize = dataChannel.size();
+        indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile,
+                StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Close the current files.
+     */
+    private void close() {
+
+        chunks = new MappedByteBuffer[0];
+
+        try {
+            if (dataChannel != null) dataChannel.close();
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        }
+
+        try {
+            if (indexOut != null) indexOut.close();
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        }
+
+        dataChannel = null;
+        indexOut = null;
+    }
+
+    /**
+     * Read entries from the index file, the last not finished record is ignored.
+     */
+    private void readIndex(@NotNull final Path indexFile) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                throw new IOException("unsupported format of the thumbnail index " + indexFile);
+            }
+
+            generation = in.readInt();
+
+            while (true) {
+
+                final byte operation;
+                final ThumbnailKey key;
+
+                try {
+                    operation = in.readByte();
+                    key = new ThumbnailKey(Paths.get(in.readUTF()), in.readInt(), in.readInt());
+                } catch (final EOFException e) {
+                    break;
+                }
+
+                if (operation == OPERATION_REMOVE) {
+                    entries.remove(key);
+                    continue;
+                } else if (operation != OPERATION_PUT) {
+                    break;
+                }
+
+                try {
+                    entries.put(key, new AtlasEntry(in.readLong(), in.readLong(), in.readInt(), in.readInt(), in.readInt(),
+                            in.readLong()));
+                } catch (final EOFException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrite the index file with the entries.
+     */
+    private void writeIndex(final int generation, @NotNull final Map<ThumbnailKey, AtlasEntry> entries)
+            throws IOException {
+
+        final Path indexFile = folder.resolve(INDEX_FILE);
+        final Path tempFile = Files.createTempFile(folder, INDEX_FILE, null);
+
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(generation);
+
+            for (final Map.Entry<ThumbnailKey, AtlasEntry> entry : entries.entrySet()) {
+                writeRecord(out, entry.getKey(), entry.getValue());
+            }
+
+        } catch (final IOException e) {
+            deleteQuietly(tempFile);
+            throw e;
+        }
+
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Append a record about a new thumbnail to the index.
+     */
+    private void writePut(@NotNull final DataOutputStream out, @NotNull final ThumbnailKey key,
+                          @NotNull final AtlasEntry entry) throws IOException {
+        writeRecord(out, key, entry);
+        out.flush();
+    }
+
+    /**
+     * Append a record about a removed thumbnail to the index.
+     */
+    private void writeRemove(@NotNull final DataOutputStream out, @NotNull final ThumbnailKey key)
+            throws IOException {
+        out.writeByte(OPERATION_REMOVE);
+        out.writeUTF(key.getFile().toString());
+        out.writeInt(key.getWidth());
+        out.writeInt(key.getHeight());
+        out.flush();
+    }
+
+    /**
+     * Write a record about a thumbnail.
+     */
+    private static void writeRecord(@NotNull final DataOutputStream out, @NotNull final ThumbnailKey key,
+                                    @NotNull final AtlasEntry entry) throws IOException {
+        out.writeByte(OPERATION_PUT);
+        out.writeUTF(key.getFile().toString());
+        out.writeInt(key.getWidth());
+        out.writeInt(key.getHeight());
+        out.writeLong(entry.lastModified);
+        out.writeLong(entry.offset);
+        out.writeInt(entry.length);
+        out.writeInt(entry.width);
+        out.writeInt(entry.height);
+        out.writeLong(entry.lastAccess);
+    }
+
+    /**
+     * Get a region of the data file, the region is sliced from a mapped chunk if it's inside one full chunk,
+     * otherwise it's read by the channel. Should be called under the lock.
+     */
+    @Nullable
+    private ByteBuffer getRegion(final long offset, final int length) {
+
+        final FileChannel dataChannel = this.dataChannel;
+        if (dataChannel == null || offset + length > dataSize) return null;
+
+        final int index = (int) (offset / CHUNK_SIZE);
+        final long chunkOffset = (long) index * CHUNK_SIZE;
+
+        if (offset + length <= chunkOffset + CHUNK_SIZE) {
+
+            final MappedByteBuffer chunk = getChunk(dataChannel, index);
+
+            if (chunk != null) {
+                final ByteBuffer region = chunk.duplicate();
+                region.limit((int) (offset - chunkOffset) + length);
+                region.position((int) (offset - chunkOffset));
+                return region.slice();
+            }
+        }
+
+        final ByteBuffer region = ByteBuffer.allocate(length);
+
+        try {
+            while (region.hasRemaining()) {
+                if (dataChannel.read(region, offset + region.position()) < 0) return null;
+            }
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+            return null;
+        }
+
+        region.flip();
+        return region;
+    }
+
+    /**
+     * Get a mapped full chunk of the data file, the chunk is mapped only once.
+     *
+     * @return the chunk or null if the chunk isn't full yet.
+     */
+    @Nullable
+    private MappedByteBuffer getChunk(@NotNull final FileChannel dataChannel, final int index) {
+
+        MappedByteBuffer[] chunks = this.chunks;
+        if (index < chunks.length && chunks[index] != null) return chunks[index];
+        if ((long) (index + 1) * CHUNK_SIZE > dataSize) return null;
+
+        synchronized (this) {
+
+            chunks = this.chunks;
+            if (index < chunks.length && chunks[index] != null) return chunks[index];
+            if (index >= chunks.length) chunks = Arrays.copyOf(chunks, index + 1);
+
+            final long offset = (long) index * CHUNK_SIZE;
+
+            try {
+                chunks[index] = dataChannel.map(FileChannel.MapMode.READ_ONLY, offset, CHUNK_SIZE);
+            } catch (final IOException e) {
+                LOGGER.warning(e);
+                return null;
+            }
+
+            this.chunks = chunks;
+            return chunks[index];
+        }
+    }
+
+    /**
+     * @return the data file of the generation.
+     */
+    @NotNull
+    private Path getDataFile(final int generation) {
+        return folder.resolve(DATA_FILE_PREFIX + generation + DATA_FILE_EXTENSION);
+    }
+
+    /**
+     * @return the output to append records to the index file.
+     */
+    @NotNull
+    private DataOutputStream requireIndexOut() throws IOException {
+        if (indexOut == null) throw new IOException("the thumbnail index isn't opened.");
+        return indexOut;
+    }
+
+    /**
+     * Remove data files of previous generations, not finished index files and thumbnail files
+     * of the previous cache format.
+     */
+    @BackgroundThread
+    private void cleanup() {
+
+        final Path dataFile;
+        final Path indexFile = folder.resolve(INDEX_FILE);
+
+        lock.readLock().lock();
+        try {
+            dataFile = getDataFile(generation);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (final Path file : stream) {
+                if (file.equals(dataFile) || file.equals(indexFile)) continue;
+
+                final String fileName = file.getFileName().toString();
+
+                if (Files.isDirectory(file)) {
+                    FileUtils.delete(file);
+                } else if (fileName.startsWith(DATA_FILE_PREFIX) || fileName.startsWith(INDEX_FILE)) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        } finally {
+            compacting.set(false);
+        }
+
+        checkCompaction();
+    }
+
+    /**
+     * Delete data files of previous generations. A data file can be still mapped by not collected chunks and
+     * can't be deleted on some platforms, so it's tried again after the next compaction and at startup.
+     *
+     * @param generation the current generation.
+     */
+    @BackgroundThread
+    private void deleteStaleDataFiles(final int generation) {
+
+        final Path dataFile = getDataFile(generation);
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(folder, DATA_FILE_PREFIX + "*")) {
+            for (final Path file : stream) {
+                if (file.equals(dataFile)) continue;
+                try {
+                    Files.deleteIfExists(file);
+                } catch (final IOException e) {
+                    // the file is still mapped, it will be deleted by the next try
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        }
+    }
+
+    /**
+     * Delete the file and log a problem.
+     */
+    private static void deleteQuietly(@NotNull final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.ss.editor.file.cache;
+
+import com.ss.editor.annotation.BackgroundThread;
+import com.ss.editor.annotation.FXThread;
+import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.config.Config;
+import com.ss.editor.executor.TaskPriority;
+import com.ss.editor.manager.ExecutorManager;
+import com.ss.editor.manager.JMEFilePreviewManager;
+import com.ss.editor.manager.JavaFXImageManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import rlib.logging.Logger;
+import rlib.logging.LoggerManager;
+import rlib.util.array.Array;
+import rlib.util.array.ArrayFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * The job to render previews of all JME files in a folder to the thumbnail cache. Files are rendered one by one
+ * by {@link JMEFilePreviewManager} as batch requests, files with actual cached previews are skipped. The job stops
+ * when its stored previews fill the part of the disk cache which is kept after eviction, so it doesn't evict its own
+ * previews, the rest files are reported as skipped.
+ *
+ * @author JavaSaBr
+ */
+public class ThumbnailBatchJob {
+
+    @NotNull
+    private static final Logger LOGGER = LoggerManager.getLogger(ThumbnailBatchJob.class);
+
+    @NotNull
+    private static final ExecutorManager EXECUTOR_MANAGER = ExecutorManager.getInstance();
+
+    /**
+     * The listener of progress of the job.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Notify about progress of the job.
+         *
+         * @param job       the job.
+         * @param processed the count of processed files.
+         * @param failed    the count of files which can't be rendered.
+         * @param skipped   the count of files which aren't rendered because the disk cache is full.
+         * @param total     the count of files.
+         * @param finished  true if the job is finished or cancelled.
+         */
+        @FXThread
+        void notifyProgress(@NotNull ThumbnailBatchJob job, int processed, int failed, int skipped, int total,
+                            boolean finished);
+    }
+
+    /**
+     * The folder to process.
+     */
+    @NotNull
+    private final Path folder;
+
+    /**
+     * The files to render.
+     */
+    @NotNull
+    private final Array<Path> files;
+
+    /**
+     * The listener of progress.
+     */
+    @Nullable
+    private final ProgressListener listener;
+
+    /**
+     * True if the job is cancelled.
+     */
+    @NotNull
+    private final AtomicBoolean cancelled;
+
+    /**
+     * The width of previews.
+     */
+    private final int width;
+
+    /**
+     * The height of previews.
+     */
+    private final int height;
+
+    /**
+     * The index of the next file to render.
+     */
+    private volatile int index;
+
+    /**
+     * The count of files which can't be rendered.
+     */
+    private volatile int failed;
+
+    /**
+     * The count of files which aren't rendered because the disk cache is full.
+     */
+    private volatile int skipped;
+
+    /**
+     * The size of stored previews of processed files in bytes.
+     */
+    private volatile long storedSize;
+
+    public ThumbnailBatchJob(@NotNull final Path folder, final int width, final int height,
+                             @Nullable final ProgressListener listener) {
+        this.folder = folder;
+        this.width = width;
+        this.height = height;
+        this.listener = listener;
+        this.files = ArrayFactory.newArray(Path.class);
+        this.cancelled = new AtomicBoolean();
+    }
+
+    /**
+     * @return the folder to process.
+     */
+    @NotNull
+    @FromAnyThread
+    public Path getFolder() {
+        return folder;
+    }
+
+    /**
+     * Start the job in background.
+     */
+    @FromAnyThread
+    public void start() {
+        EXECUTOR_MANAGER.addBackgroundTask(this::collectFiles, TaskPriority.BULK);
+    }
+
+    /**
+     * Cancel the job, the current render is finished.
+     */
+    @FromAnyThread
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Collect JME files of the folder and start rendering.
+     */
+    @BackgroundThread
+    private void collectFiles() {
+
+        try (final Stream<Path> stream = Files.walk(folder)) {
+            stream.filter(JMEFilePreviewManager::isJmeFile)
+                    .sorted()
+                    .forEach(files::add);
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        }
+
+        renderNext();
+    }
+
+    /**
+     * @return the size of the disk cache in bytes which is kept after eviction.
+     */
+    private static long getBudget() {
+        return (long) (Config.PREVIEW_DISK_CACHE_SIZE * 1024L * 1024L * ThumbnailAtlas.EVICTION_FACTOR);
+    }
+
+    /**
+     * Render the next file without an actual preview.
+     */
+    @BackgroundThread
+    private void renderNext() {
+
+        final JavaFXImageManager imageManager = JavaFXImageManager.getInstance();
+        final JMEFilePreviewManager previewManager = JMEFilePreviewManager.getInstance();
+
+        while (index < files.size() && !cancelled.get()) {
+
+            if (storedSize >= getBudget()) {
+                skipped = files.size() - index;
+                LOGGER.warning("previews of " + skipped + " files in " + folder + " are skipped, the disk cache of " +
+                        Config.PREVIEW_DISK_CACHE_SIZE + " MB is full.");
+                break;
+            }
+
+            final Path file = files.get(index);
+
+            if (imageManager.getCachedPreview(file, width, height) != null) {
+                storedSize += imageManager.getCachedPreviewSize(file, width, height);
+                index++;
+                notifyProgress(false);
+                continue;
+            }
+
+            previewManager.render(file, width, height).whenComplete((image, throwable) -> {
+
+                if (throwable != null) {
+                    LOGGER.warning("can't render a preview of " + file + ": " + throwable.getMessage());
+                    failed++;
+                } else {
+                    storedSize += imageManager.getCachedPreviewSize(file, width, height);
+                }
+
+                index++;
+                notifyProgress(false);
+
+                EXECUTOR_MANAGER.addBackgroundTask(this::renderNext, TaskPriority.BULK);
+            });
+
+            return;
+        }
+
+        notifyProgress(true);
+    }
+
+    /**
+     * Notify the listener about progress.
+     */
+    @FromAnyThread
+    private void notifyProgress(final boolean finished) {
+        if (listener == null) return;
+
+        final int processed = index;
+        final int failed = this.failed;
+        final int skipped = this.skipped;
+        final int total = files.size();
+
+        EXECUTOR_MANAGER.addFXUpdate(this, listener,
+                () -> listener.notifyProgress(this, processed, failed, skipped, total, finished));
+    }
+}
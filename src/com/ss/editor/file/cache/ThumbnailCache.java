@@ -0,0 +1,177 @@
+package com.ss.editor.file.cache;
+
+import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.executor.TaskPriority;
+import com.ss.editor.manager.ExecutorManager;
+import javafx.scene.image.Image;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The two-level cache of thumbnails. The first level keeps decoded images in memory with LRU eviction,
+ * the second level keeps thumbnails on disk between sessions in a {@link ThumbnailAtlas}. A thumbnail is
+ * actual while the last modified time of its source file is the same as when the thumbnail was created.
+ *
+ * @author JavaSaBr
+ */
+public class ThumbnailCache {
+
+    @NotNull
+    private static final ExecutorManager EXECUTOR_MANAGER = ExecutorManager.getInstance();
+
+    /**
+     * The entry of the memory level.
+     */
+    private static final class MemoryEntry {
+
+        /**
+         * The decoded thumbnail.
+         */
+        @NotNull
+        private final Image image;
+
+        /**
+         * The last modified time of the source file.
+         */
+        private final long lastModified;
+
+        /**
+         * The size of the image in bytes.
+         */
+        private final long weight;
+
+        private MemoryEntry(@NotNull final Image image, final long lastModified) {
+            this.image = image;
+            this.lastModified = lastModified;
+            this.weight = 4L * Math.max(1, (int) image.getWidth()) * Math.max(1, (int) image.getHeight());
+        }
+    }
+
+    /**
+     * The decoded thumbnails in the access order.
+     */
+    @NotNull
+    private final LinkedHashMap<ThumbnailKey, MemoryEntry> memory;
+
+    /**
+     * The disk level of this cache.
+     */
+    @NotNull
+    private final ThumbnailAtlas atlas;
+
+    /**
+     * The max size of decoded thumbnails in memory in bytes.
+     */
+    private final long memoryLimit;
+
+    /**
+     * The size of decoded thumbnails in memory in bytes.
+     */
+    private long memoryUsage;
+
+    public ThumbnailCache(@NotNull final Path folder, final long memoryLimit, final long diskLimit) {
+        this.memoryLimit = memoryLimit;
+        this.memory = new LinkedHashMap<>(64, 0.75F, true);
+        this.atlas = new ThumbnailAtlas(folder, diskLimit);
+    }
+
+    /**
+     * Get an actual thumbnail from memory or from disk.
+     *
+     * @param key          the key of the thumbnail.
+     * @param lastModified the last modified time of the source file.
+     * @return the thumbnail or null.
+     */
+    @Nullable
+    @FromAnyThread
+    public Image get(@NotNull final ThumbnailKey key, final long lastModified) {
+
+        synchronized (memory) {
+            final MemoryEntry entry = memory.get(key);
+            if (entry != null && entry.lastModified == lastModified) {
+                return entry.image;
+            }
+        }
+
+        final Image image = atlas.read(key, lastModified);
+        if (image == null) return null;
+
+        putToMemory(key, image, lastModified);
+        return image;
+    }
+
+    /**
+     * Put a new thumbnail to memory and to disk.
+     *
+     * @param key          the key of the thumbnail.
+     * @param image        the thumbnail.
+     * @param lastModified the last modified time of the source file.
+     */
+    @FromAnyThread
+    public void put(@NotNull final ThumbnailKey key, @NotNull final Image image, final long lastModified) {
+        putToMemory(key, image, lastModified);
+        atlas.write(key, image, lastModified);
+    }
+
+    /**
+     * Get a size of the thumbnail on disk.
+     *
+     * @param key the key of the thumbnail.
+     * @return the size in bytes or 0 if the thumbnail isn't stored.
+     */
+    @FromAnyThread
+    public long getStoredSize(@NotNull final ThumbnailKey key) {
+        return atlas.getStoredSize(key);
+    }
+
+    /**
+     * Remove all thumbnails of the file or of files in the folder.
+     *
+     * @param file the deleted file or folder.
+     */
+    @FromAnyThread
+    public void invalidate(@NotNull final Path file) {
+
+        synchronized (memory) {
+            final Iterator<Map.Entry<ThumbnailKey, MemoryEntry>> iterator = memory.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<ThumbnailKey, MemoryEntry> entry = iterator.next();
+                if (!entry.getKey().getFile().startsWith(file)) continue;
+                memoryUsage -= entry.getValue().weight;
+                iterator.remove();
+            }
+        }
+
+        EXECUTOR_MANAGER.addBackgroundTask(() -> atlas.remove(file), TaskPriority.BULK);
+    }
+
+    /**
+     * Put a thumbnail to memory and evict least recently used thumbnails.
+     */
+    @FromAnyThread
+    private void putToMemory(@NotNull final ThumbnailKey key, @NotNull final Image image, final long lastModified) {
+
+        final MemoryEntry newEntry = new MemoryEntry(image, lastModified);
+        if (newEntry.weight > memoryLimit) return;
+
+        synchronized (memory) {
+
+            final MemoryEntry prev = memory.put(key, newEntry);
+            if (prev != null) memoryUsage -= prev.weight;
+
+            memoryUsage += newEntry.weight;
+
+            final Iterator<MemoryEntry> iterator = memory.values().iterator();
+
+            while (memoryUsage > memoryLimit && iterator.hasNext()) {
+                memoryUsage -= iterator.next().weight;
+                iterator.remove();
+            }
+        }
+    }
+}
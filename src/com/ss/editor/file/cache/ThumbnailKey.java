@@ -0,0 +1,82 @@
+package com.ss.editor.file.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+
+/**
+ * The key of a thumbnail of a file with some size.
+ *
+ * @author JavaSaBr
+ */
+public final class ThumbnailKey {
+
+    /**
+     * The source file.
+     */
+    @NotNull
+    private final Path file;
+
+    /**
+     * The required width.
+     */
+    private final int width;
+
+    /**
+     * The required height.
+     */
+    private final int height;
+
+    public ThumbnailKey(@NotNull final Path file, final int width, final int height) {
+        this.file = file;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @return the source file.
+     */
+    @NotNull
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the required width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the required height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ThumbnailKey that = (ThumbnailKey) o;
+        return width == that.width && height == that.height && file.equals(that.file);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = file.hashCode();
+        result = 31 * result + width;
+        result = 31 * result + height;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ThumbnailKey{" +
+                "file=" + file +
+                ", width=" + width +
+                ", height=" + height +
+                '}';
+    }
+}
@@ -0,0 +1,574 @@
+package com.ss.editor.file.index;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import com.ss.editor.manager.WorkspaceManager;
+import com.ss.editor.util.SimpleFileVisitor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import rlib.logging.Logger;
+import rlib.logging.LoggerManager;
+import rlib.util.FileUtils;
+import rlib.util.array.Array;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The persistent index of files and folders of an asset folder. The index is stored in the editor folder of the
+ * asset folder and is validated incrementally: only folders with changed last modified time are listed again, so
+ * loading the index of an unchanged asset folder doesn't walk the whole file tree.
+ *
+ * @author JavaSaBr
+ */
+public class AssetIndex {
+
+    @NotNull
+    private static final Logger LOGGER = LoggerManager.getLogger(AssetIndex.class);
+
+    public static final String FILE_ASSET_INDEX = "asset-index";
+
+    private static final int MAGIC = 0x53534149;
+    private static final int VERSION = 1;
+
+    /**
+     * The key of the asset folder itself.
+     */
+    private static final String ROOT = "";
+
+    /**
+     * The asset folder.
+     */
+    @NotNull
+    private final Path assetFolder;
+
+    /**
+     * The file to store this index.
+     */
+    @NotNull
+    private final Path indexFile;
+
+    /**
+     * The table of entries by relative paths.
+     */
+    @NotNull
+    private final Map<String, AssetIndexEntry> entries;
+
+    /**
+     * The table of children by relative paths of folders.
+     */
+    @NotNull
+    private final Map<String, Set<String>> children;
+
+    private AssetIndex(@NotNull final Path assetFolder) {
+        this.assetFolder = assetFolder;
+        this.indexFile = assetFolder.resolve(WorkspaceManager.FOLDER_EDITOR).resolve(FILE_ASSET_INDEX);
+        this.entries = new HashMap<>();
+        this.children = new HashMap<>();
+    }
+
+    /**
+     * Load the stored index of the asset folder or create an empty index.
+     *
+     * @param assetFolder the asset folder.
+     * @return the index.
+     */
+    @NotNull
+    public static AssetIndex load(@NotNull final Path assetFolder) {
+
+        final AssetIndex index = new AssetIndex(assetFolder);
+        final Path indexFile = index.indexFile;
+
+        if (!Files.exists(indexFile)) {
+            return index;
+        }
+
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return index;
+            }
+
+            for (int i = 0, count = in.readInt(); i < count; i++) {
+
+                final String path = in.readUTF();
+                final String type = in.readUTF();
+                final boolean folder = in.readBoolean();
+                final long size = in.readLong();
+                final long lastModified = in.readLong();
+
+                index.put(new AssetIndexEntry(path, type, folder, size, lastModified));
+            }
+
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+            index.clear();
+        }
+
+        return index;
+    }
+
+    /**
+     * Save this index to the editor folder of the asset folder.
+     */
+    public void save() {
+
+        final Path tempFile = indexFile.resolveSibling(FILE_ASSET_INDEX + ".tmp");
+
+        try {
+
+            Files.createDirectories(indexFile.getParent());
+
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+
+                for (final AssetIndexEntry entry : entries.values()) {
+                    out.writeUTF(entry.getPath());
+                    out.writeUTF(entry.getType());
+                    out.writeBoolean(entry.isFolder());
+                    out.writeLong(entry.getSize());
+                    out.writeLong(entry.getLastModified());
+                }
+            }
+
+            try {
+                Files.move(tempFile, indexFile, REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, indexFile, REPLACE_EXISTING);
+            }
+
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        }
+    }
+
+    /**
+     * Validate this index against the asset folder. If the index is empty, the whole file tree is scanned, otherwise
+     * only folders which were changed since the last validation are listed again.
+     */
+    public void update() {
+
+        if (entries.isEmpty()) {
+            scanTree(assetFolder);
+            return;
+        }
+
+        final List<String> folders = new ArrayList<>(children.keySet());
+
+        for (final String folder : folders) {
+
+            final AssetIndexEntry entry = entries.get(folder);
+            if (entry == null || !entry.isFolder()) continue;
+
+            final Path path = toFile(folder);
+            final BasicFileAttributes attrs = readAttributes(path);
+
+            if (attrs == null || !attrs.isDirectory()) {
+                remove(folder);
+            } else if (attrs.lastModifiedTime().toMillis() != entry.getLastModified()) {
+                rescanFolder(path, attrs);
+            }
+        }
+    }
+
+    /**
+     * Scan the file tree of the folder again and collect differences between the index and the file system. Only the
+     * top of each deleted file tree is collected.
+     *
+     * @param folder  the folder.
+     * @param created the container of created files and folders.
+     * @param deleted the container of deleted files and folders.
+     */
+    public void rescan(@NotNull final Path folder, @NotNull final Array<AssetIndexEntry> created,
+                       @NotNull final Array<AssetIndexEntry> deleted) {
+
+        final String folderKey = toKey(folder);
+        final Set<String> before = new HashSet<>();
+        final Set<String> actual = new HashSet<>();
+
+        collectTree(folderKey, before);
+
+        try {
+            Files.walkFileTree(folder, new SimpleFileVisitor() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(@NotNull final Path dir, @NotNull final BasicFileAttributes attrs) {
+                    visit(dir, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public void visit(@NotNull final Path file, @NotNull final BasicFileAttributes attrs) {
+
+                    final String key = toKey(file);
+                    final AssetIndexEntry entry = toEntry(key, file, attrs);
+                    final AssetIndexEntry exists = entries.get(key);
+
+                    if (exists != null && exists.isFolder() != entry.isFolder()) {
+                        remove(key);
+                        deleted.add(exists);
+                        before.remove(key);
+                    }
+
+                    if (!before.contains(key)) {
+                        created.add(entry);
+                    }
+
+                    actual.add(key);
+                    put(entry);
+                }
+            });
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+            return;
+        }
+
+        for (final String key : before) {
+
+            if (actual.contains(key)) continue;
+
+            final AssetIndexEntry entry = entries.get(key);
+            if (entry == null) continue;
+
+            final String parent = getParentKey(key);
+
+            if (key.isEmpty() || actual.contains(parent) || !before.contains(parent)) {
+                deleted.add(entry);
+            }
+
+            remove(key);
+        }
+    }
+
+    /**
+     * Notify about a created or changed file or folder in the asset folder.
+     *
+     * @param file the file.
+     */
+    public void notifyChanged(@NotNull final Path file) {
+
+        final BasicFileAttributes attrs = readAttributes(file);
+        if (attrs == null) return;
+
+        final String key = toKey(file);
+        final AssetIndexEntry exists = entries.get(key);
+
+        if (exists == null) {
+            if (attrs.isDirectory()) {
+                scanTree(file);
+            } else {
+                put(toEntry(key, file, attrs));
+            }
+        } else if (!exists.isFolder()) {
+            exists.setSize(attrs.size());
+            exists.setLastModified(attrs.lastModifiedTime().toMillis());
+        }
+    }
+
+    /**
+     * Notify about a deleted file or folder in the asset folder.
+     *
+     * @param file the file.
+     */
+    public void notifyDeleted(@NotNull final Path file) {
+        remove(toKey(file));
+    }
+
+    /**
+     * Get a file of the entry.
+     *
+     * @param entry the entry.
+     * @return the file.
+     */
+    @NotNull
+    public Path toFile(@NotNull final AssetIndexEntry entry) {
+        return toFile(entry.getPath());
+    }
+
+    /**
+     * Check the file is an indexed folder.
+     *
+     * @param file the file.
+     * @return true if the file is an indexed folder.
+     */
+    public boolean isFolder(@NotNull final Path file) {
+        final AssetIndexEntry entry = entries.get(toKey(file));
+        return entry != null && entry.isFolder();
+    }
+
+    /**
+     * Handle all indexed files.
+     *
+     * @param consumer the handler.
+     */
+    public void forEachFile(@NotNull final Consumer<Path> consumer) {
+        for (final AssetIndexEntry entry : entries.values()) {
+            if (!entry.isFolder()) consumer.accept(toFile(entry.getPath()));
+        }
+    }
+
+    /**
+     * Handle all indexed files in the folder and its sub folders.
+     *
+     * @param folder   the folder.
+     * @param consumer the handler.
+     */
+    public void forEachFile(@NotNull final Path folder, @NotNull final Consumer<Path> consumer) {
+        forEachFile(toKey(folder), consumer);
+    }
+
+    /**
+     * Handle all indexed files in the folder with the key and its sub folders.
+     */
+    private void forEachFile(@NotNull final String folderKey, @NotNull final Consumer<Path> consumer) {
+
+        final Set<String> folderChildren = children.get(folderKey);
+        if (folderChildren == null) return;
+
+        for (final String key : folderChildren) {
+
+            final AssetIndexEntry entry = entries.get(key);
+            if (entry == null) continue;
+
+            if (entry.isFolder()) {
+                forEachFile(key, consumer);
+            } else {
+                consumer.accept(toFile(key));
+            }
+        }
+    }
+
+    /**
+     * Handle all indexed folders including the asset folder.
+     *
+     * @param consumer the handler.
+     */
+    public void forEachFolder(@NotNull final Consumer<Path> consumer) {
+        for (final AssetIndexEntry entry : entries.values()) {
+            if (entry.isFolder()) consumer.accept(toFile(entry.getPath()));
+        }
+    }
+
+    /**
+     * Get an entry of the file.
+     *
+     * @param file the file.
+     * @return the entry or null.
+     */
+    @Nullable
+    public AssetIndexEntry getEntry(@NotNull final Path file) {
+        return entries.get(toKey(file));
+    }
+
+    /**
+     * @return all entries of this index.
+     */
+    @NotNull
+    public Collection<AssetIndexEntry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * @return the asset folder.
+     */
+    @NotNull
+    public Path getAssetFolder() {
+        return assetFolder;
+    }
+
+    /**
+     * @return the count of indexed files and folders.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * List the changed folder again and update its children.
+     */
+    private void rescanFolder(@NotNull final Path folder, @NotNull final BasicFileAttributes folderAttrs) {
+
+        final String folderKey = toKey(folder);
+        final Set<String> oldChildren = new HashSet<>(children.getOrDefault(folderKey, new HashSet<>()));
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (final Path child : stream) {
+
+                final String key = toKey(child);
+                oldChildren.remove(key);
+
+                final BasicFileAttributes attrs = readAttributes(child);
+                if (attrs == null) continue;
+
+                final AssetIndexEntry exists = entries.get(key);
+
+                if (exists != null && exists.isFolder() != attrs.isDirectory()) {
+                    remove(key);
+                } else if (exists != null) {
+                    if (!exists.isFolder()) {
+                        exists.setSize(attrs.size());
+                        exists.setLastModified(attrs.lastModifiedTime().toMillis());
+                    }
+                    continue;
+                }
+
+                if (attrs.isDirectory()) {
+                    scanTree(child);
+                } else {
+                    put(toEntry(key, child, attrs));
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+            return;
+        }
+
+        oldChildren.forEach(this::remove);
+        put(toEntry(folderKey, folder, folderAttrs));
+    }
+
+    /**
+     * Scan the whole file tree of the folder.
+     */
+    private void scanTree(@NotNull final Path folder) {
+        try {
+            Files.walkFileTree(folder, new SimpleFileVisitor() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(@NotNull final Path dir, @NotNull final BasicFileAttributes attrs) {
+                    visit(dir, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public void visit(@NotNull final Path file, @NotNull final BasicFileAttributes attrs) {
+                    put(toEntry(toKey(file), file, attrs));
+                }
+            });
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        }
+    }
+
+    /**
+     * Put the entry to this index.
+     */
+    private void put(@NotNull final AssetIndexEntry entry) {
+
+        final String key = entry.getPath();
+        entries.put(key, entry);
+
+        if (entry.isFolder()) {
+            children.computeIfAbsent(key, toCreate -> new HashSet<>());
+        }
+
+        if (key.isEmpty()) return;
+
+        final String parent = getParentKey(key);
+        children.computeIfAbsent(parent, toCreate -> new HashSet<>()).add(key);
+    }
+
+    /**
+     * Remove the entry and all its children from this index.
+     */
+    private void remove(@NotNull final String key) {
+
+        final AssetIndexEntry entry = entries.remove(key);
+        if (entry == null) return;
+
+        final Set<String> folderChildren = children.remove(key);
+
+        if (folderChildren != null) {
+            new ArrayList<>(folderChildren).forEach(this::remove);
+        }
+
+        if (key.isEmpty()) return;
+
+        final Set<String> siblings = children.get(getParentKey(key));
+        if (siblings != null) siblings.remove(key);
+    }
+
+    /**
+     * Collect keys of the entry and all its children.
+     */
+    private void collectTree(@NotNull final String key, @NotNull final Set<String> container) {
+
+        if (!entries.containsKey(key)) return;
+
+        container.add(key);
+
+        final Set<String> folderChildren = children.get(key);
+        if (folderChildren == null) return;
+
+        for (final String child : folderChildren) {
+            collectTree(child, container);
+        }
+    }
+
+    private void clear() {
+        entries.clear();
+        children.clear();
+    }
+
+    @NotNull
+    private AssetIndexEntry toEntry(@NotNull final String key, @NotNull final Path file,
+                                    @NotNull final BasicFileAttributes attrs) {
+
+        final boolean folder = attrs.isDirectory();
+        final String type = folder ? "" : FileUtils.getExtension(file);
+        final long size = folder ? 0 : attrs.size();
+
+        return new AssetIndexEntry(key, type, folder, size, attrs.lastModifiedTime().toMillis());
+    }
+
+    @NotNull
+    private String getParentKey(@NotNull final String key) {
+        final Path parent = assetFolder.resolve(key).getParent();
+        return parent == null ? ROOT : toKey(parent);
+    }
+
+    @NotNull
+    private String toKey(@NotNull final Path file) {
+        return assetFolder.relativize(file).toString();
+    }
+
+    @NotNull
+    private Path toFile(@NotNull final String key) {
+        return key.isEmpty() ? assetFolder : assetFolder.resolve(key);
+    }
+
+    @Nullable
+    private static BasicFileAttributes readAttributes(@NotNull final Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.ss.editor.file.index;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The entry of the {@link AssetIndex} about a file or a folder in an asset folder.
+ *
+ * @author JavaSaBr
+ */
+public class AssetIndexEntry {
+
+    /**
+     * The path relative to the asset folder.
+     */
+    @NotNull
+    private final String path;
+
+    /**
+     * The type of the file, its extension in lower case or empty string for folders.
+     */
+    @NotNull
+    private final String type;
+
+    /**
+     * True if it's a folder.
+     */
+    private final boolean folder;
+
+    /**
+     * The size of the file.
+     */
+    private long size;
+
+    /**
+     * The last modified time in milliseconds.
+     */
+    private long lastModified;
+
+    public AssetIndexEntry(@NotNull final String path, @NotNull final String type, final boolean folder,
+                           final long size, final long lastModified) {
+        this.path = path;
+        this.type = type;
+        this.folder = folder;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the path relative to the asset folder.
+     */
+    @NotNull
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the type of the file, its extension in lower case or empty string for folders.
+     */
+    @NotNull
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return true if it's a folder.
+     */
+    public boolean isFolder() {
+        return folder;
+    }
+
+    /**
+     * @return the size of the file.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @param size the size of the file.
+     */
+    void setSize(final long size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the last modified time in milliseconds.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @param lastModified the last modified time in milliseconds.
+     */
+    void setLastModified(final long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "AssetIndexEntry{" +
+                "path='" + path + '\'' +
+                ", folder=" + folder +
+                ", size=" + size +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
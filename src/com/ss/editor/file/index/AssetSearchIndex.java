@@ -0,0 +1,597 @@
+package com.ss.editor.file.index;
+
+import com.ss.editor.FileExtensions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import rlib.logging.Logger;
+import rlib.logging.LoggerManager;
+import rlib.util.FileUtils;
+import rlib.util.array.Array;
+import rlib.util.array.ArrayFactory;
+import rlib.util.array.IntegerArray;
+import rlib.util.dictionary.DictionaryFactory;
+import rlib.util.dictionary.LongDictionary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The in-memory search index of files in an asset folder. Relative paths of files are indexed by
+ * trigrams, so a query is resolved by intersecting a few sorted lists of ids instead of checking
+ * all files. Optionally the index keeps asset paths which are referenced from materials and
+ * material definitions to find all materials which use some asset.
+ *
+ * @author JavaSaBr
+ */
+public class AssetSearchIndex {
+
+    @NotNull
+    private static final Logger LOGGER = LoggerManager.getLogger(AssetSearchIndex.class);
+
+    /**
+     * The min count of removed ids to compact the index.
+     */
+    private static final int MIN_REMOVED_TO_COMPACT = 1024;
+
+    /**
+     * The chars which split contents of materials to tokens.
+     */
+    private static final String TOKEN_DELIMITERS = " \t\r\n\"':;{}()[],=";
+
+    /**
+     * The asset folder.
+     */
+    @NotNull
+    private final Path assetFolder;
+
+    /**
+     * The table of ids by files.
+     */
+    @NotNull
+    private final Map<Path, Integer> ids;
+
+    /**
+     * The list of files by ids, removed files are null.
+     */
+    @NotNull
+    private final List<Path> files;
+
+    /**
+     * The list of lower case relative paths by ids, removed files are null.
+     */
+    @NotNull
+    private final List<String> keys;
+
+    /**
+     * The table of sorted ids by trigrams.
+     */
+    @NotNull
+    private final LongDictionary<IntegerArray> trigrams;
+
+    /**
+     * The table of materials by lower case referenced asset paths.
+     */
+    @NotNull
+    private final Map<String, Set<Path>> references;
+
+    /**
+     * The table of referenced asset paths by materials.
+     */
+    @NotNull
+    private final Map<Path, Array<String>> materialReferences;
+
+    /**
+     * The lock of this index.
+     */
+    @NotNull
+    private final StampedLock lock;
+
+    /**
+     * True if need to index contents of materials.
+     */
+    private final boolean indexContents;
+
+    /**
+     * The count of removed ids.
+     */
+    private int removed;
+
+    public AssetSearchIndex(@NotNull final Path assetFolder, final boolean indexContents) {
+        this.assetFolder = assetFolder;
+        this.indexContents = indexContents;
+        this.ids = new HashMap<>();
+        this.files = new ArrayList<>();
+        this.keys = new ArrayList<>();
+        this.trigrams = DictionaryFactory.newLongDictionary();
+        this.references = new HashMap<>();
+        this.materialReferences = new HashMap<>();
+        this.lock = new StampedLock();
+    }
+
+    /**
+     * Add a file to this index or update contents of an indexed file.
+     *
+     * @param file the file.
+     */
+    public void add(@NotNull final Path file) {
+
+        final Array<String> fileReferences = readReferences(file);
+
+        final long stamp = lock.writeLock();
+        try {
+
+            if (!ids.containsKey(file)) {
+                addPath(file);
+            }
+
+            if (fileReferences != null) {
+                removeReferences(file);
+                addReferences(file, fileReferences);
+            }
+
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Update contents of an indexed file after it was changed.
+     *
+     * @param file the file.
+     */
+    public void update(@NotNull final Path file) {
+
+        final Array<String> fileReferences = readReferences(file);
+        if (fileReferences == null) return;
+
+        final long stamp = lock.writeLock();
+        try {
+
+            if (ids.containsKey(file)) {
+                removeReferences(file);
+                addReferences(file, fileReferences);
+            }
+
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove a file or a folder with all its files from this index.
+     *
+     * @param file the file or folder.
+     */
+    public void remove(@NotNull final Path file) {
+
+        final long stamp = lock.writeLock();
+        try {
+
+            final Integer id = ids.get(file);
+
+            if (id != null) {
+                removeId(id);
+            } else {
+                for (int i = 0, length = files.size(); i < length; i++) {
+                    final Path indexed = files.get(i);
+                    if (indexed != null && indexed.startsWith(file)) removeId(i);
+                }
+            }
+
+            if (removed >= MIN_REMOVED_TO_COMPACT && removed > ids.size()) {
+                compact();
+            }
+
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Find files which relative paths contain the query. Files with the query in their names go first.
+     *
+     * @param query the query.
+     * @param limit the max count of results.
+     * @return the list of found files.
+     */
+    @NotNull
+    public Array<Path> find(@NotNull final String query, final int limit) {
+
+        final String normalized = normalize(query);
+        final Array<Path> result = ArrayFactory.newArray(Path.class);
+        if (normalized.isEmpty() || limit < 1) return result;
+
+        final PriorityQueue<Match> matches = new PriorityQueue<>(limit + 1, Collections.reverseOrder());
+
+        final long stamp = lock.readLock();
+        try {
+
+            if (normalized.length() < 3) {
+                for (int id = 0, length = keys.size(); id < length; id++) {
+                    addMatch(matches, limit, id, normalized);
+                }
+            } else {
+
+                final IntegerArray candidates = findCandidates(normalized);
+                if (candidates == null) return result;
+
+                final int[] array = candidates.array();
+
+                for (int i = 0, length = candidates.size(); i < length; i++) {
+                    addMatch(matches, limit, array[i], normalized);
+                }
+            }
+
+            final Match[] sorted = matches.toArray(new Match[matches.size()]);
+            Arrays.sort(sorted);
+
+            for (final Match match : sorted) {
+                result.add(files.get(match.id));
+            }
+
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        return result;
+    }
+
+    /**
+     * Find materials which reference assets with the query in their paths.
+     *
+     * @param query the part of an asset path.
+     * @param limit the max count of results.
+     * @return the list of found materials.
+     */
+    @NotNull
+    public Array<Path> findReferences(@NotNull final String query, final int limit) {
+
+        final String normalized = normalize(query);
+        final Array<Path> result = ArrayFactory.newArray(Path.class);
+        if (normalized.isEmpty() || limit < 1) return result;
+
+        final long stamp = lock.readLock();
+        try {
+
+            final Set<Path> exact = references.get(normalized);
+            if (exact != null) exact.forEach(result::add);
+
+            for (final Map.Entry<String, Set<Path>> entry : references.entrySet()) {
+                if (result.size() >= limit) break;
+                if (!entry.getKey().contains(normalized)) continue;
+                for (final Path material : entry.getValue()) {
+                    if (result.size() >= limit) break;
+                    if (!result.contains(material)) result.add(material);
+                }
+            }
+
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the count of indexed files.
+     */
+    public int size() {
+        final long stamp = lock.readLock();
+        try {
+            return ids.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Find ids of files which contain all trigrams of the query.
+     *
+     * @return the sorted ids or null if there are not any candidates.
+     */
+    @Nullable
+    private IntegerArray findCandidates(@NotNull final String query) {
+
+        final int count = query.length() - 2;
+        final IntegerArray[] lists = new IntegerArray[count];
+
+        for (int i = 0; i < count; i++) {
+            final IntegerArray list = trigrams.get(toTrigram(query, i));
+            if (list == null) return null;
+            lists[i] = list;
+        }
+
+        Arrays.sort(lists, (first, second) -> first.size() - second.size());
+
+        IntegerArray result = lists[0];
+
+        for (int i = 1; i < count && !result.isEmpty(); i++) {
+            result = intersect(result, lists[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Intersect two sorted lists of ids.
+     */
+    @NotNull
+    private static IntegerArray intersect(@NotNull final IntegerArray first, @NotNull final IntegerArray second) {
+
+        final IntegerArray result = ArrayFactory.newIntegerArray();
+        final int[] firstIds = first.array();
+        final int[] secondIds = second.array();
+
+        for (int i = 0, j = 0, firstSize = first.size(), secondSize = second.size(); i < firstSize && j < secondSize; ) {
+
+            final int firstId = firstIds[i];
+            final int secondId = secondIds[j];
+
+            if (firstId == secondId) {
+                result.add(firstId);
+                i++;
+                j++;
+            } else if (firstId < secondId) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Check the file with the id and add it to the best matches.
+     */
+    private void addMatch(@NotNull final PriorityQueue<Match> matches, final int limit, final int id,
+                          @NotNull final String query) {
+
+        final String key = keys.get(id);
+        if (key == null) return;
+
+        final int nameIndex = key.lastIndexOf('/') + 1;
+
+        final int rank;
+
+        if (key.startsWith(query, nameIndex)) {
+            rank = 0;
+        } else if (key.indexOf(query, nameIndex) >= 0) {
+            rank = 1;
+        } else if (key.contains(query)) {
+            rank = 2;
+        } else {
+            return;
+        }
+
+        if (matches.size() >= limit) {
+
+            final Match worst = matches.peek();
+            if (Match.compare(rank, key, worst) >= 0) return;
+
+            matches.poll();
+        }
+
+        matches.add(new Match(id, rank, key));
+    }
+
+    /**
+     * Add a new file to the indexes.
+     */
+    private void addPath(@NotNull final Path file) {
+
+        final int id = files.size();
+        final String key = normalize(assetFolder.relativize(file).toString());
+
+        ids.put(file, id);
+        files.add(file);
+        keys.add(key);
+
+        for (int i = 0, length = key.length() - 2; i < length; i++) {
+
+            final IntegerArray list = trigrams.get(toTrigram(key, i), () -> ArrayFactory.newIntegerArray());
+
+            if (list.isEmpty() || list.last() != id) {
+                list.add(id);
+            }
+        }
+    }
+
+    /**
+     * Remove the file with the id. The id stays in lists of trigrams until the next compaction.
+     */
+    private void removeId(final int id) {
+
+        final Path file = files.get(id);
+        if (file == null) return;
+
+        ids.remove(file);
+        files.set(id, null);
+        keys.set(id, null);
+        removeReferences(file);
+
+        removed++;
+    }
+
+    /**
+     * Build the indexes again without removed ids.
+     */
+    private void compact() {
+
+        final List<Path> actual = new ArrayList<>(ids.size());
+
+        for (final Path file : files) {
+            if (file != null) actual.add(file);
+        }
+
+        ids.clear();
+        files.clear();
+        keys.clear();
+        trigrams.clear();
+        removed = 0;
+
+        actual.forEach(this::addPath);
+    }
+
+    /**
+     * Add the referenced asset paths of the material.
+     */
+    private void addReferences(@NotNull final Path material, @NotNull final Array<String> fileReferences) {
+        if (fileReferences.isEmpty()) return;
+
+        materialReferences.put(material, fileReferences);
+
+        for (final String reference : fileReferences) {
+            references.computeIfAbsent(reference, key -> new HashSet<>()).add(material);
+        }
+    }
+
+    /**
+     * Remove the referenced asset paths of the material.
+     */
+    private void removeReferences(@NotNull final Path material) {
+
+        final Array<String> fileReferences = materialReferences.remove(material);
+        if (fileReferences == null) return;
+
+        for (final String reference : fileReferences) {
+
+            final Set<Path> materials = references.get(reference);
+            if (materials == null) continue;
+
+            materials.remove(material);
+
+            if (materials.isEmpty()) {
+                references.remove(reference);
+            }
+        }
+    }
+
+    /**
+     * Read asset paths which are referenced from the material.
+     *
+     * @return the list of references or null if the file isn't a material.
+     */
+    @Nullable
+    private Array<String> readReferences(@NotNull final Path file) {
+        if (!indexContents) return null;
+
+        final String extension = FileUtils.getExtension(file);
+
+        if (!FileExtensions.JME_MATERIAL.equals(extension) &&
+                !FileExtensions.JME_MATERIAL_DEFINITION.equals(extension)) {
+            return null;
+        }
+
+        final Array<String> result = ArrayFactory.newArray(String.class);
+        final String content;
+
+        try {
+            content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            LOGGER.warning(this, e);
+            return result;
+        }
+
+        int start = -1;
+
+        for (int i = 0, length = content.length(); i <= length; i++) {
+
+            final boolean delimiter = i == length || TOKEN_DELIMITERS.indexOf(content.charAt(i)) >= 0;
+
+            if (!delimiter) {
+                if (start < 0) start = i;
+                continue;
+            } else if (start < 0) {
+                continue;
+            }
+
+            final String token = content.substring(start, i);
+            start = -1;
+
+            if (isAssetPath(token)) {
+                final String reference = normalize(token);
+                if (!result.contains(reference)) result.add(reference);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Check the token looks like an asset path, it has an extension after the last slash.
+     */
+    private static boolean isAssetPath(@NotNull final String token) {
+        final int dot = token.lastIndexOf('.');
+        return dot > 0 && dot < token.length() - 1 && dot > token.lastIndexOf('/');
+    }
+
+    /**
+     * Convert the string to the form which is used in the index.
+     */
+    @NotNull
+    private static String normalize(@NotNull final String value) {
+        return value.trim().replace('\\', '/').toLowerCase();
+    }
+
+    /**
+     * Pack three chars of the string from the index to a key.
+     */
+    private static long toTrigram(@NotNull final String value, final int index) {
+        return ((long) value.charAt(index) << 32) | ((long) value.charAt(index + 1) << 16) | value.charAt(index + 2);
+    }
+
+    /**
+     * The found file with its rank.
+     */
+    private static final class Match implements Comparable<Match> {
+
+        /**
+         * The id of the file.
+         */
+        private final int id;
+
+        /**
+         * The rank, a lower rank is better.
+         */
+        private final int rank;
+
+        /**
+         * The relative path of the file.
+         */
+        @NotNull
+        private final String key;
+
+        private Match(final int id, final int rank, @NotNull final String key) {
+            this.id = id;
+            this.rank = rank;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(@NotNull final Match other) {
+            return compare(rank, key, other);
+        }
+
+        /**
+         * Compare a match with the rank and the key with the other match.
+         */
+        private static int compare(final int rank, @NotNull final String key, @NotNull final Match other) {
+            if (rank != other.rank) return rank - other.rank;
+            if (key.length() != other.key.length()) return key.length() - other.key.length();
+            return key.compareTo(other.key);
+        }
+    }
+}
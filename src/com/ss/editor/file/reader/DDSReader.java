@@ -14,8 +14,18 @@
 
 package com.ss.editor.file.reader;
 
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
 public final class DDSReader {
 
+    public static final int HEADER_SIZE = 128;
+
+    /**
+     * The min count of pixels to decode rows of blocks in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 256 * 256;
+
     public static final Order ARGB = new Order(16, 8, 0, 24);
     public static final Order ABGR = new Order(0, 8, 16, 24);
 
@@ -61,97 +71,164 @@ public final class DDSReader {
                 (buffer[107] & 0xFF) << 24;
     }
 
+    /**
+     * @return the count of mip levels in the file, at least 1.
+     */
+    public static int getMipmapCount(byte[] header) {
+        return Math.max(1, getMipmap(header));
+    }
+
+    /**
+     * @return the width of the mip level.
+     */
+    public static int getLevelWidth(byte[] header, int mipmapLevel) {
+        return Math.max(1, getWidth(header) >> mipmapLevel);
+    }
+
+    /**
+     * @return the height of the mip level.
+     */
+    public static int getLevelHeight(byte[] header, int mipmapLevel) {
+        return Math.max(1, getHeight(header) >> mipmapLevel);
+    }
+
+    /**
+     * @return the offset of the mip level in the file or -1 if the format isn't supported.
+     */
+    public static long getLevelOffset(byte[] header, int mipmapLevel) {
+
+        int type = getType(header);
+        if (type == 0) return -1;
+
+        long offset = HEADER_SIZE;
+
+        for (int i = 0; i < mipmapLevel; i++) {
+            offset += getLevelSize(type, getLevelWidth(header, i), getLevelHeight(header, i));
+        }
+
+        return offset;
+    }
+
+    /**
+     * @return the size of the mip level in bytes or -1 if the format isn't supported.
+     */
+    public static int getLevelSize(byte[] header, int mipmapLevel) {
+        int type = getType(header);
+        if (type == 0) return -1;
+        return getLevelSize(type, getLevelWidth(header, mipmapLevel), getLevelHeight(header, mipmapLevel));
+    }
+
+    private static int getLevelSize(int type, int width, int height) {
+        switch (type) {
+            case DXT1:
+                return 8 * ((width + 3) / 4) * ((height + 3) / 4);
+            case DXT2:
+            case DXT3:
+            case DXT4:
+            case DXT5:
+                return 16 * ((width + 3) / 4) * ((height + 3) / 4);
+            default:
+                return (type & 0xFF) * width * height;
+        }
+    }
+
     public static int[] read(byte[] buffer, Order order, int mipmapLevel) {
 
-        // header
-        int width = getWidth(buffer);
-        int height = getHeight(buffer);
-        int mipmap = getMipmap(buffer);
+        if (mipmapLevel < 0 || mipmapLevel >= getMipmapCount(buffer)) {
+            mipmapLevel = 0;
+        }
+
+        long offset = getLevelOffset(buffer, mipmapLevel);
+        if (offset < 0) return null;
+
+        return readLevel(buffer, buffer, (int) offset, mipmapLevel, order);
+    }
+
+    /**
+     * Decode only one mip level.
+     *
+     * @param header      the header of the file.
+     * @param buffer      the buffer which contains the mip level.
+     * @param offset      the offset of the mip level in the buffer.
+     * @param mipmapLevel the mip level.
+     * @param order       the order of channels.
+     * @return the pixels or null if the format isn't supported.
+     */
+    public static int[] readLevel(byte[] header, byte[] buffer, int offset, int mipmapLevel, Order order) {
+        return readLevel(header, buffer, offset, mipmapLevel, order, null);
+    }
+
+    /**
+     * Decode only one mip level to the pixels buffer.
+     *
+     * @param header      the header of the file.
+     * @param buffer      the buffer which contains the mip level.
+     * @param offset      the offset of the mip level in the buffer.
+     * @param mipmapLevel the mip level.
+     * @param order       the order of channels.
+     * @param pixels      the buffer to store pixels or null to allocate a new one, it's used if it's
+     *                    not less than the size of the mip level.
+     * @return the pixels or null if the format isn't supported.
+     */
+    public static int[] readLevel(byte[] header, byte[] buffer, int offset, int mipmapLevel, Order order,
+                                  int[] pixels) {
 
         // type
-        int type = getType(buffer);
+        int type = getType(header);
         if (type == 0) return null;
 
-        // offset
-        int offset = 128; // header size
-        if (mipmapLevel > 0 && mipmapLevel < mipmap) {
-            for (int i = 0; i < mipmapLevel; i++) {
-                switch (type) {
-                    case DXT1:
-                        offset += 8 * ((width + 3) / 4) * ((height + 3) / 4);
-                        break;
-                    case DXT2:
-                    case DXT3:
-                    case DXT4:
-                    case DXT5:
-                        offset += 16 * ((width + 3) / 4) * ((height + 3) / 4);
-                        break;
-                    case A1R5G5B5:
-                    case X1R5G5B5:
-                    case A4R4G4B4:
-                    case X4R4G4B4:
-                    case R5G6B5:
-                    case R8G8B8:
-                    case A8B8G8R8:
-                    case X8B8G8R8:
-                    case A8R8G8B8:
-                    case X8R8G8B8:
-                        offset += (type & 0xFF) * width * height;
-                        break;
-                }
-                width /= 2;
-                height /= 2;
-            }
-            if (width <= 0) width = 1;
-            if (height <= 0) height = 1;
+        int width = getLevelWidth(header, mipmapLevel);
+        int height = getLevelHeight(header, mipmapLevel);
+
+        if (pixels == null || pixels.length < width * height) {
+            pixels = new int[width * height];
         }
 
-        int[] pixels = null;
         switch (type) {
             case DXT1:
-                pixels = decodeDXT1(width, height, offset, buffer, order);
+                decodeDXT1(width, height, offset, buffer, order, pixels);
                 break;
             case DXT2:
-                pixels = decodeDXT2(width, height, offset, buffer, order);
+                decodeDXT2(width, height, offset, buffer, order, pixels);
                 break;
             case DXT3:
-                pixels = decodeDXT3(width, height, offset, buffer, order);
+                decodeDXT3(width, height, offset, buffer, order, pixels);
                 break;
             case DXT4:
-                pixels = decodeDXT4(width, height, offset, buffer, order);
+                decodeDXT4(width, height, offset, buffer, order, pixels);
                 break;
             case DXT5:
-                pixels = decodeDXT5(width, height, offset, buffer, order);
+                decodeDXT5(width, height, offset, buffer, order, pixels);
                 break;
             case A1R5G5B5:
-                pixels = readA1R5G5B5(width, height, offset, buffer, order);
+                readA1R5G5B5(width, height, offset, buffer, order, pixels);
                 break;
             case X1R5G5B5:
-                pixels = readX1R5G5B5(width, height, offset, buffer, order);
+                readX1R5G5B5(width, height, offset, buffer, order, pixels);
                 break;
             case A4R4G4B4:
-                pixels = readA4R4G4B4(width, height, offset, buffer, order);
+                readA4R4G4B4(width, height, offset, buffer, order, pixels);
                 break;
             case X4R4G4B4:
-                pixels = readX4R4G4B4(width, height, offset, buffer, order);
+                readX4R4G4B4(width, height, offset, buffer, order, pixels);
                 break;
             case R5G6B5:
-                pixels = readR5G6B5(width, height, offset, buffer, order);
+                readR5G6B5(width, height, offset, buffer, order, pixels);
                 break;
             case R8G8B8:
-                pixels = readR8G8B8(width, height, offset, buffer, order);
+                readR8G8B8(width, height, offset, buffer, order, pixels);
                 break;
             case A8B8G8R8:
-                pixels = readA8B8G8R8(width, height, offset, buffer, order);
+                readA8B8G8R8(width, height, offset, buffer, order, pixels);
                 break;
             case X8B8G8R8:
-                pixels = readX8B8G8R8(width, height, offset, buffer, order);
+                readX8B8G8R8(width, height, offset, buffer, order, pixels);
                 break;
             case A8R8G8B8:
-                pixels = readA8R8G8B8(width, height, offset, buffer, order);
+                readA8R8G8B8(width, height, offset, buffer, order, pixels);
                 break;
             case X8R8G8B8:
-                pixels = readX8R8G8B8(width, height, offset, buffer, order);
+                readX8R8G8B8(width, height, offset, buffer, order, pixels);
                 break;
         }
 
@@ -235,150 +312,145 @@ public final class DDSReader {
 
     }
 
-    private static int[] decodeDXT1(int width, int height, int offset, byte[] buffer, Order order) {
-        int[] pixels = new int[width * height];
-        int index = offset;
-        int w = (width + 3) / 4;
-        int h = (height + 3) / 4;
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                int c0 = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
-                index += 2;
-                int c1 = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
-                index += 2;
-                for (int k = 0; k < 4; k++) {
-                    if (4 * i + k >= height) break;
-                    int t0 = (buffer[index] & 0x03);
-                    int t1 = (buffer[index] & 0x0C) >> 2;
-                    int t2 = (buffer[index] & 0x30) >> 4;
-                    int t3 = (buffer[index++] & 0xC0) >> 6;
-                    pixels[4 * width * i + 4 * j + width * k + 0] = getDXTColor(c0, c1, 0xFF, t0, order);
-                    if (4 * j + 1 >= width) continue;
-                    pixels[4 * width * i + 4 * j + width * k + 1] = getDXTColor(c0, c1, 0xFF, t1, order);
-                    if (4 * j + 2 >= width) continue;
-                    pixels[4 * width * i + 4 * j + width * k + 2] = getDXTColor(c0, c1, 0xFF, t2, order);
-                    if (4 * j + 3 >= width) continue;
-                    pixels[4 * width * i + 4 * j + width * k + 3] = getDXTColor(c0, c1, 0xFF, t3, order);
+    private static void decodeDXT1(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
+        int blocksInRow = (width + 3) / 4;
+        int blockRows = (height + 3) / 4;
+        forEachBlockRow(width, height, blockRows, row -> {
+            int[] colors = new int[4];
+            int index = offset + row * blocksInRow * 8;
+            for (int column = 0; column < blocksInRow; column++, index += 8) {
+                boolean opaque = fillColors(colors, buffer, index, order);
+                int alpha = 0xFF << order.alphaShift;
+                int indices = readInt(buffer, index + 4);
+                for (int k = 0; k < 16; k++, indices >>>= 2) {
+                    int x = 4 * column + (k & 3);
+                    int y = 4 * row + (k >> 2);
+                    if (x >= width || y >= height) continue;
+                    int t = indices & 0x03;
+                    pixels[y * width + x] = !opaque && t == 3 ? 0 : colors[t] | alpha;
                 }
             }
-        }
-        return pixels;
+        });
+    }
+
+    private static void decodeDXT2(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
+        decodeDXT3(width, height, offset, buffer, order, pixels);
+    }
+
+    private static void decodeDXT3(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
+        int blocksInRow = (width + 3) / 4;
+        int blockRows = (height + 3) / 4;
+        int alphaShift = order.alphaShift;
+        forEachBlockRow(width, height, blockRows, row -> {
+            int[] colors = new int[4];
+            int index = offset + row * blocksInRow * 16;
+            for (int column = 0; column < blocksInRow; column++, index += 16) {
+                long alphas = readLong(buffer, index);
+                boolean opaque = fillColors(colors, buffer, index + 8, order);
+                int indices = readInt(buffer, index + 12);
+                for (int k = 0; k < 16; k++, indices >>>= 2, alphas >>>= 4) {
+                    int x = 4 * column + (k & 3);
+                    int y = 4 * row + (k >> 2);
+                    if (x >= width || y >= height) continue;
+                    int t = indices & 0x03;
+                    int alpha = 17 * (int) (alphas & 0x0F);
+                    pixels[y * width + x] = !opaque && t == 3 ? 0 : colors[t] | alpha << alphaShift;
+                }
+            }
+        });
+    }
+
+    private static void decodeDXT4(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
+        decodeDXT5(width, height, offset, buffer, order, pixels);
+    }
+
+    private static void decodeDXT5(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
+        int blocksInRow = (width + 3) / 4;
+        int blockRows = (height + 3) / 4;
+        int alphaShift = order.alphaShift;
+        forEachBlockRow(width, height, blockRows, row -> {
+            int[] colors = new int[4];
+            int[] alphaTable = new int[8];
+            int index = offset + row * blocksInRow * 16;
+            for (int column = 0; column < blocksInRow; column++, index += 16) {
+                int a0 = buffer[index] & 0xFF;
+                int a1 = buffer[index + 1] & 0xFF;
+                for (int t = 0; t < 8; t++) {
+                    alphaTable[t] = getDXT5Alpha(a0, a1, t) << alphaShift;
+                }
+                long alphas = readLong(buffer, index) >>> 16;
+                boolean opaque = fillColors(colors, buffer, index + 8, order);
+                int indices = readInt(buffer, index + 12);
+                for (int k = 0; k < 16; k++, indices >>>= 2, alphas >>>= 3) {
+                    int x = 4 * column + (k & 3);
+                    int y = 4 * row + (k >> 2);
+                    if (x >= width || y >= height) continue;
+                    int t = indices & 0x03;
+                    pixels[y * width + x] = !opaque && t == 3 ? 0 : colors[t] | alphaTable[(int) (alphas & 0x07)];
+                }
+            }
+        });
     }
 
-    private static int[] decodeDXT2(int width, int height, int offset, byte[] buffer, Order order) {
-        return decodeDXT3(width, height, offset, buffer, order);
+    /**
+     * Decode rows of 4x4 blocks, in parallel for big textures.
+     */
+    private static void forEachBlockRow(int width, int height, int blockRows, IntConsumer decoder) {
+        if (width * height >= PARALLEL_THRESHOLD && blockRows > 1) {
+            IntStream.range(0, blockRows).parallel().forEach(decoder);
+        } else {
+            for (int row = 0; row < blockRows; row++) decoder.accept(row);
+        }
     }
 
-    private static int[] decodeDXT3(int width, int height, int offset, byte[] buffer, Order order) {
-        int index = offset;
-        int w = (width + 3) / 4;
-        int h = (height + 3) / 4;
-        int[] pixels = new int[width * height];
-        int[] alphaTable = new int[16];
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                // create alpha table(4bit to 8bit)
-                for (int k = 0; k < 4; k++) {
-                    int a0 = (buffer[index++] & 0xFF);
-                    int a1 = (buffer[index++] & 0xFF);
-                    // 4bit alpha to 8bit alpha
-                    alphaTable[4 * k + 0] = 17 * ((a0 & 0xF0) >> 4);
-                    alphaTable[4 * k + 1] = 17 * (a0 & 0x0F);
-                    alphaTable[4 * k + 2] = 17 * ((a1 & 0xF0) >> 4);
-                    alphaTable[4 * k + 3] = 17 * (a1 & 0x0F);
-                }
-                int c0 = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
-                index += 2;
-                int c1 = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
-                index += 2;
-                for (int k = 0; k < 4; k++) {
-                    if (4 * i + k >= height) break;
-                    int t0 = (buffer[index] & 0x03);
-                    int t1 = (buffer[index] & 0x0C) >> 2;
-                    int t2 = (buffer[index] & 0x30) >> 4;
-                    int t3 = (buffer[index++] & 0xC0) >> 6;
-                    pixels[4 * width * i + 4 * j + width * k + 0] = getDXTColor(c0, c1, alphaTable[4 * k +
-                            0], t0, order);
-                    if (4 * j + 1 >= width) continue;
-                    pixels[4 * width * i + 4 * j + width * k + 1] = getDXTColor(c0, c1, alphaTable[4 * k +
-                            1], t1, order);
-                    if (4 * j + 2 >= width) continue;
-                    pixels[4 * width * i + 4 * j + width * k + 2] = getDXTColor(c0, c1, alphaTable[4 * k +
-                            2], t2, order);
-                    if (4 * j + 3 >= width) continue;
-                    pixels[4 * width * i + 4 * j + width * k + 3] = getDXTColor(c0, c1, alphaTable[4 * k +
-                            3], t3, order);
-                }
-            }
+    /**
+     * Fill the 4 colors of a DXT color block without alpha.
+     *
+     * @return false if the block has the transparent black color with the index 3.
+     */
+    private static boolean fillColors(int[] colors, byte[] buffer, int index, Order order) {
+
+        int c0 = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
+        int c1 = (buffer[index + 2] & 0xFF) | (buffer[index + 3] & 0xFF) << 8;
+
+        int r0 = BIT5[c0 >> 11];
+        int g0 = BIT6[(c0 & 0x07E0) >> 5];
+        int b0 = BIT5[c0 & 0x001F];
+        int r1 = BIT5[c1 >> 11];
+        int g1 = BIT6[(c1 & 0x07E0) >> 5];
+        int b1 = BIT5[c1 & 0x001F];
+
+        int redShift = order.redShift;
+        int greenShift = order.greenShift;
+        int blueShift = order.blueShift;
+
+        colors[0] = (r0 << redShift) | (g0 << greenShift) | (b0 << blueShift);
+        colors[1] = (r1 << redShift) | (g1 << greenShift) | (b1 << blueShift);
+
+        if (c0 > c1) {
+            colors[2] = ((2 * r0 + r1) / 3 << redShift) | ((2 * g0 + g1) / 3 << greenShift) |
+                    ((2 * b0 + b1) / 3 << blueShift);
+            colors[3] = ((2 * r1 + r0) / 3 << redShift) | ((2 * g1 + g0) / 3 << greenShift) |
+                    ((2 * b1 + b0) / 3 << blueShift);
+            return true;
         }
-        return pixels;
+
+        colors[2] = ((r0 + r1) / 2 << redShift) | ((g0 + g1) / 2 << greenShift) | ((b0 + b1) / 2 << blueShift);
+        colors[3] = 0;
+        return false;
     }
 
-    private static int[] decodeDXT4(int width, int height, int offset, byte[] buffer, Order order) {
-        return decodeDXT5(width, height, offset, buffer, order);
+    private static int readInt(byte[] buffer, int index) {
+        return (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8 | (buffer[index + 2] & 0xFF) << 16 |
+                (buffer[index + 3] & 0xFF) << 24;
     }
 
-    private static int[] decodeDXT5(int width, int height, int offset, byte[] buffer, Order order) {
-        int index = offset;
-        int w = (width + 3) / 4;
-        int h = (height + 3) / 4;
-        int[] pixels = new int[width * height];
-        int[] alphaTable = new int[16];
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                // create alpha table
-                int a0 = (buffer[index++] & 0xFF);
-                int a1 = (buffer[index++] & 0xFF);
-                int b0 = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8 | (buffer[index + 2] & 0xFF) << 16;
-                index += 3;
-                int b1 = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8 | (buffer[index + 2] & 0xFF) << 16;
-                index += 3;
-                alphaTable[0] = b0 & 0x07;
-                alphaTable[1] = (b0 >> 3) & 0x07;
-                alphaTable[2] = (b0 >> 6) & 0x07;
-                alphaTable[3] = (b0 >> 9) & 0x07;
-                alphaTable[4] = (b0 >> 12) & 0x07;
-                alphaTable[5] = (b0 >> 15) & 0x07;
-                alphaTable[6] = (b0 >> 18) & 0x07;
-                alphaTable[7] = (b0 >> 21) & 0x07;
-                alphaTable[8] = b1 & 0x07;
-                alphaTable[9] = (b1 >> 3) & 0x07;
-                alphaTable[10] = (b1 >> 6) & 0x07;
-                alphaTable[11] = (b1 >> 9) & 0x07;
-                alphaTable[12] = (b1 >> 12) & 0x07;
-                alphaTable[13] = (b1 >> 15) & 0x07;
-                alphaTable[14] = (b1 >> 18) & 0x07;
-                alphaTable[15] = (b1 >> 21) & 0x07;
-                int c0 = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
-                index += 2;
-                int c1 = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
-                index += 2;
-                for (int k = 0; k < 4; k++) {
-                    if (4 * i + k >= height) break;
-                    int t0 = (buffer[index] & 0x03);
-                    int t1 = (buffer[index] & 0x0C) >> 2;
-                    int t2 = (buffer[index] & 0x30) >> 4;
-                    int t3 = (buffer[index++] & 0xC0) >> 6;
-                    pixels[4 * width * i + 4 * j + width * k + 0] = getDXTColor(c0, c1, getDXT5Alpha(a0, a1, alphaTable[
-                            4 * k + 0]), t0, order);
-                    if (4 * j + 1 >= width) continue;
-                    pixels[4 * width * i + 4 * j + width * k + 1] = getDXTColor(c0, c1, getDXT5Alpha(a0, a1, alphaTable[
-                            4 * k + 1]), t1, order);
-                    if (4 * j + 2 >= width) continue;
-                    pixels[4 * width * i + 4 * j + width * k + 2] = getDXTColor(c0, c1, getDXT5Alpha(a0, a1, alphaTable[
-                            4 * k + 2]), t2, order);
-                    if (4 * j + 3 >= width) continue;
-                    pixels[4 * width * i + 4 * j + width * k + 3] = getDXTColor(c0, c1, getDXT5Alpha(a0, a1, alphaTable[
-                            4 * k + 3]), t3, order);
-                }
-            }
-        }
-        return pixels;
+    private static long readLong(byte[] buffer, int index) {
+        return (readInt(buffer, index) & 0xFFFFFFFFL) | (long) readInt(buffer, index + 4) << 32;
     }
 
-    private static int[] readA1R5G5B5(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readA1R5G5B5(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int rgba = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
             index += 2;
@@ -389,12 +461,10 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
     }
 
-    private static int[] readX1R5G5B5(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readX1R5G5B5(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int rgba = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
             index += 2;
@@ -405,12 +475,10 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
     }
 
-    private static int[] readA4R4G4B4(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readA4R4G4B4(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int rgba = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
             index += 2;
@@ -421,12 +489,10 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
     }
 
-    private static int[] readX4R4G4B4(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readX4R4G4B4(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int rgba = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
             index += 2;
@@ -437,12 +503,10 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
     }
 
-    private static int[] readR5G6B5(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readR5G6B5(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int rgba = (buffer[index] & 0xFF) | (buffer[index + 1] & 0xFF) << 8;
             index += 2;
@@ -453,12 +517,10 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
     }
 
-    private static int[] readR8G8B8(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readR8G8B8(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int b = buffer[index++] & 0xFF;
             int g = buffer[index++] & 0xFF;
@@ -467,12 +529,10 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
     }
 
-    private static int[] readA8B8G8R8(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readA8B8G8R8(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int r = buffer[index++] & 0xFF;
             int g = buffer[index++] & 0xFF;
@@ -481,12 +541,10 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
     }
 
-    private static int[] readX8B8G8R8(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readX8B8G8R8(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int r = buffer[index++] & 0xFF;
             int g = buffer[index++] & 0xFF;
@@ -496,12 +554,10 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
     }
 
-    private static int[] readA8R8G8B8(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readA8R8G8B8(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int b = buffer[index++] & 0xFF;
             int g = buffer[index++] & 0xFF;
@@ -510,12 +566,10 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
     }
 
-    private static int[] readX8R8G8B8(int width, int height, int offset, byte[] buffer, Order order) {
+    private static void readX8R8G8B8(int width, int height, int offset, byte[] buffer, Order order, int[] pixels) {
         int index = offset;
-        int[] pixels = new int[width * height];
         for (int i = 0; i < height * width; i++) {
             int b = buffer[index++] & 0xFF;
             int g = buffer[index++] & 0xFF;
@@ -525,44 +579,6 @@ public final class DDSReader {
             pixels[i] =
                     (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
         }
-        return pixels;
-    }
-
-    private static int getDXTColor(int c0, int c1, int a, int t, Order order) {
-        switch (t) {
-            case 0:
-                return getDXTColor1(c0, a, order);
-            case 1:
-                return getDXTColor1(c1, a, order);
-            case 2:
-                return (c0 > c1) ? getDXTColor2_1(c0, c1, a, order) : getDXTColor1_1(c0, c1, a, order);
-            case 3:
-                return (c0 > c1) ? getDXTColor2_1(c1, c0, a, order) : 0;
-        }
-        return 0;
-    }
-
-    private static int getDXTColor2_1(int c0, int c1, int a, Order order) {
-        // 2*c0/3 + c1/3
-        int r = (2 * BIT5[(c0 & 0xFC00) >> 11] + BIT5[(c1 & 0xFC00) >> 11]) / 3;
-        int g = (2 * BIT6[(c0 & 0x07E0) >> 5] + BIT6[(c1 & 0x07E0) >> 5]) / 3;
-        int b = (2 * BIT5[c0 & 0x001F] + BIT5[c1 & 0x001F]) / 3;
-        return (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
-    }
-
-    private static int getDXTColor1_1(int c0, int c1, int a, Order order) {
-        // (c0+c1) / 2
-        int r = (BIT5[(c0 & 0xFC00) >> 11] + BIT5[(c1 & 0xFC00) >> 11]) / 2;
-        int g = (BIT6[(c0 & 0x07E0) >> 5] + BIT6[(c1 & 0x07E0) >> 5]) / 2;
-        int b = (BIT5[c0 & 0x001F] + BIT5[c1 & 0x001F]) / 2;
-        return (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
-    }
-
-    private static int getDXTColor1(int c, int a, Order order) {
-        int r = BIT5[(c & 0xFC00) >> 11];
-        int g = BIT6[(c & 0x07E0) >> 5];
-        int b = BIT5[(c & 0x001F)];
-        return (a << order.alphaShift) | (r << order.redShift) | (g << order.greenShift) | (b << order.blueShift);
     }
 
     private static int getDXT5Alpha(int a0, int a1, int t) {
@@ -1,104 +1,419 @@
 package com.ss.editor.file.reader;
 
+import com.ss.editor.util.ImageUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import rlib.logging.Logger;
+import rlib.logging.LoggerManager;
 
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
 /**
- * The TGA image reader.
+ * The TGA image reader. The image is decoded from a channel by rows, so only the result pixels,
+ * one row and a read buffer are kept in memory. Uncompressed and RLE true-color and grayscale
+ * images with 8, 16, 24 and 32 bits per pixel are supported.
  *
  * @author JavaSaBr
  */
 public class TGAReader {
 
+    @NotNull
+    private static final Logger LOGGER = LoggerManager.getLogger(TGAReader.class);
+
+    /**
+     * The size of the header.
+     */
+    private static final int HEADER_SIZE = 18;
+
+    /**
+     * The size of the read buffer.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The uncompressed true-color image type.
+     */
+    private static final int TYPE_TRUE_COLOR = 2;
+
+    /**
+     * The uncompressed grayscale image type.
+     */
+    private static final int TYPE_GRAYSCALE = 3;
+
+    /**
+     * The RLE true-color image type.
+     */
+    private static final int TYPE_RLE_TRUE_COLOR = 10;
+
+    /**
+     * The RLE grayscale image type.
+     */
+    private static final int TYPE_RLE_GRAYSCALE = 11;
+
     @Nullable
     public static Image getImage(@NotNull final byte[] buffer) {
-        return decode(buffer);
-    }
 
-    private static int btoi(final byte b) {
-        return ((int) b < 0 ? 256 + (int) b : (int) b);
-    }
+        final int[] size = new int[2];
+        final int[] pixels;
+
+        try {
+            pixels = read(Channels.newChannel(new ByteArrayInputStream(buffer)), Integer.MAX_VALUE,
+                    Integer.MAX_VALUE, size);
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+            return null;
+        }
+
+        final BufferedImage bufferedImage = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB);
+        bufferedImage.setRGB(0, 0, size[0], size[1], pixels, 0, size[0]);
 
-    private static int read(final int offset, @NotNull final byte[] buffer) {
-        return btoi(buffer[offset]);
+        return bufferedImage;
     }
 
-    @Nullable
-    private static Image decode(@NotNull final byte[] buffer) {
+    /**
+     * Read ARGB pixels of a TGA image in the top-down order. The image is downsampled by a power of two
+     * factor while decoding as long as the result isn't less than the max size.
+     *
+     * @param channel   the channel to read the image.
+     * @param maxWidth  the max required width.
+     * @param maxHeight the max required height.
+     * @param size      the array to store the width and the height of the result.
+     * @return the pixels.
+     * @throws IOException if the image can't be read or has unsupported format.
+     */
+    @NotNull
+    public static int[] read(@NotNull final ReadableByteChannel channel, final int maxWidth, final int maxHeight,
+                             @NotNull final int[] size) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+
+        ensure(channel, buffer, HEADER_SIZE);
+
+        final int idLength = buffer.get(0) & 0xFF;
+        final int colorMapType = buffer.get(1) & 0xFF;
+        final int imageType = buffer.get(2) & 0xFF;
+        final int colorMapLength = (buffer.get(5) & 0xFF) | (buffer.get(6) & 0xFF) << 8;
+        final int colorMapEntrySize = buffer.get(7) & 0xFF;
+        final int width = (buffer.get(12) & 0xFF) | (buffer.get(13) & 0xFF) << 8;
+        final int height = (buffer.get(14) & 0xFF) | (buffer.get(15) & 0xFF) << 8;
+        final int pixelDepth = buffer.get(16) & 0xFF;
+        final int descriptor = buffer.get(17) & 0xFF;
+
+        final boolean grayscale = imageType == TYPE_GRAYSCALE || imageType == TYPE_RLE_GRAYSCALE;
+        final boolean rle = imageType == TYPE_RLE_TRUE_COLOR || imageType == TYPE_RLE_GRAYSCALE;
+        final int bytesPerPixel = pixelDepth / 8;
+
+        if (imageType != TYPE_TRUE_COLOR && !grayscale && !rle) {
+            throw new IOException("unsupported TGA image type " + imageType);
+        } else if (grayscale ? pixelDepth != 8 : pixelDepth != 16 && pixelDepth != 24 && pixelDepth != 32) {
+            throw new IOException("unsupported TGA pixel depth " + pixelDepth);
+        } else if (width < 1 || height < 1) {
+            throw new IOException("invalid TGA image size " + width + "x" + height);
+        }
+
+        buffer.position(HEADER_SIZE);
+
+        final int colorMapSize = colorMapType == 1 ? colorMapLength * ((colorMapEntrySize + 7) / 8) : 0;
+        skip(channel, buffer, idLength + colorMapSize);
 
-        int offset = 0;
+        final int[] fitSize = ImageUtils.fitSize(width, height, maxWidth, maxHeight);
 
-        for (int i = 0; i < 12; i++) {
-            read(offset++, buffer);
+        int factor = 1;
+
+        while (width / (factor * 2) >= fitSize[0] && height / (factor * 2) >= fitSize[1]) {
+            factor *= 2;
         }
 
-        int width = read(offset++, buffer) + (read(offset++, buffer) << 8);   // 00,04=1024
-        int height = read(offset++, buffer) + (read(offset++, buffer) << 8);  // 40,02=576
+        final int resultWidth = width / factor;
+        final int resultHeight = height / factor;
+        final int[] pixels = new int[resultWidth * resultHeight];
+        final int[] row = new int[width];
+        final long[] accumulator = factor == 1 ? null : new long[resultWidth * 4];
+
+        final boolean topOrigin = (descriptor & 0x20) != 0;
+        final boolean rightOrigin = (descriptor & 0x10) != 0;
+        final boolean withAlpha = pixelDepth == 32 || (pixelDepth == 16 && (descriptor & 0x0F) != 0);
 
-        read(offset++, buffer);
-        read(offset++, buffer);
+        final RLEState state = new RLEState();
 
-        int n = width * height;
-        int[] pixels = new int[n];
-        int idx = 0;
+        int accumulatedRows = 0;
 
-        if (buffer[2] == 0x02 && buffer[16] == 0x20) { // uncompressed BGRA
+        for (int y = 0; y < height; y++) {
 
-            while (n > 0) {
-                int b = read(offset++, buffer);
-                int g = read(offset++, buffer);
-                int r = read(offset++, buffer);
-                int a = read(offset++, buffer);
-                int v = (a << 24) | (r << 16) | (g << 8) | b;
-                pixels[idx++] = v;
-                n -= 1;
+            if (rle) {
+                readRLERow(channel, buffer, row, width, bytesPerPixel, withAlpha, state);
+            } else {
+                readRow(channel, buffer, row, width, bytesPerPixel, withAlpha);
             }
 
-        } else if (buffer[2] == 0x02 && buffer[16] == 0x18) {  // uncompressed BGR
+            if (rightOrigin) reverse(row);
+
+            final int sourceY = topOrigin ? y : height - 1 - y;
+            final int resultY = sourceY / factor;
+            if (resultY >= resultHeight) continue;
 
-            while (n > 0) {
-                int b = read(offset++, buffer);
-                int g = read(offset++, buffer);
-                int r = read(offset++, buffer);
-                int a = 255; // opaque pixel
-                int v = (a << 24) | (r << 16) | (g << 8) | b;
-                pixels[idx++] = v;
-                n -= 1;
+            if (accumulator == null) {
+                System.arraycopy(row, 0, pixels, resultY * resultWidth, resultWidth);
+                continue;
             }
 
-        } else {
+            accumulate(accumulator, row, resultWidth, factor);
 
-            // RLE compressed
-            while (n > 0) {
+            if (++accumulatedRows == factor) {
+                flush(accumulator, pixels, resultY * resultWidth, resultWidth, factor);
+                accumulatedRows = 0;
+            }
+        }
+
+        size[0] = resultWidth;
+        size[1] = resultHeight;
+
+        return pixels;
+    }
+
+    /**
+     * The state of a not finished RLE packet.
+     */
+    private static final class RLEState {
+
+        /**
+         * The count of remaining pixels in the packet.
+         */
+        private int remaining;
+
+        /**
+         * True if the packet repeats one pixel.
+         */
+        private boolean repeat;
+
+        /**
+         * The repeated pixel.
+         */
+        private int pixel;
+    }
+
+    /**
+     * Read an uncompressed row.
+     */
+    private static void readRow(@NotNull final ReadableByteChannel channel, @NotNull final ByteBuffer buffer,
+                                @NotNull final int[] row, final int width, final int bytesPerPixel,
+                                final boolean withAlpha) throws IOException {
+
+        final int maxPixels = BUFFER_SIZE / bytesPerPixel;
 
-                int nb = read(offset++, buffer); // num of pixels
+        for (int x = 0; x < width; ) {
 
-                if ((nb & 0x80) == 0) { // 0x80=dec 128, bits 10000000
-                    for (int i = 0; i <= nb; i++) {
-                        int b = read(offset++, buffer);
-                        int g = read(offset++, buffer);
-                        int r = read(offset++, buffer);
-                        pixels[idx++] = 0xff000000 | (r << 16) | (g << 8) | b;
+            final int count = Math.min(width - x, maxPixels);
+            ensure(channel, buffer, count * bytesPerPixel);
+
+            final byte[] array = buffer.array();
+            int index = buffer.position();
+
+            switch (bytesPerPixel) {
+                case 4:
+                    for (final int last = x + count; x < last; x++, index += 4) {
+                        row[x] = (array[index] & 0xFF) | (array[index + 1] & 0xFF) << 8 |
+                                (array[index + 2] & 0xFF) << 16 | (array[index + 3] & 0xFF) << 24;
+                    }
+                    break;
+                case 3:
+                    for (final int last = x + count; x < last; x++, index += 3) {
+                        row[x] = 0xFF000000 | (array[index] & 0xFF) | (array[index + 1] & 0xFF) << 8 |
+                                (array[index + 2] & 0xFF) << 16;
                     }
-                } else {
-                    nb &= 0x7f;
-                    int b = read(offset++, buffer);
-                    int g = read(offset++, buffer);
-                    int r = read(offset++, buffer);
-                    int v = 0xff000000 | (r << 16) | (g << 8) | b;
-                    for (int i = 0; i <= nb; i++)
-                        pixels[idx++] = v;
+                    break;
+                default:
+                    for (final int last = x + count; x < last; x++, index += bytesPerPixel) {
+                        row[x] = readPixel(array, index, bytesPerPixel, withAlpha);
+                    }
+            }
+
+            buffer.position(index);
+        }
+    }
+
+    /**
+     * Read a row from RLE packets, a packet can continue in the next row.
+     */
+    private static void readRLERow(@NotNull final ReadableByteChannel channel, @NotNull final ByteBuffer buffer,
+                                   @NotNull final int[] row, final int width, final int bytesPerPixel,
+                                   final boolean withAlpha, @NotNull final RLEState state) throws IOException {
+
+        for (int x = 0; x < width; ) {
+
+            if (state.remaining == 0) {
+
+                ensure(channel, buffer, 1 + bytesPerPixel);
+
+                final int header = buffer.get() & 0xFF;
+
+                state.remaining = (header & 0x7F) + 1;
+                state.repeat = (header & 0x80) != 0;
+
+                if (state.repeat) {
+                    state.pixel = readPixel(buffer.array(), buffer.position(), bytesPerPixel, withAlpha);
+                    buffer.position(buffer.position() + bytesPerPixel);
+                }
+            }
+
+            final int count = Math.min(width - x, state.remaining);
+
+            if (state.repeat) {
+                final int pixel = state.pixel;
+                for (final int last = x + count; x < last; x++) row[x] = pixel;
+            } else {
+
+                ensure(channel, buffer, count * bytesPerPixel);
+
+                final byte[] array = buffer.array();
+                int index = buffer.position();
+
+                for (final int last = x + count; x < last; x++, index += bytesPerPixel) {
+                    row[x] = readPixel(array, index, bytesPerPixel, withAlpha);
                 }
-                n -= nb + 1;
+
+                buffer.position(index);
+            }
+
+            state.remaining -= count;
+        }
+    }
+
+    /**
+     * Read an ARGB pixel.
+     */
+    private static int readPixel(@NotNull final byte[] array, final int index, final int bytesPerPixel,
+                                 final boolean withAlpha) {
+        switch (bytesPerPixel) {
+            case 4:
+                return (array[index] & 0xFF) | (array[index + 1] & 0xFF) << 8 | (array[index + 2] & 0xFF) << 16 |
+                        (array[index + 3] & 0xFF) << 24;
+            case 3:
+                return 0xFF000000 | (array[index] & 0xFF) | (array[index + 1] & 0xFF) << 8 |
+                        (array[index + 2] & 0xFF) << 16;
+            case 2: {
+                final int value = (array[index] & 0xFF) | (array[index + 1] & 0xFF) << 8;
+                final int red = (value >> 10) & 0x1F;
+                final int green = (value >> 5) & 0x1F;
+                final int blue = value & 0x1F;
+                final int alpha = !withAlpha || (value & 0x8000) != 0 ? 0xFF : 0;
+                return alpha << 24 | (red << 3 | red >> 2) << 16 | (green << 3 | green >> 2) << 8 |
+                        (blue << 3 | blue >> 2);
+            }
+            default: {
+                final int gray = array[index] & 0xFF;
+                return 0xFF000000 | gray << 16 | gray << 8 | gray;
             }
         }
+    }
 
-        final BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        bufferedImage.setRGB(0, 0, width, height, pixels, 0, width);
+    /**
+     * Add a row to the accumulator of a downsampled row, colors are weighted by alpha.
+     */
+    private static void accumulate(@NotNull final long[] accumulator, @NotNull final int[] row, final int resultWidth,
+                                   final int factor) {
 
-        return bufferedImage;
+        for (int x = 0, sourceX = 0; x < resultWidth; x++) {
+
+            long alphaSum = 0, redSum = 0, greenSum = 0, blueSum = 0;
+
+            for (final int last = sourceX + factor; sourceX < last; sourceX++) {
+                final int pixel = row[sourceX];
+                final int alpha = pixel >>> 24;
+                alphaSum += alpha;
+                redSum += ((pixel >> 16) & 0xFF) * alpha;
+                greenSum += ((pixel >> 8) & 0xFF) * alpha;
+                blueSum += (pixel & 0xFF) * alpha;
+            }
+
+            final int index = x * 4;
+            accumulator[index] += alphaSum;
+            accumulator[index + 1] += redSum;
+            accumulator[index + 2] += greenSum;
+            accumulator[index + 3] += blueSum;
+        }
+    }
+
+    /**
+     * Write the averaged downsampled row and clear the accumulator.
+     */
+    private static void flush(@NotNull final long[] accumulator, @NotNull final int[] pixels, final int offset,
+                              final int resultWidth, final int factor) {
+
+        final long samples = (long) factor * factor;
+
+        for (int x = 0; x < resultWidth; x++) {
+
+            final int index = x * 4;
+            final long alphaSum = accumulator[index];
+
+            if (alphaSum == 0) {
+                pixels[offset + x] = 0;
+            } else {
+
+                final long half = alphaSum / 2;
+                final int alpha = (int) ((alphaSum + samples / 2) / samples);
+
+                pixels[offset + x] = alpha << 24 |
+                        (int) ((accumulator[index + 1] + half) / alphaSum) << 16 |
+                        (int) ((accumulator[index + 2] + half) / alphaSum) << 8 |
+                        (int) ((accumulator[index + 3] + half) / alphaSum);
+            }
+
+            accumulator[index] = 0;
+            accumulator[index + 1] = 0;
+            accumulator[index + 2] = 0;
+            accumulator[index + 3] = 0;
+        }
+    }
+
+    /**
+     * Reverse the row.
+     */
+    private static void reverse(@NotNull final int[] row) {
+        for (int left = 0, right = row.length - 1; left < right; left++, right--) {
+            final int pixel = row[left];
+            row[left] = row[right];
+            row[right] = pixel;
+        }
+    }
+
+    /**
+     * Skip the count of bytes.
+     */
+    private static void skip(@NotNull final ReadableByteChannel channel, @NotNull final ByteBuffer buffer,
+                             final int count) throws IOException {
+        for (int remaining = count; remaining > 0; ) {
+            final int skipped = Math.min(remaining, BUFFER_SIZE);
+            ensure(channel, buffer, skipped);
+            buffer.position(buffer.position() + skipped);
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Make sure the buffer has the count of bytes to read.
+     */
+    private static void ensure(@NotNull final ReadableByteChannel channel, @NotNull final ByteBuffer buffer,
+                               final int count) throws IOException {
+        if (buffer.remaining() >= count) return;
+
+        buffer.compact();
+
+        while (buffer.position() < count) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("unexpected end of the TGA image.");
+            }
+        }
+
+        buffer.flip();
     }
-}
\ No newline at end of file
+}
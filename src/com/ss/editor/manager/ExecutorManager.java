@@ -2,12 +2,15 @@ package com.ss.editor.manager;
 
 import com.ss.editor.annotation.FromAnyThread;
 import com.ss.editor.executor.EditorTaskExecutor;
-import com.ss.editor.executor.impl.BackgroundEditorTaskExecutor;
+import com.ss.editor.executor.EditorTaskLane;
+import com.ss.editor.executor.TaskHandle;
+import com.ss.editor.executor.TaskPriority;
+import com.ss.editor.executor.impl.BackgroundTaskScheduler;
 import com.ss.editor.executor.impl.EditorThreadExecutor;
 import com.ss.editor.executor.impl.FXEditorTaskExecutor;
+import com.ss.editor.executor.impl.FXUpdateChannel;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import rlib.concurrent.atomic.AtomicInteger;
 import rlib.logging.Logger;
 import rlib.logging.LoggerManager;
 
@@ -46,10 +49,10 @@ public class ExecutorManager {
     private final ScheduledExecutorService scheduledExecutorService;
 
     /**
-     * The list of background tasks executors.
+     * The scheduler of background tasks.
      */
     @NotNull
-    private final EditorTaskExecutor[] backgroundTaskExecutors;
+    private final BackgroundTaskScheduler backgroundTaskScheduler;
 
     /**
      * The executor of editor tasks.
@@ -64,47 +67,46 @@ public class ExecutorManager {
     private final EditorTaskExecutor fxEditorTaskExecutor;
 
     /**
-     * The index of a next background executor.
+     * The channel of coalesced javaFX updates.
      */
     @NotNull
-    private final AtomicInteger nextBackgroundTaskExecutor;
+    private final FXUpdateChannel fxUpdateChannel;
 
     private ExecutorManager() {
 
         this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
-        this.backgroundTaskExecutors = new EditorTaskExecutor[PROP_BACKGROUND_TASK_EXECUTORS];
-
-        for (int i = 0, length = backgroundTaskExecutors.length; i < length; i++) {
-            backgroundTaskExecutors[i] = new BackgroundEditorTaskExecutor(i + 1);
-        }
-
+        this.backgroundTaskScheduler = new BackgroundTaskScheduler(PROP_BACKGROUND_TASK_EXECUTORS);
         this.editorThreadExecutor = EditorThreadExecutor.getInstance();
         this.fxEditorTaskExecutor = new FXEditorTaskExecutor();
-
-        this.nextBackgroundTaskExecutor = new AtomicInteger(0);
+        this.fxUpdateChannel = new FXUpdateChannel(fxEditorTaskExecutor, scheduledExecutorService);
 
         LOGGER.info("initialized.");
     }
 
     /**
-     * Add a new background task.
+     * Add a new background task with the normal priority.
      *
      * @param task the background task.
+     * @return the handle of the task.
      */
+    @NotNull
     @FromAnyThread
-    public void addBackgroundTask(@NotNull final Runnable task) {
-
-        final EditorTaskExecutor[] executors = getBackgroundTaskExecutors();
-        final AtomicInteger nextTaskExecutor = getNextBackgroundTaskExecutor();
-
-        final int index = nextTaskExecutor.incrementAndGet();
+    public TaskHandle addBackgroundTask(@NotNull final Runnable task) {
+        return addBackgroundTask(task, TaskPriority.NORMAL);
+    }
 
-        if (index < executors.length) {
-            executors[index].execute(task);
-        } else {
-            nextTaskExecutor.set(0);
-            executors[0].execute(task);
-        }
+    /**
+     * Add a new background task.
+     *
+     * @param task     the background task.
+     * @param priority the priority of the task.
+     * @return the handle of the task.
+     */
+    @NotNull
+    @FromAnyThread
+    public TaskHandle addBackgroundTask(@NotNull final Runnable task, @NotNull final TaskPriority priority) {
+        final BackgroundTaskScheduler scheduler = getBackgroundTaskScheduler();
+        return scheduler.submit(task, priority);
     }
 
     /**
@@ -118,6 +120,20 @@ public class ExecutorManager {
         executor.execute(task);
     }
 
+    /**
+     * Add a new javaFX update of the slot of the owner. Only the latest not applied update of the slot will be
+     * executed, so it can be used for updates which are pushed very often.
+     *
+     * @param owner  the owner of the slot.
+     * @param slot   the slot.
+     * @param update the javaFX update.
+     */
+    @FromAnyThread
+    public void addFXUpdate(@NotNull final Object owner, @NotNull final Object slot, @NotNull final Runnable update) {
+        final FXUpdateChannel channel = getFxUpdateChannel();
+        channel.push(owner, slot, update);
+    }
+
     /**
      * Add a new editor task.
      *
@@ -130,11 +146,24 @@ public class ExecutorManager {
     }
 
     /**
-     * @return the list of background tasks executors.
+     * Add a new editor task to the lane.
+     *
+     * @param task the editor task.
+     * @param lane the lane of the task.
+     */
+    @FromAnyThread
+    public void addEditorThreadTask(@NotNull final Runnable task, @NotNull final EditorTaskLane lane) {
+        final EditorThreadExecutor executor = getEditorThreadExecutor();
+        executor.addToExecute(task, lane);
+    }
+
+    /**
+     * @return the scheduler of background tasks.
      */
     @NotNull
-    private EditorTaskExecutor[] getBackgroundTaskExecutors() {
-        return backgroundTaskExecutors;
+    @FromAnyThread
+    public BackgroundTaskScheduler getBackgroundTaskScheduler() {
+        return backgroundTaskScheduler;
     }
 
     /**
@@ -146,11 +175,11 @@ public class ExecutorManager {
     }
 
     /**
-     * @return the index of a next background executor.
+     * @return the channel of coalesced javaFX updates.
      */
     @NotNull
-    private AtomicInteger getNextBackgroundTaskExecutor() {
-        return nextBackgroundTaskExecutor;
+    private FXUpdateChannel getFxUpdateChannel() {
+        return fxUpdateChannel;
     }
 
     /**
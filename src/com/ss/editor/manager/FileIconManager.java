@@ -3,7 +3,10 @@ package com.ss.editor.manager;
 import static com.ss.editor.util.EditorUtil.toAssetPath;
 import static java.lang.String.valueOf;
 import com.ss.editor.FileExtensions;
+import com.ss.editor.annotation.BackgroundThread;
 import com.ss.editor.annotation.FXThread;
+import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.executor.TaskPriority;
 import com.ss.editor.util.EditorUtil;
 import javafx.scene.image.Image;
 import org.jetbrains.annotations.NotNull;
@@ -12,6 +15,8 @@ import rlib.logging.Logger;
 import rlib.logging.LoggerManager;
 import rlib.manager.InitializeManager;
 import rlib.util.FileUtils;
+import rlib.util.array.Array;
+import rlib.util.array.ArrayFactory;
 import rlib.util.dictionary.DictionaryFactory;
 import rlib.util.dictionary.ObjectDictionary;
 
@@ -20,6 +25,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The class to manage file icons.
@@ -83,6 +90,27 @@ public class FileIconManager {
         EXTENSION_TO_CONTENT_TYPE.put(FileExtensions.MODEL_XBUF, "image-svg+xml");
     }
 
+    /**
+     * The content type of folders.
+     */
+    @NotNull
+    private static final String FOLDER_CONTENT_TYPE = "folder";
+
+    /**
+     * The content type of unknown files.
+     */
+    @NotNull
+    private static final String NONE_CONTENT_TYPE = "none";
+
+    /**
+     * The folder with icons of content types.
+     */
+    @NotNull
+    private static final Path MIME_TYPES = Paths.get("/ui/icons/vibrancy/mimetypes");
+
+    @NotNull
+    private static final ExecutorManager EXECUTOR_MANAGER = ExecutorManager.getInstance();
+
     @Nullable
     private static FileIconManager instance;
 
@@ -98,9 +126,41 @@ public class FileIconManager {
     @NotNull
     private final ObjectDictionary<String, Image> imageCache;
 
+    /**
+     * The resolved URLs of icons by content types and sizes.
+     */
+    @NotNull
+    private final ConcurrentMap<String, String> resolvedIcons;
+
+    /**
+     * The probed content types of extensions which are unknown for this manager.
+     */
+    @NotNull
+    private final ConcurrentMap<String, String> probedContentTypes;
+
+    /**
+     * The handlers which wait for probing content types of extensions.
+     */
+    @NotNull
+    private final ObjectDictionary<String, Array<Runnable>> probeWaiters;
+
     private FileIconManager() {
         InitializeManager.valid(getClass());
         this.imageCache = DictionaryFactory.newObjectDictionary();
+        this.resolvedIcons = new ConcurrentHashMap<>();
+        this.probedContentTypes = new ConcurrentHashMap<>();
+        this.probeWaiters = DictionaryFactory.newObjectDictionary();
+        EXECUTOR_MANAGER.addBackgroundTask(this::preloadIcons, TaskPriority.NORMAL);
+    }
+
+    /**
+     * Resolve URLs of icons of all known content types with the default size.
+     */
+    @BackgroundThread
+    private void preloadIcons() {
+        resolveIcon(FOLDER_CONTENT_TYPE, DEFAULT_FILE_ICON_SIZE);
+        resolveIcon(NONE_CONTENT_TYPE, DEFAULT_FILE_ICON_SIZE);
+        EXTENSION_TO_CONTENT_TYPE.forEach(contentType -> resolveIcon(contentType, DEFAULT_FILE_ICON_SIZE));
     }
 
     /**
@@ -112,51 +172,118 @@ public class FileIconManager {
      */
     @NotNull
     @FXThread
-    public Image getIcon(@NotNull final Path path, int size) {
+    public Image getIcon(@NotNull final Path path, final int size) {
+        return getIcon(path, Files.isDirectory(path), size, null);
+    }
+
+    /**
+     * Get an icon to a file without accessing the file system. If the extension of the file is unknown,
+     * the default icon is returned and the content type of the extension is probed in background.
+     *
+     * @param path       the file.
+     * @param directory  true if the file is a directory.
+     * @param size       the icon size.
+     * @param onResolved the handler to call when the icon of the unknown extension is resolved or null.
+     * @return the icon.
+     */
+    @NotNull
+    @FXThread
+    public Image getIcon(@NotNull final Path path, final boolean directory, final int size,
+                         @Nullable final Runnable onResolved) {
+
+        if (directory) return getIcon(FOLDER_CONTENT_TYPE, size);
 
         final String extension = FileUtils.getExtension(path);
+
         String contentType = EXTENSION_TO_CONTENT_TYPE.get(extension);
+        if (contentType == null) contentType = probedContentTypes.get(extension);
 
         if (contentType == null) {
+            probeContentType(path, extension, size, onResolved);
+            contentType = NONE_CONTENT_TYPE;
+        }
+
+        return getIcon(contentType, size);
+    }
+
+    /**
+     * Get an icon of the content type, the URL of an icon is resolved here only if it wasn't preloaded.
+     */
+    @NotNull
+    @FXThread
+    private Image getIcon(@NotNull final String contentType, final int size) {
+        final String url = resolvedIcons.get(contentType + ':' + size);
+        return getImage(url != null ? url : resolveIcon(contentType, size), size);
+    }
+
+    /**
+     * Probe the content type of the extension in background.
+     */
+    @FXThread
+    private void probeContentType(@NotNull final Path path, @NotNull final String extension, final int size,
+                                  @Nullable final Runnable onResolved) {
+
+        Array<Runnable> waiters = probeWaiters.get(extension);
+
+        if (waiters != null) {
+            if (onResolved != null) waiters.add(onResolved);
+            return;
+        }
+
+        waiters = ArrayFactory.newArray(Runnable.class);
+        if (onResolved != null) waiters.add(onResolved);
+
+        probeWaiters.put(extension, waiters);
+
+        EXECUTOR_MANAGER.addBackgroundTask(() -> {
+
+            String contentType = null;
             try {
                 contentType = Files.probeContentType(path);
-            } catch (IOException e) {
+            } catch (final IOException e) {
                 LOGGER.warning(e);
             }
-        }
 
-        if (Files.isDirectory(path)) contentType = "folder";
-        if (contentType != null) contentType = contentType.replace("/", "-");
+            if (contentType == null) {
+                LOGGER.warning("not found content type for " + path);
+                contentType = NONE_CONTENT_TYPE;
+            }
 
-        if (contentType == null) {
-            LOGGER.warning("not found content type for " + path);
-            contentType = "none";
-        }
+            contentType = contentType.replace("/", "-");
+            resolveIcon(contentType, size);
 
-        final Path mimeTypes = Paths.get("/ui/icons/vibrancy/mimetypes");
+            probedContentTypes.put(extension, contentType);
 
-        Path iconPath = mimeTypes.resolve(valueOf(size)).resolve(contentType + ".svg");
-        String url = toAssetPath(iconPath);
+            EXECUTOR_MANAGER.addFXTask(() -> {
+                final Array<Runnable> handlers = probeWaiters.remove(extension);
+                if (handlers != null) handlers.forEach(Runnable::run);
+            });
 
-        if (!EditorUtil.checkExists(url)) {
-            contentType = EXTENSION_TO_CONTENT_TYPE.get(FileUtils.getExtension(path));
-            iconPath = mimeTypes.resolve(valueOf(size)).resolve(contentType + ".svg");
-            url = toAssetPath(iconPath);
-        }
+        }, TaskPriority.INTERACTIVE);
+    }
+
+    /**
+     * Find the icon of the content type in the icons folder and cache its URL.
+     */
+    @NotNull
+    @FromAnyThread
+    private String resolveIcon(@NotNull final String contentType, final int size) {
+
+        final Path folder = MIME_TYPES.resolve(valueOf(size));
+
+        String url = toAssetPath(folder.resolve(contentType + ".svg"));
 
         if (!EditorUtil.checkExists(url)) {
-            contentType = EXTENSION_TO_CONTENT_TYPE.get(FileUtils.getExtension(path));
-            iconPath = mimeTypes.resolve(valueOf(size)).resolve(contentType + ".png");
-            url = toAssetPath(iconPath);
+            url = toAssetPath(folder.resolve(contentType + ".png"));
         }
 
         if (!EditorUtil.checkExists(url)) {
-            LOGGER.warning("not found image for contentType " + contentType + " and path " + path);
-            iconPath = mimeTypes.resolve(valueOf(size)).resolve("none.svg");
-            url = toAssetPath(iconPath);
+            LOGGER.warning("not found image for contentType " + contentType);
+            url = toAssetPath(folder.resolve(NONE_CONTENT_TYPE + ".svg"));
         }
 
-        return getImage(url, size);
+        resolvedIcons.put(contentType + ':' + size, url);
+        return url;
     }
 
     /**
@@ -1,6 +1,5 @@
 package com.ss.editor.manager;
 
-import static com.jme3x.jfx.injfx.JmeToJFXIntegrator.bind;
 import static com.ss.editor.util.EditorUtil.getAssetFile;
 import static com.ss.editor.util.EditorUtil.toAssetPath;
 import static java.util.Objects.requireNonNull;
@@ -12,43 +11,71 @@ import com.jme3.light.LightProbe;
 import com.jme3.material.Material;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Vector3f;
+import com.jme3.post.SceneProcessor;
+import com.jme3.profile.AppProfiler;
 import com.jme3.renderer.Camera;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.control.AbstractControl;
 import com.jme3.scene.shape.Box;
+import com.jme3.texture.FrameBuffer;
+import com.jme3.texture.Image;
+import com.jme3.util.BufferUtils;
 import com.jme3.util.SkyFactory;
-import com.jme3x.jfx.injfx.processor.FrameTransferSceneProcessor;
 import com.ss.editor.Editor;
 import com.ss.editor.FileExtensions;
 import com.ss.editor.JFXApplication;
+import com.ss.editor.annotation.BackgroundThread;
 import com.ss.editor.annotation.EditorThread;
 import com.ss.editor.annotation.FXThread;
 import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.config.Config;
+import com.ss.editor.executor.TaskPriority;
 import com.ss.editor.executor.impl.EditorThreadExecutor;
 import com.ss.editor.model.tool.TangentGenerator;
 import com.ss.editor.ui.css.CSSIds;
 import com.ss.editor.ui.scene.EditorFXScene;
+import com.ss.editor.util.EditorUtil;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.StackPane;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import rlib.logging.Logger;
+import rlib.logging.LoggerManager;
 import rlib.ui.util.FXUtils;
 import rlib.util.array.Array;
 import rlib.util.array.ArrayFactory;
+import rlib.util.dictionary.DictionaryFactory;
+import rlib.util.dictionary.IntegerDictionary;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * The class to manage previews of JME files.
+ * The class to manage previews of JME files. Requests of previews are rendered one by one to an offscreen frame
+ * buffer of the preview view port, a not started request is replaced by a newer request. The rendered previews
+ * are stored to the cache of {@link JavaFXImageManager}, so the same preview is rendered only once. Batch requests
+ * are rendered only when there are no requests to show and not more often than
+ * {@link Config#PREVIEW_BATCH_FRAME_INTERVAL} frames.
  *
  * @author JavaSaBr
  */
 public class JMEFilePreviewManager extends AbstractControl {
 
+    @NotNull
+    private static final Logger LOGGER = LoggerManager.getLogger(JMEFilePreviewManager.class);
+
     @NotNull
     private static final Vector3f LIGHT_DIRECTION = new Vector3f(0.007654993F, 0.39636374F, 0.9180617F).negate();
 
@@ -73,8 +100,21 @@ public class JMEFilePreviewManager extends AbstractControl {
         AUDIO_FORMATS.add(FileExtensions.AUDIO_WAV);
     }
 
+    /**
+     * The count of frames to render a preview before reading it from the frame buffer.
+     */
+    private static final int RENDER_FRAMES = 2;
+
+    /**
+     * The camera angle of previews.
+     */
+    private static final float CAMERA_ANGLE = 45F;
+
+    @NotNull
+    private static final ExecutorManager EXECUTOR_MANAGER = ExecutorManager.getInstance();
+
     @NotNull
-    private static final EditorThreadExecutor EDITOR_THREAD_EXECUTOR = EditorThreadExecutor.getInstance();
+    private static final JavaFXImageManager JAVA_FX_IMAGE_MANAGER = JavaFXImageManager.getInstance();
 
     @NotNull
     private static final JFXApplication JFX_APPLICATION = JFXApplication.getInstance();
@@ -115,12 +155,138 @@ public class JMEFilePreviewManager extends AbstractControl {
         return AUDIO_FORMATS.contains(extension);
     }
 
+    /**
+     * The request of a preview.
+     */
+    private static final class PreviewRequest {
+
+        /**
+         * The file.
+         */
+        @NotNull
+        private final Path file;
+
+        /**
+         * The asset path of the file.
+         */
+        @NotNull
+        private final String assetPath;
+
+        /**
+         * The extension of the file.
+         */
+        @NotNull
+        private final String extension;
+
+        /**
+         * The width of the preview.
+         */
+        private final int width;
+
+        /**
+         * The height of the preview.
+         */
+        private final int height;
+
+        /**
+         * The result of a batch request.
+         */
+        @Nullable
+        private final CompletableFuture<javafx.scene.image.Image> result;
+
+        private PreviewRequest(@NotNull final Path file, @NotNull final String assetPath,
+                               @NotNull final String extension, final int width, final int height,
+                               @Nullable final CompletableFuture<javafx.scene.image.Image> result) {
+            this.file = file;
+            this.assetPath = assetPath;
+            this.extension = extension;
+            this.width = width;
+            this.height = height;
+            this.result = result;
+        }
+    }
+
+    /**
+     * The offscreen frame buffer of some size with the buffer to read it.
+     */
+    private static final class RenderTarget {
+
+        /**
+         * The frame buffer.
+         */
+        @NotNull
+        private final FrameBuffer frameBuffer;
+
+        /**
+         * The buffer to read pixels of the frame buffer.
+         */
+        @NotNull
+        private final ByteBuffer pixels;
+
+        private RenderTarget(final int width, final int height) {
+            this.frameBuffer = new FrameBuffer(width, height, 1);
+            this.frameBuffer.setDepthBuffer(Image.Format.Depth);
+            this.frameBuffer.setColorBuffer(Image.Format.RGBA8);
+            this.frameBuffer.setSrgb(true);
+            this.pixels = BufferUtils.createByteBuffer(width * height * 4);
+        }
+    }
+
+    /**
+     * The processor to read a rendered preview from the frame buffer.
+     */
+    private final class CaptureProcessor implements SceneProcessor {
+
+        /**
+         * The render manager.
+         */
+        @Nullable
+        private RenderManager renderManager;
+
+        @Override
+        public void initialize(@NotNull final RenderManager renderManager, @NotNull final ViewPort viewPort) {
+            this.renderManager = renderManager;
+        }
+
+        @Override
+        public void reshape(@NotNull final ViewPort viewPort, final int width, final int height) {
+        }
+
+        @Override
+        public boolean isInitialized() {
+            return renderManager != null;
+        }
+
+        @Override
+        public void preFrame(final float tpf) {
+        }
+
+        @Override
+        public void postQueue(@NotNull final RenderQueue renderQueue) {
+        }
+
+        @Override
+        @EditorThread
+        public void postFrame(@Nullable final FrameBuffer out) {
+            if (renderManager == null) return;
+            capture(renderManager);
+        }
+
+        @Override
+        public void cleanup() {
+        }
+
+        @Override
+        public void setProfiler(@Nullable final AppProfiler profiler) {
+        }
+    }
+
     @NotNull
     private final JobProgressAdapter<LightProbe> probeHandler = new JobProgressAdapter<LightProbe>() {
 
         @Override
         public void done(final LightProbe result) {
-            notifyProbeComplete();
+            EXECUTOR_MANAGER.addEditorThreadTask(JMEFilePreviewManager.this::notifyProbeComplete);
         }
     };
 
@@ -143,21 +309,69 @@ public class JMEFilePreviewManager extends AbstractControl {
     private final Node modelNode;
 
     /**
-     * The transfer processor.
+     * The offscreen render targets by packed sizes.
+     */
+    @NotNull
+    private final IntegerDictionary<RenderTarget> renderTargets;
+
+    /**
+     * The next request to render, a newer request replaces it.
+     */
+    @NotNull
+    private final AtomicReference<PreviewRequest> pending;
+
+    /**
+     * The queue of batch requests.
+     */
+    @NotNull
+    private final Queue<PreviewRequest> batch;
+
+    /**
+     * The latest request to show in the image view.
+     */
+    @Nullable
+    private volatile PreviewRequest shown;
+
+    /**
+     * The request which is rendering now.
+     */
+    @Nullable
+    private PreviewRequest current;
+
+    /**
+     * The render target of the current request.
      */
     @Nullable
-    private volatile FrameTransferSceneProcessor processor;
+    private RenderTarget currentTarget;
 
     /**
-     * The count of frames.
+     * The count of rendered frames of the current request.
      */
     private int frame;
 
+    /**
+     * The count of frames since the last finished render.
+     */
+    private int idleFrames;
+
+    /**
+     * True if the preview light probe was updated.
+     */
+    private boolean probeReady;
+
+    /**
+     * True if the preview light probe is updating now.
+     */
+    private boolean probeUpdating;
+
     private JMEFilePreviewManager() {
         this.imageView = new ImageView();
         this.imageView.setId(CSSIds.JME_PREVIEW_MANAGER_IMAGE_VIEW);
         this.testBox = new Geometry("Box", new Box(2, 2, 2));
         this.modelNode = new Node("Model Node");
+        this.renderTargets = DictionaryFactory.newIntegerDictionary();
+        this.pending = new AtomicReference<>();
+        this.batch = new ConcurrentLinkedQueue<>();
 
         final EditorFXScene scene = JFX_APPLICATION.getScene();
         final StackPane container = scene.getHideLayer();
@@ -170,19 +384,40 @@ public class JMEFilePreviewManager extends AbstractControl {
     }
 
     @Override
+    @EditorThread
     protected void controlUpdate(final float tpf) {
 
-        if (frame == 2) {
-            EDITOR.updatePreviewProbe(probeHandler);
+        if (!probeReady) {
+            updateProbe();
+            return;
         }
 
-        frame++;
+        if (current == null) {
+            idleFrames++;
+            startNext();
+        } else {
+            frame++;
+        }
     }
 
+    /**
+     * Update the preview light probe once, the probe is kept for all previews.
+     */
+    @EditorThread
+    private void updateProbe() {
+        if (probeUpdating) return;
+        probeUpdating = true;
+        EDITOR.updatePreviewProbe(probeHandler);
+    }
+
+    /**
+     * Mark the light probe as ready, the probe job reports completion from its worker thread, so it's posted
+     * to the editor thread which polls these flags.
+     */
     @EditorThread
     private void notifyProbeComplete() {
-        final Node rootNode = EDITOR.getPreviewNode();
-        rootNode.attachChild(modelNode);
+        probeReady = true;
+        probeUpdating = false;
     }
 
     @Override
@@ -198,89 +433,244 @@ public class JMEFilePreviewManager extends AbstractControl {
      */
     @FromAnyThread
     public void show(@NotNull final Path file, final int fitWidth, final int fitHeight) {
-        imageView.setFitHeight(fitHeight);
-        imageView.setFitWidth(fitWidth);
 
         final Path assetFile = requireNonNull(getAssetFile(file), "File can't be null.");
         final String path = toAssetPath(assetFile);
         final String extension = getExtension(assetFile);
 
-        if (FileExtensions.JME_MATERIAL.equals(extension)) {
-            EDITOR_THREAD_EXECUTOR.addToExecute(() -> showMaterial(path));
-        } else if (FileExtensions.JME_OBJECT.equals(extension)) {
-            EDITOR_THREAD_EXECUTOR.addToExecute(() -> showObject(path));
-        } else {
-            EDITOR_THREAD_EXECUTOR.addToExecute(this::clear);
+        if (!JME_FORMATS.contains(extension)) {
+            clear();
+            return;
+        }
+
+        final PreviewRequest request = new PreviewRequest(file, path, extension, fitWidth, fitHeight, null);
+        shown = request;
+
+        EXECUTOR_MANAGER.addBackgroundTask(() -> requestPreview(request), TaskPriority.INTERACTIVE);
+    }
+
+    /**
+     * Put a request to render a preview of a file in batch mode, the preview is stored to the cache
+     * of {@link JavaFXImageManager}.
+     *
+     * @param file   the file.
+     * @param width  the width of preview.
+     * @param height the height of preview.
+     * @return the result of rendering.
+     */
+    @NotNull
+    @FromAnyThread
+    public CompletableFuture<javafx.scene.image.Image> render(@NotNull final Path file, final int width,
+                                                               final int height) {
+
+        final CompletableFuture<javafx.scene.image.Image> result = new CompletableFuture<>();
+        final Path assetFile = getAssetFile(file);
+        final String extension = getExtension(file);
+
+        if (assetFile == null || !JME_FORMATS.contains(extension)) {
+            result.completeExceptionally(new IllegalArgumentException("can't render a preview of " + file));
+            return result;
         }
+
+        batch.add(new PreviewRequest(file, toAssetPath(assetFile), extension, width, height, result));
+        return result;
     }
 
     /**
-     * Show a j3o object.
+     * Show a cached preview or put the request to render it.
      *
-     * @param path the path to object.
+     * @param request the request.
+     */
+    @BackgroundThread
+    private void requestPreview(@NotNull final PreviewRequest request) {
+        if (shown != request) return;
+
+        final javafx.scene.image.Image cached = JAVA_FX_IMAGE_MANAGER.getCachedPreview(request.file, request.width,
+                request.height);
+
+        if (cached != null) {
+            showPreview(request, cached);
+        } else {
+            pending.set(request);
+        }
+    }
+
+    /**
+     * Start rendering the next request.
      */
     @EditorThread
-    private void showObject(@NotNull final String path) {
-        if (processor != null) processor.setEnabled(true);
+    private void startNext() {
 
-        frame = 0;
+        PreviewRequest request = pending.getAndSet(null);
+        if (request != null && shown != request) request = null;
+
+        if (request == null && idleFrames >= Config.PREVIEW_BATCH_FRAME_INTERVAL) {
+            request = batch.poll();
+        }
+
+        if (request == null) return;
+
+        final AssetManager assetManager = EDITOR.getAssetManager();
+
+        try {
+
+            if (FileExtensions.JME_MATERIAL.equals(request.extension)) {
+                final Material material = assetManager.loadMaterial(request.assetPath);
+                testBox.setMaterial(material);
+                modelNode.attachChild(testBox);
+            } else {
+                final Spatial model = assetManager.loadModel(request.assetPath);
+                modelNode.attachChild(model);
+            }
+
+        } catch (final RuntimeException e) {
+
+            modelNode.detachAllChildren();
+            idleFrames = 0;
+
+            if (request.result == null) {
+                EditorUtil.handleException(LOGGER, this, e);
+            } else {
+                request.result.completeExceptionally(e);
+            }
+
+            return;
+        }
+
+        final RenderTarget target = getRenderTarget(request.width, request.height);
 
         final Camera camera = EDITOR.getPreviewCamera();
+        camera.resize(request.width, request.height, true);
+        camera.setFrustumPerspective(CAMERA_ANGLE, (float) request.width / request.height, 1F, 10000F);
         camera.setLocation(CAMERA_LOCATION);
         camera.setRotation(CAMERA_ROTATION);
 
-        final AssetManager assetManager = EDITOR.getAssetManager();
-        final Spatial model = assetManager.loadModel(path);
+        final ViewPort viewPort = EDITOR.getPreviewViewPort();
+        viewPort.setOutputFrameBuffer(target.frameBuffer);
+        viewPort.setEnabled(true);
 
-        modelNode.detachAllChildren();
-        modelNode.attachChild(model);
+        current = request;
+        currentTarget = target;
+        frame = 0;
+    }
 
-        final Node rootNode = EDITOR.getPreviewNode();
-        rootNode.detachChild(modelNode);
+    /**
+     * Get or create the render target of the size.
+     */
+    @NotNull
+    @EditorThread
+    private RenderTarget getRenderTarget(final int width, final int height) {
+
+        final int key = width << 16 | height;
+
+        RenderTarget target = renderTargets.get(key);
+
+        if (target == null) {
+            target = new RenderTarget(width, height);
+            renderTargets.put(key, target);
+        }
+
+        return target;
     }
 
     /**
-     * Show a j3m material.
+     * Read the rendered preview of the current request if it's ready.
      *
-     * @param path the path to material.
+     * @param renderManager the render manager.
      */
     @EditorThread
-    private void showMaterial(@NotNull final String path) {
-        if (processor != null) processor.setEnabled(true);
+    private void capture(@NotNull final RenderManager renderManager) {
 
-        frame = 0;
+        final PreviewRequest request = current;
+        final RenderTarget target = currentTarget;
 
-        final Camera camera = EDITOR.getPreviewCamera();
-        camera.setLocation(CAMERA_LOCATION);
-        camera.setRotation(CAMERA_ROTATION);
+        if (request == null || target == null || frame < RENDER_FRAMES) {
+            return;
+        }
 
-        final AssetManager assetManager = EDITOR.getAssetManager();
-        final Material material = assetManager.loadMaterial(path);
+        final ByteBuffer buffer = target.pixels;
+        buffer.clear();
 
-        testBox.setMaterial(material);
+        renderManager.getRenderer().readFrameBufferWithFormat(target.frameBuffer, buffer, Image.Format.RGBA8);
 
-        modelNode.detachAllChildren();
-        modelNode.attachChild(testBox);
+        final byte[] content = new byte[request.width * request.height * 4];
+        buffer.get(content);
 
-        final Node rootNode = EDITOR.getPreviewNode();
-        rootNode.detachChild(modelNode);
+        finishCurrent();
+
+        EXECUTOR_MANAGER.addBackgroundTask(() -> storePreview(request, content), TaskPriority.INTERACTIVE);
     }
 
     /**
-     * Clear a preview.
+     * Finish rendering of the current request.
      */
-    @FromAnyThread
-    public void clear() {
-        EDITOR_THREAD_EXECUTOR.addToExecute(this::clearImpl);
+    @EditorThread
+    private void finishCurrent() {
+
+        modelNode.detachAllChildren();
+
+        final ViewPort viewPort = EDITOR.getPreviewViewPort();
+        viewPort.setEnabled(false);
+
+        current = null;
+        currentTarget = null;
+        idleFrames = 0;
     }
 
-    @EditorThread
-    private void clearImpl() {
+    /**
+     * Convert the rendered pixels to a preview, cache it and show it if it's still required.
+     *
+     * @param request the request.
+     * @param content the RGBA pixels from the bottom row.
+     */
+    @BackgroundThread
+    private void storePreview(@NotNull final PreviewRequest request, @NotNull final byte[] content) {
 
-        final Node rootNode = EDITOR.getPreviewNode();
-        rootNode.detachChild(modelNode);
+        final int width = request.width;
+        final int height = request.height;
+        final int[] pixels = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+
+            int index = (height - 1 - y) * width * 4;
 
-        if (processor != null) processor.setEnabled(false);
+            for (int x = 0, offset = y * width; x < width; x++, index += 4) {
+                pixels[offset + x] = (content[index + 3] & 0xFF) << 24 | (content[index] & 0xFF) << 16 |
+                        (content[index + 1] & 0xFF) << 8 | (content[index + 2] & 0xFF);
+            }
+        }
+
+        final WritableImage preview = new WritableImage(width, height);
+        final PixelWriter pixelWriter = preview.getPixelWriter();
+        pixelWriter.setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+
+        JAVA_FX_IMAGE_MANAGER.putPreview(request.file, width, height, preview);
+
+        if (request.result != null) {
+            request.result.complete(preview);
+        } else {
+            showPreview(request, preview);
+        }
+    }
+
+    /**
+     * Show the preview in the image view if the request is still required.
+     */
+    @FromAnyThread
+    private void showPreview(@NotNull final PreviewRequest request, @NotNull final javafx.scene.image.Image preview) {
+        EXECUTOR_MANAGER.addFXUpdate(this, imageView, () -> {
+            if (shown == request) imageView.setImage(preview);
+        });
+    }
+
+    /**
+     * Clear a preview.
+     */
+    @FromAnyThread
+    public void clear() {
+        shown = null;
+        pending.set(null);
+        EXECUTOR_MANAGER.addFXUpdate(this, imageView, () -> imageView.setImage(null));
     }
 
     /**
@@ -293,12 +683,10 @@ public class JMEFilePreviewManager extends AbstractControl {
     }
 
     /**
-     * Prepare a transfer processor to transfer preview result to a image view.
-     *
-     * @return the transfer processor.
+     * Prepare the preview scene and the processor to read rendered previews.
      */
-    @NotNull
-    private FrameTransferSceneProcessor prepareScene() {
+    @EditorThread
+    private void prepareScene() {
 
         final AssetManager assetManager = EDITOR.getAssetManager();
         final Spatial sky = SkyFactory.createSky(assetManager, "graphics/textures/sky/studio.hdr",
@@ -313,9 +701,8 @@ public class JMEFilePreviewManager extends AbstractControl {
         rootNode.addLight(light);
         rootNode.attachChild(modelNode);
 
-        processor = bind(EDITOR, imageView, imageView, EDITOR.getPreviewViewPort(), false);
-        processor.setEnabled(false);
-
-        return processor;
+        final ViewPort viewPort = EDITOR.getPreviewViewPort();
+        viewPort.addProcessor(new CaptureProcessor());
+        viewPort.setEnabled(false);
     }
 }
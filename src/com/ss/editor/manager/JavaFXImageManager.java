@@ -2,22 +2,30 @@ package com.ss.editor.manager;
 
 import static com.ss.editor.util.EditorUtil.getAssetFile;
 import static com.ss.editor.util.EditorUtil.toAssetPath;
-import static java.awt.Image.SCALE_DEFAULT;
 import static java.util.Objects.requireNonNull;
 import com.jme3.asset.AssetManager;
 import com.jme3.texture.Texture;
 import com.ss.editor.Editor;
+import com.ss.editor.EditorThread;
 import com.ss.editor.FileExtensions;
 import com.ss.editor.annotation.FXThread;
+import com.ss.editor.annotation.FromAnyThread;
 import com.ss.editor.config.Config;
+import com.ss.editor.file.cache.ThumbnailCache;
+import com.ss.editor.file.cache.ThumbnailKey;
 import com.ss.editor.file.reader.DDSReader;
 import com.ss.editor.file.reader.TGAReader;
 import com.ss.editor.ui.Icons;
 import com.ss.editor.ui.event.FXEventManager;
-import com.ss.editor.ui.event.impl.DeletedFileEvent;
+import com.ss.editor.ui.event.impl.ChangedFilesEvent;
 import com.ss.editor.util.EditorUtil;
-import javafx.embed.swing.SwingFXUtils;
+import com.ss.editor.util.ImageUtils;
 import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 import jme3tools.converters.ImageToAwt;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -25,8 +33,6 @@ import rlib.logging.Logger;
 import rlib.logging.LoggerManager;
 import rlib.manager.InitializeManager;
 import rlib.util.FileUtils;
-import rlib.util.StringUtils;
-import rlib.util.Utils;
 import rlib.util.array.Array;
 import rlib.util.array.ArrayFactory;
 import rlib.util.dictionary.DictionaryFactory;
@@ -36,14 +42,22 @@ import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 import javax.imageio.metadata.IIOMetadata;
 import javax.imageio.stream.ImageInputStream;
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.FileTime;
+import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The class to manage previews of images to JavaFX
@@ -58,9 +72,34 @@ public class JavaFXImageManager {
     @NotNull
     private static final FXEventManager FX_EVENT_MANAGER = FXEventManager.getInstance();
 
+    @NotNull
+    private static final ExecutorManager EXECUTOR_MANAGER = ExecutorManager.getInstance();
+
     @NotNull
     private static final String PREVIEW_CACHE_FOLDER = "preview-cache";
 
+    /**
+     * The key of a property of an image view with its current preview request.
+     */
+    @NotNull
+    private static final String PREVIEW_REQUEST_PROPERTY = "JavaFXImageManager.previewRequest";
+
+    /**
+     * The buffer of decoded pixels of DDS mip levels per thread.
+     */
+    @NotNull
+    private static final ThreadLocal<int[]> DDS_PIXELS = new ThreadLocal<>();
+
+    /**
+     * The max size of the kept buffer of decoded pixels, bigger buffers are allocated per decoding.
+     */
+    private static final int MAX_DDS_PIXELS = 1024 * 1024;
+
+    /**
+     * The count of threads to decode previews.
+     */
+    private static final int PREVIEW_DECODE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
     @NotNull
     private static final Array<String> FX_FORMATS = ArrayFactory.newArray(String.class);
 
@@ -116,260 +155,446 @@ public class JavaFXImageManager {
     private final ObjectDictionary<Path, IIOMetadata> iioMetadatas;
 
     /**
-     * The cache folder.
+     * The cache of previews.
      */
     @NotNull
-    private final Path cacheFolder;
+    private final ThumbnailCache thumbnailCache;
+
+    /**
+     * The table of not finished preview tasks.
+     */
+    @NotNull
+    private final ConcurrentMap<ThumbnailKey, PreviewTask> previewTasks;
+
+    /**
+     * The executor to decode previews, the latest requests are decoded first.
+     */
+    @NotNull
+    private final ThreadPoolExecutor decodeExecutor;
 
     private JavaFXImageManager() {
         InitializeManager.valid(getClass());
         final Path appFolder = Config.getAppFolderInUserHome();
-        this.cacheFolder = appFolder.resolve(PREVIEW_CACHE_FOLDER);
+        final Path cacheFolder = appFolder.resolve(PREVIEW_CACHE_FOLDER);
+        final long memoryLimit = Config.PREVIEW_MEMORY_CACHE_SIZE * 1024L * 1024L;
+        final long diskLimit = Config.PREVIEW_DISK_CACHE_SIZE * 1024L * 1024L;
+        this.thumbnailCache = new ThumbnailCache(cacheFolder, memoryLimit, diskLimit);
         this.iioMetadatas = DictionaryFactory.newObjectDictionary();
-        if (Files.exists(cacheFolder)) FileUtils.delete(cacheFolder);
-        FX_EVENT_MANAGER.addEventHandler(DeletedFileEvent.EVENT_TYPE, event -> processEvent((DeletedFileEvent) event));
+        this.previewTasks = new ConcurrentHashMap<>();
+        this.decodeExecutor = new ThreadPoolExecutor(PREVIEW_DECODE_THREADS, PREVIEW_DECODE_THREADS, 0L,
+                TimeUnit.MILLISECONDS, new LifoTaskQueue(), new DecodeThreadFactory());
+        FX_EVENT_MANAGER.addEventHandler(ChangedFilesEvent.EVENT_TYPE, event -> processEvent((ChangedFilesEvent) event));
     }
 
     /**
-     * @return the cache folder.
+     * Get image preview.
+     *
+     * @param file   the image file.
+     * @param width  the required width.
+     * @param height the required height.
+     * @return the image.
      */
     @NotNull
-    private Path getCacheFolder() {
-        return cacheFolder;
+    @FXThread
+    public Image getTexturePreview(@Nullable final Path file, final int width, final int height) {
+        return createPreview(file, width, height);
     }
 
     /**
-     * Get image preview.
+     * Request an image preview which is decoded in background. Requests of the same file and size
+     * share one decoding, the request can be cancelled to drop it when the preview isn't needed anymore.
      *
      * @param file   the image file.
      * @param width  the required width.
      * @param height the required height.
-     * @return the image.
+     * @return the request of the image.
      */
     @NotNull
-    @FXThread
-    public Image getTexturePreview(@Nullable final Path file, final int width, final int height) {
-        if (file == null || !Files.exists(file)) return Icons.IMAGE_512;
+    @FromAnyThread
+    public CompletableFuture<Image> getTexturePreviewAsync(@Nullable final Path file, final int width,
+                                                           final int height) {
 
-        final String absolutePath = file.toAbsolutePath().toString();
-        final String fileHash = StringUtils.toMD5(absolutePath) + ".png";
+        if (file == null || !Files.exists(file)) {
+            return CompletableFuture.completedFuture(Icons.IMAGE_512);
+        }
 
-        final Path cacheFolder = getCacheFolder();
-        final Path imageFolder = cacheFolder.resolve(String.valueOf(width)).resolve(String.valueOf(height));
-        final Path cacheFile = imageFolder.resolve(fileHash);
+        final ThumbnailKey key = new ThumbnailKey(file, width, height);
 
-        if (Files.exists(cacheFile)) {
+        PreviewTask task;
 
-            try {
+        while (true) {
+
+            final PreviewTask newTask = new PreviewTask(key);
+            task = previewTasks.putIfAbsent(key, newTask);
 
-                final FileTime lastModCacheFile = Files.getLastModifiedTime(cacheFile);
-                final FileTime lastModFile = Files.getLastModifiedTime(file);
+            if (task == null) {
+                task = newTask;
+                task.subscribe();
+                decodeExecutor.execute(task);
+                break;
+            } else if (task.subscribe()) {
+                break;
+            }
 
-                if (lastModCacheFile.compareTo(lastModFile) >= 0) {
-                    return new Image(cacheFile.toUri().toString(), width, height, false, false);
-                }
+            previewTasks.remove(key, task);
+        }
 
-            } catch (final IOException e) {
-                LOGGER.warning(e);
+        final PreviewTask subscribed = task;
+        final CompletableFuture<Image> request = new CompletableFuture<>();
+
+        subscribed.future.whenComplete((image, throwable) -> {
+            if (throwable == null) {
+                request.complete(image);
+            } else {
+                request.completeExceptionally(throwable);
             }
+        });
+
+        request.whenComplete((image, throwable) -> {
+            if (request.isCancelled()) subscribed.unsubscribe();
+        });
+
+        return request;
+    }
+
+    /**
+     * Show an image preview in the image view. The placeholder is shown until the preview is decoded
+     * in background, a previous not finished request of the image view is cancelled.
+     *
+     * @param imageView the image view.
+     * @param file      the image file.
+     * @param width     the required width.
+     * @param height    the required height.
+     */
+    @FXThread
+    public void showTexturePreview(@NotNull final ImageView imageView, @Nullable final Path file, final int width,
+                                   final int height) {
+
+        cancelTexturePreview(imageView);
+
+        final CompletableFuture<Image> request = getTexturePreviewAsync(file, width, height);
+
+        if (request.isDone()) {
+            imageView.setImage(request.getNow(Icons.IMAGE_512));
+            return;
+        }
+
+        final Map<Object, Object> properties = imageView.getProperties();
+        properties.put(PREVIEW_REQUEST_PROPERTY, request);
+
+        imageView.setImage(Icons.IMAGE_512);
+
+        request.thenAccept(image -> EXECUTOR_MANAGER.addFXTask(() -> {
+            if (properties.get(PREVIEW_REQUEST_PROPERTY) != request) return;
+            properties.remove(PREVIEW_REQUEST_PROPERTY);
+            imageView.setImage(image);
+        }));
+    }
+
+    /**
+     * Cancel a not finished request of an image preview for the image view.
+     *
+     * @param imageView the image view.
+     */
+    @FXThread
+    public void cancelTexturePreview(@NotNull final ImageView imageView) {
+
+        final Map<Object, Object> properties = imageView.getProperties();
+        final Object request = properties.remove(PREVIEW_REQUEST_PROPERTY);
+
+        if (request instanceof CompletableFuture) {
+            ((CompletableFuture<?>) request).cancel(false);
+        }
+    }
+
+    /**
+     * Get an actual cached preview of a file which is rendered by another manager.
+     *
+     * @param file   the file.
+     * @param width  the required width.
+     * @param height the required height.
+     * @return the cached preview or null.
+     */
+    @Nullable
+    @FromAnyThread
+    public Image getCachedPreview(@NotNull final Path file, final int width, final int height) {
+        try {
+            final long lastModified = Files.getLastModifiedTime(file).toMillis();
+            return thumbnailCache.get(new ThumbnailKey(file, width, height), lastModified);
+        } catch (final IOException e) {
+            return null;
         }
+    }
+
+    /**
+     * Get a size of a cached preview of a file on disk.
+     *
+     * @param file   the file.
+     * @param width  the required width.
+     * @param height the required height.
+     * @return the size in bytes or 0 if the preview isn't cached.
+     */
+    @FromAnyThread
+    public long getCachedPreviewSize(@NotNull final Path file, final int width, final int height) {
+        return thumbnailCache.getStoredSize(new ThumbnailKey(file, width, height));
+    }
+
+    /**
+     * Put a preview of a file which is rendered by another manager to the cache.
+     *
+     * @param file    the file.
+     * @param width   the required width.
+     * @param height  the required height.
+     * @param preview the preview.
+     */
+    @FromAnyThread
+    public void putPreview(@NotNull final Path file, final int width, final int height, @NotNull final Image preview) {
+        try {
+            final long lastModified = Files.getLastModifiedTime(file).toMillis();
+            thumbnailCache.put(new ThumbnailKey(file, width, height), preview, lastModified);
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+        }
+    }
 
-        final Path parent = cacheFile.getParent();
+    /**
+     * Create an image preview, reuses the cached preview if it's actual.
+     */
+    @NotNull
+    @FromAnyThread
+    private Image createPreview(@Nullable final Path file, final int width, final int height) {
+        if (file == null || !Files.exists(file)) return Icons.IMAGE_512;
+
+        final long lastModified;
         try {
-            Files.createDirectories(parent);
+            lastModified = Files.getLastModifiedTime(file).toMillis();
         } catch (final IOException e) {
             LOGGER.warning(e);
+            return Icons.IMAGE_512;
         }
 
+        final ThumbnailKey key = new ThumbnailKey(file, width, height);
+        final Image cached = thumbnailCache.get(key, lastModified);
+        if (cached != null) return cached;
+
         final String extension = FileUtils.getExtension(file);
 
         if (FX_FORMATS.contains(extension)) {
 
-            final String url = file.toUri().toString();
-
-            Image image = new Image(url);
+            final Image image = new Image(file.toUri().toString());
+            if (image.isError()) return Icons.IMAGE_512;
 
             final int imageWidth = (int) image.getWidth();
             final int imageHeight = (int) image.getHeight();
 
-            if (imageWidth > width || imageHeight > height) {
-                if (imageWidth == imageHeight) {
-                    image = new Image(url, width, height, false, false);
-                } else if (imageWidth > imageHeight) {
-                    float mod = imageHeight * 1F / imageWidth;
-                    image = new Image(url, width, height * mod, false, false);
-                } else if (imageHeight > imageWidth) {
-                    float mod = imageWidth * 1F / imageHeight;
-                    image = new Image(url, width * mod, height, false, false);
-                }
+            if (imageWidth <= width && imageHeight <= height) {
+                thumbnailCache.put(key, image, lastModified);
+                return image;
             }
 
-            final BufferedImage bufferedImage = SwingFXUtils.fromFXImage(image, null);
+            final int[] pixels = new int[imageWidth * imageHeight];
 
-            try (final OutputStream out = Files.newOutputStream(cacheFile)) {
-                ImageIO.write(bufferedImage, "png", out);
-            } catch (final IOException e) {
-                LOGGER.warning(e);
-            }
+            final PixelReader pixelReader = image.getPixelReader();
+            pixelReader.getPixels(0, 0, imageWidth, imageHeight, PixelFormat.getIntArgbInstance(), pixels, 0, imageWidth);
 
-            return image;
+            final Image preview = toPreview(pixels, imageWidth, imageHeight, width, height);
+            thumbnailCache.put(key, preview, lastModified);
+            return preview;
+        }
 
-        } else if (JME_FORMATS.contains(extension)) {
+        if (FileExtensions.IMAGE_DDS.equals(extension)) {
 
-            final Path assetFile = requireNonNull(getAssetFile(file));
-            final String assetPath = toAssetPath(assetFile);
+            final Image preview = readDDSPreview(file, width, height);
+            if (preview == null) return Icons.IMAGE_512;
 
-            final Editor editor = Editor.getInstance();
-            final AssetManager assetManager = editor.getAssetManager();
-            final Texture texture = assetManager.loadTexture(assetPath);
-            final BufferedImage textureImage;
+            thumbnailCache.put(key, preview, lastModified);
+            return preview;
+        }
 
-            try {
-                textureImage = ImageToAwt.convert(texture.getImage(), false, true, 0);
-            } catch (final UnsupportedOperationException e) {
-                EditorUtil.handleException(LOGGER, this, e);
-                return Icons.IMAGE_512;
-            }
+        if (FileExtensions.IMAGE_TGA.equals(extension)) {
 
-            final int imageWidth = textureImage.getWidth();
-            final int imageHeight = textureImage.getHeight();
+            final Image preview = readTGAPreview(file, width, height);
+            if (preview == null) return Icons.IMAGE_512;
 
-            final java.awt.Image newImage = scaleImage(width, height, textureImage, imageWidth, imageHeight);
-            final BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            thumbnailCache.put(key, preview, lastModified);
+            return preview;
+        }
 
-            final Graphics2D g2d = bufferedImage.createGraphics();
-            g2d.drawImage(newImage, 0, 0, null);
-            g2d.dispose();
+        final BufferedImage read = readImage(file, extension);
+        if (read == null) return Icons.IMAGE_512;
 
-            Image javaFXImage;
+        final int imageWidth = read.getWidth();
+        final int imageHeight = read.getHeight();
+        final int[] pixels = read.getRGB(0, 0, imageWidth, imageHeight, null, 0, imageWidth);
 
-            try (final OutputStream out = Files.newOutputStream(cacheFile)) {
-                ImageIO.write(bufferedImage, "png", out);
-                javaFXImage = new Image(cacheFile.toUri().toString());
-            } catch (final IOException e) {
-                LOGGER.warning(e);
-                javaFXImage = Icons.IMAGE_512;
-            }
+        final Image preview = toPreview(pixels, imageWidth, imageHeight, width, height);
+        thumbnailCache.put(key, preview, lastModified);
+        return preview;
+    }
 
-            return javaFXImage;
+    /**
+     * Read a preview of a DDS file from the smallest mip level which isn't less than the preview size,
+     * only the header and the bytes of this level are read from the mapped file.
+     *
+     * @param file   the DDS file.
+     * @param width  the max width of the preview.
+     * @param height the max height of the preview.
+     * @return the preview or null if the file isn't supported.
+     */
+    @Nullable
+    @FromAnyThread
+    private Image readDDSPreview(@NotNull final Path file, final int width, final int height) {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
 
-        } else if (IMAGE_IO_FORMATS.contains(extension)) {
+            final long fileSize = channel.size();
+            if (fileSize < DDSReader.HEADER_SIZE) return null;
 
-            final BufferedImage read;
-            try {
-                read = ImageIO.read(file.toFile());
-            } catch (final IOException e) {
-                EditorUtil.handleException(LOGGER, this, e);
-                return Icons.IMAGE_512;
-            }
+            final byte[] header = new byte[DDSReader.HEADER_SIZE];
+            channel.map(FileChannel.MapMode.READ_ONLY, 0, header.length).get(header);
 
-            final int imageWidth = read.getWidth();
-            final int imageHeight = read.getHeight();
+            final int fullWidth = DDSReader.getWidth(header);
+            final int fullHeight = DDSReader.getHeight(header);
+            if (fullWidth < 1 || fullHeight < 1) return null;
 
-            final java.awt.Image newImage = scaleImage(width, height, read, imageWidth, imageHeight);
-            final BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            final int[] size = ImageUtils.fitSize(fullWidth, fullHeight, width, height);
+            final int mipmapCount = DDSReader.getMipmapCount(header);
 
-            final Graphics2D g2d = bufferedImage.createGraphics();
-            g2d.drawImage(newImage, 0, 0, null);
-            g2d.dispose();
+            int level = 0;
 
-            Image javaFXImage;
+            while (level + 1 < mipmapCount && DDSReader.getLevelWidth(header, level + 1) >= size[0] &&
+                    DDSReader.getLevelHeight(header, level + 1) >= size[1]) {
+                level++;
+            }
 
-            try (final OutputStream out = Files.newOutputStream(cacheFile)) {
-                ImageIO.write(bufferedImage, "png", out);
-                javaFXImage = new Image(cacheFile.toUri().toString());
-            } catch (final IOException e) {
-                LOGGER.warning(e);
-                javaFXImage = Icons.IMAGE_512;
+            long offset = DDSReader.getLevelOffset(header, level);
+            int length = DDSReader.getLevelSize(header, level);
+
+            while (level > 0 && offset + length > fileSize) {
+                level--;
+                offset = DDSReader.getLevelOffset(header, level);
+                length = DDSReader.getLevelSize(header, level);
             }
 
-            return javaFXImage;
+            if (offset < 0 || length < 0 || offset + length > fileSize) {
+                return null;
+            }
 
-        } else if (FileExtensions.IMAGE_DDS.equals(extension)) {
+            final byte[] content = new byte[length];
+            channel.map(FileChannel.MapMode.READ_ONLY, offset, length).get(content);
 
-            final byte[] content = requireNonNull(Utils.get(file, Files::readAllBytes));
-            final int[] pixels = DDSReader.read(content, DDSReader.ARGB, 0);
-            final int currentWidth = DDSReader.getWidth(content);
-            final int currentHeight = DDSReader.getHeight(content);
+            final int[] pixels = DDSReader.readLevel(header, content, 0, level, DDSReader.ARGB, DDS_PIXELS.get());
+            if (pixels == null) return null;
 
-            final BufferedImage read = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_ARGB);
-            read.setRGB(0, 0, currentWidth, currentHeight, pixels, 0, currentWidth);
+            if (pixels.length <= MAX_DDS_PIXELS) DDS_PIXELS.set(pixels);
 
-            final java.awt.Image newImage = scaleImage(width, height, read, currentWidth, currentHeight);
-            final BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            final int levelWidth = DDSReader.getLevelWidth(header, level);
+            final int levelHeight = DDSReader.getLevelHeight(header, level);
 
-            final Graphics2D g2d = bufferedImage.createGraphics();
-            g2d.drawImage(newImage, 0, 0, null);
-            g2d.dispose();
+            return toPreview(pixels, levelWidth, levelHeight, width, height);
 
-            Image javaFXImage;
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+            return null;
+        }
+    }
 
-            try (final OutputStream out = Files.newOutputStream(cacheFile)) {
-                ImageIO.write(bufferedImage, "png", out);
-                javaFXImage = new Image(cacheFile.toUri().toString());
-            } catch (final IOException e) {
-                LOGGER.warning(e);
-                javaFXImage = Icons.IMAGE_512;
-            }
+    /**
+     * Read a preview of a TGA file, the file is decoded by rows from the channel and is downsampled
+     * while decoding, so the full image isn't kept in memory.
+     *
+     * @param file   the TGA file.
+     * @param width  the max width of the preview.
+     * @param height the max height of the preview.
+     * @return the preview or null if the file isn't supported.
+     */
+    @Nullable
+    @FromAnyThread
+    private Image readTGAPreview(@NotNull final Path file, final int width, final int height) {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
 
-            return javaFXImage;
+            final int[] size = new int[2];
+            final int[] pixels = TGAReader.read(channel, width, height, size);
 
-        } else if (FileExtensions.IMAGE_TGA.equals(extension)) {
+            return toPreview(pixels, size[0], size[1], width, height);
 
-            final byte[] content = requireNonNull(Utils.get(file, Files::readAllBytes));
+        } catch (final IOException e) {
+            LOGGER.warning(e);
+            return null;
+        }
+    }
 
-            final BufferedImage awtImage = (BufferedImage) TGAReader.getImage(content);
-            if (awtImage == null) return Icons.IMAGE_512;
+    /**
+     * Downscale ARGB pixels of an image to fit the preview size.
+     *
+     * @param pixels      the pixels of the image.
+     * @param imageWidth  the width of the image.
+     * @param imageHeight the height of the image.
+     * @param width       the max width of the preview.
+     * @param height      the max height of the preview.
+     * @return the preview.
+     */
+    @NotNull
+    @FromAnyThread
+    private Image toPreview(@NotNull final int[] pixels, final int imageWidth, final int imageHeight,
+                            final int width, final int height) {
 
-            final int imageWidth = awtImage.getWidth();
-            final int imageHeight = awtImage.getHeight();
+        final int[] size = ImageUtils.fitSize(imageWidth, imageHeight, width, height);
+        final int previewWidth = size[0];
+        final int previewHeight = size[1];
 
-            final java.awt.Image newImage = scaleImage(width, height, awtImage, imageWidth, imageHeight);
-            final BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final int[] previewPixels = ImageUtils.downscale(pixels, imageWidth, imageHeight, previewWidth, previewHeight);
 
-            final Graphics2D g2d = bufferedImage.createGraphics();
-            g2d.drawImage(newImage, 0, 0, null);
-            g2d.dispose();
+        final WritableImage preview = new WritableImage(previewWidth, previewHeight);
+        final PixelWriter pixelWriter = preview.getPixelWriter();
+        pixelWriter.setPixels(0, 0, previewWidth, previewHeight, PixelFormat.getIntArgbInstance(), previewPixels,
+                0, previewWidth);
 
-            Image javaFXImage;
+        return preview;
+    }
 
-            try (final OutputStream out = Files.newOutputStream(cacheFile)) {
-                ImageIO.write(bufferedImage, "png", out);
-                javaFXImage = new Image(cacheFile.toUri().toString());
-            } catch (final IOException e) {
-                LOGGER.warning(e);
-                javaFXImage = Icons.IMAGE_512;
-            }
+    /**
+     * Read a full image which isn't supported by JavaFX and doesn't have own reader of pixels.
+     *
+     * @param file      the image file.
+     * @param extension the extension of the file.
+     * @return the image or null if the format isn't supported.
+     */
+    @Nullable
+    @FromAnyThread
+    private BufferedImage readImage(@NotNull final Path file, @NotNull final String extension) {
 
-            return javaFXImage;
-        }
+        if (JME_FORMATS.contains(extension)) {
 
-        return Icons.IMAGE_512;
-    }
+            final Path assetFile = requireNonNull(getAssetFile(file));
+            final String assetPath = toAssetPath(assetFile);
 
-    @NotNull
-    private java.awt.Image scaleImage(final int width, final int height, @NotNull final BufferedImage read,
-                                      final int imageWidth, final int imageHeight) {
-
-        java.awt.Image newImage = read;
-
-        if (imageWidth > width || imageHeight > height) {
-            if (imageWidth == imageHeight) {
-                newImage = read.getScaledInstance(width, height, SCALE_DEFAULT);
-            } else if (imageWidth > imageHeight) {
-                float mod = imageHeight * 1F / imageWidth;
-                newImage = read.getScaledInstance(width, (int) (height * mod), SCALE_DEFAULT);
-            } else if (imageHeight > imageWidth) {
-                float mod = imageWidth * 1F / imageHeight;
-                newImage = read.getScaledInstance((int) (width * mod), height, SCALE_DEFAULT);
+            final Editor editor = Editor.getInstance();
+            final AssetManager assetManager = editor.getAssetManager();
+            final Texture texture = assetManager.loadTexture(assetPath);
+
+            try {
+                return ImageToAwt.convert(texture.getImage(), false, true, 0);
+            } catch (final UnsupportedOperationException e) {
+                EditorUtil.handleException(LOGGER, this, e);
+                return null;
             }
+
+        } else if (IMAGE_IO_FORMATS.contains(extension)) {
+
+            try {
+                return ImageIO.read(file.toFile());
+            } catch (final IOException e) {
+                EditorUtil.handleException(LOGGER, this, e);
+                return null;
+            }
+
         }
 
-        return newImage;
+        return null;
     }
 
-    private void processEvent(@NotNull final DeletedFileEvent event) {
-        //TODO need to add remove from cache
+    private void processEvent(@NotNull final ChangedFilesEvent event) {
+        event.getDeleted().forEach(thumbnailCache::invalidate);
     }
 
     @Nullable
@@ -399,4 +624,102 @@ public class JavaFXImageManager {
 
         return null;
     }
+
+    /**
+     * The task to decode a preview for all its subscribers.
+     */
+    private final class PreviewTask implements Runnable {
+
+        /**
+         * The key of the preview.
+         */
+        @NotNull
+        private final ThumbnailKey key;
+
+        /**
+         * The result of this task.
+         */
+        @NotNull
+        private final CompletableFuture<Image> future;
+
+        /**
+         * The count of subscribers, -1 if the task was cancelled.
+         */
+        @NotNull
+        private final AtomicInteger subscribers;
+
+        private PreviewTask(@NotNull final ThumbnailKey key) {
+            this.key = key;
+            this.future = new CompletableFuture<>();
+            this.subscribers = new AtomicInteger();
+        }
+
+        /**
+         * Add a new subscriber.
+         *
+         * @return false if this task was cancelled.
+         */
+        private boolean subscribe() {
+            for (int count = subscribers.get(); count >= 0; count = subscribers.get()) {
+                if (subscribers.compareAndSet(count, count + 1)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Remove a subscriber, the task is cancelled when it doesn't have any subscriber.
+         */
+        private void unsubscribe() {
+            if (subscribers.decrementAndGet() != 0 || !subscribers.compareAndSet(0, -1)) return;
+            previewTasks.remove(key, this);
+            decodeExecutor.remove(this);
+            future.cancel(false);
+        }
+
+        @Override
+        public void run() {
+            if (subscribers.get() < 0) return;
+            try {
+                future.complete(createPreview(key.getFile(), key.getWidth(), key.getHeight()));
+            } catch (final RuntimeException e) {
+                LOGGER.warning(e);
+                future.complete(Icons.IMAGE_512);
+            } finally {
+                previewTasks.remove(key, this);
+            }
+        }
+    }
+
+    /**
+     * The queue of tasks which gives the latest added task first.
+     */
+    private static final class LifoTaskQueue extends LinkedBlockingDeque<Runnable> {
+
+        @Override
+        public boolean offer(@NotNull final Runnable runnable) {
+            return offerFirst(runnable);
+        }
+    }
+
+    /**
+     * The factory of threads to decode previews.
+     */
+    private static final class DecodeThreadFactory implements ThreadFactory {
+
+        /**
+         * The counter of created threads.
+         */
+        @NotNull
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @NotNull
+        @Override
+        public Thread newThread(@NotNull final Runnable runnable) {
+            final Thread thread = new EditorThread(runnable);
+            thread.setName("PreviewDecoder-" + counter.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
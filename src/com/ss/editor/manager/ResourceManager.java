@@ -4,6 +4,7 @@ import static com.ss.editor.FileExtensions.*;
 import static com.ss.editor.util.EditorUtil.*;
 import static java.lang.System.currentTimeMillis;
 import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.Objects.requireNonNull;
 import static rlib.util.ArrayUtils.contains;
 import static rlib.util.ArrayUtils.move;
@@ -18,17 +19,20 @@ import com.jme3.asset.AssetManager;
 import com.ss.editor.Editor;
 import com.ss.editor.EditorThread;
 import com.ss.editor.FileExtensions;
+import com.ss.editor.annotation.BackgroundThread;
 import com.ss.editor.annotation.FromAnyThread;
+import com.ss.editor.config.Config;
 import com.ss.editor.config.EditorConfig;
+import com.ss.editor.executor.TaskPriority;
+import com.ss.editor.file.index.AssetIndex;
+import com.ss.editor.file.index.AssetIndexEntry;
+import com.ss.editor.file.index.AssetSearchIndex;
 import com.ss.editor.ui.event.FXEventManager;
 import com.ss.editor.ui.event.impl.*;
-import com.ss.editor.util.SimpleFileVisitor;
-import com.ss.editor.util.SimpleFolderVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import rlib.classpath.ClassPathScanner;
 import rlib.classpath.ClassPathScannerFactory;
-import rlib.concurrent.util.ThreadUtils;
 import rlib.logging.Logger;
 import rlib.logging.LoggerManager;
 import rlib.manager.InitializeManager;
@@ -44,12 +48,18 @@ import rlib.util.ref.Reference;
 import rlib.util.ref.ReferenceType;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.*;
 import java.nio.file.attribute.FileTime;
-import java.util.List;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * The class to manage working with resources of an editor.
@@ -73,6 +83,26 @@ public class ResourceManager extends EditorThread implements AssetEventListener
     @NotNull
     private static final WatchService WATCH_SERVICE;
 
+    /**
+     * The time to wait next file events before notifying about collected events.
+     */
+    private static final long EVENT_DEBOUNCE_DELAY = 100;
+
+    /**
+     * The max time to collect file events before notifying about them.
+     */
+    private static final long MAX_EVENT_DELAY = 500;
+
+    /**
+     * The types of collected changes of files.
+     */
+    private enum FileChangeType {
+        CREATED,
+        DELETED,
+        CHANGED,
+        REPLACED,
+    }
+
     static {
         try {
             WATCH_SERVICE = FileSystems.getDefault().newWatchService();
@@ -139,6 +169,36 @@ public class ResourceManager extends EditorThread implements AssetEventListener
     @NotNull
     private final ClassPathScanner classPathScanner;
 
+    /**
+     * The pending changes of files collected by the watcher.
+     */
+    @NotNull
+    private final Map<Path, FileChangeType> pendingChanges;
+
+    /**
+     * The pending changed files which are known as folders.
+     */
+    @NotNull
+    private final Set<Path> changedFolders;
+
+    /**
+     * The folders which lost some events and should be rescanned.
+     */
+    @NotNull
+    private final Set<Path> overflowFolders;
+
+    /**
+     * The index of the current asset folder.
+     */
+    @Nullable
+    private AssetIndex assetIndex;
+
+    /**
+     * The search index of the current asset folder.
+     */
+    @Nullable
+    private volatile AssetSearchIndex searchIndex;
+
     public ResourceManager() {
         InitializeManager.valid(getClass());
 
@@ -149,6 +209,9 @@ public class ResourceManager extends EditorThread implements AssetEventListener
         this.resourcesInClasspath = ArrayFactory.newArray(String.class);
         this.materialDefinitionsInClasspath = ArrayFactory.newArray(String.class);
         this.materialDefinitions = ArrayFactory.newArray(String.class);
+        this.pendingChanges = new LinkedHashMap<>();
+        this.changedFolders = new HashSet<>();
+        this.overflowFolders = new LinkedHashSet<>();
 
         classPathScanner = ClassPathScannerFactory.newManifestScanner(Editor.class, "Class-Path");
         classPathScanner.scanning(path -> {
@@ -172,8 +235,6 @@ public class ResourceManager extends EditorThread implements AssetEventListener
             final FXEventManager fxEventManager = FXEventManager.getInstance();
             fxEventManager.addEventHandler(ChangedCurrentAssetFolderEvent.EVENT_TYPE, event -> processChangeAsset());
             fxEventManager.addEventHandler(RequestedRefreshAssetEvent.EVENT_TYPE, event -> processRefreshAsset());
-            fxEventManager.addEventHandler(CreatedFileEvent.EVENT_TYPE, event -> processEvent((CreatedFileEvent) event));
-            fxEventManager.addEventHandler(DeletedFileEvent.EVENT_TYPE, event -> processEvent((DeletedFileEvent) event));
         });
 
         final Editor editor = Editor.getInstance();
@@ -279,14 +340,59 @@ public class ResourceManager extends EditorThread implements AssetEventListener
         return assetCacheTable;
     }
 
+    /**
+     * Handle a batch of changed files on the watcher thread before notifying about them.
+     */
+    @BackgroundThread
+    private void handleChanges(@NotNull final ChangedFilesEvent event) {
+
+        final Array<Path> added = ArrayFactory.newArray(Path.class);
+
+        synchronized (this) {
+
+            for (final Path file : event.getDeleted()) {
+                handleDeletedFile(file, event.isDirectory(file));
+            }
+
+            for (final Path file : event.getCreated()) {
+                handleCreatedFile(file, event.isDirectory(file), added);
+            }
+        }
+
+        updateSearchIndex(event.getDeleted(), added);
+    }
+
+    /**
+     * Update the search index outside the lock of this manager, the search index has own lock.
+     *
+     * @param deleted the deleted files and folders.
+     * @param added   the added files.
+     */
+    @BackgroundThread
+    private void updateSearchIndex(@NotNull final Array<Path> deleted, @NotNull final Array<Path> added) {
+
+        final AssetSearchIndex searchIndex = getSearchIndex();
+        if (searchIndex == null) return;
+
+        for (final Path file : deleted) {
+            searchIndex.remove(file);
+        }
+
+        for (final Path file : added) {
+            searchIndex.add(file);
+        }
+    }
+
     /**
      * Handle a removed file.
      */
-    @FromAnyThread
-    private synchronized void processEvent(@NotNull final DeletedFileEvent event) {
-        if (event.isDirectory()) return;
+    private void handleDeletedFile(@NotNull final Path file, final boolean directory) {
+
+        final AssetIndex assetIndex = getAssetIndex();
+        if (assetIndex != null) assetIndex.notifyDeleted(file);
+
+        if (directory) return;
 
-        final Path file = event.getFile();
         final String extension = FileUtils.getExtension(file);
 
         final Path assetFile = requireNonNull(getAssetFile(file), "Not found asset file for " + file);
@@ -314,11 +420,22 @@ public class ResourceManager extends EditorThread implements AssetEventListener
 
     /**
      * Handle a created file.
+     *
+     * @param added the list to collect files to add to the search index.
      */
-    @FromAnyThread
-    private synchronized void processEvent(@NotNull final CreatedFileEvent event) {
-        if (event.isDirectory()) return;
-        handleFile(event.getFile());
+    private void handleCreatedFile(@NotNull final Path file, final boolean directory,
+                                   @NotNull final Array<Path> added) {
+
+        final AssetIndex assetIndex = getAssetIndex();
+        if (assetIndex != null) assetIndex.notifyChanged(file);
+
+        if (directory) {
+            if (assetIndex != null) assetIndex.forEachFile(file, added::add);
+            return;
+        }
+
+        added.add(file);
+        handleFile(file);
     }
 
     /**
@@ -412,20 +529,77 @@ public class ResourceManager extends EditorThread implements AssetEventListener
 
         final EditorConfig editorConfig = EditorConfig.getInstance();
         final Path currentAsset = editorConfig.getCurrentAsset();
-        if (currentAsset == null) return;
 
-        try {
-            Files.walkFileTree(currentAsset, (SimpleFileVisitor) (file, attrs) -> handleFile(file));
-        } catch (IOException e) {
-            LOGGER.warning(e);
+        if (currentAsset == null) {
+            this.assetIndex = null;
+            this.searchIndex = null;
+            return;
         }
 
-        try {
-            watchKeys.add(currentAsset.register(WATCH_SERVICE, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
-            Files.walkFileTree(currentAsset, (SimpleFolderVisitor) (file, attrs) -> registerFiles(watchKeys, file));
-        } catch (final IOException e) {
-            LOGGER.warning(e);
+        AssetIndex assetIndex = getAssetIndex();
+
+        if (assetIndex == null || !assetIndex.getAssetFolder().equals(currentAsset)) {
+            assetIndex = AssetIndex.load(currentAsset);
+            this.assetIndex = assetIndex;
         }
+
+        assetIndex.update();
+        assetIndex.forEachFile(this::handleIndexedFile);
+        assetIndex.forEachFolder(folder -> registerFiles(watchKeys, folder));
+        assetIndex.save();
+
+        final AssetSearchIndex searchIndex = new AssetSearchIndex(currentAsset, Config.INDEX_MATERIAL_CONTENTS);
+        assetIndex.forEachFile(searchIndex::add);
+
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * @return the search index of the current asset folder.
+     */
+    @Nullable
+    @FromAnyThread
+    private AssetSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Find files of the current asset folder which relative paths contain the query.
+     *
+     * @param query the query.
+     * @param limit the max count of results.
+     * @return the list of found files.
+     */
+    @NotNull
+    @FromAnyThread
+    public Array<Path> findFiles(@NotNull final String query, final int limit) {
+        final AssetSearchIndex searchIndex = getSearchIndex();
+        if (searchIndex == null) return ArrayFactory.newArray(Path.class);
+        return searchIndex.find(query, limit);
+    }
+
+    /**
+     * Find materials and material definitions of the current asset folder which reference assets
+     * with the query in their paths.
+     *
+     * @param query the part of an asset path.
+     * @param limit the max count of results.
+     * @return the list of found materials.
+     */
+    @NotNull
+    @FromAnyThread
+    public Array<Path> findMaterialsUsing(@NotNull final String query, final int limit) {
+        final AssetSearchIndex searchIndex = getSearchIndex();
+        if (searchIndex == null) return ArrayFactory.newArray(Path.class);
+        return searchIndex.findReferences(query, limit);
+    }
+
+    /**
+     * @return the index of the current asset folder.
+     */
+    @Nullable
+    private AssetIndex getAssetIndex() {
+        return assetIndex;
     }
 
     private static void registerFiles(@NotNull final Array<WatchKey> watchKeys, @NotNull final Path file) {
@@ -438,6 +612,14 @@ public class ResourceManager extends EditorThread implements AssetEventListener
     @FromAnyThread
     private synchronized void handleFile(@NotNull final Path file) {
         if (Files.isDirectory(file)) return;
+        handleIndexedFile(file);
+    }
+
+    /**
+     * Handle a file from the asset index which is known as not a folder.
+     */
+    @FromAnyThread
+    private synchronized void handleIndexedFile(@NotNull final Path file) {
 
         final String extension = FileUtils.getExtension(file);
 
@@ -467,65 +649,246 @@ public class ResourceManager extends EditorThread implements AssetEventListener
         super.run();
 
         while (true) {
-            ThreadUtils.sleep(200);
 
-            final Array<WatchKey> watchKeys = getWatchKeys();
+            final WatchKey watchKey;
+
+            try {
+                watchKey = WATCH_SERVICE.take();
+            } catch (final InterruptedException e) {
+                LOGGER.warning(e);
+                continue;
+            }
+
+            final long startTime = currentTimeMillis();
+
+            collectEvents(watchKey);
+
+            while (true) {
+
+                final long elapsed = currentTimeMillis() - startTime;
 
-            List<WatchEvent<?>> watchEvents = null;
-            WatchKey watchKey = null;
+                if (elapsed >= MAX_EVENT_DELAY) {
+                    collectReadyEvents();
+                    break;
+                }
+
+                final WatchKey nextKey;
 
-            synchronized (this) {
-                for (final WatchKey key : watchKeys) {
-                    watchKey = key;
-                    watchEvents = key.pollEvents();
-                    if (!watchEvents.isEmpty()) break;
+                try {
+                    nextKey = WATCH_SERVICE.poll(Math.min(EVENT_DEBOUNCE_DELAY, MAX_EVENT_DELAY - elapsed), MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    LOGGER.warning(e);
+                    break;
                 }
+
+                if (nextKey == null) break;
+                collectEvents(nextKey);
             }
 
-            if (watchEvents == null || watchEvents.isEmpty()) continue;
+            flushEvents();
+        }
+    }
 
-            for (final WatchEvent<?> watchEvent : watchEvents) {
+    /**
+     * Collect events of all ready watch keys without waiting.
+     */
+    private void collectReadyEvents() {
+        for (WatchKey key = WATCH_SERVICE.poll(); key != null; key = WATCH_SERVICE.poll()) {
+            collectEvents(key);
+        }
+    }
 
-                final Path file = (Path) watchEvent.context();
-                final Path folder = (Path) watchKey.watchable();
-                final Path realFile = folder.resolve(file);
+    /**
+     * Collect events of the watch key and reset the key.
+     *
+     * @param watchKey the watch key.
+     */
+    private void collectEvents(@NotNull final WatchKey watchKey) {
 
-                if (watchEvent.kind() == ENTRY_CREATE) {
+        final Path folder = (Path) watchKey.watchable();
 
-                    final boolean directory = Files.isDirectory(realFile);
+        for (final WatchEvent<?> watchEvent : watchKey.pollEvents()) {
 
-                    final CreatedFileEvent event = new CreatedFileEvent();
-                    event.setFile(realFile);
-                    event.setNeedSelect(false);
-                    event.setDirectory(directory);
+            final WatchEvent.Kind<?> kind = watchEvent.kind();
 
-                    if (directory) {
-                        registerWatchKey(realFile);
-                    }
+            if (kind == OVERFLOW) {
+                overflowFolders.add(folder);
+                continue;
+            }
+
+            final Path file = folder.resolve((Path) watchEvent.context());
 
-                    FX_EVENT_MANAGER.notify(event);
+            if (kind == ENTRY_CREATE) {
+                addChange(file, FileChangeType.CREATED);
+            } else if (kind == ENTRY_DELETE) {
+                if (isIndexedFolder(file)) changedFolders.add(file);
+                addChange(file, FileChangeType.DELETED);
+            } else if (kind == ENTRY_MODIFY) {
+                addChange(file, FileChangeType.CHANGED);
+            }
+        }
 
-                } else if (watchEvent.kind() == ENTRY_DELETE) {
+        if (!watchKey.reset()) {
+            removeWatchKey(watchKey);
+        }
+    }
 
-                    final boolean directory = Files.isDirectory(realFile);
+    /**
+     * Merge a new change of the file with a pending change of the file.
+     *
+     * @param file the file.
+     * @param type the type of the new change.
+     */
+    private void addChange(@NotNull final Path file, @NotNull final FileChangeType type) {
 
-                    final DeletedFileEvent event = new DeletedFileEvent();
-                    event.setFile(realFile);
-                    event.setDirectory(directory);
+        final FileChangeType prev = pendingChanges.get(file);
 
-                    removeWatchKeyFor(realFile);
+        if (prev == null) {
+            pendingChanges.put(file, type);
+            return;
+        }
 
-                    FX_EVENT_MANAGER.notify(event);
+        switch (type) {
+            case CREATED: {
+                pendingChanges.put(file, prev == FileChangeType.DELETED ? FileChangeType.REPLACED : prev);
+                break;
+            }
+            case DELETED: {
+                if (prev == FileChangeType.CREATED) {
+                    pendingChanges.remove(file);
+                } else {
+                    pendingChanges.put(file, FileChangeType.DELETED);
+                }
+                break;
+            }
+            default: {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Rescan overflowed folders and notify about all collected changes.
+     */
+    private void flushEvents() {
+
+        if (!overflowFolders.isEmpty()) {
+
+            final Array<AssetIndexEntry> created = ArrayFactory.newArray(AssetIndexEntry.class);
+            final Array<AssetIndexEntry> deleted = ArrayFactory.newArray(AssetIndexEntry.class);
+
+            for (final Path folder : overflowFolders) {
+                rescanFolder(folder, created, deleted);
+            }
 
-                } else if (watchEvent.kind() == ENTRY_MODIFY) {
+            final AssetIndex assetIndex = getAssetIndex();
 
-                    final FileChangedEvent event = new FileChangedEvent();
-                    event.setFile(realFile);
+            if (assetIndex != null) {
 
-                    FX_EVENT_MANAGER.notify(event);
+                for (final AssetIndexEntry entry : deleted) {
+                    final Path file = assetIndex.toFile(entry);
+                    if (entry.isFolder()) changedFolders.add(file);
+                    addChange(file, FileChangeType.DELETED);
                 }
+
+                for (final AssetIndexEntry entry : created) {
+                    final Path file = assetIndex.toFile(entry);
+                    if (entry.isFolder()) changedFolders.add(file);
+                    addChange(file, FileChangeType.CREATED);
+                }
+            }
+
+            overflowFolders.clear();
+        }
+
+        final ChangedFilesEvent changedFilesEvent = new ChangedFilesEvent();
+
+        for (final Map.Entry<Path, FileChangeType> entry : pendingChanges.entrySet()) {
+
+            final Path file = entry.getKey();
+            final FileChangeType type = entry.getValue();
+
+            if (type == FileChangeType.DELETED || type == FileChangeType.REPLACED) {
+                addDeleted(changedFilesEvent, file, changedFolders.contains(file));
+            }
+
+            if (type == FileChangeType.CREATED || type == FileChangeType.REPLACED) {
+                addCreated(changedFilesEvent, file, changedFolders.contains(file) || Files.isDirectory(file));
+            }
+
+            if (type == FileChangeType.CHANGED) {
+
+                final AssetSearchIndex searchIndex = getSearchIndex();
+                if (searchIndex != null) searchIndex.update(file);
+
+                final FileChangedEvent event = new FileChangedEvent();
+                event.setFile(file);
+                FX_EVENT_MANAGER.notify(event);
+            }
+        }
+
+        pendingChanges.clear();
+        changedFolders.clear();
+
+        if (!changedFilesEvent.isEmpty()) {
+            handleChanges(changedFilesEvent);
+            FX_EVENT_MANAGER.notify(changedFilesEvent);
+        }
+    }
+
+    /**
+     * Add a created file to the batch event, a created folder is registered to watch with all its subfolders
+     * because a moved or copied folder comes with its content.
+     */
+    private void addCreated(@NotNull final ChangedFilesEvent event, @NotNull final Path file, final boolean directory) {
+
+        if (directory) {
+            try (final Stream<Path> stream = Files.walk(file)) {
+                stream.filter(Files::isDirectory)
+                        .filter(folder -> findWatchKey(folder) == null)
+                        .forEach(this::registerWatchKey);
+            } catch (final IOException | UncheckedIOException e) {
+                LOGGER.warning(e);
             }
         }
+
+        event.addCreated(file, directory);
+    }
+
+    /**
+     * Add a deleted file to the batch event.
+     */
+    private void addDeleted(@NotNull final ChangedFilesEvent event, @NotNull final Path file, final boolean directory) {
+        removeWatchKeyFor(file);
+        event.addDeleted(file, directory);
+    }
+
+    /**
+     * Rescan the overflowed folder using the asset index.
+     */
+    @FromAnyThread
+    private synchronized void rescanFolder(@NotNull final Path folder, @NotNull final Array<AssetIndexEntry> created,
+                                           @NotNull final Array<AssetIndexEntry> deleted) {
+        final AssetIndex assetIndex = getAssetIndex();
+        if (assetIndex != null) assetIndex.rescan(folder, created, deleted);
+    }
+
+    /**
+     * Check the file is a folder in the asset index.
+     */
+    @FromAnyThread
+    private synchronized boolean isIndexedFolder(@NotNull final Path file) {
+        final AssetIndex assetIndex = getAssetIndex();
+        return assetIndex != null && assetIndex.isFolder(file);
+    }
+
+    /**
+     * Remove the not valid watch key.
+     */
+    @FromAnyThread
+    private synchronized void removeWatchKey(@NotNull final WatchKey watchKey) {
+        final Array<WatchKey> watchKeys = getWatchKeys();
+        watchKeys.fastRemove(watchKey);
     }
 
     /**
@@ -572,14 +935,14 @@ public class ResourceManager extends EditorThread implements AssetEventListener
      * Handle refreshing asset folder.
      */
     private void processRefreshAsset() {
-        EXECUTOR_MANAGER.addBackgroundTask(this::reload);
+        EXECUTOR_MANAGER.addBackgroundTask(this::reload, TaskPriority.BULK);
     }
 
     /**
      * Handle changing asset folder.
      */
     private void processChangeAsset() {
-        EXECUTOR_MANAGER.addBackgroundTask(this::reload);
+        EXECUTOR_MANAGER.addBackgroundTask(this::reload, TaskPriority.BULK);
     }
 
     /**
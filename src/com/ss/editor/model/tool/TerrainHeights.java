@@ -0,0 +1,455 @@
+package com.ss.editor.model.tool;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.terrain.geomipmap.TerrainPatch;
+import com.jme3.terrain.geomipmap.TerrainQuad;
+import com.ss.editor.annotation.EditorThread;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.FloatBuffer;
+
+/**
+ * The accessor to heights of a terrain which reads and writes height arrays of terrain patches directly. Written
+ * heights are collected to a dirty area of the heightmap and meshes of patches are updated only inside this area
+ * in place, so editing heights doesn't allocate anything after the accessor was prepared for a terrain.
+ *
+ * @author JavaSaBr
+ */
+public class TerrainHeights {
+
+    /**
+     * The prepared terrain.
+     */
+    @Nullable
+    private TerrainQuad terrain;
+
+    /**
+     * The terrain patches by patch grid position.
+     */
+    @Nullable
+    private TerrainPatch[] patches;
+
+    /**
+     * The height arrays of terrain patches by patch grid position.
+     */
+    @Nullable
+    private float[][] patchHeights;
+
+    /**
+     * The step scale of terrain patches.
+     */
+    @NotNull
+    private final Vector3f stepScale;
+
+    /**
+     * The size of terrain patches.
+     */
+    private int patchSize;
+
+    /**
+     * The count of patches in a row.
+     */
+    private int patchCount;
+
+    /**
+     * The total size of the terrain.
+     */
+    private int totalSize;
+
+    /**
+     * The dirty area of the heightmap, the area is empty when min values are greater than max values.
+     */
+    private int dirtyMinX;
+    private int dirtyMinZ;
+    private int dirtyMaxX;
+    private int dirtyMaxZ;
+
+    public TerrainHeights() {
+        this.stepScale = new Vector3f();
+        resetDirtyArea();
+    }
+
+    /**
+     * Prepare the index of height arrays of the terrain.
+     *
+     * @param terrain the terrain.
+     * @return false if the terrain can't be processed.
+     */
+    @EditorThread
+    public boolean prepare(@NotNull final TerrainQuad terrain) {
+
+        if (this.terrain == terrain && totalSize == terrain.getTotalSize()) {
+            return patchHeights != null;
+        }
+
+        this.terrain = terrain;
+        this.totalSize = terrain.getTotalSize();
+        this.patchSize = terrain.getPatchSize();
+        this.patchCount = (totalSize - 1) / (patchSize - 1);
+        this.patches = new TerrainPatch[patchCount * patchCount];
+        this.patchHeights = new float[patchCount * patchCount][];
+
+        resetDirtyArea();
+        collectPatches(terrain, 0, 0, totalSize);
+
+        for (final float[] heights : patchHeights) {
+            if (heights == null) {
+                patches = null;
+                patchHeights = null;
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Collect patches of the quad.
+     *
+     * @param quad the terrain quad.
+     * @param x    the first heightmap column of the quad.
+     * @param z    the first heightmap row of the quad.
+     * @param size the size of the quad.
+     */
+    private void collectPatches(@NotNull final TerrainQuad quad, final int x, final int z, final int size) {
+
+        final TerrainPatch[] patches = this.patches;
+        final float[][] patchHeights = this.patchHeights;
+        final int split = (size + 1) >> 1;
+        final int cells = patchSize - 1;
+
+        for (final Spatial child : quad.getChildren()) {
+
+            final int quadrant;
+
+            if (child instanceof TerrainQuad) {
+                quadrant = ((TerrainQuad) child).getQuadrant();
+            } else if (child instanceof TerrainPatch) {
+                quadrant = ((TerrainPatch) child).getQuadrant();
+            } else {
+                continue;
+            }
+
+            // quadrants 3 and 4 are shifted by x, quadrants 2 and 4 are shifted by z
+            final int childX = quadrant == 3 || quadrant == 4 ? x + split - 1 : x;
+            final int childZ = quadrant == 2 || quadrant == 4 ? z + split - 1 : z;
+
+            if (child instanceof TerrainQuad) {
+                collectPatches((TerrainQuad) child, childX, childZ, split);
+                continue;
+            }
+
+            final TerrainPatch patch = (TerrainPatch) child;
+            final int index = (childZ / cells) * patchCount + childX / cells;
+            if (index < 0 || index >= patchHeights.length) continue;
+
+            patches[index] = patch;
+            patchHeights[index] = patch.getHeightMap();
+            stepScale.set(patch.getStepScale());
+        }
+    }
+
+    /**
+     * @return the total size of the prepared terrain.
+     */
+    public int getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * @return the size of patches of the prepared terrain.
+     */
+    public int getPatchSize() {
+        return patchSize;
+    }
+
+    /**
+     * @return the step scale of patches of the prepared terrain.
+     */
+    @NotNull
+    public Vector3f getStepScale() {
+        return stepScale;
+    }
+
+    /**
+     * Get an index of the heightmap point in the same way as {@link TerrainQuad#getHeightmapHeight}.
+     *
+     * @param x the x coordinate relative to the terrain location.
+     * @param z the z coordinate relative to the terrain location.
+     * @return the index of the point or -1 if the point is out of the terrain.
+     */
+    public int getIndex(final float x, final float z) {
+
+        final Vector3f scale = terrain == null ? Vector3f.UNIT_XYZ : terrain.getWorldScale();
+        final int halfSize = totalSize / 2;
+        final int column = Math.round((x / scale.getX()) + halfSize);
+        final int row = Math.round((z / scale.getZ()) + halfSize);
+
+        if (column < 0 || row < 0 || column >= totalSize || row >= totalSize) {
+            return -1;
+        }
+
+        return row * totalSize + column;
+    }
+
+    /**
+     * Get a raw height of the heightmap point.
+     *
+     * @param index the index of the point.
+     * @return the height or NaN if the index is -1.
+     */
+    public float getHeight(final int index) {
+        if (index < 0) return Float.NaN;
+        return getHeight(index % totalSize, index / totalSize);
+    }
+
+    /**
+     * Get a raw height of the heightmap point.
+     *
+     * @param x the column of the point.
+     * @param z the row of the point.
+     * @return the height.
+     */
+    public float getHeight(final int x, final int z) {
+
+        final int cells = patchSize - 1;
+        final int patchX = Math.min(x / cells, patchCount - 1);
+        final int patchZ = Math.min(z / cells, patchCount - 1);
+
+        final float[] heights = patchHeights[patchZ * patchCount + patchX];
+
+        return heights[(z - patchZ * cells) * patchSize + x - patchX * cells];
+    }
+
+    /**
+     * Set a raw height of the heightmap point, meshes are updated by {@link #updateMeshes()}.
+     *
+     * @param index  the index of the point.
+     * @param height the new height.
+     */
+    @EditorThread
+    public void setHeight(final int index, final float height) {
+        if (index < 0) return;
+
+        final int x = index % totalSize;
+        final int z = index / totalSize;
+        final int cells = patchSize - 1;
+        final int lastPatch = patchCount - 1;
+
+        // points on borders of patches are shared by neighbour patches
+        final int maxPatchX = Math.min(x / cells, lastPatch);
+        final int maxPatchZ = Math.min(z / cells, lastPatch);
+        final int minPatchX = x % cells == 0 && x > 0 ? x / cells - 1 : maxPatchX;
+        final int minPatchZ = z % cells == 0 && z > 0 ? z / cells - 1 : maxPatchZ;
+
+        final float[][] patchHeights = this.patchHeights;
+
+        for (int patchZ = minPatchZ; patchZ <= maxPatchZ; patchZ++) {
+            for (int patchX = minPatchX; patchX <= maxPatchX; patchX++) {
+                final float[] heights = patchHeights[patchZ * patchCount + patchX];
+                heights[(z - patchZ * cells) * patchSize + x - patchX * cells] = height;
+            }
+        }
+
+        dirtyMinX = Math.min(dirtyMinX, x);
+        dirtyMinZ = Math.min(dirtyMinZ, z);
+        dirtyMaxX = Math.max(dirtyMaxX, x);
+        dirtyMaxZ = Math.max(dirtyMaxZ, z);
+    }
+
+    /**
+     * Set raw heights of the heightmap points and update meshes.
+     *
+     * @param indexes the indexes of the points.
+     * @param heights the new heights.
+     * @param count   the count of points.
+     */
+    @EditorThread
+    public void setHeights(@NotNull final int[] indexes, @NotNull final float[] heights, final int count) {
+
+        for (int i = 0; i < count; i++) {
+            setHeight(indexes[i], heights[i]);
+        }
+
+        updateMeshes();
+    }
+
+    /**
+     * Update positions, normals, tangents and binormals of patches inside the dirty area of the heightmap.
+     */
+    @EditorThread
+    public void updateMeshes() {
+        if (dirtyMinX > dirtyMaxX || patches == null) return;
+
+        final int cells = patchSize - 1;
+        final int lastPoint = totalSize - 1;
+        final int lastPatch = patchCount - 1;
+
+        // normals depend on the neighbour points
+        final int minX = Math.max(dirtyMinX - 1, 0);
+        final int minZ = Math.max(dirtyMinZ - 1, 0);
+        final int maxX = Math.min(dirtyMaxX + 1, lastPoint);
+        final int maxZ = Math.min(dirtyMaxZ + 1, lastPoint);
+
+        final int minPatchX = minX % cells == 0 && minX > 0 ? minX / cells - 1 : Math.min(minX / cells, lastPatch);
+        final int minPatchZ = minZ % cells == 0 && minZ > 0 ? minZ / cells - 1 : Math.min(minZ / cells, lastPatch);
+        final int maxPatchX = Math.min(maxX / cells, lastPatch);
+        final int maxPatchZ = Math.min(maxZ / cells, lastPatch);
+
+        for (int patchZ = minPatchZ; patchZ <= maxPatchZ; patchZ++) {
+            for (int patchX = minPatchX; patchX <= maxPatchX; patchX++) {
+                updateMesh(patches[patchZ * patchCount + patchX], patchX * cells, patchZ * cells, minX, minZ, maxX, maxZ);
+            }
+        }
+
+        resetDirtyArea();
+    }
+
+    /**
+     * Update the mesh of the patch inside the area of the heightmap.
+     *
+     * @param patch   the patch.
+     * @param offsetX the first heightmap column of the patch.
+     * @param offsetZ the first heightmap row of the patch.
+     */
+    private void updateMesh(@NotNull final TerrainPatch patch, final int offsetX, final int offsetZ,
+                            final int minX, final int minZ, final int maxX, final int maxZ) {
+
+        final int patchSize = this.patchSize;
+        final int fromX = Math.max(minX, offsetX);
+        final int fromZ = Math.max(minZ, offsetZ);
+        final int toX = Math.min(maxX, offsetX + patchSize - 1);
+        final int toZ = Math.min(maxZ, offsetZ + patchSize - 1);
+
+        if (fromX > toX || fromZ > toZ) return;
+
+        final Mesh mesh = patch.getMesh();
+        final VertexBuffer positionBuffer = mesh.getBuffer(Type.Position);
+        final VertexBuffer normalBuffer = mesh.getBuffer(Type.Normal);
+        final VertexBuffer tangentBuffer = mesh.getBuffer(Type.Tangent);
+        final VertexBuffer binormalBuffer = mesh.getBuffer(Type.Binormal);
+
+        final FloatBuffer positions = (FloatBuffer) positionBuffer.getData();
+        final FloatBuffer normals = normalBuffer == null ? null : (FloatBuffer) normalBuffer.getData();
+        final FloatBuffer tangents = tangentBuffer == null ? null : (FloatBuffer) tangentBuffer.getData();
+        final FloatBuffer binormals = binormalBuffer == null ? null : (FloatBuffer) binormalBuffer.getData();
+
+        final Vector3f scale = patch.getWorldScale();
+        final float scaleX = scale.getX();
+        final float scaleY = scale.getY();
+        final float scaleZ = scale.getZ();
+        final float stepScaleY = stepScale.getY();
+        final int lastPoint = totalSize - 1;
+
+        for (int z = fromZ; z <= toZ; z++) {
+            for (int x = fromX; x <= toX; x++) {
+
+                final int index = ((z - offsetZ) * patchSize + x - offsetX) * 3;
+                final float height = getHeight(x, z);
+
+                positions.put(index + 1, height * stepScaleY);
+
+                if (normals == null) continue;
+
+                // the same normal as in LODGeomap.writeNormalArray with fixed edges between patches
+                final boolean hasLeft = x > 0;
+                final boolean hasRight = x < lastPoint;
+                final boolean hasTop = z > 0;
+                final boolean hasBottom = z < lastPoint;
+
+                final float left = hasLeft ? (getHeight(x - 1, z) - height) * scaleY : 0F;
+                final float right = hasRight ? (getHeight(x + 1, z) - height) * scaleY : 0F;
+                final float top = hasTop ? (getHeight(x, z - 1) - height) * scaleY : 0F;
+                final float bottom = hasBottom ? (getHeight(x, z + 1) - height) * scaleY : 0F;
+
+                float normalX = 0F, normalY = 0F, normalZ = 0F;
+
+                // (top, left): (0, top, -1) x (-1, left, 0)
+                if (hasTop && hasLeft) {
+                    final float nx = scaleZ * left;
+                    final float ny = scaleZ * scaleX;
+                    final float nz = scaleX * top;
+                    final float inv = 1F / FastMath.sqrt(nx * nx + ny * ny + nz * nz);
+                    normalX += nx * inv;
+                    normalY += ny * inv;
+                    normalZ += nz * inv;
+                }
+
+                // (left, bottom): (-1, left, 0) x (0, bottom, 1)
+                if (hasLeft && hasBottom) {
+                    final float nx = scaleZ * left;
+                    final float ny = scaleZ * scaleX;
+                    final float nz = -scaleX * bottom;
+                    final float inv = 1F / FastMath.sqrt(nx * nx + ny * ny + nz * nz);
+                    normalX += nx * inv;
+                    normalY += ny * inv;
+                    normalZ += nz * inv;
+                }
+
+                // (bottom, right): (0, bottom, 1) x (1, right, 0)
+                if (hasBottom && hasRight) {
+                    final float nx = -scaleZ * right;
+                    final float ny = scaleZ * scaleX;
+                    final float nz = -scaleX * bottom;
+                    final float inv = 1F / FastMath.sqrt(nx * nx + ny * ny + nz * nz);
+                    normalX += nx * inv;
+                    normalY += ny * inv;
+                    normalZ += nz * inv;
+                }
+
+                // (right, top): (1, right, 0) x (0, top, -1)
+                if (hasRight && hasTop) {
+                    final float nx = -scaleZ * right;
+                    final float ny = scaleZ * scaleX;
+                    final float nz = scaleX * top;
+                    final float inv = 1F / FastMath.sqrt(nx * nx + ny * ny + nz * nz);
+                    normalX += nx * inv;
+                    normalY += ny * inv;
+                    normalZ += nz * inv;
+                }
+
+                float length = FastMath.sqrt(normalX * normalX + normalY * normalY + normalZ * normalZ);
+
+                if (length != 0F) {
+                    normalX /= length;
+                    normalY /= length;
+                    normalZ /= length;
+                }
+
+                normals.put(index, normalX).put(index + 1, normalY).put(index + 2, normalZ);
+
+                // tangent = normal x (0, 0, 1), binormal = (1, 0, 0) x normal
+                if (tangents != null) {
+                    length = FastMath.sqrt(normalY * normalY + normalX * normalX);
+                    final float inv = length == 0F ? 0F : 1F / length;
+                    tangents.put(index, normalY * inv).put(index + 1, -normalX * inv).put(index + 2, 0F);
+                }
+
+                if (binormals != null) {
+                    length = FastMath.sqrt(normalZ * normalZ + normalY * normalY);
+                    final float inv = length == 0F ? 0F : 1F / length;
+                    binormals.put(index, 0F).put(index + 1, -normalZ * inv).put(index + 2, normalY * inv);
+                }
+            }
+        }
+
+        positionBuffer.setUpdateNeeded();
+
+        if (normalBuffer != null) normalBuffer.setUpdateNeeded();
+        if (tangentBuffer != null) tangentBuffer.setUpdateNeeded();
+        if (binormalBuffer != null) binormalBuffer.setUpdateNeeded();
+    }
+
+    private void resetDirtyArea() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinZ = Integer.MAX_VALUE;
+        dirtyMaxX = Integer.MIN_VALUE;
+        dirtyMaxZ = Integer.MIN_VALUE;
+    }
+}
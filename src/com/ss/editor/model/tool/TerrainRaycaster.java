@@ -0,0 +1,280 @@
+package com.ss.editor.model.tool;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Ray;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.terrain.geomipmap.TerrainQuad;
+import com.ss.editor.annotation.EditorThread;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The ray caster which marches a ray over cells of a terrain heightmap and tests the two triangles of each
+ * visited cell. Heights are read by {@link TerrainHeights} from the height arrays of terrain patches, so the cost
+ * depends only on the count of visited cells and the caster doesn't allocate anything after it was prepared for
+ * a terrain.
+ *
+ * @author JavaSaBr
+ */
+public class TerrainRaycaster {
+
+    private static final float EPSILON = 1e-6F;
+
+    /**
+     * The distance to a triangle which is not intersected by a ray.
+     */
+    private static final float MISS = Float.POSITIVE_INFINITY;
+
+    /**
+     * The temp rotation.
+     */
+    @NotNull
+    private final Quaternion rotation;
+
+    /**
+     * The ray origin in the grid space.
+     */
+    @NotNull
+    private final Vector3f origin;
+
+    /**
+     * The ray direction in the grid space.
+     */
+    @NotNull
+    private final Vector3f direction;
+
+    /**
+     * The heights of the terrain.
+     */
+    @NotNull
+    private final TerrainHeights heights;
+
+    /**
+     * The size of terrain patches.
+     */
+    private int patchSize;
+
+    /**
+     * The total size of the terrain.
+     */
+    private int totalSize;
+
+    /**
+     * The distance to the last found intersection in the grid space.
+     */
+    private float hitDistance;
+
+    public TerrainRaycaster(@NotNull final TerrainHeights heights) {
+        this.heights = heights;
+        this.rotation = new Quaternion();
+        this.origin = new Vector3f();
+        this.direction = new Vector3f();
+    }
+
+    /**
+     * Find the closest intersection of the ray with the terrain.
+     *
+     * @param terrain the terrain.
+     * @param ray     the ray in the world space.
+     * @param store   the vector to store the contact point in the world space.
+     * @return true if the intersection was found.
+     */
+    @EditorThread
+    public boolean intersect(@NotNull final TerrainQuad terrain, @NotNull final Ray ray, @NotNull final Vector3f store) {
+        if (!prepare(terrain)) return false;
+
+        final Transform transform = terrain.getWorldTransform();
+        final Vector3f scale = transform.getScale();
+        final Vector3f worldDirection = ray.getDirection();
+        final Vector3f stepScale = heights.getStepScale();
+
+        rotation.set(transform.getRotation()).inverseLocal();
+
+        // the grid space: x and z are heightmap indexes, y is a raw height
+        origin.set(ray.getOrigin()).subtractLocal(transform.getTranslation());
+        rotation.mult(origin, origin);
+        origin.divideLocal(scale).divideLocal(stepScale);
+
+        rotation.mult(worldDirection, direction);
+        direction.divideLocal(scale).divideLocal(stepScale);
+
+        final float half = totalSize / 2;
+        origin.addLocal(half, 0, half);
+
+        final float limit = ray.getLimit() / worldDirection.length();
+
+        if (!march(limit)) return false;
+
+        store.set(worldDirection).multLocal(hitDistance).addLocal(ray.getOrigin());
+        return true;
+    }
+
+    /**
+     * Prepare the index of height arrays of the terrain.
+     *
+     * @param terrain the terrain.
+     * @return false if the terrain can't be processed.
+     */
+    @EditorThread
+    public boolean prepare(@NotNull final TerrainQuad terrain) {
+        if (!heights.prepare(terrain)) return false;
+        this.totalSize = heights.getTotalSize();
+        this.patchSize = heights.getPatchSize();
+        return true;
+    }
+
+    /**
+     * March the ray in the grid space over cells of the heightmap.
+     *
+     * @param limit the max distance.
+     * @return true if the intersection was found.
+     */
+    private boolean march(final float limit) {
+
+        final float originX = origin.getX();
+        final float originZ = origin.getZ();
+        final float dirX = direction.getX();
+        final float dirZ = direction.getZ();
+        final float max = totalSize - 1;
+
+        // clip the ray by the heightmap area
+        float enter = 0F;
+        float exit = limit;
+
+        if (Math.abs(dirX) < EPSILON) {
+            if (originX < 0 || originX > max) return false;
+        } else {
+            final float t1 = -originX / dirX;
+            final float t2 = (max - originX) / dirX;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+
+        if (Math.abs(dirZ) < EPSILON) {
+            if (originZ < 0 || originZ > max) return false;
+        } else {
+            final float t1 = -originZ / dirZ;
+            final float t2 = (max - originZ) / dirZ;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+
+        if (enter > exit) return false;
+
+        final int lastCell = totalSize - 2;
+
+        int cellX = clamp((int) Math.floor(originX + dirX * enter), lastCell);
+        int cellZ = clamp((int) Math.floor(originZ + dirZ * enter), lastCell);
+
+        final int stepX = dirX > 0 ? 1 : -1;
+        final int stepZ = dirZ > 0 ? 1 : -1;
+
+        final float deltaX = Math.abs(dirX) < EPSILON ? Float.POSITIVE_INFINITY : Math.abs(1F / dirX);
+        final float deltaZ = Math.abs(dirZ) < EPSILON ? Float.POSITIVE_INFINITY : Math.abs(1F / dirZ);
+
+        float nextX = Math.abs(dirX) < EPSILON ? Float.POSITIVE_INFINITY :
+                ((dirX > 0 ? cellX + 1 : cellX) - originX) / dirX;
+        float nextZ = Math.abs(dirZ) < EPSILON ? Float.POSITIVE_INFINITY :
+                ((dirZ > 0 ? cellZ + 1 : cellZ) - originZ) / dirZ;
+
+        while (true) {
+
+            if (intersectCell(cellX, cellZ, limit)) return true;
+
+            if (nextX < nextZ) {
+                if (nextX > exit) return false;
+                cellX += stepX;
+                nextX += deltaX;
+            } else {
+                if (nextZ > exit) return false;
+                cellZ += stepZ;
+                nextZ += deltaZ;
+            }
+
+            if (cellX < 0 || cellZ < 0 || cellX > lastCell || cellZ > lastCell) {
+                return false;
+            }
+        }
+    }
+
+    private static int clamp(final int value, final int max) {
+        return Math.max(0, Math.min(value, max));
+    }
+
+    /**
+     * Test the two triangles of the cell, the triangles are oriented in the same way as meshes of terrain patches.
+     *
+     * @return true if the intersection was found.
+     */
+    private boolean intersectCell(final int x, final int z, final float limit) {
+
+        final TerrainHeights heights = this.heights;
+        final float h1 = heights.getHeight(x, z);
+        final float h2 = heights.getHeight(x + 1, z);
+        final float h3 = heights.getHeight(x, z + 1);
+        final float h4 = heights.getHeight(x + 1, z + 1);
+
+        final int cells = patchSize - 1;
+        final int localX = x % cells;
+        final int localZ = z % cells;
+
+        float distance;
+
+        // the top left and the bottom right cells of a patch are split by another diagonal
+        if ((localX == 0 && localZ == 0) || (localX == cells - 1 && localZ == cells - 1)) {
+            distance = Math.min(
+                    intersectTriangle(x, h1, z, x, h3, z + 1, x + 1, h4, z + 1),
+                    intersectTriangle(x, h1, z, x + 1, h4, z + 1, x + 1, h2, z));
+        } else {
+            distance = Math.min(
+                    intersectTriangle(x, h1, z, x, h3, z + 1, x + 1, h2, z),
+                    intersectTriangle(x + 1, h2, z, x, h3, z + 1, x + 1, h4, z + 1));
+        }
+
+        if (distance == MISS || distance > limit) return false;
+
+        hitDistance = distance;
+        return true;
+    }
+
+    /**
+     * Intersect the ray in the grid space with the triangle from both sides.
+     *
+     * @return the distance or {@link #MISS}.
+     */
+    private float intersectTriangle(final float x1, final float y1, final float z1,
+                                    final float x2, final float y2, final float z2,
+                                    final float x3, final float y3, final float z3) {
+
+        final float dirX = direction.getX();
+        final float dirY = direction.getY();
+        final float dirZ = direction.getZ();
+
+        final float edge1X = x2 - x1, edge1Y = y2 - y1, edge1Z = z2 - z1;
+        final float edge2X = x3 - x1, edge2Y = y3 - y1, edge2Z = z3 - z1;
+
+        final float pX = dirY * edge2Z - dirZ * edge2Y;
+        final float pY = dirZ * edge2X - dirX * edge2Z;
+        final float pZ = dirX * edge2Y - dirY * edge2X;
+
+        final float det = edge1X * pX + edge1Y * pY + edge1Z * pZ;
+        if (Math.abs(det) < EPSILON) return MISS;
+
+        final float invDet = 1F / det;
+
+        final float tX = origin.getX() - x1, tY = origin.getY() - y1, tZ = origin.getZ() - z1;
+
+        final float u = (tX * pX + tY * pY + tZ * pZ) * invDet;
+        if (u < 0F || u > 1F) return MISS;
+
+        final float qX = tY * edge1Z - tZ * edge1Y;
+        final float qY = tZ * edge1X - tX * edge1Z;
+        final float qZ = tX * edge1Y - tY * edge1X;
+
+        final float v = (dirX * qX + dirY * qY + dirZ * qZ) * invDet;
+        if (v < 0F || u + v > 1F) return MISS;
+
+        final float distance = (edge2X * qX + edge2Y * qY + edge2Z * qZ) * invDet;
+        return distance < 0F ? MISS : distance;
+    }
+}
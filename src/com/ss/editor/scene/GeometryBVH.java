@@ -0,0 +1,681 @@
+package com.ss.editor.scene;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.collision.CollisionResult;
+import com.jme3.collision.CollisionResults;
+import com.jme3.effect.ParticleEmitter;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Spatial;
+import com.ss.editor.annotation.EditorThread;
+import com.ss.editor.util.NodeUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import rlib.util.array.Array;
+import rlib.util.array.ArrayFactory;
+import rlib.util.dictionary.DictionaryFactory;
+import rlib.util.dictionary.ObjectDictionary;
+
+import java.util.Arrays;
+
+/**
+ * The dynamic bounding volume hierarchy over world bounds of geometries of a model to pick them by a ray without
+ * testing triangles of all geometries. Leaves keep enlarged bounds, so small transformations don't change the tree.
+ * Geometries which can change their bounds without notifications (particle emitters and geometries with controls)
+ * are not put to the tree and are tested on every pick.
+ *
+ * @author JavaSaBr
+ */
+public class GeometryBVH {
+
+    private static final int NULL = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The distance to bounds which are not intersected by a ray.
+     */
+    private static final float MISS = Float.POSITIVE_INFINITY;
+
+    /**
+     * The factor of enlarging bounds of leaves.
+     */
+    private static final float MARGIN_FACTOR = 0.1F;
+
+    /**
+     * The minimal enlarging of bounds of leaves.
+     */
+    private static final float MIN_MARGIN = 0.01F;
+
+    /**
+     * The table of leaves by geometries.
+     */
+    @NotNull
+    private final ObjectDictionary<Geometry, Integer> leaves;
+
+    /**
+     * The geometries which are tested on every pick.
+     */
+    @NotNull
+    private final Array<Geometry> dynamicGeometries;
+
+    /**
+     * The geometries which were detached from the root.
+     */
+    @NotNull
+    private final Array<Geometry> detached;
+
+    /**
+     * The bounds of nodes as minX, minY, minZ, maxX, maxY, maxZ.
+     */
+    @NotNull
+    private float[] bounds;
+
+    /**
+     * The parents of nodes, for free nodes it's the next free node.
+     */
+    @NotNull
+    private int[] parents;
+
+    /**
+     * The left children of nodes, {@link #NULL} for leaves.
+     */
+    @NotNull
+    private int[] lefts;
+
+    /**
+     * The right children of nodes.
+     */
+    @NotNull
+    private int[] rights;
+
+    /**
+     * The geometries of leaves.
+     */
+    @NotNull
+    private Geometry[] geometries;
+
+    /**
+     * The stack of nodes to visit.
+     */
+    @NotNull
+    private int[] stack;
+
+    /**
+     * The distances to nodes in the stack.
+     */
+    @NotNull
+    private float[] distances;
+
+    /**
+     * The root spatial.
+     */
+    @Nullable
+    private Spatial root;
+
+    /**
+     * The root node of the tree.
+     */
+    private int rootNode;
+
+    /**
+     * The first free node.
+     */
+    private int freeNode;
+
+    /**
+     * The count of allocated nodes.
+     */
+    private int allocated;
+
+    public GeometryBVH() {
+        this.leaves = DictionaryFactory.newObjectDictionary();
+        this.dynamicGeometries = ArrayFactory.newArray(Geometry.class);
+        this.detached = ArrayFactory.newArray(Geometry.class);
+        this.bounds = new float[INITIAL_CAPACITY * 6];
+        this.parents = new int[INITIAL_CAPACITY];
+        this.lefts = new int[INITIAL_CAPACITY];
+        this.rights = new int[INITIAL_CAPACITY];
+        this.geometries = new Geometry[INITIAL_CAPACITY];
+        this.stack = new int[INITIAL_CAPACITY];
+        this.distances = new float[INITIAL_CAPACITY];
+        this.rootNode = NULL;
+        this.freeNode = NULL;
+    }
+
+    /**
+     * Rebuild the tree for the new root.
+     *
+     * @param root the root spatial or null to clear the tree.
+     */
+    @EditorThread
+    public void rebuild(@Nullable final Spatial root) {
+
+        Arrays.fill(geometries, 0, allocated, null);
+
+        this.root = root;
+        this.rootNode = NULL;
+        this.freeNode = NULL;
+        this.allocated = 0;
+
+        leaves.clear();
+        dynamicGeometries.clear();
+
+        if (root != null) add(root);
+    }
+
+    /**
+     * Add all geometries of the spatial.
+     *
+     * @param spatial the added spatial.
+     */
+    @EditorThread
+    public void add(@NotNull final Spatial spatial) {
+        NodeUtils.visitGeometry(spatial, this::addGeometry);
+    }
+
+    /**
+     * Remove all geometries of the spatial.
+     *
+     * @param spatial the removed spatial.
+     */
+    @EditorThread
+    public void remove(@NotNull final Spatial spatial) {
+        NodeUtils.visitGeometry(spatial, this::removeGeometry);
+    }
+
+    /**
+     * Update bounds of all geometries of the spatial.
+     *
+     * @param spatial     the changed spatial.
+     * @param meshChanged true if meshes of the geometries could be changed.
+     */
+    @EditorThread
+    public void update(@NotNull final Spatial spatial, final boolean meshChanged) {
+        NodeUtils.visitGeometry(spatial, geometry -> {
+
+            if (meshChanged) geometry.updateModelBound();
+
+            final Integer leaf = leaves.get(geometry);
+
+            if (leaf == null) {
+                if (isAttached(geometry)) addGeometry(geometry);
+            } else if (!containsWorldBound(leaf, geometry.getWorldBound())) {
+                removeLeaf(leaf);
+                insertLeaf(leaf, geometry);
+            }
+        });
+    }
+
+    /**
+     * Find the closest collision of the ray with geometries of the root.
+     *
+     * @param ray     the ray.
+     * @param results the container of all found collisions.
+     * @return the closest collision or null.
+     */
+    @Nullable
+    @EditorThread
+    public CollisionResult pick(@NotNull final Ray ray, @NotNull final CollisionResults results) {
+
+        final Vector3f origin = ray.getOrigin();
+        final Vector3f direction = ray.getDirection();
+
+        final float originX = origin.getX();
+        final float originY = origin.getY();
+        final float originZ = origin.getZ();
+        final float invDirX = 1F / direction.getX();
+        final float invDirY = 1F / direction.getY();
+        final float invDirZ = 1F / direction.getZ();
+
+        CollisionResult closest = null;
+        float closestDistance = ray.getLimit();
+
+        for (int i = 0, length = dynamicGeometries.size(); i < length; i++) {
+            final Geometry geometry = dynamicGeometries.get(i);
+            geometry.updateModelBound();
+            closest = collide(geometry, ray, results, closest);
+            if (closest != null) closestDistance = Math.min(closestDistance, closest.getDistance());
+        }
+
+        int top = 0;
+
+        if (rootNode != NULL) {
+
+            final float distance = intersect(rootNode, originX, originY, originZ, invDirX, invDirY, invDirZ);
+
+            if (distance != MISS && distance <= closestDistance) {
+                stack[top] = rootNode;
+                distances[top++] = distance;
+            }
+        }
+
+        while (top > 0) {
+
+            final int node = stack[--top];
+            if (distances[top] > closestDistance) continue;
+
+            final int left = lefts[node];
+
+            if (left == NULL) {
+
+                final Geometry geometry = geometries[node];
+
+                if (!isAttached(geometry)) {
+                    detached.add(geometry);
+                    continue;
+                }
+
+                closest = collide(geometry, ray, results, closest);
+                if (closest != null) closestDistance = Math.min(closestDistance, closest.getDistance());
+                continue;
+            }
+
+            final int right = rights[node];
+            final float leftDistance = intersect(left, originX, originY, originZ, invDirX, invDirY, invDirZ);
+            final float rightDistance = intersect(right, originX, originY, originZ, invDirX, invDirY, invDirZ);
+
+            ensureStack(top + 2);
+
+            // the nearest child should be visited first
+            if (leftDistance <= rightDistance) {
+                top = push(right, rightDistance, top, closestDistance);
+                top = push(left, leftDistance, top, closestDistance);
+            } else {
+                top = push(left, leftDistance, top, closestDistance);
+                top = push(right, rightDistance, top, closestDistance);
+            }
+        }
+
+        if (!detached.isEmpty()) {
+            detached.forEach(this::removeGeometry);
+            detached.clear();
+        }
+
+        return closest;
+    }
+
+    /**
+     * Collide the geometry with the ray.
+     *
+     * @return the closest collision.
+     */
+    @Nullable
+    private CollisionResult collide(@NotNull final Geometry geometry, @NotNull final Ray ray,
+                                    @NotNull final CollisionResults results, @Nullable CollisionResult closest) {
+
+        final int prevSize = results.size();
+
+        geometry.collideWith(ray, results);
+
+        for (int i = prevSize, length = results.size(); i < length; i++) {
+            final CollisionResult result = results.getCollisionDirect(i);
+            if (closest == null || result.getDistance() < closest.getDistance()) closest = result;
+        }
+
+        return closest;
+    }
+
+    /**
+     * Push the node to the stack if it can contain a closer collision.
+     *
+     * @return the new top of the stack.
+     */
+    private int push(final int node, final float distance, final int top, final float closestDistance) {
+        if (distance == MISS || distance > closestDistance) return top;
+        stack[top] = node;
+        distances[top] = distance;
+        return top + 1;
+    }
+
+    /**
+     * Calculate the distance to bounds of the node by the ray.
+     *
+     * @return the distance or {@link #MISS} if the ray doesn't intersect the bounds.
+     */
+    private float intersect(final int node, final float originX, final float originY, final float originZ,
+                            final float invDirX, final float invDirY, final float invDirZ) {
+
+        final float[] bounds = this.bounds;
+        final int offset = node * 6;
+
+        float x1 = (bounds[offset] - originX) * invDirX;
+        float x2 = (bounds[offset + 3] - originX) * invDirX;
+        float y1 = (bounds[offset + 1] - originY) * invDirY;
+        float y2 = (bounds[offset + 4] - originY) * invDirY;
+        float z1 = (bounds[offset + 2] - originZ) * invDirZ;
+        float z2 = (bounds[offset + 5] - originZ) * invDirZ;
+
+        // NaN appears when the origin lies on a slab of a parallel axis, treat it as inside
+        final float near = max(max(min(x1, x2), min(y1, y2)), min(z1, z2));
+        final float far = min(min(max(x1, x2), max(y1, y2)), max(z1, z2));
+
+        if (far < 0 || near > far) return MISS;
+        return Math.max(near, 0F);
+    }
+
+    private static float min(final float first, final float second) {
+        return first < second || second != second ? first : second;
+    }
+
+    private static float max(final float first, final float second) {
+        return first > second || second != second ? first : second;
+    }
+
+    /**
+     * @return true if the geometry is still attached to the root.
+     */
+    private boolean isAttached(@NotNull final Geometry geometry) {
+
+        for (Spatial spatial = geometry; spatial != null; spatial = spatial.getParent()) {
+            if (spatial == root) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if bounds of the geometry can be changed without notifications.
+     */
+    private boolean isDynamic(@NotNull final Geometry geometry) {
+        if (geometry instanceof ParticleEmitter) return true;
+
+        for (Spatial spatial = geometry; spatial != null && spatial != root; spatial = spatial.getParent()) {
+            if (spatial.getNumControls() > 0) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Add the geometry to the tree.
+     */
+    private void addGeometry(@NotNull final Geometry geometry) {
+        if (leaves.containsKey(geometry) || dynamicGeometries.contains(geometry)) return;
+
+        if (isDynamic(geometry)) {
+            dynamicGeometries.add(geometry);
+            return;
+        }
+
+        if (geometry.getWorldBound() == null) return;
+
+        final int leaf = allocateNode();
+        leaves.put(geometry, leaf);
+        insertLeaf(leaf, geometry);
+    }
+
+    /**
+     * Remove the geometry from the tree.
+     */
+    private void removeGeometry(@NotNull final Geometry geometry) {
+
+        final Integer leaf = leaves.remove(geometry);
+
+        if (leaf == null) {
+            dynamicGeometries.fastRemove(geometry);
+            return;
+        }
+
+        removeLeaf(leaf);
+        freeNode(leaf);
+    }
+
+    /**
+     * Set enlarged world bounds of the geometry to the leaf and insert the leaf to the tree.
+     */
+    private void insertLeaf(final int leaf, @NotNull final Geometry geometry) {
+
+        geometries[leaf] = geometry;
+        lefts[leaf] = NULL;
+        rights[leaf] = NULL;
+
+        setWorldBound(leaf, geometry.getWorldBound());
+
+        if (rootNode == NULL) {
+            rootNode = leaf;
+            parents[leaf] = NULL;
+            return;
+        }
+
+        final int sibling = findSibling(leaf);
+        final int oldParent = parents[sibling];
+        final int newParent = allocateNode();
+
+        parents[newParent] = oldParent;
+        lefts[newParent] = sibling;
+        rights[newParent] = leaf;
+        parents[sibling] = newParent;
+        parents[leaf] = newParent;
+
+        if (oldParent == NULL) {
+            rootNode = newParent;
+        } else if (lefts[oldParent] == sibling) {
+            lefts[oldParent] = newParent;
+        } else {
+            rights[oldParent] = newParent;
+        }
+
+        refit(newParent);
+    }
+
+    /**
+     * Find the best sibling for the leaf by the surface area heuristic.
+     */
+    private int findSibling(final int leaf) {
+
+        final float[] bounds = this.bounds;
+        final int leafOffset = leaf * 6;
+
+        int node = rootNode;
+
+        while (lefts[node] != NULL) {
+
+            final int left = lefts[node];
+            final int right = rights[node];
+
+            final float area = area(bounds, node * 6);
+            final float combinedArea = combinedArea(bounds, node * 6, leafOffset);
+
+            // the cost of creating a new parent for this node and the leaf
+            final float cost = 2F * combinedArea;
+            // the minimum cost of pushing the leaf further down the tree
+            final float inheritanceCost = 2F * (combinedArea - area);
+
+            final float leftCost = descendCost(left, leafOffset) + inheritanceCost;
+            final float rightCost = descendCost(right, leafOffset) + inheritanceCost;
+
+            if (cost < leftCost && cost < rightCost) break;
+
+            node = leftCost < rightCost ? left : right;
+        }
+
+        return node;
+    }
+
+    /**
+     * Calculate the cost of descending the leaf to the node.
+     */
+    private float descendCost(final int node, final int leafOffset) {
+
+        final float combinedArea = combinedArea(bounds, node * 6, leafOffset);
+        if (lefts[node] == NULL) return combinedArea;
+
+        return combinedArea - area(bounds, node * 6);
+    }
+
+    /**
+     * Remove the leaf from the tree.
+     */
+    private void removeLeaf(final int leaf) {
+
+        if (leaf == rootNode) {
+            rootNode = NULL;
+            return;
+        }
+
+        final int parent = parents[leaf];
+        final int grandParent = parents[parent];
+        final int sibling = lefts[parent] == leaf ? rights[parent] : lefts[parent];
+
+        if (grandParent == NULL) {
+            rootNode = sibling;
+            parents[sibling] = NULL;
+        } else {
+
+            if (lefts[grandParent] == parent) {
+                lefts[grandParent] = sibling;
+            } else {
+                rights[grandParent] = sibling;
+            }
+
+            parents[sibling] = grandParent;
+            refit(grandParent);
+        }
+
+        freeNode(parent);
+    }
+
+    /**
+     * Update bounds of the node and its ancestors.
+     */
+    private void refit(int node) {
+
+        final float[] bounds = this.bounds;
+
+        while (node != NULL) {
+
+            final int offset = node * 6;
+            final int leftOffset = lefts[node] * 6;
+            final int rightOffset = rights[node] * 6;
+
+            for (int i = 0; i < 3; i++) {
+                bounds[offset + i] = Math.min(bounds[leftOffset + i], bounds[rightOffset + i]);
+                bounds[offset + i + 3] = Math.max(bounds[leftOffset + i + 3], bounds[rightOffset + i + 3]);
+            }
+
+            node = parents[node];
+        }
+    }
+
+    /**
+     * Set the enlarged world bound to the leaf.
+     */
+    private void setWorldBound(final int leaf, @Nullable final BoundingVolume worldBound) {
+
+        final Vector3f center = worldBound == null ? Vector3f.ZERO : worldBound.getCenter();
+
+        float extentX = 0, extentY = 0, extentZ = 0;
+
+        if (worldBound instanceof BoundingBox) {
+            final BoundingBox box = (BoundingBox) worldBound;
+            extentX = box.getXExtent();
+            extentY = box.getYExtent();
+            extentZ = box.getZExtent();
+        } else if (worldBound instanceof BoundingSphere) {
+            extentX = extentY = extentZ = ((BoundingSphere) worldBound).getRadius();
+        }
+
+        final float margin = Math.max(Math.max(Math.max(extentX, extentY), extentZ) * MARGIN_FACTOR, MIN_MARGIN);
+        final int offset = leaf * 6;
+
+        bounds[offset] = center.getX() - extentX - margin;
+        bounds[offset + 1] = center.getY() - extentY - margin;
+        bounds[offset + 2] = center.getZ() - extentZ - margin;
+        bounds[offset + 3] = center.getX() + extentX + margin;
+        bounds[offset + 4] = center.getY() + extentY + margin;
+        bounds[offset + 5] = center.getZ() + extentZ + margin;
+    }
+
+    /**
+     * @return true if the enlarged bounds of the leaf contain the world bound.
+     */
+    private boolean containsWorldBound(final int leaf, @Nullable final BoundingVolume worldBound) {
+
+        final Vector3f center = worldBound == null ? Vector3f.ZERO : worldBound.getCenter();
+
+        float extentX = 0, extentY = 0, extentZ = 0;
+
+        if (worldBound instanceof BoundingBox) {
+            final BoundingBox box = (BoundingBox) worldBound;
+            extentX = box.getXExtent();
+            extentY = box.getYExtent();
+            extentZ = box.getZExtent();
+        } else if (worldBound instanceof BoundingSphere) {
+            extentX = extentY = extentZ = ((BoundingSphere) worldBound).getRadius();
+        }
+
+        final float[] bounds = this.bounds;
+        final int offset = leaf * 6;
+
+        return bounds[offset] <= center.getX() - extentX && bounds[offset + 3] >= center.getX() + extentX &&
+                bounds[offset + 1] <= center.getY() - extentY && bounds[offset + 4] >= center.getY() + extentY &&
+                bounds[offset + 2] <= center.getZ() - extentZ && bounds[offset + 5] >= center.getZ() + extentZ;
+    }
+
+    /**
+     * Calculate the half of surface area of the bounds.
+     */
+    private static float area(@NotNull final float[] bounds, final int offset) {
+        final float x = bounds[offset + 3] - bounds[offset];
+        final float y = bounds[offset + 4] - bounds[offset + 1];
+        final float z = bounds[offset + 5] - bounds[offset + 2];
+        return x * y + y * z + z * x;
+    }
+
+    /**
+     * Calculate the half of surface area of the union of the bounds.
+     */
+    private static float combinedArea(@NotNull final float[] bounds, final int first, final int second) {
+        final float x = Math.max(bounds[first + 3], bounds[second + 3]) - Math.min(bounds[first], bounds[second]);
+        final float y = Math.max(bounds[first + 4], bounds[second + 4]) - Math.min(bounds[first + 1], bounds[second + 1]);
+        final float z = Math.max(bounds[first + 5], bounds[second + 5]) - Math.min(bounds[first + 2], bounds[second + 2]);
+        return x * y + y * z + z * x;
+    }
+
+    /**
+     * Allocate a new node.
+     */
+    private int allocateNode() {
+
+        if (freeNode != NULL) {
+            final int node = freeNode;
+            freeNode = parents[node];
+            return node;
+        }
+
+        if (allocated == parents.length) {
+            final int capacity = allocated * 2;
+            bounds = Arrays.copyOf(bounds, capacity * 6);
+            parents = Arrays.copyOf(parents, capacity);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            geometries = Arrays.copyOf(geometries, capacity);
+        }
+
+        return allocated++;
+    }
+
+    /**
+     * Return the node to the list of free nodes.
+     */
+    private void freeNode(final int node) {
+        geometries[node] = null;
+        lefts[node] = NULL;
+        rights[node] = NULL;
+        parents[node] = freeNode;
+        freeNode = node;
+    }
+
+    /**
+     * Ensure the capacity of the stack.
+     */
+    private void ensureStack(final int size) {
+        if (size <= stack.length) return;
+        stack = Arrays.copyOf(stack, size * 2);
+        distances = Arrays.copyOf(distances, size * 2);
+    }
+}
@@ -35,6 +35,8 @@ public abstract class AdvancedAbstractEditorAppState<T extends FileEditor> exten
     protected static final ObjectDictionary<String, Trigger> TRIGGERS = DictionaryFactory.newObjectDictionary();
     protected static final ObjectDictionary<String, Trigger[]> MULTI_TRIGGERS = DictionaryFactory.newObjectDictionary();
 
+    protected static final String SLOT_CAMERA = "camera";
+
     protected static final String MOUSE_RIGHT_CLICK = "SSEditor.editorState.mouseRightClick";
     protected static final String MOUSE_LEFT_CLICK = "SSEditor.editorState.mouseLeftClick";
     protected static final String MOUSE_MIDDLE_CLICK = "SSEditor.editorState.mouseMiddleClick";
@@ -34,6 +34,9 @@ public class StatsAppState extends AbstractAppState implements EditorAppState {
     @NotNull
     private static final AtomicInteger STATISTICS_ENABLED = new AtomicInteger(0);
 
+    private static final String SLOT_STATS = "stats";
+    private static final String SLOT_FPS = "fps";
+
     /**
      * The parent node.
      */
@@ -460,7 +463,7 @@ public class StatsAppState extends AbstractAppState implements EditorAppState {
         final int frameBuffersF = statsData[11];
         final int frameBuffersM = statsData[12];
 
-        EXECUTOR_MANAGER.addFXTask(() -> {
+        EXECUTOR_MANAGER.addFXUpdate(this, SLOT_STATS, () -> {
             getVerticesField().setText(Integer.toString(vertices));
             getTrianglesField().setText(Integer.toString(triangles));
             getUniformsField().setText(Integer.toString(uniforms));
@@ -481,7 +484,7 @@ public class StatsAppState extends AbstractAppState implements EditorAppState {
      * Update the FPS value.
      */
     private void updateFps(final int fps) {
-        EXECUTOR_MANAGER.addFXTask(() -> getFpsField().setText(Integer.toString(fps)));
+        EXECUTOR_MANAGER.addFXUpdate(this, SLOT_FPS, () -> getFpsField().setText(Integer.toString(fps)));
     }
 
     @Override
@@ -407,7 +407,7 @@ public class MaterialEditorAppState extends AdvancedAbstractEditorAppState<Mater
     @Override
     protected void notifyChangedCamera(@NotNull final Vector3f cameraLocation, final float hRotation,
                                        final float vRotation, final float targetDistance) {
-        EXECUTOR_MANAGER.addFXTask(() -> getFileEditor().notifyChangedCamera(cameraLocation, hRotation, vRotation, targetDistance));
+        EXECUTOR_MANAGER.addFXUpdate(this, SLOT_CAMERA, () -> getFileEditor().notifyChangedCamera(cameraLocation, hRotation, vRotation, targetDistance));
     }
 
     public enum ModelType {
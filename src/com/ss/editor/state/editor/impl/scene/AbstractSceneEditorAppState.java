@@ -37,15 +37,18 @@ import com.ss.editor.annotation.FromAnyThread;
 import com.ss.editor.control.editing.EditingControl;
 import com.ss.editor.control.editing.EditingInput;
 import com.ss.editor.control.transform.*;
+import com.ss.editor.executor.EditorTaskLane;
 import com.ss.editor.model.EditorCamera;
 import com.ss.editor.model.undo.editor.ModelChangeConsumer;
 import com.ss.editor.scene.EditorAudioNode;
 import com.ss.editor.scene.EditorLightNode;
+import com.ss.editor.scene.GeometryBVH;
 import com.ss.editor.state.editor.impl.AdvancedAbstractEditorAppState;
 import com.ss.editor.ui.component.editor.impl.scene.AbstractSceneFileEditor;
 import com.ss.editor.ui.control.model.property.operation.ModelPropertyOperation;
 import com.ss.editor.util.EditingUtils;
 import com.ss.editor.util.GeomUtils;
+import com.ss.editor.util.LocalObjects;
 import com.ss.editor.util.NodeUtils;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseButton;
@@ -180,6 +183,36 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
     @NotNull
     private final Node markersNode;
 
+    /**
+     * The bounding volume hierarchy over geometries of the current model.
+     */
+    @NotNull
+    private final GeometryBVH geometryBVH;
+
+    /**
+     * The cursor position of the last contact point with an edited model.
+     */
+    @NotNull
+    private final Vector2f contactCursor;
+
+    /**
+     * The camera view projection of the last contact point with an edited model.
+     */
+    @NotNull
+    private final Matrix4f contactViewProjection;
+
+    /**
+     * The world transform of an edited model of the last contact point.
+     */
+    @NotNull
+    private final Transform contactModelTransform;
+
+    /**
+     * The edited model of the last contact point.
+     */
+    @Nullable
+    private Spatial contactModel;
+
     /**
      * The nodes for the placement of model controls.
      */
@@ -277,6 +310,11 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
      */
     private boolean editingMode;
 
+    /**
+     * The flag of outdated contact point with an edited model.
+     */
+    private boolean contactDirty;
+
     public AbstractSceneEditorAppState(@NotNull final T fileEditor) {
         super(fileEditor);
         this.cachedLights = DictionaryFactory.newObjectDictionary();
@@ -293,6 +331,11 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
         this.audioNode = new Node("Audio nodes");
         this.cursorNode = new Node("Cursor node");
         this.markersNode = new Node("Markers node");
+        this.geometryBVH = new GeometryBVH();
+        this.contactCursor = new Vector2f();
+        this.contactViewProjection = new Matrix4f();
+        this.contactModelTransform = new Transform();
+        this.contactDirty = true;
 
         final EditorCamera editorCamera = requireNonNull(getEditorCamera());
         editorCamera.setDefaultHorizontalRotation(H_ROTATION);
@@ -368,9 +411,49 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
 
     @Override
     public void notifyTransformed(@NotNull final Spatial spatial) {
+        geometryBVH.update(spatial, false);
         getFileEditor().notifyTransformed(spatial);
     }
 
+    /**
+     * Notify about an added spatial to the current model.
+     *
+     * @param spatial the added spatial.
+     */
+    @FromAnyThread
+    public void notifyAdded(@NotNull final Spatial spatial) {
+        EXECUTOR_MANAGER.addEditorThreadTask(() -> geometryBVH.add(spatial));
+    }
+
+    /**
+     * Notify about a removed spatial from the current model.
+     *
+     * @param spatial the removed spatial.
+     */
+    @FromAnyThread
+    public void notifyRemoved(@NotNull final Spatial spatial) {
+        EXECUTOR_MANAGER.addEditorThreadTask(() -> geometryBVH.remove(spatial));
+    }
+
+    /**
+     * Notify about a changed spatial of the current model, its transformation or meshes could be changed.
+     *
+     * @param spatial the changed spatial.
+     */
+    @FromAnyThread
+    public void notifyChanged(@NotNull final Spatial spatial) {
+        EXECUTOR_MANAGER.addEditorThreadTask(() -> notifyChangedImpl(spatial));
+    }
+
+    /**
+     * Handle a changed spatial of the current model.
+     */
+    @EditorThread
+    private void notifyChangedImpl(@NotNull final Spatial spatial) {
+        geometryBVH.update(spatial, true);
+        setContactDirty(true);
+    }
+
     /**
      * Create collision plane.
      */
@@ -746,19 +829,42 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
     }
 
     /**
-     * Update editing nodes.
+     * Update editing nodes. The contact point is searched only when the cursor, the camera or the edited model was
+     * changed, the cursor node shares it with the brush and the editing control.
      */
+    @EditorThread
     private void updateEditingNodes() {
         if (!isEditingMode()) return;
 
         final Node cursorNode = getCursorNode();
         final EditingControl control = EditingUtils.getEditingControl(cursorNode);
         final Spatial editedModel = EditingUtils.getEditedModel(control);
-        if (editedModel == null) return;
+        if (control == null || editedModel == null) return;
 
-        final Vector3f contactPoint = GeomUtils.getContactPointFromCursor(editedModel);
+        final InputManager inputManager = EDITOR.getInputManager();
+        final Vector2f cursor = inputManager.getCursorPosition();
+        final Camera camera = EDITOR.getCamera();
+        final Matrix4f viewProjection = camera.getViewProjectionMatrix();
+        final Transform modelTransform = editedModel.getWorldTransform();
 
-        if (contactPoint != null) {
+        // the edited model is changed by the control during editing
+        if (!isContactDirty() && !control.isStartedEditing() && contactModel == editedModel &&
+                contactCursor.equals(cursor) && contactViewProjection.equals(viewProjection) &&
+                contactModelTransform.equals(modelTransform)) {
+            return;
+        }
+
+        setContactDirty(false);
+        contactModel = editedModel;
+        contactCursor.set(cursor);
+        contactViewProjection.set(viewProjection);
+        contactModelTransform.set(modelTransform);
+
+        final LocalObjects local = LocalObjects.get();
+        final Ray ray = GeomUtils.getRayFromCursor(local.nextRay());
+        final Vector3f contactPoint = local.nextVector();
+
+        if (control.findContactPoint(ray, contactPoint)) {
             cursorNode.setLocalTranslation(contactPoint);
         }
     }
@@ -1096,7 +1202,12 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
     private void processSelect() {
         if (isEditingMode()) return;
 
-        final Geometry geometry = GeomUtils.getGeometryFromCursor(getModelNode());
+        final InputManager inputManager = EDITOR.getInputManager();
+        final Vector2f cursor = inputManager.getCursorPosition();
+
+        final CollisionResults results = new CollisionResults();
+        final CollisionResult collision = pickModelNode(getRay(cursor.getX(), cursor.getY()), results);
+        final Geometry geometry = collision == null ? null : collision.getGeometry();
 
         if (geometry == null) {
             EXECUTOR_MANAGER.addFXTask(() -> notifySelected(null));
@@ -1117,23 +1228,21 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
     @EditorThread
     public Vector3f getScenePosByScreenPos(final float worldX, final float worldY) {
 
-        final Camera camera = EDITOR.getCamera();
-
-        final Vector2f cursor = new Vector2f(worldX, worldY);
-        final Vector3f click3d = camera.getWorldCoordinates(cursor, 0f);
-        final Vector3f dir = camera.getWorldCoordinates(cursor, 1f).subtractLocal(click3d).normalizeLocal();
-
-        final Ray ray = new Ray();
-        ray.setOrigin(click3d);
-        ray.setDirection(dir);
-
+        final Ray ray = getRay(worldX, worldY);
         final CollisionResults results = new CollisionResults();
-
         final Node stateNode = getStateNode();
-        stateNode.updateModelBound();
-        stateNode.collideWith(ray, results);
+        final Node modelNode = getModelNode();
+
+        CollisionResult closestCollision = null;
+
+        for (final Spatial child : stateNode.getChildren()) {
+            if (child == modelNode) {
+                closestCollision = closest(closestCollision, pickModelNode(ray, results));
+            } else {
+                closestCollision = collideWith(child, ray, results, closestCollision);
+            }
+        }
 
-        final CollisionResult closestCollision = results.getClosestCollision();
         if (closestCollision == null) return Vector3f.ZERO;
 
         return closestCollision.getContactPoint();
@@ -1150,6 +1259,26 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
     @EditorThread
     public Geometry getGeometryByScreenPos(final float worldX, final float worldY) {
 
+        requireNonNull(getCurrentModel());
+
+        final CollisionResults results = new CollisionResults();
+        final CollisionResult closestCollision = geometryBVH.pick(getRay(worldX, worldY), results);
+        if (closestCollision == null) return null;
+
+        return closestCollision.getGeometry();
+    }
+
+    /**
+     * Create a ray from the camera through a position on a screen.
+     *
+     * @param worldX the x position on screen.
+     * @param worldY the y position on screen.
+     * @return the ray.
+     */
+    @NotNull
+    @EditorThread
+    private Ray getRay(final float worldX, final float worldY) {
+
         final Camera camera = EDITOR.getCamera();
 
         final Vector2f cursor = new Vector2f(worldX, worldY);
@@ -1160,16 +1289,69 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
         ray.setOrigin(click3d);
         ray.setDirection(dir);
 
-        final CollisionResults results = new CollisionResults();
+        return ray;
+    }
 
-        final M currentModel = requireNonNull(getCurrentModel());
-        currentModel.updateModelBound();
-        currentModel.collideWith(ray, results);
+    /**
+     * Find the closest collision of the ray with the model node. The current model is picked by the
+     * {@link GeometryBVH}, other children (lights and audio nodes) are moved with the camera, so they are
+     * tested directly.
+     *
+     * @param ray     the ray.
+     * @param results the container of all found collisions.
+     * @return the closest collision or null.
+     */
+    @Nullable
+    @EditorThread
+    private CollisionResult pickModelNode(@NotNull final Ray ray, @NotNull final CollisionResults results) {
 
-        final CollisionResult closestCollision = results.getClosestCollision();
-        if (closestCollision == null) return null;
+        final M currentModel = getCurrentModel();
+        final Node modelNode = getModelNode();
 
-        return closestCollision.getGeometry();
+        CollisionResult closestCollision = geometryBVH.pick(ray, results);
+
+        for (final Spatial child : modelNode.getChildren()) {
+            if (child == currentModel) continue;
+            closestCollision = collideWith(child, ray, results, closestCollision);
+        }
+
+        return closestCollision;
+    }
+
+    /**
+     * Collide the spatial with the ray.
+     *
+     * @param spatial the spatial.
+     * @param ray     the ray.
+     * @param results the container of all found collisions.
+     * @param closest the current closest collision or null.
+     * @return the new closest collision or null.
+     */
+    @Nullable
+    @EditorThread
+    private CollisionResult collideWith(@NotNull final Spatial spatial, @NotNull final Ray ray,
+                                        @NotNull final CollisionResults results, @Nullable CollisionResult closest) {
+
+        final int prevSize = results.size();
+
+        spatial.updateModelBound();
+        spatial.collideWith(ray, results);
+
+        for (int i = prevSize, length = results.size(); i < length; i++) {
+            closest = closest(closest, results.getCollisionDirect(i));
+        }
+
+        return closest;
+    }
+
+    /**
+     * @return the closest of the collisions.
+     */
+    @Nullable
+    private static CollisionResult closest(@Nullable final CollisionResult first, @Nullable final CollisionResult second) {
+        if (first == null) return second;
+        if (second == null) return first;
+        return second.getDistance() < first.getDistance() ? second : first;
     }
 
     @EditorThread
@@ -1340,6 +1522,9 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
         }
 
         control.finishEditing(cursorNode.getLocalTranslation());
+
+        geometryBVH.update(editedModel, true);
+        setContactDirty(true);
     }
 
     /**
@@ -1389,6 +1574,8 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
         modelNode.attachChild(model);
 
         setCurrentModel(model);
+
+        geometryBVH.rebuild(model);
     }
 
     /**
@@ -1487,7 +1674,7 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
      */
     @FromAnyThread
     public void moveCameraTo(@NotNull final Vector3f location) {
-        EXECUTOR_MANAGER.addEditorThreadTask(() -> getNodeForCamera().setLocalTranslation(location));
+        EXECUTOR_MANAGER.addEditorThreadTask(() -> getNodeForCamera().setLocalTranslation(location), EditorTaskLane.INPUT);
     }
 
     /**
@@ -1649,7 +1836,7 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
     @FromAnyThread
     protected void notifyChangedCamera(@NotNull final Vector3f cameraLocation, final float hRotation,
                                        final float vRotation, final float targetDistance) {
-        EXECUTOR_MANAGER.addFXTask(() -> getFileEditor().notifyChangedCamera(cameraLocation, hRotation, vRotation, targetDistance));
+        EXECUTOR_MANAGER.addFXUpdate(this, SLOT_CAMERA, () -> getFileEditor().notifyChangedCamera(cameraLocation, hRotation, vRotation, targetDistance));
     }
 
     /**
@@ -1666,6 +1853,20 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
         return editingMode;
     }
 
+    /**
+     * @param contactDirty true if the contact point with an edited model should be updated.
+     */
+    private void setContactDirty(final boolean contactDirty) {
+        this.contactDirty = contactDirty;
+    }
+
+    /**
+     * @return true if the contact point with an edited model should be updated.
+     */
+    private boolean isContactDirty() {
+        return contactDirty;
+    }
+
     /**
      * Change enabling of editing mode.
      *
@@ -1684,6 +1885,7 @@ public abstract class AbstractSceneEditorAppState<T extends AbstractSceneFileEdi
     @EditorThread
     private void changeEditingModeImpl(final boolean editingMode) {
         setEditingMode(editingMode);
+        setContactDirty(true);
 
         final Node cursorNode = getCursorNode();
         final Node markersNode = getMarkersNode();
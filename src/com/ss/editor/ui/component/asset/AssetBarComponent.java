@@ -1,14 +1,22 @@
 package com.ss.editor.ui.component.asset;
 
+import com.ss.editor.Messages;
 import com.ss.editor.ui.Icons;
 import com.ss.editor.ui.css.CSSClasses;
 import com.ss.editor.ui.css.CSSIds;
 import com.ss.editor.ui.event.FXEventManager;
 import com.ss.editor.ui.event.impl.RequestedRefreshAssetEvent;
 
+import org.jetbrains.annotations.NotNull;
+
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextField;
+import javafx.scene.control.Tooltip;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import rlib.ui.util.FXUtils;
 
 /**
@@ -20,6 +28,30 @@ public class AssetBarComponent extends HBox {
 
     private static final FXEventManager FX_EVENT_MANAGER = FXEventManager.getInstance();
 
+    /**
+     * The field to search assets.
+     */
+    @NotNull
+    private final TextField searchField;
+
+    /**
+     * The progress of generating previews.
+     */
+    @NotNull
+    private final ProgressBar previewsProgress;
+
+    /**
+     * The result of generating previews which isn't completed.
+     */
+    @NotNull
+    private final Label previewsResult;
+
+    /**
+     * The action to cancel generating previews.
+     */
+    @NotNull
+    private final Button cancelPreviewsAction;
+
     public AssetBarComponent() {
         setId(CSSIds.ASSET_COMPONENT_BAR);
 
@@ -28,7 +60,89 @@ public class AssetBarComponent extends HBox {
         refreshAction.setGraphic(new ImageView(Icons.REFRESH_18));
         refreshAction.setOnAction(event -> FX_EVENT_MANAGER.notify(new RequestedRefreshAssetEvent()));
 
+        searchField = new TextField();
+        searchField.setId(CSSIds.ASSET_COMPONENT_BAR_SEARCH_FIELD);
+        searchField.setPromptText(Messages.ASSET_COMPONENT_BAR_SEARCH);
+
+        previewsProgress = new ProgressBar();
+        previewsProgress.setId(CSSIds.ASSET_COMPONENT_BAR_PREVIEWS_PROGRESS);
+
+        previewsResult = new Label();
+        previewsResult.setId(CSSIds.ASSET_COMPONENT_BAR_PREVIEWS_RESULT);
+
+        cancelPreviewsAction = new Button();
+        cancelPreviewsAction.setId(CSSIds.ASSET_COMPONENT_BAR_BUTTON);
+        cancelPreviewsAction.setGraphic(new ImageView(Icons.CLOSE_18));
+        cancelPreviewsAction.setTooltip(new Tooltip(Messages.ASSET_COMPONENT_BAR_CANCEL_PREVIEWS));
+
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+
         FXUtils.addClassTo(refreshAction, CSSClasses.TOOLBAR_BUTTON);
+        FXUtils.addClassTo(cancelPreviewsAction, CSSClasses.TOOLBAR_BUTTON);
         FXUtils.addToPane(refreshAction, this);
+        FXUtils.addToPane(searchField, this);
+        FXUtils.addToPane(previewsProgress, this);
+        FXUtils.addToPane(previewsResult, this);
+        FXUtils.addToPane(cancelPreviewsAction, this);
+
+        hidePreviewsProgress();
+    }
+
+    /**
+     * Show progress of generating previews.
+     *
+     * @param progress the progress from 0 to 1 or {@link ProgressBar#INDETERMINATE_PROGRESS}.
+     */
+    public void showPreviewsProgress(final double progress) {
+        previewsProgress.setProgress(progress);
+        setPreviewsProgressVisible(true, false);
+    }
+
+    /**
+     * Show the result of generating previews instead of progress, it's hidden by the cancel action.
+     *
+     * @param result the message about the result.
+     */
+    public void showPreviewsResult(@NotNull final String result) {
+        previewsResult.setText(result);
+        previewsResult.setTooltip(new Tooltip(result));
+        cancelPreviewsAction.setDisable(false);
+        setPreviewsProgressVisible(false, true);
+    }
+
+    /**
+     * Hide progress of generating previews.
+     */
+    public void hidePreviewsProgress() {
+        cancelPreviewsAction.setDisable(false);
+        setPreviewsProgressVisible(false, false);
+    }
+
+    /**
+     * Change visibility of progress or result of generating previews.
+     */
+    private void setPreviewsProgressVisible(final boolean progress, final boolean result) {
+        previewsProgress.setVisible(progress);
+        previewsProgress.setManaged(progress);
+        previewsResult.setVisible(result);
+        previewsResult.setManaged(result);
+        cancelPreviewsAction.setVisible(progress || result);
+        cancelPreviewsAction.setManaged(progress || result);
+    }
+
+    /**
+     * @return the action to cancel generating previews.
+     */
+    @NotNull
+    public Button getCancelPreviewsAction() {
+        return cancelPreviewsAction;
+    }
+
+    /**
+     * @return the field to search assets.
+     */
+    @NotNull
+    public TextField getSearchField() {
+        return searchField;
     }
 }
@@ -1,31 +1,46 @@
 package com.ss.editor.ui.component.asset;
 
+import com.ss.editor.Messages;
 import com.ss.editor.config.EditorConfig;
+import com.ss.editor.file.cache.ThumbnailBatchJob;
 import com.ss.editor.manager.ExecutorManager;
+import com.ss.editor.manager.ResourceManager;
 import com.ss.editor.manager.WorkspaceManager;
 import com.ss.editor.model.workspace.Workspace;
 import com.ss.editor.ui.component.ScreenComponent;
 import com.ss.editor.ui.component.asset.tree.ResourceTree;
 import com.ss.editor.ui.component.asset.tree.resource.FolderElement;
 import com.ss.editor.ui.component.asset.tree.resource.ResourceElement;
-import com.ss.editor.ui.component.asset.tree.resource.ResourceElementFactory;
+import com.ss.editor.ui.css.CSSClasses;
 import com.ss.editor.ui.css.CSSIds;
 import com.ss.editor.ui.event.FXEventManager;
 import com.ss.editor.ui.event.impl.ChangedCurrentAssetFolderEvent;
-import com.ss.editor.ui.event.impl.CreatedFileEvent;
-import com.ss.editor.ui.event.impl.DeletedFileEvent;
+import com.ss.editor.ui.event.impl.ChangedFilesEvent;
 import com.ss.editor.ui.event.impl.RequestSelectFileEvent;
+import com.ss.editor.ui.event.impl.RequestedGeneratePreviewsEvent;
 import com.ss.editor.ui.event.impl.RequestedRefreshAssetEvent;
 import com.ss.editor.ui.util.UIUtils;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
 
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextField;
 import javafx.scene.control.TreeItem;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.VBox;
+import rlib.logging.Logger;
+import rlib.logging.LoggerManager;
 import rlib.ui.util.FXUtils;
+import rlib.util.StringUtils;
 import rlib.util.array.Array;
 import rlib.util.array.ArrayFactory;
 
@@ -36,10 +51,28 @@ import rlib.util.array.ArrayFactory;
  */
 public class AssetComponent extends VBox implements ScreenComponent {
 
+    @NotNull
+    private static final Logger LOGGER = LoggerManager.getLogger(AssetComponent.class);
+
     private static final String COMPONENT_ID = "AssetComponent";
 
     private static final Insets TREE_OFFSET = new Insets(0, 0, 0, 0);
 
+    /**
+     * The prefix of a query to search materials which use an asset.
+     */
+    private static final String REFERENCES_QUERY_PREFIX = "ref:";
+
+    /**
+     * The max count of shown search results.
+     */
+    private static final int SEARCH_LIMIT = 200;
+
+    /**
+     * The size of previews in the asset editor dialog.
+     */
+    private static final int PREVIEW_SIZE = 598;
+
     private static final ExecutorManager EXECUTOR_MANAGER = ExecutorManager.getInstance();
     private static final FXEventManager FX_EVENT_MANAGER = FXEventManager.getInstance();
 
@@ -59,6 +92,17 @@ public class AssetComponent extends VBox implements ScreenComponent {
      */
     private ResourceTree resourceTree;
 
+    /**
+     * The list of found assets.
+     */
+    private ListView<Path> searchResults;
+
+    /**
+     * The current job to generate previews.
+     */
+    @Nullable
+    private ThumbnailBatchJob previewsJob;
+
     /**
      * The flag for ignoring expand changes.
      */
@@ -70,69 +114,131 @@ public class AssetComponent extends VBox implements ScreenComponent {
         createComponents();
         FX_EVENT_MANAGER.addEventHandler(RequestedRefreshAssetEvent.EVENT_TYPE, event -> processRefresh());
         FX_EVENT_MANAGER.addEventHandler(ChangedCurrentAssetFolderEvent.EVENT_TYPE, event -> processChangeAsset());
-        FX_EVENT_MANAGER.addEventHandler(CreatedFileEvent.EVENT_TYPE, event -> processEvent((CreatedFileEvent) event));
         FX_EVENT_MANAGER.addEventHandler(RequestSelectFileEvent.EVENT_TYPE, event -> processEvent((RequestSelectFileEvent) event));
-        FX_EVENT_MANAGER.addEventHandler(DeletedFileEvent.EVENT_TYPE, event -> processEvent((DeletedFileEvent) event));
+        FX_EVENT_MANAGER.addEventHandler(ChangedFilesEvent.EVENT_TYPE, event -> processEvent((ChangedFilesEvent) event));
+        FX_EVENT_MANAGER.addEventHandler(RequestedGeneratePreviewsEvent.EVENT_TYPE, event -> processEvent((RequestedGeneratePreviewsEvent) event));
     }
 
     /**
-     * @return the list of waited files to select.
+     * Handle request for generating previews, the current job is cancelled.
      */
-    @NotNull
-    public Array<Path> getWaitedFilesToSelect() {
-        return waitedFilesToSelect;
+    private void processEvent(@NotNull final RequestedGeneratePreviewsEvent event) {
+
+        final Path folder = event.getFolder();
+
+        if (previewsJob != null) previewsJob.cancel();
+
+        LOGGER.info(this, "started generating previews of " + folder);
+
+        final ThumbnailBatchJob job = new ThumbnailBatchJob(folder, PREVIEW_SIZE, PREVIEW_SIZE,
+                this::notifyPreviewsProgress);
+
+        previewsJob = job;
+        job.start();
+
+        barComponent.showPreviewsProgress(ProgressBar.INDETERMINATE_PROGRESS);
     }
 
     /**
-     * Handle request for selection a file.
+     * Show progress of the job to generate previews.
      */
-    private void processEvent(@NotNull final RequestSelectFileEvent event) {
+    private void notifyPreviewsProgress(@NotNull final ThumbnailBatchJob job, final int processed, final int failed,
+                                        final int skipped, final int total, final boolean finished) {
 
-        final Path file = event.getFile();
+        if (finished) {
+            LOGGER.info(this, "finished generating previews of " + job.getFolder() + ": " + processed + " of " +
+                    total + " files, " + failed + " failed, " + skipped + " skipped.");
+        }
 
-        final ResourceTree resourceTree = getResourceTree();
-        final ResourceElement element = ResourceElementFactory.createFor(file);
-        final TreeItem<ResourceElement> treeItem = UIUtils.findItemForValue(resourceTree.getRoot(), element);
+        if (job != previewsJob) {
+            return;
+        } else if (finished) {
+
+            previewsJob = null;
+
+            if (skipped > 0) {
+                barComponent.showPreviewsResult(Messages.ASSET_COMPONENT_BAR_PREVIEWS_SKIPPED
+                        .replace("%processed%", String.valueOf(processed - failed))
+                        .replace("%total%", String.valueOf(total))
+                        .replace("%skipped%", String.valueOf(skipped)));
+            } else {
+                barComponent.hidePreviewsProgress();
+            }
 
-        if (treeItem == null) {
-            getWaitedFilesToSelect().add(file);
             return;
         }
 
-        resourceTree.expandTo(treeItem, true);
+        barComponent.showPreviewsProgress(total == 0 ? ProgressBar.INDETERMINATE_PROGRESS : (double) processed / total);
     }
 
     /**
-     * Handle a created file.
+     * Cancel the current job to generate previews, the progress is hidden when the job is finished. Without a job the
+     * result of the last job is hidden.
      */
-    private void processEvent(@NotNull final CreatedFileEvent event) {
-
-        final Path file = event.getFile();
+    private void cancelPreviews() {
 
-        final Array<Path> waitedFilesToSelect = getWaitedFilesToSelect();
-        final boolean waitedSelect = waitedFilesToSelect.contains(file);
+        if (previewsJob == null) {
+            barComponent.hidePreviewsProgress();
+            return;
+        }
 
-        final ResourceTree resourceTree = getResourceTree();
-        resourceTree.notifyCreated(file);
+        previewsJob.cancel();
+        barComponent.getCancelPreviewsAction().setDisable(true);
+    }
 
-        if (waitedSelect) waitedFilesToSelect.fastRemove(file);
-        if (waitedSelect || event.isNeedSelect()) resourceTree.expandTo(file, true);
+    /**
+     * @return the list of waited files to select.
+     */
+    @NotNull
+    public Array<Path> getWaitedFilesToSelect() {
+        return waitedFilesToSelect;
     }
 
     /**
-     * Handle a deleted file.
+     * Handle request for selection a file.
      */
-    private void processEvent(@NotNull final DeletedFileEvent event) {
+    private void processEvent(@NotNull final RequestSelectFileEvent event) {
 
         final Path file = event.getFile();
 
         final ResourceTree resourceTree = getResourceTree();
-        resourceTree.notifyDeleted(file);
+        resourceTree.findItem(file, treeItem -> {
+            if (treeItem == null) {
+                getWaitedFilesToSelect().add(file);
+            } else {
+                resourceTree.expandTo(treeItem, true);
+            }
+        });
+    }
+
+    /**
+     * Handle a batch of changed files.
+     */
+    private void processEvent(@NotNull final ChangedFilesEvent event) {
+
+        final Array<Path> created = event.getCreated();
+        final Array<Path> deleted = event.getDeleted();
+
+        final ResourceTree resourceTree = getResourceTree();
+        resourceTree.notifyChanged(event);
+
+        final Array<Path> waitedFilesToSelect = getWaitedFilesToSelect();
+
+        if (!waitedFilesToSelect.isEmpty()) {
+            for (final Path file : created) {
+                if (!waitedFilesToSelect.contains(file)) continue;
+                waitedFilesToSelect.fastRemove(file);
+                resourceTree.expandTo(file, true);
+            }
+        }
 
         final WorkspaceManager workspaceManager = WorkspaceManager.getInstance();
         final Workspace workspace = workspaceManager.getCurrentWorkspace();
         if (workspace == null) return;
-        workspace.removeEditorState(file);
+
+        for (final Path file : deleted) {
+            workspace.removeEditorState(file);
+        }
     }
 
     /**
@@ -167,13 +273,110 @@ public class AssetComponent extends VBox implements ScreenComponent {
         this.resourceTree.setExpandHandler(this::updateExpanded);
         this.resourceTree.setOnLoadHandler(this::handleTreeLoading);
 
-        //FIXME пока он не нужен
-        //FXUtils.addToPane(barComponent, this);
+        this.searchResults = new ListView<>();
+        this.searchResults.setCellFactory(param -> new AssetSearchResultCell());
+        this.searchResults.setOnMouseClicked(this::processClickOnResults);
+        this.searchResults.setOnKeyPressed(this::processKeyOnResults);
+
+        final TextField searchField = barComponent.getSearchField();
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> processSearch(newValue));
+        searchField.setOnKeyPressed(this::processKeyOnSearch);
+
+        barComponent.getCancelPreviewsAction().setOnAction(event -> cancelPreviews());
+
+        FXUtils.addClassTo(searchResults, CSSClasses.TRANSPARENT_LIST_VIEW);
+        FXUtils.addToPane(barComponent, this);
         FXUtils.addToPane(resourceTree, this);
-        FXUtils.bindFixedHeight(resourceTree, heightProperty().subtract(TREE_OFFSET.getTop()));
-        //FXUtils.bindFixedHeight(resourceTree, heightProperty().subtract(barComponent.heightProperty()));
+        FXUtils.addToPane(searchResults, this);
+        FXUtils.bindFixedHeight(resourceTree, heightProperty().subtract(barComponent.heightProperty()));
+        FXUtils.bindFixedHeight(searchResults, heightProperty().subtract(barComponent.heightProperty()));
 
         VBox.setMargin(resourceTree, TREE_OFFSET);
+
+        showSearchResults(false);
+    }
+
+    /**
+     * Search assets by the query and show results instead of the resource tree.
+     */
+    private void processSearch(@Nullable final String query) {
+
+        final String trimmed = query == null ? StringUtils.EMPTY : query.trim();
+
+        if (trimmed.isEmpty()) {
+            showSearchResults(false);
+            return;
+        }
+
+        final ResourceManager resourceManager = ResourceManager.getInstance();
+        final Array<Path> found;
+
+        if (trimmed.startsWith(REFERENCES_QUERY_PREFIX)) {
+            found = resourceManager.findMaterialsUsing(trimmed.substring(REFERENCES_QUERY_PREFIX.length()), SEARCH_LIMIT);
+        } else {
+            found = resourceManager.findFiles(trimmed, SEARCH_LIMIT);
+        }
+
+        final ObservableList<Path> items = searchResults.getItems();
+        items.setAll(found.toArray(new Path[found.size()]));
+
+        showSearchResults(true);
+    }
+
+    /**
+     * Switch between the resource tree and the search results.
+     */
+    private void showSearchResults(final boolean show) {
+        searchResults.setVisible(show);
+        searchResults.setManaged(show);
+        resourceTree.setVisible(!show);
+        resourceTree.setManaged(!show);
+    }
+
+    /**
+     * Handle pressing keys in the search field.
+     */
+    private void processKeyOnSearch(@NotNull final KeyEvent event) {
+
+        final ObservableList<Path> items = searchResults.getItems();
+
+        if (event.getCode() == KeyCode.ESCAPE) {
+            barComponent.getSearchField().clear();
+        } else if (event.getCode() == KeyCode.DOWN && !items.isEmpty()) {
+            searchResults.requestFocus();
+            searchResults.getSelectionModel().selectFirst();
+        } else if (event.getCode() == KeyCode.ENTER && !items.isEmpty()) {
+            revealFile(items.get(0));
+        }
+    }
+
+    /**
+     * Handle pressing keys in the search results.
+     */
+    private void processKeyOnResults(@NotNull final KeyEvent event) {
+        if (event.getCode() != KeyCode.ENTER) return;
+
+        final Path selected = searchResults.getSelectionModel().getSelectedItem();
+        if (selected != null) revealFile(selected);
+    }
+
+    /**
+     * Handle clicking on the search results.
+     */
+    private void processClickOnResults(@NotNull final MouseEvent event) {
+        if (event.getButton() != MouseButton.PRIMARY || event.getClickCount() < 2) return;
+
+        final Path selected = searchResults.getSelectionModel().getSelectedItem();
+        if (selected != null) revealFile(selected);
+    }
+
+    /**
+     * Close the search results and select the file in the resource tree.
+     */
+    private void revealFile(@NotNull final Path file) {
+        barComponent.getSearchField().clear();
+        resourceTree.expandTo(file, true);
+        resourceTree.requestFocus();
     }
 
     /**
@@ -0,0 +1,79 @@
+package com.ss.editor.ui.component.asset;
+
+import static com.ss.editor.manager.FileIconManager.DEFAULT_FILE_ICON_SIZE;
+import com.ss.editor.config.EditorConfig;
+import com.ss.editor.manager.FileIconManager;
+import com.ss.editor.ui.FXConstants;
+import com.ss.editor.ui.css.CSSClasses;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Tooltip;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import rlib.ui.util.FXUtils;
+import rlib.util.StringUtils;
+
+import java.nio.file.Path;
+
+/**
+ * The implementation of the cell for {@link ListView} for showing a found asset.
+ *
+ * @author JavaSaBr
+ */
+public class AssetSearchResultCell extends ListCell<Path> {
+
+    private static final FileIconManager ICON_MANAGER = FileIconManager.getInstance();
+
+    /**
+     * The tooltip with the relative path of the asset.
+     */
+    @NotNull
+    private final Tooltip tooltip;
+
+    AssetSearchResultCell() {
+        this.tooltip = new Tooltip();
+        setMinHeight(FXConstants.CELL_SIZE);
+        FXUtils.addClassTo(this, CSSClasses.TRANSPARENT_LIST_CELL);
+        FXUtils.addClassTo(this, CSSClasses.SPECIAL_FONT_13);
+    }
+
+    @Override
+    protected void updateItem(@Nullable final Path item, final boolean empty) {
+        super.updateItem(item, empty);
+
+        if (item == null || empty) {
+            setText(StringUtils.EMPTY);
+            setGraphic(null);
+            setTooltip(null);
+            return;
+        }
+
+        final EditorConfig editorConfig = EditorConfig.getInstance();
+        final Path currentAsset = editorConfig.getCurrentAsset();
+
+        setText(item.getFileName().toString());
+        setGraphic(new ImageView(getIcon(item)));
+
+        if (currentAsset != null && item.startsWith(currentAsset)) {
+            tooltip.setText(currentAsset.relativize(item).toString());
+        } else {
+            tooltip.setText(item.toString());
+        }
+
+        setTooltip(tooltip);
+    }
+
+    /**
+     * Get an icon of the found asset, the icon is updated when the icon of an unknown extension is resolved.
+     * The search index contains only files of the asset index, so the asset isn't checked for being a folder.
+     */
+    @NotNull
+    private Image getIcon(@NotNull final Path item) {
+        return ICON_MANAGER.getIcon(item, false, DEFAULT_FILE_ICON_SIZE, () -> {
+            if (getItem() != item) return;
+            setGraphic(new ImageView(ICON_MANAGER.getIcon(item, false, DEFAULT_FILE_ICON_SIZE, null)));
+        });
+    }
+}
@@ -4,6 +4,7 @@ import static com.ss.editor.ui.component.asset.tree.resource.ResourceElementFact
 import static com.ss.editor.ui.util.UIUtils.findItemForValue;
 import static java.util.Objects.requireNonNull;
 import com.ss.editor.config.EditorConfig;
+import com.ss.editor.executor.TaskPriority;
 import com.ss.editor.file.converter.FileConverterDescription;
 import com.ss.editor.file.converter.FileConverterRegistry;
 import com.ss.editor.manager.ExecutorManager;
@@ -14,9 +15,9 @@ import com.ss.editor.ui.component.asset.tree.resource.FolderElement;
 import com.ss.editor.ui.component.asset.tree.resource.ResourceElement;
 import com.ss.editor.ui.component.asset.tree.resource.ResourceLoadingElement;
 import com.ss.editor.ui.css.CSSClasses;
+import com.ss.editor.ui.event.impl.ChangedFilesEvent;
 import com.ss.editor.ui.util.UIUtils;
 import com.ss.editor.util.EditorUtil;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -34,7 +35,15 @@ import rlib.util.array.ArrayFactory;
 import rlib.util.array.ConcurrentArray;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -78,11 +87,31 @@ public class ResourceTree extends TreeView<ResourceElement> {
         return NAME_COMPARATOR.compare(firstElement, secondElement);
     };
 
+    private static final Comparator<Path> FOLDER_COMPARATOR = (first, second) -> {
+
+        final int firstCount = first.getNameCount();
+        final int secondCount = second.getNameCount();
+
+        if (firstCount != secondCount) return firstCount - secondCount;
+
+        return first.compareTo(second);
+    };
+
     private static int getLevel(final ResourceElement element) {
         if (element instanceof FolderElement) return 1;
         return 2;
     }
 
+    /**
+     * The count of children in the first chunk of a lazy loaded folder.
+     */
+    private static final int FIRST_CHUNK_SIZE = 64;
+
+    /**
+     * The count of children in next chunks of a lazy loaded folder.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
     private static final Consumer<ResourceElement> DEFAULT_FUNCTION = element -> {
         final OpenFileAction action = new OpenFileAction(element);
         final EventHandler<ActionEvent> onAction = action.getOnAction();
@@ -101,6 +130,24 @@ public class ResourceTree extends TreeView<ResourceElement> {
     @NotNull
     private final ConcurrentArray<ResourceElement> selectedElements;
 
+    /**
+     * The set of folder items which are loading their children in background.
+     */
+    @NotNull
+    private final Set<TreeItem<ResourceElement>> loadingItems;
+
+    /**
+     * The tasks which are waiting for the next loaded chunk of a folder item.
+     */
+    @NotNull
+    private final Map<TreeItem<ResourceElement>, Array<Runnable>> loadingWaiters;
+
+    /**
+     * The handler of expanding folder items.
+     */
+    @NotNull
+    private final EventHandler<TreeItem.TreeModificationEvent<ResourceElement>> expandItemHandler;
+
     /**
      * The open resource function.
      */
@@ -152,10 +199,14 @@ public class ResourceTree extends TreeView<ResourceElement> {
         this.expandedElements = ArrayFactory.newConcurrentAtomicARSWLockArray(ResourceElement.class);
         this.selectedElements = ArrayFactory.newConcurrentAtomicARSWLockArray(ResourceElement.class);
         this.extensionFilter = ArrayFactory.newArray(String.class, 0);
+        this.loadingItems = new HashSet<>();
+        this.loadingWaiters = new HashMap<>();
+        this.expandItemHandler = event -> processExpand(event.getTreeItem());
 
         FXUtils.addClassTo(this, CSSClasses.TRANSPARENT_TREE_VIEW);
 
         expandedItemCountProperty().addListener((observable, oldValue, newValue) -> processChangedExpands(newValue));
+        rootProperty().addListener((observable, oldValue, newValue) -> processChangedRoot(oldValue, newValue));
 
         setFixedCellSize(FXConstants.CELL_SIZE);
         setCellFactory(param -> new ResourceTreeCell());
@@ -173,6 +224,158 @@ public class ResourceTree extends TreeView<ResourceElement> {
         expandHandler.accept(newValue.intValue(), this);
     }
 
+    /**
+     * Handle changed root to listen expanding its folders.
+     */
+    private void processChangedRoot(@Nullable final TreeItem<ResourceElement> oldRoot,
+                                    @Nullable final TreeItem<ResourceElement> newRoot) {
+
+        loadingItems.clear();
+        loadingWaiters.clear();
+
+        if (oldRoot != null) oldRoot.removeEventHandler(TreeItem.branchExpandedEvent(), expandItemHandler);
+        if (newRoot != null) newRoot.addEventHandler(TreeItem.branchExpandedEvent(), expandItemHandler);
+    }
+
+    /**
+     * Handle expanding a folder item to start loading its children.
+     */
+    private void processExpand(@NotNull final TreeItem<ResourceElement> item) {
+        if (isLazyLoading()) startLoading(item);
+    }
+
+    /**
+     * Start loading children of the not loaded folder item in background.
+     *
+     * @return true if children of the item are loading now.
+     */
+    private boolean startLoading(@NotNull final TreeItem<ResourceElement> item) {
+        if (loadingItems.contains(item)) return true;
+        if (!isNotLoaded(item)) return false;
+
+        final ResourceElement element = item.getValue();
+        if (!(element instanceof FolderElement)) return false;
+
+        loadingItems.add(item);
+
+        EXECUTOR_MANAGER.addBackgroundTask(() -> startBackgroundLoading(item, (FolderElement) element),
+                TaskPriority.INTERACTIVE);
+
+        return true;
+    }
+
+    /**
+     * Start the background process of loading children of the folder item. The children are
+     * sent to the tree by chunks, so the first items are shown before the folder is listed.
+     */
+    private void startBackgroundLoading(@NotNull final TreeItem<ResourceElement> item,
+                                        @NotNull final FolderElement element) {
+
+        final Array<String> extensionFilter = getExtensionFilter();
+        final boolean onlyFolders = isOnlyFolders();
+
+        element.getChildren(extensionFilter, onlyFolders, FIRST_CHUNK_SIZE, CHUNK_SIZE, chunk -> {
+            final Array<TreeItem<ResourceElement>> items = createItems(chunk);
+            EXECUTOR_MANAGER.addFXTask(() -> {
+                if (!loadingItems.contains(item)) return;
+                mergeItems(item, items);
+                notifyWaiters(item);
+            });
+        });
+
+        EXECUTOR_MANAGER.addFXTask(() -> finishLoading(item));
+    }
+
+    /**
+     * Finish loading children of the folder item.
+     */
+    private void finishLoading(@NotNull final TreeItem<ResourceElement> item) {
+        if (!loadingItems.remove(item)) return;
+        if (isNotLoaded(item)) item.getChildren().clear();
+        notifyWaiters(item);
+    }
+
+    /**
+     * Run the tasks which are waiting for loaded children of the folder item.
+     */
+    private void notifyWaiters(@NotNull final TreeItem<ResourceElement> item) {
+        final Array<Runnable> waiters = loadingWaiters.remove(item);
+        if (waiters != null) waiters.forEach(Runnable::run);
+    }
+
+    /**
+     * Load children of the folder item in the current thread, it's used only in background.
+     */
+    private void loadChildren(@NotNull final TreeItem<ResourceElement> item) {
+
+        final ResourceElement element = item.getValue();
+        final Array<ResourceElement> children = element.getChildren(getExtensionFilter(), isOnlyFolders());
+
+        if (children == null) {
+            item.getChildren().clear();
+            return;
+        }
+
+        mergeItems(item, createItems(children));
+    }
+
+    /**
+     * Create tree items for the elements.
+     */
+    @NotNull
+    private Array<TreeItem<ResourceElement>> createItems(@NotNull final Array<ResourceElement> elements) {
+
+        final Array<TreeItem<ResourceElement>> items = ArrayFactory.newArray(TreeItem.class, elements.size());
+
+        for (final ResourceElement element : elements) {
+            items.add(createItem(element));
+        }
+
+        return items;
+    }
+
+    /**
+     * Create a tree item for the element. In the lazy mode a folder item gets the loading
+     * placeholder without listing the folder, the placeholder is removed if the folder is empty
+     * after loading. Otherwise the item is filled completely.
+     */
+    @NotNull
+    private TreeItem<ResourceElement> createItem(@NotNull final ResourceElement element) {
+
+        final TreeItem<ResourceElement> item = new TreeItem<>(element);
+
+        if (!isLazyLoading()) {
+            fill(item);
+        } else if (element instanceof FolderElement) {
+            item.getChildren().add(new TreeItem<>(ResourceLoadingElement.getInstance()));
+        }
+
+        return item;
+    }
+
+    /**
+     * Check the folder item has only the loading placeholder.
+     */
+    private static boolean isNotLoaded(@NotNull final TreeItem<ResourceElement> item) {
+        final ObservableList<TreeItem<ResourceElement>> children = item.getChildren();
+        return children.size() == 1 && children.get(0).getValue() instanceof ResourceLoadingElement;
+    }
+
+    /**
+     * Check the folder item can't get new children now, they will be listed during expanding the item.
+     */
+    private boolean isWaitingLoading(@NotNull final TreeItem<ResourceElement> item) {
+        return isNotLoaded(item) && !loadingItems.contains(item);
+    }
+
+    /**
+     * @return true if children of folders are loaded only when they are expanded. The tree with
+     * filtered extensions is filled completely to remove folders without suitable files.
+     */
+    private boolean isLazyLoading() {
+        return getExtensionFilter().isEmpty() || isOnlyFolders();
+    }
+
     /**
      * @param expandHandler the handler for listening expand items.
      */
@@ -282,6 +485,11 @@ public class ResourceTree extends TreeView<ResourceElement> {
                     items.add(new ConvertFileAction(element, descriptions));
                 }
             }
+        } else if (element instanceof FolderElement) {
+
+            if(actionTester == null || actionTester.test(GeneratePreviewsAction.class)) {
+                items.add(new GeneratePreviewsAction(element));
+            }
         }
 
         if (EditorUtil.hasFileInClipboard()) items.add(new PasteFileAction(element));
@@ -427,7 +635,7 @@ public class ResourceTree extends TreeView<ResourceElement> {
         final TreeItem<ResourceElement> newRoot = new TreeItem<>(rootElement);
         newRoot.setExpanded(true);
 
-        fill(newRoot);
+        fillRoot(newRoot);
 
         final Array<String> extensionFilter = getExtensionFilter();
         if (!extensionFilter.isEmpty() && !isOnlyFolders()) cleanup(newRoot);
@@ -449,7 +657,7 @@ public class ResourceTree extends TreeView<ResourceElement> {
         final TreeItem<ResourceElement> newRoot = new TreeItem<>(rootElement);
         newRoot.setExpanded(true);
 
-        fill(newRoot);
+        fillRoot(newRoot);
 
         final ConcurrentArray<ResourceElement> expandedElements = getExpandedElements();
         final long stamp = expandedElements.writeLock();
@@ -461,6 +669,8 @@ public class ResourceTree extends TreeView<ResourceElement> {
                 final TreeItem<ResourceElement> item = findItemForValue(newRoot, element);
                 if (item == null) return;
 
+                if (isLazyLoading() && isNotLoaded(item)) loadChildren(item);
+
                 item.setExpanded(true);
             });
 
@@ -505,6 +715,17 @@ public class ResourceTree extends TreeView<ResourceElement> {
         });
     }
 
+    /**
+     * Fill the root item, in the lazy mode only the first level is loaded.
+     */
+    private void fillRoot(@NotNull final TreeItem<ResourceElement> root) {
+        if (isLazyLoading()) {
+            loadChildren(root);
+        } else {
+            fill(root);
+        }
+    }
+
     /**
      * Fill the node.
      */
@@ -512,11 +733,12 @@ public class ResourceTree extends TreeView<ResourceElement> {
 
         final ResourceElement element = treeItem.getValue();
         final Array<String> extensionFilter = getExtensionFilter();
-        if (!element.hasChildren(extensionFilter, isOnlyFolders())) return;
+
+        final Array<ResourceElement> children = element.getChildren(extensionFilter, isOnlyFolders());
+        if (children == null || children.isEmpty()) return;
 
         final ObservableList<TreeItem<ResourceElement>> items = treeItem.getChildren();
 
-        final Array<ResourceElement> children = element.getChildren(extensionFilter, isOnlyFolders());
         children.sort(NAME_COMPARATOR);
         children.forEach(child -> items.add(new TreeItem<>(child)));
 
@@ -533,43 +755,194 @@ public class ResourceTree extends TreeView<ResourceElement> {
         final EditorConfig editorConfig = EditorConfig.getInstance();
         final Path currentAsset = editorConfig.getCurrentAsset();
         final Path folder = file.getParent();
-        if (!folder.startsWith(currentAsset)) return;
-
-        final ResourceElement element = createFor(folder);
+        if (currentAsset == null || !folder.startsWith(currentAsset)) return;
 
-        TreeItem<ResourceElement> folderItem = findItemForValue(getRoot(), element);
+        TreeItem<ResourceElement> folderItem = findItem(folder);
 
         if (folderItem == null) {
             notifyCreated(folder);
-            folderItem = findItemForValue(getRoot(), folder);
+            folderItem = findItem(folder);
+        }
+
+        if (folderItem == null || isWaitingLoading(folderItem)) return;
+
+        final Array<TreeItem<ResourceElement>> newItems = ArrayFactory.newArray(TreeItem.class, 1);
+        newItems.add(createItem(createFor(file)));
+
+        mergeItems(folderItem, newItems);
+    }
+
+    /**
+     * Apply a batch of created and deleted files. Changes are grouped by their parent folders
+     * to update each folder only once: removed items are dropped in one pass and new items are
+     * inserted by one sorted merge instead of sorting the folder after each file. Items are found
+     * by paths and new items are created by the types from the event, so the files aren't checked.
+     *
+     * @param event the event with created and deleted files.
+     */
+    public void notifyChanged(@NotNull final ChangedFilesEvent event) {
+        if (getRoot() == null) return;
+
+        final Array<Path> deleted = event.getDeleted();
+        final Array<Path> created = event.getCreated();
+
+        if (!deleted.isEmpty()) {
+            final Map<Path, Array<Path>> groups = groupByFolder(deleted);
+            groups.forEach(this::removeChildren);
+        }
+
+        if (!created.isEmpty()) {
+            final Map<Path, Array<Path>> groups = groupByFolder(created);
+            groups.forEach((folder, files) -> mergeChildren(folder, files, event));
+        }
+    }
+
+    /**
+     * Group the files by their parent folders, parent folders go before their sub folders.
+     */
+    @NotNull
+    private static Map<Path, Array<Path>> groupByFolder(@NotNull final Array<Path> files) {
+
+        final Map<Path, Array<Path>> groups = new TreeMap<>(FOLDER_COMPARATOR);
+
+        for (final Path file : files) {
+            final Path folder = file.getParent();
+            if (folder == null) continue;
+            groups.computeIfAbsent(folder, key -> ArrayFactory.newArray(Path.class)).add(file);
         }
 
+        return groups;
+    }
+
+    /**
+     * Remove the deleted files from the folder.
+     */
+    private void removeChildren(@NotNull final Path folder, @NotNull final Array<Path> files) {
+
+        final TreeItem<ResourceElement> folderItem = findItem(folder);
         if (folderItem == null) return;
 
-        final TreeItem<ResourceElement> newItem = new TreeItem<>(createFor(file));
+        final Set<Path> deleted = new HashSet<>();
 
-        fill(newItem);
+        for (final Path file : files) {
+            deleted.add(file);
+        }
 
         final ObservableList<TreeItem<ResourceElement>> children = folderItem.getChildren();
-        children.add(newItem);
+        children.removeIf(item -> deleted.contains(item.getValue().getFile()));
+    }
 
-        FXCollections.sort(children, ITEM_COMPARATOR);
+    /**
+     * Insert the created files to the folder using one sorted merge with the current children.
+     */
+    private void mergeChildren(@NotNull final Path folder, @NotNull final Array<Path> files,
+                               @NotNull final ChangedFilesEvent event) {
+
+        final EditorConfig editorConfig = EditorConfig.getInstance();
+        final Path currentAsset = editorConfig.getCurrentAsset();
+        if (currentAsset == null || !folder.startsWith(currentAsset)) return;
+
+        TreeItem<ResourceElement> folderItem = findItem(folder);
+
+        if (folderItem == null) {
+            notifyCreated(folder);
+            folderItem = findItem(folder);
+        }
+
+        if (folderItem == null || isWaitingLoading(folderItem)) return;
+
+        final Array<TreeItem<ResourceElement>> newItems = ArrayFactory.newArray(TreeItem.class, files.size());
+
+        for (final Path file : files) {
+            newItems.add(createItem(createFor(file, event.isDirectory(file))));
+        }
+
+        mergeItems(folderItem, newItems);
     }
 
     /**
-     * Handle a removed file.
+     * Insert the new items to the folder item using one sorted merge with the current children.
+     * The loading placeholder is removed and items which are already in the folder are skipped.
      */
-    public void notifyDeleted(@NotNull final Path file) {
+    private void mergeItems(@NotNull final TreeItem<ResourceElement> folderItem,
+                            @NotNull final Array<TreeItem<ResourceElement>> items) {
+
+        final ObservableList<TreeItem<ResourceElement>> children = folderItem.getChildren();
 
-        final ResourceElement element = createFor(file);
-        final TreeItem<ResourceElement> treeItem = findItemForValue(getRoot(), element);
-        if (treeItem == null) return;
+        if (isNotLoaded(folderItem)) {
+            children.clear();
+        }
+
+        final Set<ResourceElement> exists = new HashSet<>();
+
+        for (final TreeItem<ResourceElement> child : children) {
+            exists.add(child.getValue());
+        }
 
-        final TreeItem<ResourceElement> parent = treeItem.getParent();
-        if (parent == null) return;
+        final Array<TreeItem<ResourceElement>> newItems = ArrayFactory.newArray(TreeItem.class, items.size());
 
-        final ObservableList<TreeItem<ResourceElement>> children = parent.getChildren();
-        children.remove(treeItem);
+        for (final TreeItem<ResourceElement> item : items) {
+            if (exists.add(item.getValue())) newItems.add(item);
+        }
+
+        if (newItems.isEmpty()) {
+            return;
+        } else if (newItems.size() == 1) {
+            final TreeItem<ResourceElement> newItem = newItems.first();
+            children.add(findInsertIndex(children, newItem), newItem);
+            return;
+        }
+
+        newItems.sort(ITEM_COMPARATOR);
+
+        final MultipleSelectionModel<TreeItem<ResourceElement>> selectionModel = getSelectionModel();
+        final TreeItem<ResourceElement> selectedItem = selectionModel.getSelectedItem();
+
+        final List<TreeItem<ResourceElement>> result = new ArrayList<>(children.size() + newItems.size());
+        final TreeItem<ResourceElement>[] toInsert = newItems.array();
+
+        int index = 0;
+
+        for (final TreeItem<ResourceElement> child : children) {
+            while (index < newItems.size() && ITEM_COMPARATOR.compare(toInsert[index], child) < 0) {
+                result.add(toInsert[index++]);
+            }
+            result.add(child);
+        }
+
+        while (index < newItems.size()) {
+            result.add(toInsert[index++]);
+        }
+
+        children.setAll(result);
+
+        if (selectedItem != null && selectedItem.getParent() == folderItem) {
+            selectionModel.select(selectedItem);
+        }
+    }
+
+    /**
+     * Find an index to insert the new item to the sorted children.
+     */
+    private static int findInsertIndex(@NotNull final ObservableList<TreeItem<ResourceElement>> children,
+                                       @NotNull final TreeItem<ResourceElement> newItem) {
+
+        int low = 0;
+        int high = children.size() - 1;
+
+        while (low <= high) {
+
+            final int middle = (low + high) >>> 1;
+            final int result = ITEM_COMPARATOR.compare(children.get(middle), newItem);
+
+            if (result < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
     }
 
     /**
@@ -592,6 +965,8 @@ public class ResourceTree extends TreeView<ResourceElement> {
         final ObservableList<TreeItem<ResourceElement>> prevParentChildren = prevParentItem.getChildren();
         prevParentChildren.remove(prevItem);
 
+        if (isWaitingLoading(newParentItem)) return;
+
         prevItem.setValue(createFor(newFile));
 
         final Array<TreeItem<ResourceElement>> children = ArrayFactory.newArray(TreeItem.class);
@@ -609,10 +984,10 @@ public class ResourceTree extends TreeView<ResourceElement> {
             child.setValue(createFor(resultFile));
         });
 
-        final ObservableList<TreeItem<ResourceElement>> newParentChildren = newParentItem.getChildren();
-        newParentChildren.add(prevItem);
+        final Array<TreeItem<ResourceElement>> newItems = ArrayFactory.newArray(TreeItem.class, 1);
+        newItems.add(prevItem);
 
-        FXCollections.sort(newParentChildren, ITEM_COMPARATOR);
+        mergeItems(newParentItem, newItems);
     }
 
     /**
@@ -737,15 +1112,119 @@ public class ResourceTree extends TreeView<ResourceElement> {
     }
 
     /**
-     * Mark the element as expanded.
+     * Find a loaded tree item for the file by the path from the root item.
+     *
+     * @param file the file.
+     * @return the tree item or null.
      */
-    public void markExpand(@NotNull final Path file) {
+    @Nullable
+    public TreeItem<ResourceElement> findItem(@NotNull final Path file) {
+
+        final TreeItem<ResourceElement> root = getRoot();
+        if (root == null) return null;
 
-        final ResourceElement element = createFor(file);
-        final TreeItem<ResourceElement> treeItem = findItemForValue(getRoot(), element);
-        if (treeItem == null) return;
+        final Path rootFile = root.getValue().getFile();
+        if (!file.startsWith(rootFile)) return null;
 
-        treeItem.setExpanded(true);
+        final Array<Path> files = ArrayFactory.newArray(Path.class);
+
+        for (Path current = file; !current.equals(rootFile); current = current.getParent()) {
+            files.add(current);
+        }
+
+        TreeItem<ResourceElement> current = root;
+
+        for (int i = files.size() - 1; i >= 0 && current != null; i--) {
+            current = findChild(current, files.get(i));
+        }
+
+        return current;
+    }
+
+    /**
+     * Find a tree item for the file. In the lazy mode not loaded folders on the way to the file
+     * are loaded in background and the handler is called when a chunk with the file is loaded.
+     *
+     * @param file    the file.
+     * @param handler the handler of the found tree item or null if the file isn't in the tree.
+     */
+    public void findItem(@NotNull final Path file, @NotNull final Consumer<TreeItem<ResourceElement>> handler) {
+
+        final TreeItem<ResourceElement> root = getRoot();
+        final TreeItem<ResourceElement> treeItem = findItem(file);
+
+        if (root == null || treeItem != null || !isLazyLoading()) {
+            handler.accept(treeItem);
+            return;
+        }
+
+        final Path rootFile = root.getValue().getFile();
+
+        if (!file.startsWith(rootFile)) {
+            handler.accept(null);
+            return;
+        }
+
+        final Array<Path> files = ArrayFactory.newArray(Path.class);
+
+        for (Path current = file; !current.equals(rootFile); current = current.getParent()) {
+            files.add(current);
+        }
+
+        resolvePath(root, files, files.size() - 1, handler);
+    }
+
+    /**
+     * Go down from the folder item by the files of the path. If the next file isn't loaded yet,
+     * the folder item is loaded in background and resolving continues after each its loaded chunk.
+     */
+    private void resolvePath(@NotNull final TreeItem<ResourceElement> folderItem, @NotNull final Array<Path> files,
+                             final int index, @NotNull final Consumer<TreeItem<ResourceElement>> handler) {
+
+        TreeItem<ResourceElement> current = folderItem;
+
+        for (int i = index; i >= 0 && current != null; i--) {
+
+            final TreeItem<ResourceElement> child = findChild(current, files.get(i));
+
+            if (child == null && startLoading(current)) {
+
+                final TreeItem<ResourceElement> waitedItem = current;
+                final int waitedIndex = i;
+
+                final Array<Runnable> waiters = loadingWaiters.computeIfAbsent(current,
+                        key -> ArrayFactory.newArray(Runnable.class));
+                waiters.add(() -> resolvePath(waitedItem, files, waitedIndex, handler));
+                return;
+            }
+
+            current = child;
+        }
+
+        handler.accept(current);
+    }
+
+    /**
+     * Find a child item of the folder item for the file.
+     */
+    @Nullable
+    private static TreeItem<ResourceElement> findChild(@NotNull final TreeItem<ResourceElement> folderItem,
+                                                       @NotNull final Path file) {
+
+        for (final TreeItem<ResourceElement> child : folderItem.getChildren()) {
+            if (file.equals(child.getValue().getFile())) return child;
+        }
+
+        return null;
+    }
+
+    /**
+     * Mark the element as expanded.
+     */
+    public void markExpand(@NotNull final Path file) {
+        findItem(file, treeItem -> {
+            if (treeItem != null) treeItem.setExpanded(true);
+        });
     }
 
     /**
@@ -766,21 +1245,9 @@ public class ResourceTree extends TreeView<ResourceElement> {
      * Expand tree to the file.
      */
     public void expandTo(@NotNull final Path file, final boolean needSelect) {
-
-        final ResourceElement element = createFor(file);
-        final TreeItem<ResourceElement> treeItem = findItemForValue(getRoot(), element);
-        if (treeItem == null) return;
-
-        TreeItem<ResourceElement> parent = treeItem;
-
-        while (parent != null) {
-            parent.setExpanded(true);
-            parent = parent.getParent();
-        }
-
-        if (needSelect) {
-            scrollToAndSelect(treeItem);
-        }
+        findItem(file, treeItem -> {
+            if (treeItem != null) expandTo(treeItem, needSelect);
+        });
     }
 
     private void scrollToAndSelect(@NotNull final TreeItem<ResourceElement> treeItem) {
@@ -13,6 +13,7 @@ import com.ss.editor.ui.css.CSSClasses;
 import javafx.geometry.Side;
 import javafx.scene.Cursor;
 import javafx.scene.control.*;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.*;
 import rlib.ui.util.FXUtils;
@@ -123,7 +124,7 @@ public class ResourceTreeCell extends TreeCell<ResourceElement> {
         final Path fileName = file.getFileName();
 
         setText(fileName.toString());
-        setGraphic(new ImageView(ICON_MANAGER.getIcon(file, DEFAULT_FILE_ICON_SIZE)));
+        setGraphic(new ImageView(getIcon(item)));
 
         final EditorConfig editorConfig = EditorConfig.getInstance();
         final Path currentAsset = editorConfig.getCurrentAsset();
@@ -137,6 +138,17 @@ public class ResourceTreeCell extends TreeCell<ResourceElement> {
         }
     }
 
+    /**
+     * Get an icon of the resource, the icon is updated when the icon of an unknown extension is resolved.
+     */
+    private Image getIcon(final ResourceElement item) {
+        final boolean folder = item instanceof FolderElement;
+        return ICON_MANAGER.getIcon(item.getFile(), folder, DEFAULT_FILE_ICON_SIZE, () -> {
+            if (getItem() != item) return;
+            setGraphic(new ImageView(ICON_MANAGER.getIcon(item.getFile(), folder, DEFAULT_FILE_ICON_SIZE, null)));
+        });
+    }
+
     /**
      * Update the tooltip.
      */
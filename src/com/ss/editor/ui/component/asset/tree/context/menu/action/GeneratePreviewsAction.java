@@ -0,0 +1,42 @@
+package com.ss.editor.ui.component.asset.tree.context.menu.action;
+
+import com.ss.editor.Messages;
+import com.ss.editor.ui.Icons;
+import com.ss.editor.ui.component.asset.tree.resource.ResourceElement;
+import com.ss.editor.ui.event.FXEventManager;
+import com.ss.editor.ui.event.impl.RequestedGeneratePreviewsEvent;
+import javafx.scene.control.MenuItem;
+import javafx.scene.image.ImageView;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The action to render previews of all JME files of a folder in background.
+ *
+ * @author JavaSaBr
+ */
+public class GeneratePreviewsAction extends MenuItem {
+
+    private static final FXEventManager FX_EVENT_MANAGER = FXEventManager.getInstance();
+
+    /**
+     * The action element.
+     */
+    @NotNull
+    private final ResourceElement element;
+
+    public GeneratePreviewsAction(@NotNull final ResourceElement element) {
+        this.element = element;
+        setText(Messages.ASSET_COMPONENT_RESOURCE_TREE_CONTEXT_MENU_GENERATE_PREVIEWS);
+        setOnAction(event -> processGenerate());
+        setGraphic(new ImageView(Icons.GENERATE_16));
+    }
+
+    /**
+     * Request generating previews of the folder.
+     */
+    private void processGenerate() {
+        final RequestedGeneratePreviewsEvent event = new RequestedGeneratePreviewsEvent();
+        event.setFolder(element.getFile());
+        FX_EVENT_MANAGER.notify(event);
+    }
+}
@@ -2,6 +2,7 @@ package com.ss.editor.ui.component.asset.tree.resource;
 
 import static com.ss.editor.ui.component.asset.tree.resource.ResourceElementFactory.createFor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import rlib.util.FileUtils;
 import rlib.util.array.Array;
 import rlib.util.array.ArrayFactory;
@@ -10,6 +11,8 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Consumer;
 
 /**
  * The presentation of a folder.
@@ -22,42 +25,108 @@ public class FolderElement extends ResourceElement {
         super(file);
     }
 
+    @Nullable
     @Override
     public Array<ResourceElement> getChildren(@NotNull final Array<String> extensionFilter, final boolean onlyFolders) {
-        if (!Files.isDirectory(file)) return null;
 
         final Array<ResourceElement> elements = ArrayFactory.newArray(ResourceElement.class);
 
-        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(file)) {
-            stream.forEach(child -> {
+        final boolean result = getChildren(extensionFilter, onlyFolders, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                elements::addAll);
+
+        return result ? elements : null;
+    }
 
-                final String fileName = child.getFileName().toString();
+    /**
+     * Stream children of this folder by chunks. The folder is listed by one directory stream,
+     * attributes of each child are read only once.
+     *
+     * @param extensionFilter the list of filtered extensions.
+     * @param onlyFolders     true if need to list only folders.
+     * @param firstChunkSize  the size of the first chunk.
+     * @param chunkSize       the size of next chunks.
+     * @param consumer        the consumer of chunks.
+     * @return false if this folder can't be listed.
+     */
+    public boolean getChildren(@NotNull final Array<String> extensionFilter, final boolean onlyFolders,
+                               final int firstChunkSize, final int chunkSize,
+                               @NotNull final Consumer<Array<ResourceElement>> consumer) {
 
-                if (fileName.startsWith(".")) {
-                    return;
-                } else if (Files.isDirectory(child)) {
-                    elements.add(createFor(child));
-                    return;
-                }
+        if (!Files.isDirectory(file)) return false;
+
+        Array<ResourceElement> chunk = ArrayFactory.newArray(ResourceElement.class);
+        int limit = firstChunkSize;
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(file)) {
+            for (final Path child : stream) {
 
-                if (onlyFolders) return;
+                final BasicFileAttributes attributes = readAttributes(child);
+                if (attributes == null || !isAccepted(child, attributes, extensionFilter, onlyFolders)) continue;
 
-                final String extension = FileUtils.getExtension(child);
+                chunk.add(createFor(child, attributes));
 
-                if (extensionFilter.isEmpty() || extensionFilter.contains(extension)) {
-                    elements.add(createFor(child));
+                if (chunk.size() >= limit) {
+                    consumer.accept(chunk);
+                    chunk = ArrayFactory.newArray(ResourceElement.class);
+                    limit = chunkSize;
                 }
-            });
+            }
 
         } catch (final IOException e) {
             LOGGER.warning(this, e);
         }
 
-        return elements;
+        if (!chunk.isEmpty()) consumer.accept(chunk);
+        return true;
     }
 
     @Override
     public boolean hasChildren(@NotNull final Array<String> extensionFilter, final boolean onlyFolders) {
-        return true;
+        if (!Files.isDirectory(file)) return false;
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(file)) {
+            for (final Path child : stream) {
+                final BasicFileAttributes attributes = readAttributes(child);
+                if (attributes != null && isAccepted(child, attributes, extensionFilter, onlyFolders)) return true;
+            }
+        } catch (final IOException e) {
+            LOGGER.warning(this, e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Read basic attributes of the file.
+     *
+     * @return the attributes or null if the file isn't available.
+     */
+    @Nullable
+    private static BasicFileAttributes readAttributes(@NotNull final Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check the child should be presented in this folder.
+     */
+    private static boolean isAccepted(@NotNull final Path child, @NotNull final BasicFileAttributes attributes,
+                                      @NotNull final Array<String> extensionFilter, final boolean onlyFolders) {
+
+        final String fileName = child.getFileName().toString();
+
+        if (fileName.startsWith(".")) {
+            return false;
+        } else if (attributes.isDirectory()) {
+            return true;
+        } else if (onlyFolders) {
+            return false;
+        }
+
+        final String extension = FileUtils.getExtension(child);
+        return extensionFilter.isEmpty() || extensionFilter.contains(extension);
     }
 }
@@ -2,6 +2,7 @@ package com.ss.editor.ui.component.asset.tree.resource;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
  * Реализация фабрики элементов ресурсов.
@@ -13,4 +14,12 @@ public class ResourceElementFactory {
     public static ResourceElement createFor(final Path file) {
         return Files.isDirectory(file) ? new FolderElement(file) : new FileElement(file);
     }
+
+    public static ResourceElement createFor(final Path file, final BasicFileAttributes attributes) {
+        return attributes.isDirectory() ? new FolderElement(file) : new FileElement(file);
+    }
+
+    public static ResourceElement createFor(final Path file, final boolean directory) {
+        return directory ? new FolderElement(file) : new FileElement(file);
+    }
 }
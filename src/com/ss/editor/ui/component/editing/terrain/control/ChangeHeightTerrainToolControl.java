@@ -6,15 +6,17 @@ import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.terrain.Terrain;
+import com.jme3.terrain.geomipmap.TerrainQuad;
+import com.ss.editor.model.tool.TerrainHeights;
 import com.ss.editor.model.undo.editor.ModelChangeConsumer;
 import com.ss.editor.ui.component.editing.terrain.TerrainEditingComponent;
 import com.ss.editor.ui.control.model.property.operation.ModelPropertyOperation;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import rlib.util.dictionary.DictionaryFactory;
-import rlib.util.dictionary.ObjectDictionary;
+import rlib.util.dictionary.IntegerDictionary;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -24,97 +26,206 @@ import java.util.List;
  */
 public class ChangeHeightTerrainToolControl extends TerrainToolControl {
 
-    private static class HeightPoint {
-
-        private final float x;
-        private final float y;
+    /**
+     * The changed heights of a terrain.
+     */
+    private static class HeightChanges {
+
+        /**
+         * The indexes of points in the heightmap.
+         */
+        @NotNull
+        private final int[] indexes;
+
+        /**
+         * The heights of the points.
+         */
+        @NotNull
+        private final float[] heights;
+
+        private HeightChanges(@NotNull final int[] indexes, @NotNull final float[] heights) {
+            this.indexes = indexes;
+            this.heights = heights;
+        }
+    }
 
-        private final int xIndex;
-        private final int yIndex;
+    private static final int TILE_SHIFT = 5;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE_SIZE - 1;
 
-        public HeightPoint(final float x, final float y, final int xIndex, final int yIndex) {
-            this.x = x;
-            this.y = y;
-            this.xIndex = xIndex;
-            this.yIndex = yIndex;
-        }
+    /**
+     * The original heights of tiles of the heightmap which were touched by the current change.
+     */
+    @NotNull
+    private final IntegerDictionary<float[]> originalTiles;
 
-        @Override
-        public boolean equals(final Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            final HeightPoint that = (HeightPoint) o;
-            if (xIndex != that.xIndex) return false;
-            return yIndex == that.yIndex;
-        }
+    /**
+     * The point to read heights.
+     */
+    @NotNull
+    private final Vector2f heightPoint;
 
-        @Override
-        public int hashCode() {
-            int result = xIndex;
-            result = 31 * result + yIndex;
-            return result;
-        }
-    }
+    /**
+     * The indexes of changed points which are waiting to be applied to not prepared terrains.
+     */
+    @NotNull
+    private int[] pendingIndexes;
 
     /**
-     * The table of original heights.
+     * The heights of changed points which are waiting to be applied to not prepared terrains.
      */
     @NotNull
-    private final ObjectDictionary<HeightPoint, Float> originalHeight;
+    private float[] pendingHeights;
+
+    /**
+     * The count of changed points which are waiting to be applied.
+     */
+    private int pendingCount;
+
+    /**
+     * The index of the last touched tile.
+     */
+    private int lastTile;
 
     /**
-     * The copy of an original terrain.
+     * True if heights of the edited terrain are changed through {@link #heights}.
      */
-    @Nullable
-    private Spatial copiedTerrain;
+    private boolean prepared;
 
     public ChangeHeightTerrainToolControl(@NotNull final TerrainEditingComponent component) {
         super(component);
-        this.originalHeight = DictionaryFactory.newObjectDictionary();
+        this.originalTiles = DictionaryFactory.newIntegerDictionary();
+        this.heightPoint = new Vector2f();
+        this.pendingIndexes = new int[0];
+        this.pendingHeights = new float[0];
+        this.lastTile = -1;
     }
 
     /**
-     * @return the table of original heights.
+     * @return the original heights of touched tiles.
      */
     @NotNull
-    private ObjectDictionary<HeightPoint, Float> getOriginalHeight() {
-        return originalHeight;
+    private IntegerDictionary<float[]> getOriginalTiles() {
+        return originalTiles;
     }
 
     /**
      * Start making changes.
      */
     protected void startChange() {
+        getOriginalTiles().clear();
+        lastTile = -1;
+        pendingCount = 0;
+
+        final Spatial editedModel = getEditedModel();
+        prepared = editedModel instanceof TerrainQuad && heights.prepare((TerrainQuad) editedModel);
+    }
+
+    /**
+     * Get an index of the heightmap point.
+     *
+     * @param x the x coordinate relative to the terrain location.
+     * @param z the z coordinate relative to the terrain location.
+     * @return the index of the point or -1 if the point is out of the terrain.
+     */
+    protected int getHeightIndex(final float x, final float z) {
+        if (prepared) return heights.getIndex(x, z);
+
+        final Terrain terrain = (Terrain) requireNonNull(getEditedModel());
+        final Vector3f scale = ((Node) terrain).getWorldScale();
+
+        final int totalSize = terrain.getTerrainSize();
+        final int halfSize = totalSize / 2;
+        final int column = Math.round((x / scale.x) + halfSize);
+        final int row = Math.round((z / scale.z) + halfSize);
 
-        final ObjectDictionary<HeightPoint, Float> originalHeight = getOriginalHeight();
-        originalHeight.clear();
+        if (column < 0 || row < 0 || column >= totalSize || row >= totalSize) return -1;
 
-        copiedTerrain = requireNonNull(getEditedModel()).clone();
+        return row * totalSize + column;
     }
 
     /**
-     * Notify about wanting to change height of a point.
+     * Get a raw height of the heightmap point.
      *
-     * @param point the point.
+     * @param index the index of the point.
+     * @return the height or NaN if the index is -1.
      */
-    protected void change(@NotNull final Vector2f point) {
+    protected float getHeight(final int index) {
+        if (index < 0) return Float.NaN;
 
-        final Terrain terrain = (Terrain) requireNonNull(copiedTerrain);
-        final Node terrainNode = (Node) requireNonNull(getEditedModel());
-        final Vector3f scale = terrainNode.getWorldScale();
+        final Terrain terrain = (Terrain) requireNonNull(getEditedModel());
+        final int totalSize = terrain.getTerrainSize();
 
-        final int halfSize = terrain.getTerrainSize() / 2;
-        final int x = Math.round((point.x / scale.x) + halfSize);
-        final int z = Math.round((point.y / scale.z) + halfSize);
+        return readHeight(terrain, index % totalSize, index / totalSize);
+    }
 
-        final HeightPoint heightPoint = new HeightPoint(point.getX(), point.getY(), x, z);
+    /**
+     * Change a raw height of the heightmap point, the first change of a tile of the heightmap copies original heights
+     * of the tile. Meshes of the terrain are updated by {@link #updateHeights()}.
+     *
+     * @param index  the index of the point.
+     * @param height the new height.
+     */
+    protected void setHeight(final int index, final float height) {
+        if (index < 0) return;
 
-        final ObjectDictionary<HeightPoint, Float> originalHeight = getOriginalHeight();
-        if(originalHeight.containsKey(heightPoint)) return;
+        change(index);
 
-        final float height = terrain.getHeightmapHeight(point);
+        if (prepared) {
+            heights.setHeight(index, height);
+            return;
+        }
 
-        originalHeight.put(heightPoint, height);
+        if (pendingCount == pendingIndexes.length) {
+            final int length = Math.max(pendingCount * 2, TILE_SIZE);
+            pendingIndexes = Arrays.copyOf(pendingIndexes, length);
+            pendingHeights = Arrays.copyOf(pendingHeights, length);
+        }
+
+        pendingIndexes[pendingCount] = index;
+        pendingHeights[pendingCount] = height;
+        pendingCount++;
+    }
+
+    /**
+     * Update meshes of the terrain by changed heights.
+     */
+    protected void updateHeights() {
+
+        if (prepared) {
+            heights.updateMeshes();
+            return;
+        }
+
+        if (pendingCount == 0) return;
+
+        final Terrain terrain = (Terrain) requireNonNull(getEditedModel());
+        applyHeights(terrain, pendingIndexes, pendingHeights, pendingCount);
+        pendingCount = 0;
+    }
+
+    /**
+     * Notify about wanting to change height of a point. The first change of a tile of the heightmap copies
+     * original heights of the tile.
+     *
+     * @param index the index of the point.
+     */
+    private void change(final int index) {
+
+        final Terrain terrain = (Terrain) requireNonNull(getEditedModel());
+        final int totalSize = terrain.getTerrainSize();
+        final int x = index % totalSize;
+        final int z = index / totalSize;
+
+        final int tile = (z >> TILE_SHIFT) * getTilesInRow(totalSize) + (x >> TILE_SHIFT);
+        if (tile == lastTile) return;
+
+        lastTile = tile;
+
+        final IntegerDictionary<float[]> originalTiles = getOriginalTiles();
+        if (originalTiles.containsKey(tile)) return;
+
+        originalTiles.put(tile, readTile(terrain, x & ~TILE_MASK, z & ~TILE_MASK));
     }
 
     /**
@@ -123,38 +234,161 @@ public class ChangeHeightTerrainToolControl extends TerrainToolControl {
     protected void commitChanges() {
 
         final Terrain terrain = (Terrain) requireNonNull(getEditedModel());
-        final ObjectDictionary<Vector2f, Float> oldValues = DictionaryFactory.newObjectDictionary();
-        final ObjectDictionary<Vector2f, Float> newValues = DictionaryFactory.newObjectDictionary();
-
-        final ObjectDictionary<HeightPoint, Float> originalHeight = getOriginalHeight();
-        originalHeight.forEach((heightPoint, height) -> oldValues.put(new Vector2f(heightPoint.x, heightPoint.y), height));
-        originalHeight.forEach((heightPoint, value) -> {
-            final Vector2f point = new Vector2f(heightPoint.x, heightPoint.y);
-            newValues.put(point, terrain.getHeightmapHeight(point));
-        });
+        final IntegerDictionary<float[]> originalTiles = getOriginalTiles();
+
+        final int totalSize = terrain.getTerrainSize();
+        final int tilesInRow = getTilesInRow(totalSize);
+        final int maxChanges = originalTiles.size() * TILE_SIZE * TILE_SIZE;
+
+        final int[] indexes = new int[maxChanges];
+        final float[] oldHeights = new float[maxChanges];
+        final float[] newHeights = new float[maxChanges];
+        final int[] count = {0};
+
+        originalTiles.forEach((tile, original) -> {
 
-        final ModelPropertyOperation<Terrain, ObjectDictionary<Vector2f, Float>> operation =
-                new ModelPropertyOperation<>(terrain, "Heightmap", newValues, oldValues);
+            final int startX = (tile % tilesInRow) << TILE_SHIFT;
+            final int startZ = (tile / tilesInRow) << TILE_SHIFT;
+            final float[] current = readTile(terrain, startX, startZ);
 
-        operation.setApplyHandler((toChange, heightMap) -> {
+            for (int i = 0; i < original.length; i++) {
 
-            final List<Vector2f> points = new ArrayList<>(heightMap.size());
-            final List<Float> heights = new ArrayList<>(heightMap.size());
+                // NaN heights are out of the terrain
+                if (Float.isNaN(original[i]) || original[i] == current[i]) continue;
 
-            heightMap.forEach((point, height) -> {
-                points.add(point);
-                heights.add(height);
-            });
+                final int x = startX + (i & TILE_MASK);
+                final int z = startZ + (i >> TILE_SHIFT);
+                final int index = count[0]++;
 
-            toChange.setHeight(points, heights);
-            ((Node) toChange).updateModelBound();
+                indexes[index] = z * totalSize + x;
+                oldHeights[index] = original[i];
+                newHeights[index] = current[i];
+            }
         });
 
-        originalHeight.clear();
+        originalTiles.clear();
+        lastTile = -1;
+
+        final int changes = count[0];
+        if (changes == 0) return;
+
+        final int[] changedIndexes = Arrays.copyOf(indexes, changes);
+        final HeightChanges newValue = new HeightChanges(changedIndexes, Arrays.copyOf(newHeights, changes));
+        final HeightChanges oldValue = new HeightChanges(changedIndexes, Arrays.copyOf(oldHeights, changes));
+
+        final ModelPropertyOperation<Terrain, HeightChanges> operation =
+                new ModelPropertyOperation<>(terrain, "Heightmap", newValue, oldValue);
+
+        operation.setApplyHandler(ChangeHeightTerrainToolControl::applyChanges);
 
         final ModelChangeConsumer changeConsumer = getChangeConsumer();
         changeConsumer.execute(operation);
+    }
+
+    /**
+     * Apply the height changes to the terrain.
+     */
+    private static void applyChanges(@NotNull final Terrain terrain, @NotNull final HeightChanges changes) {
+
+        final int[] indexes = changes.indexes;
+        final float[] heights = changes.heights;
+
+        if (terrain instanceof TerrainQuad) {
+
+            final TerrainHeights terrainHeights = new TerrainHeights();
+
+            if (terrainHeights.prepare((TerrainQuad) terrain)) {
+                terrainHeights.setHeights(indexes, heights, indexes.length);
+                ((Node) terrain).updateModelBound();
+                return;
+            }
+        }
+
+        applyHeights(terrain, indexes, heights, indexes.length);
+        ((Node) terrain).updateModelBound();
+    }
+
+    /**
+     * Apply heights to the terrain through {@link Terrain#setHeight(List, List)}.
+     *
+     * @param terrain the terrain.
+     * @param indexes the indexes of points.
+     * @param heights the heights of points.
+     * @param count   the count of points.
+     */
+    private static void applyHeights(@NotNull final Terrain terrain, @NotNull final int[] indexes,
+                                     @NotNull final float[] heights, final int count) {
+
+        final Vector3f scale = ((Node) terrain).getWorldScale();
+        final int totalSize = terrain.getTerrainSize();
+        final int halfSize = totalSize / 2;
+
+        final List<Vector2f> points = new ArrayList<>(count);
+        final List<Float> values = new ArrayList<>(count);
 
-        copiedTerrain = null;
+        for (int i = 0; i < count; i++) {
+            final int x = indexes[i] % totalSize;
+            final int z = indexes[i] / totalSize;
+            points.add(new Vector2f((x - halfSize) * scale.x, (z - halfSize) * scale.z));
+            values.add(heights[i]);
+        }
+
+        terrain.setHeight(points, values);
+    }
+
+    /**
+     * Read heights of the tile of the heightmap, points out of the terrain are NaN.
+     *
+     * @param terrain the terrain.
+     * @param startX  the first column of the tile.
+     * @param startZ  the first row of the tile.
+     * @return the heights of the tile.
+     */
+    @NotNull
+    private float[] readTile(@NotNull final Terrain terrain, final int startX, final int startZ) {
+
+        final int totalSize = terrain.getTerrainSize();
+        final float[] heights = new float[TILE_SIZE * TILE_SIZE];
+
+        for (int i = 0; i < heights.length; i++) {
+
+            final int x = startX + (i & TILE_MASK);
+            final int z = startZ + (i >> TILE_SHIFT);
+
+            if (x >= totalSize || z >= totalSize) {
+                heights[i] = Float.NaN;
+                continue;
+            }
+
+            heights[i] = readHeight(terrain, x, z);
+        }
+
+        return heights;
+    }
+
+    /**
+     * Read a raw height of the heightmap point.
+     *
+     * @param terrain the terrain.
+     * @param x       the column of the point.
+     * @param z       the row of the point.
+     * @return the height.
+     */
+    private float readHeight(@NotNull final Terrain terrain, final int x, final int z) {
+        if (prepared) return heights.getHeight(x, z);
+
+        final Vector3f scale = ((Node) terrain).getWorldScale();
+        final int halfSize = terrain.getTerrainSize() / 2;
+
+        heightPoint.set((x - halfSize) * scale.x, (z - halfSize) * scale.z);
+
+        return terrain.getHeightmapHeight(heightPoint);
+    }
+
+    /**
+     * @return the count of tiles in a row of the heightmap.
+     */
+    private static int getTilesInRow(final int totalSize) {
+        return (totalSize + TILE_MASK) >> TILE_SHIFT;
     }
 }
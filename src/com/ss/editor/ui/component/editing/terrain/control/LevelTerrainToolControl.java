@@ -9,15 +9,11 @@ import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.shape.Sphere;
-import com.jme3.terrain.Terrain;
 import com.ss.editor.control.editing.EditingInput;
 import com.ss.editor.ui.component.editing.terrain.TerrainEditingComponent;
 import com.ss.editor.util.LocalObjects;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The implementation of terrain tool to change height by level.
  *
@@ -156,10 +152,8 @@ public class LevelTerrainToolControl extends ChangeHeightTerrainToolControl {
         final Vector3f worldTranslation = terrainNode.getWorldTranslation();
         final Vector3f localScale = terrainNode.getLocalScale();
         final Vector3f localPoint = contactPoint.subtract(worldTranslation, local.nextVector());
-        final Vector2f terrainLoc = local.nextVector2f();
         final Vector2f effectPoint = local.nextVector2f();
 
-        final Terrain terrain = (Terrain) terrainNode;
         final Geometry brush = getBrush();
 
         final float brushSize = getBrushSize();
@@ -174,9 +168,6 @@ public class LevelTerrainToolControl extends ChangeHeightTerrainToolControl {
         final float xStepAmount = localScale.getX();
         final float zStepAmount = localScale.getZ();
 
-        final List<Vector2f> locs = new ArrayList<>();
-        final List<Float> heights = new ArrayList<>();
-
         for (int z = -radiusStepsZ; z < radiusStepsZ; z++) {
             for (int x = -radiusStepsX; x < radiusStepsX; x++) {
 
@@ -189,14 +180,14 @@ public class LevelTerrainToolControl extends ChangeHeightTerrainToolControl {
                     continue;
                 }
 
-                terrainLoc.set(locX, locZ);
+                final int index = getHeightIndex(locX, locZ);
+                if (index < 0) continue;
 
                 // adjust height based on radius of the tool
-                final float currentHeight = terrain.getHeightmapHeight(terrainLoc) * localScale.getY();
+                final float currentHeight = getHeight(index) * localScale.getY();
 
                 if (isPrecision()) {
-                    locs.add(terrainLoc.clone());
-                    heights.add(desiredHeight / localScale.getY());
+                    setHeight(index, desiredHeight / localScale.getY());
                 } else {
 
                     float epsilon = 0.0001f * brushPower; // rounding error for snapping
@@ -216,17 +207,14 @@ public class LevelTerrainToolControl extends ChangeHeightTerrainToolControl {
                     }
 
                     if (!floatEquals(adj, 0, 0.001f)) {
-                        locs.add(terrainLoc.clone());
-                        heights.add(currentHeight + adj);
+                        setHeight(index, currentHeight + adj);
                     }
                 }
             }
         }
 
-        locs.forEach(this::change);
-
         // do the actual height adjustment
-        terrain.setHeight(locs, heights);
+        updateHeights();
 
         terrainNode.updateModelBound(); // or else we won't collide with it where we just edited
     }
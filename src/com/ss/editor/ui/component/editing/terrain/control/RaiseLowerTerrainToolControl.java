@@ -8,15 +8,11 @@ import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
-import com.jme3.terrain.Terrain;
 import com.ss.editor.control.editing.EditingInput;
 import com.ss.editor.ui.component.editing.terrain.TerrainEditingComponent;
 import com.ss.editor.util.LocalObjects;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The implementation of terrain tool to raise/lowe heights.
  *
@@ -89,10 +85,8 @@ public class RaiseLowerTerrainToolControl extends ChangeHeightTerrainToolControl
         final Vector3f worldTranslation = terrainNode.getWorldTranslation();
         final Vector3f localScale = terrainNode.getLocalScale();
         final Vector3f localPoint = contactPoint.subtract(worldTranslation, local.nextVector());
-        final Vector2f terrainLoc = local.nextVector2f();
         final Vector2f effectPoint = local.nextVector2f();
 
-        final Terrain terrain = (Terrain) terrainNode;
         final Geometry brush = getBrush();
 
         final float brushSize = getBrushSize();
@@ -104,9 +98,6 @@ public class RaiseLowerTerrainToolControl extends ChangeHeightTerrainToolControl
         final float xStepAmount = localScale.getX();
         final float zStepAmount = localScale.getZ();
 
-        final List<Vector2f> locs = new ArrayList<>();
-        final List<Float> heights = new ArrayList<>();
-
         for (int z = -radiusStepsZ; z < radiusStepsZ; z++) {
             for (int x = -radiusStepsX; x < radiusStepsX; x++) {
 
@@ -119,22 +110,20 @@ public class RaiseLowerTerrainToolControl extends ChangeHeightTerrainToolControl
                     continue;
                 }
 
-                terrainLoc.set(locX, locZ);
+                final int index = getHeightIndex(locX, locZ);
+                if (index < 0) continue;
 
-                final float currentHeight = terrain.getHeightmapHeight(terrainLoc) * localScale.getY();
+                final float currentHeight = getHeight(index) * localScale.getY();
                 // adjust height based on radius of the tool
                 final float newHeight = calculateHeight(brushSize, brushPower, effectPoint.getX(), effectPoint.getY());
 
                 // increase the height
-                locs.add(terrainLoc.clone());
-                heights.add(currentHeight + newHeight);
+                setHeight(index, currentHeight + newHeight);
             }
         }
 
-        locs.forEach(this::change);
-
         // do the actual height adjustment
-        terrain.setHeight(locs, heights);
+        updateHeights();
         terrainNode.updateModelBound(); // or else we won't collide with it where we just edited
     }
 }
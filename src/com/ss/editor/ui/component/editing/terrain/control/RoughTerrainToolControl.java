@@ -9,7 +9,6 @@ import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
-import com.jme3.terrain.Terrain;
 import com.jme3.terrain.noise.Basis;
 import com.jme3.terrain.noise.ShaderUtils;
 import com.jme3.terrain.noise.basis.FilteredBasis;
@@ -25,9 +24,6 @@ import com.ss.editor.util.LocalObjects;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The implementation of terrain tool to make rough heights.
  *
@@ -105,7 +101,6 @@ public class RoughTerrainToolControl extends ChangeHeightTerrainToolControl {
         final Vector2f terrainLoc = local.nextVector2f();
         final Vector2f effectPoint = local.nextVector2f();
 
-        final Terrain terrain = (Terrain) terrainNode;
         final Geometry brush = getBrush();
 
         final float brushSize = getBrushSize();
@@ -120,9 +115,6 @@ public class RoughTerrainToolControl extends ChangeHeightTerrainToolControl {
         final float xStepAmount = localScale.getX();
         final float zStepAmount = localScale.getZ();
 
-        final List<Vector2f> locs = new ArrayList<>();
-        final List<Float> heights = new ArrayList<>();
-
         for (int z = -radiusStepsZ, yfb = 0; z < radiusStepsZ; z++, yfb++) {
             for (int x = -radiusStepsX, xfb = 0; x < radiusStepsX; x++, xfb++) {
 
@@ -137,21 +129,19 @@ public class RoughTerrainToolControl extends ChangeHeightTerrainToolControl {
 
                 final float height = buffer.get(yfb * twoBrushSize + xfb);
 
-                terrainLoc.set(locX, locZ);
+                final int index = getHeightIndex(locX, locZ);
+                if (index < 0) continue;
 
-                final float currentHeight = terrain.getHeightmapHeight(terrainLoc) * localScale.getY();
+                final float currentHeight = getHeight(index) * localScale.getY();
                 // see if it is in the radius of the tool
                 final float newHeight = calculateHeight(brushSize, height, effectPoint);
 
-                locs.add(terrainLoc.clone());
-                heights.add(currentHeight + newHeight);
+                setHeight(index, currentHeight + newHeight);
             }
         }
 
-        locs.forEach(this::change);
-
         // do the actual height adjustment
-        terrain.setHeight(locs, heights);
+        updateHeights();
         terrainNode.updateModelBound(); // or else we won't collide with it where we just edited
     }
 
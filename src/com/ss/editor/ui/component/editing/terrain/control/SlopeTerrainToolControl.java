@@ -12,15 +12,11 @@ import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.shape.Line;
 import com.jme3.scene.shape.Sphere;
-import com.jme3.terrain.Terrain;
 import com.ss.editor.control.editing.EditingInput;
 import com.ss.editor.ui.component.editing.terrain.TerrainEditingComponent;
 import com.ss.editor.util.LocalObjects;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The implementation of terrain tool to make slopes.
  *
@@ -219,11 +215,8 @@ public class SlopeTerrainToolControl extends ChangeHeightTerrainToolControl {
         final Vector3f firstSide = local.nextVector();
         final Vector3f secondSide = local.nextVector();
         final Vector3f targetPoint = local.nextVector();
-        final Vector2f terrainLoc = local.nextVector2f();
         final Vector2f effectPoint = local.nextVector2f();
 
-        final Terrain terrain = (Terrain) terrainNode;
-
         final Geometry brush = getBrush();
 
         final float brushSize = getBrushSize();
@@ -241,9 +234,6 @@ public class SlopeTerrainToolControl extends ChangeHeightTerrainToolControl {
         final Plane secondPlane = local.nextPlane();
         secondPlane.setOriginNormal(higher, normal);
 
-        final List<Vector2f> locs = new ArrayList<>();
-        final List<Float> heights = new ArrayList<>();
-
         for (int z = -radiusStepsZ; z < radiusStepsZ; z++) {
             for (int x = -radiusStepsX; x < radiusStepsX; x++) {
 
@@ -256,10 +246,11 @@ public class SlopeTerrainToolControl extends ChangeHeightTerrainToolControl {
                     continue;
                 }
 
-                terrainLoc.set(locX, locZ);
+                final int index = getHeightIndex(locX, locZ);
+                if (index < 0) continue;
 
                 // adjust height based on radius of the tool
-                float currentHeight = terrain.getHeightmapHeight(terrainLoc) * localScale.getY();
+                float currentHeight = getHeight(index) * localScale.getY();
 
                 targetPoint.set(locX, currentHeight, locZ)
                         .subtractLocal(lower)
@@ -307,21 +298,17 @@ public class SlopeTerrainToolControl extends ChangeHeightTerrainToolControl {
                     }
 
                     if (!floatEquals(adj, 0, 0.001f)) {
-                        locs.add(terrainLoc.clone());
-                        heights.add(currentHeight + adj);
+                        setHeight(index, currentHeight + adj);
                     }
 
                 } else {
-                    locs.add(terrainLoc.clone());
-                    heights.add(desiredHeight / localScale.getY());
+                    setHeight(index, desiredHeight / localScale.getY());
                 }
             }
         }
 
-        locs.forEach(this::change);
-
         // do the actual height adjustment
-        terrain.setHeight(locs, heights);
+        updateHeights();
         terrainNode.updateModelBound(); // or else we won't collide with it where we just edited
     }
 
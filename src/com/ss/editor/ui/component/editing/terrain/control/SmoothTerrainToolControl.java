@@ -9,15 +9,11 @@ import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
-import com.jme3.terrain.Terrain;
 import com.ss.editor.control.editing.EditingInput;
 import com.ss.editor.ui.component.editing.terrain.TerrainEditingComponent;
 import com.ss.editor.util.LocalObjects;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The implementation of terrain tool to smooth heights.
  *
@@ -86,14 +82,8 @@ public class SmoothTerrainToolControl extends ChangeHeightTerrainToolControl {
         final Vector3f localScale = terrainNode.getLocalScale();
         final Vector3f worldTranslation = terrainNode.getWorldTranslation();
         final Vector3f localPoint = contactPoint.subtract(worldTranslation, local.nextVector());
-        final Vector2f terrainLoc = local.nextVector2f();
-        final Vector2f terrainLocLeft = local.nextVector2f();
-        final Vector2f terrainLocRight = local.nextVector2f();
-        final Vector2f terrainLocUp = local.nextVector2f();
-        final Vector2f terrainLocDown = local.nextVector2f();
         final Vector2f effectPoint = local.nextVector2f();
 
-        final Terrain terrain = (Terrain) terrainNode;
         final Geometry brush = getBrush();
 
         final float brushSize = getBrushSize();
@@ -105,9 +95,6 @@ public class SmoothTerrainToolControl extends ChangeHeightTerrainToolControl {
         final float xStepAmount = localScale.getX();
         final float zStepAmount = localScale.getZ();
 
-        final List<Vector2f> locs = new ArrayList<>();
-        final List<Float> heights = new ArrayList<>();
-
         for (int z = -radiusStepsZ; z < radiusStepsZ; z++) {
             for (int x = -radiusStepsX; x < radiusStepsX; x++) {
 
@@ -120,18 +107,15 @@ public class SmoothTerrainToolControl extends ChangeHeightTerrainToolControl {
                     continue;
                 }
 
-                terrainLoc.set(locX, locZ);
-                terrainLocLeft.set(terrainLoc.getX() - 1, terrainLoc.getY());
-                terrainLocRight.set(terrainLoc.getX() + 1, terrainLoc.getY());
-                terrainLocUp.set(terrainLoc.getX(), terrainLoc.getY() + 1);
-                terrainLocDown.set(terrainLoc.getX(), terrainLoc.getY() - 1);
+                final int index = getHeightIndex(locX, locZ);
+                if (index < 0) continue;
 
                 // adjust height based on radius of the tool
-                final float center = terrain.getHeightmapHeight(terrainLoc);
-                final float left = terrain.getHeightmapHeight(terrainLocLeft);
-                final float right = terrain.getHeightmapHeight(terrainLocRight);
-                final float up = terrain.getHeightmapHeight(terrainLocUp);
-                final float down = terrain.getHeightmapHeight(terrainLocDown);
+                final float center = getHeight(index);
+                final float left = getHeight(getHeightIndex(locX - 1, locZ));
+                final float right = getHeight(getHeightIndex(locX + 1, locZ));
+                final float up = getHeight(getHeightIndex(locX, locZ + 1));
+                final float down = getHeight(getHeightIndex(locX, locZ - 1));
 
                 int count = 1;
 
@@ -160,12 +144,11 @@ public class SmoothTerrainToolControl extends ChangeHeightTerrainToolControl {
                 float diff = amount - center;
                 diff *= min(brushPower, 2F);
 
-                terrain.setHeight(terrainLoc, center + diff);
-                locs.add(terrainLoc.clone());
+                setHeight(index, center + diff);
             }
         }
 
-        locs.forEach(this::change);
+        updateHeights();
 
         terrainNode.updateModelBound(); // or else we won't collide with it where we just edited
     }
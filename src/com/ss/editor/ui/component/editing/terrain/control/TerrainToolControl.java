@@ -1,13 +1,19 @@
 package com.ss.editor.ui.component.editing.terrain.control;
 
 import com.jme3.math.ColorRGBA;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.shape.Sphere;
+import com.jme3.terrain.geomipmap.TerrainQuad;
 import com.ss.editor.control.editing.impl.AbstractEditingControl;
+import com.ss.editor.model.tool.TerrainHeights;
+import com.ss.editor.model.tool.TerrainRaycaster;
 import com.ss.editor.model.undo.editor.ModelChangeConsumer;
 import com.ss.editor.ui.component.editing.terrain.TerrainEditingComponent;
+import com.ss.editor.util.EditingUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -30,6 +36,18 @@ public class TerrainToolControl extends AbstractEditingControl {
     @NotNull
     protected final Geometry brush;
 
+    /**
+     * The heights of the edited terrain.
+     */
+    @NotNull
+    protected final TerrainHeights heights;
+
+    /**
+     * The ray caster of the edited terrain.
+     */
+    @NotNull
+    protected final TerrainRaycaster raycaster;
+
     /**
      * The brush size.
      */
@@ -44,6 +62,8 @@ public class TerrainToolControl extends AbstractEditingControl {
         this.component = component;
         this.brush = new Geometry("Brush", new Sphere(8, 8, 1));
         this.brush.setMaterial(createWireframeMaterial(getBrushColor()));
+        this.heights = new TerrainHeights();
+        this.raycaster = new TerrainRaycaster(heights);
     }
 
     /**
@@ -72,6 +92,19 @@ public class TerrainToolControl extends AbstractEditingControl {
         return component.getEditedObject();
     }
 
+    @Override
+    public boolean findContactPoint(@NotNull final Ray ray, @NotNull final Vector3f store) {
+
+        final Spatial editedModel = getEditedModel();
+        if (editedModel == null) return false;
+
+        if (editedModel instanceof TerrainQuad && raycaster.prepare((TerrainQuad) editedModel)) {
+            return raycaster.intersect((TerrainQuad) editedModel, ray, store);
+        }
+
+        return EditingUtils.findContactPoint(editedModel, ray, store);
+    }
+
     /**
      * @return the change consumer.
      */
@@ -5,6 +5,7 @@ import com.jme3.app.state.AppStateManager;
 import com.jme3x.jfx.injfx.processor.FrameTransferSceneProcessor;
 import com.ss.editor.Editor;
 import com.ss.editor.JFXApplication;
+import com.ss.editor.executor.TaskPriority;
 import com.ss.editor.file.converter.FileConverter;
 import com.ss.editor.file.converter.FileConverterDescription;
 import com.ss.editor.file.converter.FileConverterRegistry;
@@ -363,7 +364,7 @@ public class EditorAreaComponent extends TabPane implements ScreenComponent {
         final EditorFXScene scene = JFX_APPLICATION.getScene();
         scene.incrementLoading();
 
-        EXECUTOR_MANAGER.addBackgroundTask(() -> processOpenFileImpl(event, file));
+        EXECUTOR_MANAGER.addBackgroundTask(() -> processOpenFileImpl(event, file), TaskPriority.INTERACTIVE);
     }
 
     private void processOpenFileImpl(@NotNull final RequestedOpenFileEvent event, @NotNull final Path file) {
@@ -644,6 +644,11 @@ public abstract class AbstractSceneFileEditor<IM extends AbstractSceneFileEditor
 
         final EditingContainer editingContainer = getEditingContainer();
         editingContainer.notifyChangeProperty(object, propertyName);
+
+        if (object instanceof Spatial) {
+            final MA editorAppState = getEditorAppState();
+            editorAppState.notifyChanged((Spatial) object);
+        }
     }
 
     @Override
@@ -664,6 +669,7 @@ public abstract class AbstractSceneFileEditor<IM extends AbstractSceneFileEditor
         } else if (added instanceof AudioNode) {
             editorAppState.addAudioNode((AudioNode) added);
         } else if (added instanceof Spatial) {
+            editorAppState.notifyAdded((Spatial) added);
             handleAddedObject((Spatial) added);
         }
     }
@@ -680,6 +686,7 @@ public abstract class AbstractSceneFileEditor<IM extends AbstractSceneFileEditor
         } else if (removed instanceof AudioNode) {
             editorAppState.removeAudioNode((AudioNode) removed);
         } else if (removed instanceof Spatial) {
+            editorAppState.notifyRemoved((Spatial) removed);
             handleRemovedObject((Spatial) removed);
         }
     }
@@ -693,6 +700,9 @@ public abstract class AbstractSceneFileEditor<IM extends AbstractSceneFileEditor
         if (currentModel == oldChild) {
             setCurrentModel(unsafeCast(newChild));
             editorAppState.openModel(unsafeCast(newChild));
+        } else {
+            editorAppState.notifyRemoved(oldChild);
+            editorAppState.notifyAdded(newChild);
         }
 
         final ModelNodeTree modelNodeTree = getModelNodeTree();
@@ -709,6 +719,9 @@ public abstract class AbstractSceneFileEditor<IM extends AbstractSceneFileEditor
     public void notifyMoved(@NotNull final Node prevParent, @NotNull final Node newParent, @NotNull final Spatial child, int index) {
         final ModelNodeTree modelNodeTree = getModelNodeTree();
         modelNodeTree.notifyMoved(prevParent, newParent, child, index);
+
+        final MA editorAppState = getEditorAppState();
+        editorAppState.notifyChanged(child);
     }
 
     @Override
@@ -1269,7 +1282,7 @@ public abstract class AbstractSceneFileEditor<IM extends AbstractSceneFileEditor
      */
     @FromAnyThread
     public void notifyTransformed(@NotNull final Spatial spatial) {
-        EXECUTOR_MANAGER.addFXTask(() -> notifyTransformedImpl(spatial));
+        EXECUTOR_MANAGER.addFXUpdate(this, spatial, () -> notifyTransformedImpl(spatial));
     }
 
     /**
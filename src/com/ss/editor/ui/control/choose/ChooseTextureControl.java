@@ -239,6 +239,7 @@ public class ChooseTextureControl extends HBox {
 
         if (textureFile == null) {
             textureLabel.setText(Messages.MATERIAL_MODEL_PROPERTY_CONTROL_NO_TEXTURE);
+            IMAGE_MANAGER.cancelTexturePreview(preview);
             preview.setImage(null);
             textureTooltip.showImage(null);
             return;
@@ -247,7 +248,7 @@ public class ChooseTextureControl extends HBox {
         final Path assetFile = requireNonNull(getAssetFile(textureFile));
 
         textureLabel.setText(assetFile.toString());
-        preview.setImage(IMAGE_MANAGER.getTexturePreview(textureFile, 28, 28));
+        IMAGE_MANAGER.showTexturePreview(preview, textureFile, 28, 28);
         textureTooltip.showImage(textureFile);
     }
 }
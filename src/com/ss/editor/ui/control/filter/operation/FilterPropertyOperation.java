@@ -25,7 +25,7 @@ public class FilterPropertyOperation<D, T> extends AbstractPropertyOperation<Sce
     protected void redoImpl(@NotNull final SceneChangeConsumer editor) {
         EXECUTOR_MANAGER.addEditorThreadTask(() -> {
             apply(target, newValue);
-            EXECUTOR_MANAGER.addFXTask(() -> editor.notifyChangeProperty(null, target, propertyName));
+            EXECUTOR_MANAGER.addFXUpdate(target, propertyName, () -> editor.notifyChangeProperty(null, target, propertyName));
         });
     }
 
@@ -33,7 +33,7 @@ public class FilterPropertyOperation<D, T> extends AbstractPropertyOperation<Sce
     protected void undoImpl(@NotNull final SceneChangeConsumer editor) {
         EXECUTOR_MANAGER.addEditorThreadTask(() -> {
             apply(target, oldValue);
-            EXECUTOR_MANAGER.addFXTask(() -> editor.notifyChangeProperty(null, target, propertyName));
+            EXECUTOR_MANAGER.addFXUpdate(target, propertyName, () -> editor.notifyChangeProperty(null, target, propertyName));
         });
     }
 }
\ No newline at end of file
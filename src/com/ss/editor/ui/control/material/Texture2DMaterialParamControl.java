@@ -335,6 +335,7 @@ public class Texture2DMaterialParamControl extends MaterialParamControl {
         if (param == null) {
 
             final ImageView preview = getTexturePreview();
+            IMAGE_MANAGER.cancelTexturePreview(preview);
             preview.setImage(null);
 
             final CheckBox flipButton = getFlipButton();
@@ -365,7 +366,7 @@ public class Texture2DMaterialParamControl extends MaterialParamControl {
         final Path realFile = EditorUtil.getRealFile(textureKey.getName());
 
         final ImageView preview = getTexturePreview();
-        preview.setImage(IMAGE_MANAGER.getTexturePreview(realFile, 28, 28));
+        IMAGE_MANAGER.showTexturePreview(preview, realFile, 28, 28);
 
         textureTooltip.showImage(realFile);
     }
@@ -77,7 +77,7 @@ public class ParticleInfluencerPropertyOperation<D extends ParticleInfluencer, T
     protected void redoImpl(@NotNull final ModelChangeConsumer editor) {
         EXECUTOR_MANAGER.addEditorThreadTask(() -> {
             apply(influencer, newValue);
-            EXECUTOR_MANAGER.addFXTask(() -> editor.notifyChangeProperty(parent, influencer, propertyName));
+            EXECUTOR_MANAGER.addFXUpdate(influencer, propertyName, () -> editor.notifyChangeProperty(parent, influencer, propertyName));
         });
     }
 
@@ -92,7 +92,7 @@ public class ParticleInfluencerPropertyOperation<D extends ParticleInfluencer, T
     protected void undoImpl(@NotNull final ModelChangeConsumer editor) {
         EXECUTOR_MANAGER.addEditorThreadTask(() -> {
             apply(influencer, oldValue);
-            EXECUTOR_MANAGER.addFXTask(() -> editor.notifyChangeProperty(parent, influencer, propertyName));
+            EXECUTOR_MANAGER.addFXUpdate(influencer, propertyName, () -> editor.notifyChangeProperty(parent, influencer, propertyName));
         });
     }
 }
\ No newline at end of file
@@ -26,6 +26,9 @@ public interface CSSIds {
     String ASSET_COMPONENT = "AssetComponent";
     String ASSET_COMPONENT_BAR = "AssetComponentBar";
     String ASSET_COMPONENT_BAR_BUTTON = "AssetComponentBarButton";
+    String ASSET_COMPONENT_BAR_SEARCH_FIELD = "AssetComponentBarSearchField";
+    String ASSET_COMPONENT_BAR_PREVIEWS_PROGRESS = "AssetComponentBarPreviewsProgress";
+    String ASSET_COMPONENT_BAR_PREVIEWS_RESULT = "AssetComponentBarPreviewsResult";
     String ASSET_COMPONENT_RESOURCE_TREE_CELL = "AssetComponentResourceTreeCell";
 
     String JME_PREVIEW_MANAGER_IMAGE_VIEW = "JmePreviewManagerImageView";
@@ -1,8 +1,6 @@
 package com.ss.editor.ui.dialog.asset;
 
 import static com.ss.editor.Messages.ASSET_EDITOR_DIALOG_TITLE;
-import static com.ss.editor.ui.component.asset.tree.resource.ResourceElementFactory.createFor;
-import static com.ss.editor.ui.util.UIUtils.findItemForValue;
 import static java.util.Objects.requireNonNull;
 import com.ss.editor.Editor;
 import com.ss.editor.Messages;
@@ -17,8 +15,7 @@ import com.ss.editor.ui.css.CSSClasses;
 import com.ss.editor.ui.css.CSSIds;
 import com.ss.editor.ui.dialog.EditorDialog;
 import com.ss.editor.ui.event.FXEventManager;
-import com.ss.editor.ui.event.impl.CreatedFileEvent;
-import com.ss.editor.ui.event.impl.DeletedFileEvent;
+import com.ss.editor.ui.event.impl.ChangedFilesEvent;
 import com.ss.editor.ui.event.impl.RequestSelectFileEvent;
 import com.ss.editor.util.EditorUtil;
 import javafx.beans.binding.BooleanBinding;
@@ -78,14 +75,11 @@ public class AssetEditorDialog<C> extends EditorDialog {
     protected static final FXEventManager FX_EVENT_MANAGER = FXEventManager.getInstance();
     protected static final Editor EDITOR = Editor.getInstance();
 
-    @NotNull
-    private final EventHandler<Event> createdFileHandler = event -> processEvent((CreatedFileEvent) event);
-
     @NotNull
     private final EventHandler<Event> selectFileHandle = event -> processEvent((RequestSelectFileEvent) event);
 
     @NotNull
-    private final EventHandler<Event> deletedFileHandler = event -> processEvent((DeletedFileEvent) event);
+    private final EventHandler<Event> changedFilesHandler = event -> processEvent((ChangedFilesEvent) event);
 
     /**
      * The list of waited files to select.
@@ -248,39 +242,30 @@ public class AssetEditorDialog<C> extends EditorDialog {
 
         resourceTree.fill(currentAsset);
 
-        FX_EVENT_MANAGER.addEventHandler(CreatedFileEvent.EVENT_TYPE, createdFileHandler);
         FX_EVENT_MANAGER.addEventHandler(RequestSelectFileEvent.EVENT_TYPE, selectFileHandle);
-        FX_EVENT_MANAGER.addEventHandler(DeletedFileEvent.EVENT_TYPE, deletedFileHandler);
+        FX_EVENT_MANAGER.addEventHandler(ChangedFilesEvent.EVENT_TYPE, changedFilesHandler);
 
         EXECUTOR_MANAGER.addFXTask(resourceTree::requestFocus);
     }
 
     /**
-     * Handle creating file event.
+     * Handle changed files event.
      */
-    private void processEvent(@NotNull final CreatedFileEvent event) {
-
-        final Path file = event.getFile();
+    private void processEvent(@NotNull final ChangedFilesEvent event) {
 
-        final Array<Path> waitedFilesToSelect = getWaitedFilesToSelect();
-        final boolean waitedSelect = waitedFilesToSelect.contains(file);
+        final Array<Path> created = event.getCreated();
 
         final ResourceTree resourceTree = getResourceTree();
-        resourceTree.notifyCreated(file);
+        resourceTree.notifyChanged(event);
 
-        if (waitedSelect) waitedFilesToSelect.fastRemove(file);
-        if (waitedSelect || event.isNeedSelect()) resourceTree.expandTo(file, true);
-    }
-
-    /**
-     * Handle deleting file event.
-     */
-    private void processEvent(@NotNull final DeletedFileEvent event) {
-
-        final Path file = event.getFile();
+        final Array<Path> waitedFilesToSelect = getWaitedFilesToSelect();
+        if (waitedFilesToSelect.isEmpty()) return;
 
-        final ResourceTree resourceTree = getResourceTree();
-        resourceTree.notifyDeleted(file);
+        for (final Path file : created) {
+            if (!waitedFilesToSelect.contains(file)) continue;
+            waitedFilesToSelect.fastRemove(file);
+            resourceTree.expandTo(file, true);
+        }
     }
 
     /**
@@ -291,15 +276,13 @@ public class AssetEditorDialog<C> extends EditorDialog {
         final Path file = event.getFile();
 
         final ResourceTree resourceTree = getResourceTree();
-        final ResourceElement element = createFor(file);
-        final TreeItem<ResourceElement> treeItem = findItemForValue(resourceTree.getRoot(), element);
-
-        if (treeItem == null) {
-            getWaitedFilesToSelect().add(file);
-            return;
-        }
-
-        resourceTree.expandTo(treeItem, true);
+        resourceTree.findItem(file, treeItem -> {
+            if (treeItem == null) {
+                getWaitedFilesToSelect().add(file);
+            } else {
+                resourceTree.expandTo(treeItem, true);
+            }
+        });
     }
 
     /**
@@ -374,6 +357,8 @@ public class AssetEditorDialog<C> extends EditorDialog {
 
         if (JMEFilePreviewManager.isJmeFile(file)) {
 
+            JAVA_FX_IMAGE_MANAGER.cancelTexturePreview(imageView);
+
             final JMEFilePreviewManager previewManager = JMEFilePreviewManager.getInstance();
             previewManager.show(file, width, height);
 
@@ -389,8 +374,8 @@ public class AssetEditorDialog<C> extends EditorDialog {
 
         } else if (JavaFXImageManager.isImage(file)) {
 
-            final Image preview = JAVA_FX_IMAGE_MANAGER.getTexturePreview(file, width, height);
-            imageView.setImage(preview);
+            imageView.imageProperty().unbind();
+            JAVA_FX_IMAGE_MANAGER.showTexturePreview(imageView, file, width, height);
 
             textView.setVisible(false);
             imageView.setVisible(true);
@@ -398,6 +383,7 @@ public class AssetEditorDialog<C> extends EditorDialog {
         } else if (JMEFilePreviewManager.isAudioFile(file)) {
         } else if (file != null && !Files.isDirectory(file)) {
 
+            JAVA_FX_IMAGE_MANAGER.cancelTexturePreview(imageView);
             imageView.imageProperty().unbind();
             imageView.setImage(null);
 
@@ -407,6 +393,7 @@ public class AssetEditorDialog<C> extends EditorDialog {
 
         } else {
 
+            JAVA_FX_IMAGE_MANAGER.cancelTexturePreview(imageView);
             imageView.imageProperty().unbind();
             imageView.setImage(null);
 
@@ -418,9 +405,8 @@ public class AssetEditorDialog<C> extends EditorDialog {
     @Override
     public void hide() {
 
-        FX_EVENT_MANAGER.removeEventHandler(CreatedFileEvent.EVENT_TYPE, createdFileHandler);
         FX_EVENT_MANAGER.removeEventHandler(RequestSelectFileEvent.EVENT_TYPE, selectFileHandle);
-        FX_EVENT_MANAGER.removeEventHandler(DeletedFileEvent.EVENT_TYPE, deletedFileHandler);
+        FX_EVENT_MANAGER.removeEventHandler(ChangedFilesEvent.EVENT_TYPE, changedFilesHandler);
 
         final JMEFilePreviewManager previewManager = JMEFilePreviewManager.getInstance();
         previewManager.clear();
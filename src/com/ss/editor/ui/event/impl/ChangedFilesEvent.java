@@ -0,0 +1,107 @@
+package com.ss.editor.ui.event.impl;
+
+import com.ss.editor.ui.event.SceneEvent;
+import javafx.event.Event;
+import javafx.event.EventType;
+import org.jetbrains.annotations.NotNull;
+import rlib.util.array.Array;
+import rlib.util.array.ArrayFactory;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The event about a batch of created and deleted files which were collected by the file watcher.
+ *
+ * @author JavaSaBr
+ */
+public class ChangedFilesEvent extends SceneEvent {
+
+    @NotNull
+    public static final EventType<SceneEvent> EVENT_TYPE;
+
+    static {
+        synchronized (Event.class) {
+            EVENT_TYPE = new EventType<>(SceneEvent.EVENT_TYPE, ChangedFilesEvent.class.getSimpleName());
+        }
+    }
+
+    /**
+     * The list of created files.
+     */
+    @NotNull
+    private final Array<Path> created;
+
+    /**
+     * The list of deleted files.
+     */
+    @NotNull
+    private final Array<Path> deleted;
+
+    /**
+     * The set of changed files which are directories.
+     */
+    @NotNull
+    private final Set<Path> directories;
+
+    public ChangedFilesEvent() {
+        super(EVENT_TYPE);
+        this.created = ArrayFactory.newArray(Path.class);
+        this.deleted = ArrayFactory.newArray(Path.class);
+        this.directories = new HashSet<>();
+    }
+
+    /**
+     * Add a created file.
+     *
+     * @param file      the created file.
+     * @param directory true if the file is a directory.
+     */
+    public void addCreated(@NotNull final Path file, final boolean directory) {
+        created.add(file);
+        if (directory) directories.add(file);
+    }
+
+    /**
+     * Add a deleted file.
+     *
+     * @param file      the deleted file.
+     * @param directory true if the file was a directory.
+     */
+    public void addDeleted(@NotNull final Path file, final boolean directory) {
+        deleted.add(file);
+        if (directory) directories.add(file);
+    }
+
+    /**
+     * @return the list of created files.
+     */
+    @NotNull
+    public Array<Path> getCreated() {
+        return created;
+    }
+
+    /**
+     * @return the list of deleted files.
+     */
+    @NotNull
+    public Array<Path> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * @param file the changed file.
+     * @return true if the file is a directory.
+     */
+    public boolean isDirectory(@NotNull final Path file) {
+        return directories.contains(file);
+    }
+
+    /**
+     * @return true if this batch doesn't have any change.
+     */
+    public boolean isEmpty() {
+        return created.isEmpty() && deleted.isEmpty();
+    }
+}
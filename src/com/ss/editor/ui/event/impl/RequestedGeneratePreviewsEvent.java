@@ -0,0 +1,45 @@
+package com.ss.editor.ui.event.impl;
+
+import static java.util.Objects.requireNonNull;
+import com.ss.editor.ui.event.SceneEvent;
+import javafx.event.EventType;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+
+/**
+ * The event about request to generate previews of files in a folder.
+ *
+ * @author JavaSaBr
+ */
+public class RequestedGeneratePreviewsEvent extends SceneEvent {
+
+    public static final EventType<SceneEvent> EVENT_TYPE;
+
+    static {
+        synchronized (EventType.class) {
+            EVENT_TYPE = new EventType<>(SceneEvent.EVENT_TYPE, RequestedGeneratePreviewsEvent.class.getSimpleName());
+        }
+    }
+
+    private static final String FOLDER = "folder";
+
+    public RequestedGeneratePreviewsEvent() {
+        super(EVENT_TYPE);
+    }
+
+    /**
+     * @return the folder.
+     */
+    @NotNull
+    public Path getFolder() {
+        return requireNonNull(get(FOLDER));
+    }
+
+    /**
+     * @param folder the folder.
+     */
+    public void setFolder(@NotNull final Path folder) {
+        set(FOLDER, folder);
+    }
+}
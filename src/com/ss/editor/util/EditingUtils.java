@@ -1,5 +1,8 @@
 package com.ss.editor.util;
 
+import com.jme3.collision.CollisionResult;
+import com.jme3.math.FastMath;
+import com.jme3.math.Ray;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
@@ -52,6 +55,24 @@ public class EditingUtils {
         return control == null ? null : control.getEditedModel();
     }
 
+    /**
+     * Find a contact point of the ray with the model.
+     *
+     * @param model the model.
+     * @param ray   the ray.
+     * @param store the vector to store the contact point.
+     * @return true if the contact point was found.
+     */
+    public static boolean findContactPoint(@NotNull final Spatial model, @NotNull final Ray ray,
+                                           @NotNull final Vector3f store) {
+
+        final CollisionResult collision = GeomUtils.getCollisionFromRay(model, ray);
+        if (collision == null) return false;
+
+        store.set(collision.getContactPoint());
+        return true;
+    }
+
     /**
      * Check that a point is contains in a geometry.
      *
@@ -67,9 +88,8 @@ public class EditingUtils {
 
         if (mesh instanceof Sphere) {
             final float radius = ((Sphere) mesh).getRadius() * localScale.getX();
-            final Vector2f point = new Vector2f(x, y);
             // return true if the distance is less than equal to the radius
-            return Math.abs(point.length()) <= radius;
+            return FastMath.sqrt(x * x + y * y) <= radius;
         }
 
         return false;
@@ -267,6 +267,44 @@ public class GeomUtils {
         ray.setOrigin(click3d);
         ray.setDirection(dir);
 
+        return getCollisionFromRay(spatial, ray);
+    }
+
+    /**
+     * Get a ray from the camera through the cursor position.
+     *
+     * @param store the ray to store the result.
+     * @return the ray.
+     */
+    @NotNull
+    public static Ray getRayFromCursor(@NotNull final Ray store) {
+
+        final Editor editor = Editor.getInstance();
+        final InputManager inputManager = editor.getInputManager();
+        final Camera camera = editor.getCamera();
+        final Vector2f cursor = inputManager.getCursorPosition();
+
+        final Vector3f origin = camera.getWorldCoordinates(cursor, 0f, store.getOrigin());
+
+        camera.getWorldCoordinates(cursor, 1f, store.getDirection())
+                .subtractLocal(origin)
+                .normalizeLocal();
+
+        store.setLimit(Float.POSITIVE_INFINITY);
+
+        return store;
+    }
+
+    /**
+     * Get a collision on spatial by the ray.
+     *
+     * @param spatial the spatial.
+     * @param ray     the ray.
+     * @return the collision or null.
+     */
+    @Nullable
+    public static CollisionResult getCollisionFromRay(@NotNull final Spatial spatial, @NotNull final Ray ray) {
+
         final CollisionResults results = new CollisionResults();
 
         spatial.updateModelBound();
@@ -0,0 +1,242 @@
+package com.ss.editor.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The class with utility methods for working with ARGB pixels of images.
+ *
+ * @author JavaSaBr
+ */
+public class ImageUtils {
+
+    /**
+     * The min count of result pixels to process rows in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 128 * 128;
+
+    /**
+     * Downscale ARGB pixels. The pixels are halved by a 2x2 box filter while the result is at least
+     * twice bigger than the target size, the last step is bilinear. Colors are weighted by alpha
+     * to avoid dark edges around transparent pixels.
+     *
+     * @param pixels       the source pixels.
+     * @param width        the source width.
+     * @param height       the source height.
+     * @param targetWidth  the target width.
+     * @param targetHeight the target height.
+     * @return the scaled pixels or the source pixels if the sizes are the same.
+     */
+    @NotNull
+    public static int[] downscale(@NotNull final int[] pixels, final int width, final int height,
+                                  final int targetWidth, final int targetHeight) {
+
+        if (targetWidth < 1 || targetHeight < 1) {
+            throw new IllegalArgumentException("the target size should be positive.");
+        } else if (pixels.length < width * height) {
+            throw new IllegalArgumentException("the pixels array is less than " + width + "x" + height);
+        }
+
+        int[] current = pixels;
+        int currentWidth = width;
+        int currentHeight = height;
+
+        while (currentWidth >= targetWidth * 2 && currentHeight >= targetHeight * 2) {
+            current = halve(current, currentWidth, currentHeight);
+            currentWidth /= 2;
+            currentHeight /= 2;
+        }
+
+        if (currentWidth == targetWidth && currentHeight == targetHeight) {
+            return current;
+        }
+
+        return bilinear(current, currentWidth, currentHeight, targetWidth, targetHeight);
+    }
+
+    /**
+     * Get the size of the image which is fit to the max size with the same aspect ratio.
+     * Images which are less than the max size are not changed.
+     *
+     * @param width     the width of the image.
+     * @param height    the height of the image.
+     * @param maxWidth  the max width.
+     * @param maxHeight the max height.
+     * @return the array of the fit width and height.
+     */
+    @NotNull
+    public static int[] fitSize(final int width, final int height, final int maxWidth, final int maxHeight) {
+
+        if (width <= maxWidth && height <= maxHeight) {
+            return new int[]{width, height};
+        }
+
+        final float scale = Math.min(maxWidth / (float) width, maxHeight / (float) height);
+
+        final int fitWidth = Math.max(1, Math.min(maxWidth, Math.round(width * scale)));
+        final int fitHeight = Math.max(1, Math.min(maxHeight, Math.round(height * scale)));
+
+        return new int[]{fitWidth, fitHeight};
+    }
+
+    /**
+     * Halve the pixels using the 2x2 box filter, the last odd column or row is skipped.
+     */
+    @NotNull
+    private static int[] halve(@NotNull final int[] pixels, final int width, final int height) {
+
+        final int resultWidth = width / 2;
+        final int resultHeight = height / 2;
+        final int[] result = new int[resultWidth * resultHeight];
+
+        forEachRow(resultWidth, resultHeight, y -> {
+
+            final int top = y * 2 * width;
+            final int bottom = top + width;
+            final int offset = y * resultWidth;
+
+            for (int x = 0, sx = 0; x < resultWidth; x++, sx += 2) {
+                result[offset + x] = average(pixels[top + sx], pixels[top + sx + 1],
+                        pixels[bottom + sx], pixels[bottom + sx + 1]);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Scale the pixels using bilinear interpolation.
+     */
+    @NotNull
+    private static int[] bilinear(@NotNull final int[] pixels, final int width, final int height,
+                                  final int resultWidth, final int resultHeight) {
+
+        final int[] result = new int[resultWidth * resultHeight];
+
+        final int[] left = new int[resultWidth];
+        final int[] right = new int[resultWidth];
+        final int[] weightX = new int[resultWidth];
+
+        final float scaleX = width / (float) resultWidth;
+        final float scaleY = height / (float) resultHeight;
+
+        for (int x = 0; x < resultWidth; x++) {
+            final float sourceX = Math.max(0F, (x + 0.5F) * scaleX - 0.5F);
+            final int x0 = Math.min((int) sourceX, width - 1);
+            left[x] = x0;
+            right[x] = Math.min(x0 + 1, width - 1);
+            weightX[x] = (int) ((sourceX - x0) * 256);
+        }
+
+        forEachRow(resultWidth, resultHeight, y -> {
+
+            final float sourceY = Math.max(0F, (y + 0.5F) * scaleY - 0.5F);
+            final int y0 = Math.min((int) sourceY, height - 1);
+            final int top = y0 * width;
+            final int bottom = Math.min(y0 + 1, height - 1) * width;
+            final int weightY = (int) ((sourceY - y0) * 256);
+            final int offset = y * resultWidth;
+
+            for (int x = 0; x < resultWidth; x++) {
+
+                final int wx = weightX[x];
+
+                final int w00 = (256 - wx) * (256 - weightY);
+                final int w01 = wx * (256 - weightY);
+                final int w10 = (256 - wx) * weightY;
+                final int w11 = wx * weightY;
+
+                result[offset + x] = blend(pixels[top + left[x]], w00, pixels[top + right[x]], w01,
+                        pixels[bottom + left[x]], w10, pixels[bottom + right[x]], w11);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Average 4 pixels with weighting colors by alpha.
+     */
+    private static int average(final int first, final int second, final int third, final int fourth) {
+
+        if ((first & second & third & fourth) >>> 24 != 0xFF) {
+            return blend(first, 1, second, 1, third, 1, fourth, 1);
+        }
+
+        final int redBlue = ((first & 0xFF00FF) + (second & 0xFF00FF) + (third & 0xFF00FF) +
+                (fourth & 0xFF00FF) + 0x20002) >>> 2;
+        final int green = ((first & 0xFF00) + (second & 0xFF00) + (third & 0xFF00) + (fourth & 0xFF00) + 0x200) >>> 2;
+
+        return 0xFF000000 | (redBlue & 0xFF00FF) | (green & 0xFF00);
+    }
+
+    /**
+     * Blend 4 pixels with the weights, colors are weighted by alpha too.
+     */
+    private static int blend(final int first, final int firstWeight, final int second, final int secondWeight,
+                             final int third, final int thirdWeight, final int fourth, final int fourthWeight) {
+
+        if ((first & second & third & fourth) >>> 24 == 0xFF) {
+            return blendOpaque(first, firstWeight, second, secondWeight, third, thirdWeight, fourth, fourthWeight);
+        }
+
+        final long a1 = (long) (first >>> 24) * firstWeight;
+        final long a2 = (long) (second >>> 24) * secondWeight;
+        final long a3 = (long) (third >>> 24) * thirdWeight;
+        final long a4 = (long) (fourth >>> 24) * fourthWeight;
+
+        final long alphaSum = a1 + a2 + a3 + a4;
+        if (alphaSum == 0) return 0;
+
+        final long red = ((first >> 16) & 0xFF) * a1 + ((second >> 16) & 0xFF) * a2 +
+                ((third >> 16) & 0xFF) * a3 + ((fourth >> 16) & 0xFF) * a4;
+        final long green = ((first >> 8) & 0xFF) * a1 + ((second >> 8) & 0xFF) * a2 +
+                ((third >> 8) & 0xFF) * a3 + ((fourth >> 8) & 0xFF) * a4;
+        final long blue = (first & 0xFF) * a1 + (second & 0xFF) * a2 + (third & 0xFF) * a3 + (fourth & 0xFF) * a4;
+
+        final long weightSum = (long) firstWeight + secondWeight + thirdWeight + fourthWeight;
+        final int alpha = (int) ((alphaSum + weightSum / 2) / weightSum);
+
+        final long half = alphaSum / 2;
+
+        return (alpha << 24) |
+                (int) ((red + half) / alphaSum) << 16 |
+                (int) ((green + half) / alphaSum) << 8 |
+                (int) ((blue + half) / alphaSum);
+    }
+
+    /**
+     * Blend 4 opaque pixels with the weights.
+     */
+    private static int blendOpaque(final int first, final int firstWeight, final int second, final int secondWeight,
+                                   final int third, final int thirdWeight, final int fourth, final int fourthWeight) {
+
+        final long weightSum = (long) firstWeight + secondWeight + thirdWeight + fourthWeight;
+        final long half = weightSum / 2;
+
+        final long red = ((first >> 16) & 0xFF) * (long) firstWeight + ((second >> 16) & 0xFF) * (long) secondWeight +
+                ((third >> 16) & 0xFF) * (long) thirdWeight + ((fourth >> 16) & 0xFF) * (long) fourthWeight;
+        final long green = ((first >> 8) & 0xFF) * (long) firstWeight + ((second >> 8) & 0xFF) * (long) secondWeight +
+                ((third >> 8) & 0xFF) * (long) thirdWeight + ((fourth >> 8) & 0xFF) * (long) fourthWeight;
+        final long blue = (first & 0xFF) * (long) firstWeight + (second & 0xFF) * (long) secondWeight +
+                (third & 0xFF) * (long) thirdWeight + (fourth & 0xFF) * (long) fourthWeight;
+
+        return 0xFF000000 |
+                (int) ((red + half) / weightSum) << 16 |
+                (int) ((green + half) / weightSum) << 8 |
+                (int) ((blue + half) / weightSum);
+    }
+
+    /**
+     * Process the rows, in parallel if there are many pixels.
+     */
+    private static void forEachRow(final int width, final int height, @NotNull final IntConsumer processor) {
+        if ((long) width * height >= PARALLEL_THRESHOLD && height > 1) {
+            IntStream.range(0, height).parallel().forEach(processor);
+        } else {
+            for (int y = 0; y < height; y++) processor.accept(y);
+        }
+    }
+}